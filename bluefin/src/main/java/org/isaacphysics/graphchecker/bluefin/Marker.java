@@ -31,10 +31,11 @@ import java.util.stream.Collectors;
 
 public class Marker {
 
-    private final AnswerToInput answerToInput = new AnswerToInput();
+    private final AnswerToInput answerToInput;
     private final Features features;
 
     public Marker(SettingsWrapper settings) {
+        answerToInput = new AnswerToInput(settings);
         features = new Features(settings);
     }
 
@@ -19,6 +19,7 @@ package org.isaacphysics.graphchecker.bluefin;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.isaacphysics.graphchecker.data.Input;
 import org.isaacphysics.graphchecker.features.Features;
+import org.isaacphysics.graphchecker.settings.CustomSettings;
 
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
@@ -20,6 +20,7 @@ import org.isaacphysics.graphchecker.data.Input;
 import org.isaacphysics.graphchecker.data.Point;
 import org.isaacphysics.graphchecker.dos.GraphAnswer;
 import org.isaacphysics.graphchecker.translation.AnswerToInput;
+import org.isaacphysics.graphchecker.settings.CustomSettings;
 
 import javax.imageio.ImageIO;
 import java.awt.Color;
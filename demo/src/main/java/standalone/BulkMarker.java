@@ -0,0 +1,155 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package standalone;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.isaacphysics.graphchecker.dos.GraphAnswer;
+import standalone.dos.IsaacAnswerResponse;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+/**
+ * Marks a stream of answers in parallel, for regrading many answers in one request.
+ *
+ * Each line of the input is a JSON record of a question id and an answer:
+ * <pre>{"questionId": "...", "answer": {"canvasWidth": ..., "curves": [...]}}</pre>
+ *
+ * Each line of the output is a JSON record with the line number of the answer, its question id and either its
+ * response or an error. Results are written in the order the answers were read, as soon as each is marked. At most
+ * a window of answers are read ahead of the oldest one not yet written, so a slow answer holds up reading rather than
+ * filling memory. Blank lines are skipped.
+ */
+public class BulkMarker {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ExecutorService executor;
+    private final int window;
+    private final BiFunction<String, GraphAnswer, IsaacAnswerResponse> marker;
+
+    /**
+     * Create a bulk marker.
+     * @param executor The executor to mark answers on.
+     * @param window The most answers to have read but not yet written.
+     * @param marker Marks an answer to a question, throwing an exception if it can't.
+     */
+    public BulkMarker(ExecutorService executor, int window,
+                      BiFunction<String, GraphAnswer, IsaacAnswerResponse> marker) {
+        if (window < 1) {
+            throw new IllegalArgumentException("The window must be at least 1, not " + window);
+        }
+        this.executor = executor;
+        this.window = window;
+        this.marker = marker;
+    }
+
+    /**
+     * Mark every answer in a stream.
+     * @param records The answers, one JSON record per line.
+     * @param results Where to write the results, one JSON record per line.
+     * @throws IOException If the answers can't be read or the results can't be written.
+     */
+    public void mark(InputStream records, OutputStream results) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(records, StandardCharsets.UTF_8));
+        Writer writer = new OutputStreamWriter(results, StandardCharsets.UTF_8);
+        Deque<Future<ObjectNode>> pending = new ArrayDeque<>();
+        try {
+            int lineNumber = 0;
+            String record;
+            while ((record = reader.readLine()) != null) {
+                lineNumber++;
+                if (record.isBlank()) {
+                    continue;
+                }
+                int number = lineNumber;
+                String text = record;
+                pending.add(executor.submit(() -> mark(number, text)));
+
+                while (pending.size() >= window || (!pending.isEmpty() && pending.peek().isDone())) {
+                    write(writer, pending.remove());
+                }
+            }
+            while (!pending.isEmpty()) {
+                write(writer, pending.remove());
+            }
+        } finally {
+            // If the client has gone away, don't carry on marking for it
+            for (Future<ObjectNode> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Mark one answer.
+     * @param lineNumber The line the answer was on.
+     * @param record The JSON record of the answer.
+     * @return The JSON record of the result.
+     */
+    private ObjectNode mark(int lineNumber, String record) {
+        ObjectNode result = OBJECT_MAPPER.createObjectNode();
+        result.put("line", lineNumber);
+        try {
+            JsonNode node = OBJECT_MAPPER.readTree(record);
+            String questionId = node.path("questionId").asText(null);
+            result.put("questionId", questionId);
+            if (questionId == null || !node.hasNonNull("answer")) {
+                throw new IllegalArgumentException("Expected a record with a questionId and an answer");
+            }
+            GraphAnswer answer = OBJECT_MAPPER.treeToValue(node.get("answer"), GraphAnswer.class);
+            result.set("response", OBJECT_MAPPER.valueToTree(marker.apply(questionId, answer)));
+        } catch (Exception e) {
+            result.put("error", String.valueOf(e.getMessage()));
+        }
+        return result;
+    }
+
+    /**
+     * Wait for a result and write it.
+     * @param writer Where to write the result.
+     * @param future The result.
+     * @throws IOException If the result can't be written.
+     */
+    private static void write(Writer writer, Future<ObjectNode> future) throws IOException {
+        ObjectNode result;
+        try {
+            result = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while marking", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Marking failed", e.getCause());
+        }
+        writer.write(OBJECT_MAPPER.writeValueAsString(result));
+        writer.write('\n');
+        writer.flush();
+    }
+}
@@ -21,14 +21,53 @@ import standalone.dos.GraphSolutionItem;
 import standalone.dos.GraphSolutions;
 import standalone.dos.IsaacAnswerResponse;
 import org.isaacphysics.graphchecker.features.Features;
+import org.isaacphysics.graphchecker.settings.SettingsWrapper;
 import org.isaacphysics.graphchecker.translation.AnswerToInput;
+import org.isaacphysics.graphchecker.translation.InputQuantiser;
+
+import jakarta.annotation.Nullable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Wrapper of Features to take input in the Isaac JSON format and return it in an acceptable format.
  */
 public class Marker {
 
-    private final AnswerToInput answerToInput = new AnswerToInput();
+    private final SettingsWrapper settings = SettingsWrapper.DEFAULT;
+    private final Features features = new Features(settings);
+    private final AnswerToInput answerToInput = new AnswerToInput(settings);
+    private final InputQuantiser inputQuantiser = new InputQuantiser(settings);
+
+    /**
+     * The compiled matcher of each graph definition, so a specification is only parsed the first time it is used.
+     */
+    private final ConcurrentMap<String, Features.Matcher> matchers = new ConcurrentHashMap<>();
+
+    /**
+     * @return The settings answers are marked with.
+     */
+    public SettingsWrapper getSettings() {
+        return settings;
+    }
+
+    /**
+     * Compile the graph definitions of a list of solutions, so marking against them doesn't have to.
+     * @param question The list of solutions.
+     */
+    public void compile(GraphSolutions question) {
+        for (GraphSolutionItem solution : question.getAnswers()) {
+            matcherFor(solution.getGraphDefinition());
+        }
+    }
+
+    /**
+     * @param graphDefinition A graph definition.
+     * @return The matcher for it, compiling it if this is the first time it has been seen.
+     */
+    private Features.Matcher matcherFor(String graphDefinition) {
+        return matchers.computeIfAbsent(graphDefinition, features::matcher);
+    }
 
     /**
      * Mark an answer against a list of solutions.
@@ -37,16 +76,42 @@ public class Marker {
      * @return The response from the list of solutions for the first solution that matched.
      */
     public IsaacAnswerResponse mark(GraphSolutions question, GraphAnswer graphAnswer) {
+        return mark(question, toInput(graphAnswer));
+    }
 
-        Input input = answerToInput.apply(graphAnswer);
-
+    /**
+     * Mark an input against a list of solutions.
+     * @param question The list of solutions.
+     * @param input The answer, converted to Input.
+     * @return The response from the list of solutions for the first solution that matched.
+     */
+    public IsaacAnswerResponse mark(GraphSolutions question, Input input) {
         return question.getAnswers().stream()
-            .filter(solution -> new Features().matcher(solution.getGraphDefinition()).test(input))
+            .filter(solution -> matcherFor(solution.getGraphDefinition()).test(input))
             .findFirst()
             .map(GraphSolutionItem::getResponse)
             .orElse(question.getUnmatchedResponse());
     }
 
+    /**
+     * Convert an answer into Input, ready for marking.
+     * @param graphAnswer The answer.
+     * @return The answer as Input.
+     */
+    public Input toInput(GraphAnswer graphAnswer) {
+        return answerToInput.apply(graphAnswer);
+    }
+
+    /**
+     * Snap an input to a grid, so near-identical answers can share a mark.
+     * @param input The answer, converted to Input.
+     * @return The quantised input, or null if it must be marked as it is.
+     */
+    @Nullable
+    public InputQuantiser.Quantised quantise(Input input) {
+        return inputQuantiser.quantise(input);
+    }
+
     /**
      * Convert an answer into a feature specification.
      * @param graphAnswer The solution to be analysed.
@@ -55,6 +120,6 @@ public class Marker {
     public String generate(GraphAnswer graphAnswer) {
         Input input = answerToInput.apply(graphAnswer);
 
-        return new Features().generate(input);
+        return features.generate(input);
     }
 }
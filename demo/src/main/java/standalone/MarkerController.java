@@ -17,9 +17,12 @@ package standalone;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.isaacphysics.graphchecker.data.Input;
 import org.isaacphysics.graphchecker.dos.GraphAnswer;
+import org.isaacphysics.graphchecker.translation.InputQuantiser;
 import standalone.dos.GraphSolutionItem;
 import standalone.dos.GraphSolutions;
 import standalone.dos.IsaacAnswer;
@@ -28,18 +31,24 @@ import standalone.dos.ResponseExplanation;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @SuppressWarnings("checkstyle:all")
 @Path("/isaac-api/api/questions")
@@ -48,6 +57,41 @@ public class MarkerController {
 
     private final ObjectMapper om = new ObjectMapper();
 
+    // Run with -Dgraphchecker.recordSamples=false to stop submissions being saved, e.g. while load testing
+    private static final boolean RECORD_SAMPLES =
+        Boolean.parseBoolean(System.getProperty("graphchecker.recordSamples", "true"));
+
+    // Run with -Dgraphchecker.resultCacheSize=0 to mark every submission, e.g. while load testing the marker itself
+    private static final ResultCache RESULTS =
+        new ResultCache(Long.getLong("graphchecker.resultCacheSize", 10000));
+
+    // Run with -Dgraphchecker.quantiseAnswers=true to share marks between answers that differ only by sub-pixel jitter
+    private static final boolean QUANTISE_ANSWERS =
+        Boolean.parseBoolean(System.getProperty("graphchecker.quantiseAnswers", "false"));
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    // Run with -Dgraphchecker.bulkThreads=N to mark bulk requests on N threads, shared by all bulk requests
+    private static final int BULK_THREADS =
+        Integer.getInteger("graphchecker.bulkThreads", Runtime.getRuntime().availableProcessors());
+
+    // Run with -Dgraphchecker.bulkWindow=N to change how many answers each bulk request reads ahead of its results
+    private static final int BULK_WINDOW = Integer.getInteger("graphchecker.bulkWindow", 4 * BULK_THREADS);
+
+    private static final ExecutorService BULK_EXECUTOR = Executors.newFixedThreadPool(BULK_THREADS,
+        new ThreadFactoryBuilder().setNameFormat("bulk-marker-%d").setDaemon(true).build());
+
+    // Run with -Dgraphchecker.warmupRounds=N to mark the recorded samples N times at startup, or 0 to only compile the
+    // specifications
+    private static final int WARMUP_ROUNDS = Integer.getInteger("graphchecker.warmupRounds", 3);
+
+    // Run with -Dgraphchecker.exitAfterWarmup=true to stop the server once it has warmed up, e.g. for the training run
+    // that records which classes to put in a class data sharing archive
+    private static final boolean EXIT_AFTER_WARMUP =
+        Boolean.parseBoolean(System.getProperty("graphchecker.exitAfterWarmup", "false"));
+
+    private static final File SAMPLES = new File("../samples");
+
     private final Marker marker = new Marker();
 
     private GraphSolutions getSolution(String... answers) {
@@ -68,6 +112,10 @@ public class MarkerController {
 
     private final Map<String, GraphSolutions> questionData;
 
+    private final Warmup warmup;
+
+    // There is one controller, made when the application starts, so questions are compiled and the marker is warmed up
+    // once, in the background; the readiness endpoint reports when it is done.
     public MarkerController() {
         questionData = ImmutableMap.<String, GraphSolutions>builder()
             .put("48cfddd0-8e66-4e2a-b462-fc27aeb97cee",
@@ -125,6 +173,22 @@ public class MarkerController {
                 )
             )
             .build();
+
+        warmup = new Warmup(marker, questionData, SAMPLES, WARMUP_ROUNDS);
+        Thread warmupThread = new Thread(() -> {
+            try {
+                warmup.run();
+            } finally {
+                // Exit non-zero if anything went wrong, so a training run that fails to warm up fails the build
+                if (EXIT_AFTER_WARMUP) {
+                    int exitCode = warmup.isFailed() || !warmup.isFinished() ? 1 : 0;
+                    log.info("Exiting with {} after warming up", exitCode);
+                    System.exit(exitCode);
+                }
+            }
+        }, "marker-warmup");
+        warmupThread.setDaemon(true);
+        warmupThread.start();
     }
 
     @POST
@@ -150,12 +214,63 @@ public class MarkerController {
                 throw new Exception("Unknown question " + questionId);
             }
 
-            save(questionId, question, graphAnswer);
-            return marker.mark(question, graphAnswer);
+            if (RECORD_SAMPLES) {
+                save(questionId, question, graphAnswer);
+            }
+            return mark(questionId, question, graphAnswer);
         }
         throw new Exception("Unknown answer type " + answer.getType());
     }
 
+    // Marks a stream of {questionId, answer} records, one per line, streaming back one result per line as they are
+    // marked. Answers marked this way are not saved as samples.
+    @POST
+    @Path("/graph_sketcher_bulk")
+    @Consumes(NDJSON)
+    @Produces(NDJSON)
+    public StreamingOutput getBulkMarks(InputStream records) {
+        BulkMarker bulkMarker = new BulkMarker(BULK_EXECUTOR, BULK_WINDOW, (questionId, graphAnswer) -> {
+            GraphSolutions question = questionData.get(questionId);
+            if (question == null) {
+                throw new IllegalArgumentException("Unknown question " + questionId);
+            }
+            return mark(questionId, question, graphAnswer);
+        });
+        return output -> bulkMarker.mark(records, output);
+    }
+
+    private IsaacAnswerResponse mark(String questionId, GraphSolutions question, GraphAnswer graphAnswer) {
+        return RESULTS.get(questionId, question, marker.getSettings(), graphAnswer,
+            () -> markUncached(questionId, question, graphAnswer));
+    }
+
+    private IsaacAnswerResponse markUncached(String questionId, GraphSolutions question, GraphAnswer graphAnswer) {
+        Input input = marker.toInput(graphAnswer);
+        InputQuantiser.Quantised quantised = QUANTISE_ANSWERS ? marker.quantise(input) : null;
+        if (quantised == null) {
+            return marker.mark(question, input);
+        }
+        return RESULTS.get(questionId, question, marker.getSettings(), quantised,
+            () -> marker.mark(question, quantised.getInput()));
+    }
+
+    @GET
+    @Path("/graph_sketcher_cache")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Object> getCacheStats() {
+        return RESULTS.getStats();
+    }
+
+    // Answers to the readiness probe: 200 once the marker has warmed up, and 503 until then, so a load balancer holds
+    // back traffic from a server that has only just started. A marker that can't mark at all is never ready.
+    @GET
+    @Path("/graph_sketcher_ready")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getReady() {
+        Response.Status status = warmup.isReady() ? Response.Status.OK : Response.Status.SERVICE_UNAVAILABLE;
+        return Response.status(status).entity(warmup.getStatus()).build();
+    }
+
     @Context
     private HttpServletRequest currentRequest;
 
@@ -163,7 +278,7 @@ public class MarkerController {
 
     private void save(String questionId, GraphSolutions question, GraphAnswer graphAnswer) {
         try {
-            File rootPath = new File("../samples", questionId);
+            File rootPath = new File(SAMPLES, questionId);
             File unknownPath = new File(rootPath, "unknown");
 
             Files.createDirectories(unknownPath.toPath());
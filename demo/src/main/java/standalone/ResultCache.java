@@ -0,0 +1,179 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package standalone;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.isaacphysics.graphchecker.dos.GraphAnswer;
+import org.isaacphysics.graphchecker.settings.SettingsWrapper;
+import org.isaacphysics.graphchecker.translation.AnswerHash;
+import org.isaacphysics.graphchecker.translation.InputQuantiser;
+import standalone.dos.GraphSolutionItem;
+import standalone.dos.GraphSolutions;
+import standalone.dos.IsaacAnswerResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of marks, so that resubmitted and retried answers are not marked again.
+ *
+ * Results are keyed by the question, a hash of its specifications (so editing a question doesn't return stale marks),
+ * the settings object, and the canonical hash of the answer. The least recently used results are evicted once the
+ * cache is full.
+ *
+ * Answers can also be looked up by their quantised input, so that answers which differ only by sub-pixel jitter share
+ * a mark. Exact and quantised results are kept apart in the same cache.
+ */
+public class ResultCache {
+
+    private final Cache<Key, IsaacAnswerResponse> cache;
+
+    /**
+     * Create a result cache.
+     * @param maximumSize The most results to keep; 0 keeps none.
+     */
+    public ResultCache(long maximumSize) {
+        cache = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Get the mark for an answer, marking it only if it hasn't been marked with this question and settings before.
+     *
+     * @param questionId The question's id.
+     * @param question The question's solutions.
+     * @param settings The settings the marker uses.
+     * @param graphAnswer The answer.
+     * @param mark Marks the answer if there is no cached result.
+     * @return The mark.
+     */
+    public IsaacAnswerResponse get(String questionId, GraphSolutions question, SettingsWrapper settings,
+                                   GraphAnswer graphAnswer, Supplier<IsaacAnswerResponse> mark) {
+        return get(new Key(questionId, specVersion(question), settings, false, AnswerHash.of(graphAnswer)), mark);
+    }
+
+    /**
+     * Get the mark for a quantised input, marking it only if no input with the same quantised form has been marked
+     * with this question and settings before.
+     *
+     * @param questionId The question's id.
+     * @param question The question's solutions.
+     * @param settings The settings the marker uses.
+     * @param quantised The quantised input.
+     * @param mark Marks the quantised input if there is no cached result.
+     * @return The mark.
+     */
+    public IsaacAnswerResponse get(String questionId, GraphSolutions question, SettingsWrapper settings,
+                                   InputQuantiser.Quantised quantised, Supplier<IsaacAnswerResponse> mark) {
+        return get(new Key(questionId, specVersion(question), settings, true, quantised.getHash()), mark);
+    }
+
+    /**
+     * Get a mark from the cache, or mark and cache it.
+     * @param key The key of the mark.
+     * @param mark Marks the answer if there is no cached result.
+     * @return The mark.
+     */
+    private IsaacAnswerResponse get(Key key, Supplier<IsaacAnswerResponse> mark) {
+        IsaacAnswerResponse response = cache.getIfPresent(key);
+        if (response == null) {
+            // Two requests for the same new answer may both mark it, which is harmless
+            response = mark.get();
+            cache.put(key, response);
+        }
+        return response;
+    }
+
+    /**
+     * @return The hit, miss and eviction counts of this cache, and its size.
+     */
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        return ImmutableMap.of(
+            "hits", stats.hitCount(),
+            "misses", stats.missCount(),
+            "hitRate", stats.hitRate(),
+            "evictions", stats.evictionCount(),
+            "size", cache.size());
+    }
+
+    /**
+     * Hash the specifications of a question, so that changing them changes the key.
+     * @param question The question's solutions.
+     * @return The hash.
+     */
+    private static HashCode specVersion(GraphSolutions question) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (GraphSolutionItem item : question.getAnswers()) {
+            hasher.putString(item.getGraphDefinition(), StandardCharsets.UTF_8);
+            hasher.putByte((byte) 0);
+        }
+        return hasher.hash();
+    }
+
+    /**
+     * The key of a cached result.
+     */
+    private static final class Key {
+        private final String questionId;
+        private final HashCode specVersion;
+        private final SettingsWrapper settings;
+        private final boolean quantised;
+        private final HashCode answerHash;
+
+        /**
+         * Create a key.
+         * @param questionId The question's id.
+         * @param specVersion The hash of the question's specifications.
+         * @param settings The settings, compared by identity.
+         * @param quantised True if the hash is of a quantised input rather than an answer.
+         * @param answerHash The canonical hash of the answer, or the hash of its quantised input.
+         */
+        private Key(String questionId, HashCode specVersion, SettingsWrapper settings, boolean quantised,
+                    HashCode answerHash) {
+            this.questionId = questionId;
+            this.specVersion = specVersion;
+            this.settings = settings;
+            this.quantised = quantised;
+            this.answerHash = answerHash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return questionId.equals(other.questionId) && specVersion.equals(other.specVersion)
+                && settings == other.settings && quantised == other.quantised && answerHash.equals(other.answerHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(questionId, specVersion, System.identityHashCode(settings), quantised, answerHash);
+        }
+    }
+}
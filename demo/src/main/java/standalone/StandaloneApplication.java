@@ -28,13 +28,6 @@ public class StandaloneApplication extends Application {
 
     private Set<Object> singletons;
 
-    @Override
-    public Set<Class<?>> getClasses() {
-        HashSet<Class<?>> clazzes = new HashSet<>();
-        clazzes.add(MarkerController.class);
-        return clazzes;
-    }
-
     @Override
     public Set<Object> getSingletons() {
         if (singletons == null) {
@@ -43,6 +36,8 @@ public class StandaloneApplication extends Application {
 
             singletons = new HashSet<>();
             singletons.add(corsFilter);
+            // One controller for the application, so it warms up at startup rather than on the first request
+            singletons.add(new MarkerController());
         }
         return singletons;
     }
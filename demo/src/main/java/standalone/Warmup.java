@@ -0,0 +1,215 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package standalone;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.isaacphysics.graphchecker.data.Input;
+import org.isaacphysics.graphchecker.dos.GraphAnswer;
+import org.isaacphysics.graphchecker.geometry.SectorClassifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import standalone.dos.GraphSolutions;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gets a marker ready to mark quickly, before it is sent any answers.
+ *
+ * Warming up compiles the specification of every known question, builds the sector lookup tables for the marker's
+ * settings, and then marks the recorded samples of each question a number of times, so the classes used in marking are
+ * loaded and the JIT has compiled the hot paths. Samples are marked directly, not through any cache of marks, so every
+ * round does the work. A sample that can't be read or marked is logged and skipped; it doesn't stop the warm-up.
+ *
+ * A question whose specification can't be compiled is logged and its samples skipped, and the warm-up carries on with
+ * the other questions but is reported as failed. If the sector lookup tables can't be built, the marker can't mark
+ * anything, so the warm-up stops there, and it is failed and never ready.
+ */
+public class Warmup {
+    private static final Logger log = LoggerFactory.getLogger(Warmup.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * The folders of samples that are marked, of the folders samples can be filed in.
+     */
+    private static final List<String> LABELS = Arrays.asList("correct", "incorrect", "unknown");
+
+    private final Marker marker;
+    private final Map<String, GraphSolutions> questions;
+    private final File samples;
+    private final int rounds;
+
+    private volatile boolean finished;
+    private volatile boolean ready;
+    private volatile List<String> failedQuestions = Collections.emptyList();
+    private volatile int samplesMarked;
+    private volatile long millis;
+
+    /**
+     * Create a warm-up.
+     * @param marker The marker to warm up.
+     * @param questions The questions it will be asked to mark, by id.
+     * @param samples The samples directory, with a folder of recorded answers for each question id.
+     * @param rounds How many times to mark each sample; 0 only compiles the specifications.
+     */
+    public Warmup(Marker marker, Map<String, GraphSolutions> questions, File samples, int rounds) {
+        if (rounds < 0) {
+            throw new IllegalArgumentException("The number of warm-up rounds must not be negative, not " + rounds);
+        }
+        this.marker = marker;
+        this.questions = questions;
+        this.samples = samples;
+        this.rounds = rounds;
+    }
+
+    /**
+     * Warm up the marker. This has finished once it returns, whatever went wrong, and is ready unless the marker can't
+     * mark at all; some samples or questions may have failed.
+     */
+    public void run() {
+        long start = System.currentTimeMillis();
+        try {
+            List<String> compiled = compile();
+            SectorClassifier classifier = marker.getSettings().getSectorClassifier();
+            classifier.getGrid();
+            classifier.getBoundaries();
+            ready = true;
+            samplesMarked = mark(compiled);
+        } catch (RuntimeException e) {
+            log.error("Warming up failed", e);
+        } finally {
+            millis = System.currentTimeMillis() - start;
+            finished = true;
+        }
+        log.info("Warmed up {} questions with {} marks in {}ms", questions.size(), samplesMarked, millis);
+    }
+
+    /**
+     * Compile the specification of every question, logging and skipping any which can't be compiled.
+     * @return The ids of the questions which compiled.
+     */
+    private List<String> compile() {
+        List<String> compiled = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+        for (Map.Entry<String, GraphSolutions> entry : questions.entrySet()) {
+            try {
+                marker.compile(entry.getValue());
+                compiled.add(entry.getKey());
+            } catch (RuntimeException e) {
+                log.warn("Couldn't compile question " + entry.getKey() + " while warming up", e);
+                failed.add(entry.getKey());
+            }
+        }
+        failedQuestions = Collections.unmodifiableList(failed);
+        return compiled;
+    }
+
+    /**
+     * Mark the samples of some questions, every round.
+     * @param questionIds The ids of the questions.
+     * @return How many samples were marked, counting each round.
+     */
+    private int mark(List<String> questionIds) {
+        Map<String, List<Input>> inputs = new LinkedHashMap<>();
+        if (rounds > 0) {
+            questionIds.forEach(questionId -> inputs.put(questionId, load(questionId)));
+        }
+        int marked = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (Map.Entry<String, List<Input>> entry : inputs.entrySet()) {
+                GraphSolutions question = questions.get(entry.getKey());
+                for (Input input : entry.getValue()) {
+                    try {
+                        marker.mark(question, input);
+                        marked++;
+                    } catch (RuntimeException e) {
+                        log.warn("Couldn't mark a sample while warming up", e);
+                    }
+                }
+            }
+        }
+        return marked;
+    }
+
+    /**
+     * @param questionId A question id.
+     * @return The recorded answers to the question, converted to Input.
+     */
+    private List<Input> load(String questionId) {
+        List<Input> inputs = new ArrayList<>();
+        for (String label : LABELS) {
+            File[] files = new File(new File(samples, questionId), label).listFiles(
+                (dir, name) -> name.endsWith(".json"));
+            if (files == null) {
+                continue;
+            }
+            Arrays.sort(files);
+            for (File file : files) {
+                try {
+                    inputs.add(marker.toInput(OBJECT_MAPPER.readValue(file, GraphAnswer.class)));
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Couldn't read sample " + file + " while warming up", e);
+                }
+            }
+        }
+        return inputs;
+    }
+
+    /**
+     * @return True once the warm-up has finished, whether or not it failed.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return True once the warm-up has finished and the marker can mark.
+     */
+    public boolean isReady() {
+        return finished && ready;
+    }
+
+    /**
+     * @return True if the warm-up has finished but the marker can't mark, or some questions couldn't be compiled.
+     */
+    public boolean isFailed() {
+        return finished && (!ready || !failedQuestions.isEmpty());
+    }
+
+    /**
+     * @return Whether the warm-up is ready, and once it has finished, whether it failed, which questions couldn't be
+     *         compiled, how many samples it marked and how long it took.
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("ready", isReady());
+        status.put("questions", questions.size());
+        if (finished) {
+            status.put("failed", isFailed());
+            status.put("failedQuestions", failedQuestions);
+            status.put("samplesMarked", samplesMarked);
+            status.put("millis", millis);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package standalone;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.isaacphysics.graphchecker.dos.Curve;
+import org.isaacphysics.graphchecker.dos.GraphAnswer;
+import org.isaacphysics.graphchecker.dos.Point;
+import org.junit.After;
+import org.junit.Test;
+import standalone.dos.IsaacAnswerResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BulkMarkerTest {
+
+    private final ObjectMapper om = new ObjectMapper();
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private String record(String questionId, int points) throws Exception {
+        List<Point> pts = new ArrayList<>();
+        for (int i = 0; i < points; i++) {
+            pts.add(new Point(i, i));
+        }
+        Curve curve = new Curve(pts, 0, points, 0, points, null, null,
+            Collections.emptyList(), Collections.emptyList(), false, 0);
+        GraphAnswer answer = new GraphAnswer(800, 600, Collections.singletonList(curve), Collections.emptyList());
+        return om.writeValueAsString(Collections.singletonMap("questionId", questionId))
+            .replace("}", ", \"answer\": " + om.writeValueAsString(answer) + "}");
+    }
+
+    private List<JsonNode> mark(BulkMarker bulkMarker, String records) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        bulkMarker.mark(new ByteArrayInputStream(records.getBytes(StandardCharsets.UTF_8)), output);
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(om.readTree(line));
+        }
+        return results;
+    }
+
+    @Test
+    public void resultsAreWrittenInOrderWhateverOrderTheyAreMarkedIn() throws Exception {
+        BulkMarker bulkMarker = new BulkMarker(executor, 3, (questionId, answer) -> {
+            int points = answer.getCurves().get(0).getPts().size();
+            try {
+                // Later answers are quicker, so finish first
+                Thread.sleep(50 - points);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return new IsaacAnswerResponse(points % 2 == 0, null);
+        });
+        StringBuilder records = new StringBuilder();
+        for (int i = 2; i < 12; i++) {
+            records.append(record("q", i)).append('\n');
+        }
+
+        List<JsonNode> results = mark(bulkMarker, records.toString());
+
+        assertEquals(10, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i + 1, results.get(i).get("line").asInt());
+            assertEquals("q", results.get(i).get("questionId").asText());
+            assertEquals(i % 2 == 0, results.get(i).get("response").get("correct").asBoolean());
+        }
+    }
+
+    @Test
+    public void badRecordsAreReportedWithoutStoppingTheStream() throws Exception {
+        BulkMarker bulkMarker = new BulkMarker(executor, 2, (questionId, answer) -> {
+            if (!questionId.equals("known")) {
+                throw new IllegalArgumentException("Unknown question " + questionId);
+            }
+            return new IsaacAnswerResponse(true, null);
+        });
+
+        List<JsonNode> results = mark(bulkMarker, "not json\n\n" + record("unknown", 2) + "\n{\"questionId\": \"known\"}\n"
+            + record("known", 2) + "\n");
+
+        assertEquals(4, results.size());
+        assertEquals(1, results.get(0).get("line").asInt());
+        assertTrue(results.get(0).has("error"));
+        assertEquals(3, results.get(1).get("line").asInt());
+        assertEquals("Unknown question unknown", results.get(1).get("error").asText());
+        assertTrue(results.get(2).has("error"));
+        assertEquals(5, results.get(3).get("line").asInt());
+        assertFalse(results.get(3).has("error"));
+        assertTrue(results.get(3).get("response").get("correct").asBoolean());
+    }
+
+    @Test
+    public void noMoreThanTheWindowIsMarkedAtOnce() throws Exception {
+        AtomicInteger marking = new AtomicInteger();
+        AtomicInteger mostMarking = new AtomicInteger();
+        BulkMarker bulkMarker = new BulkMarker(executor, 2, (questionId, answer) -> {
+            mostMarking.accumulateAndGet(marking.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            marking.decrementAndGet();
+            return new IsaacAnswerResponse(true, null);
+        });
+        StringBuilder records = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            records.append(record("q", 2)).append('\n');
+        }
+
+        assertEquals(20, mark(bulkMarker, records.toString()).size());
+        assertTrue(mostMarking.get() <= 2);
+    }
+}
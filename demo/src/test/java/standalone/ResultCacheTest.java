@@ -0,0 +1,82 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package standalone;
+
+import org.isaacphysics.graphchecker.dos.Curve;
+import org.isaacphysics.graphchecker.dos.GraphAnswer;
+import org.isaacphysics.graphchecker.dos.Point;
+import org.isaacphysics.graphchecker.settings.SettingsWrapper;
+import org.junit.Test;
+import standalone.dos.GraphSolutionItem;
+import standalone.dos.GraphSolutions;
+import standalone.dos.IsaacAnswerResponse;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ResultCacheTest {
+
+    private final IsaacAnswerResponse response = new IsaacAnswerResponse(true, null);
+
+    private GraphSolutions question(String specification) {
+        return new GraphSolutions(Collections.singletonList(new GraphSolutionItem(specification, response)), response);
+    }
+
+    private GraphAnswer answer(int colour) {
+        Curve curve = new Curve(List.of(new Point(-1, -1), new Point(1, 1)), -1, 1, -1, 1, null, null,
+            Collections.emptyList(), Collections.emptyList(), false, colour);
+        return new GraphAnswer(800, 600, Collections.singletonList(curve), Collections.emptyList());
+    }
+
+    @Test
+    public void identicalAnswersAreMarkedOnce() {
+        ResultCache cache = new ResultCache(10);
+        AtomicInteger marks = new AtomicInteger();
+        GraphSolutions question = question("through: bottomLeft, origin, topRight");
+
+        assertSame(response, cache.get("q", question, SettingsWrapper.DEFAULT, answer(0), () -> {
+            marks.incrementAndGet();
+            return response;
+        }));
+        cache.get("q", question, SettingsWrapper.DEFAULT, answer(2), () -> {
+            marks.incrementAndGet();
+            return response;
+        });
+
+        assertEquals(1, marks.get());
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    public void changedSpecificationsAreMarkedAgain() {
+        ResultCache cache = new ResultCache(10);
+        AtomicInteger marks = new AtomicInteger();
+
+        for (String specification : List.of("through: topRight", "through: bottomLeft", "through: topRight")) {
+            cache.get("q", question(specification), SettingsWrapper.DEFAULT, answer(0), () -> {
+                marks.incrementAndGet();
+                return response;
+            });
+        }
+
+        assertEquals(2, marks.get());
+    }
+}
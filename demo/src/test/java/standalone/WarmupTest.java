@@ -0,0 +1,133 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package standalone;
+
+import org.isaacphysics.graphchecker.settings.SettingsWrapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import standalone.dos.GraphSolutionItem;
+import standalone.dos.GraphSolutions;
+import standalone.dos.IsaacAnswerResponse;
+import standalone.dos.ResponseExplanation;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WarmupTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final IsaacAnswerResponse response = new IsaacAnswerResponse(true, new ResponseExplanation(
+        "markdown", new String[]{}, "content", "Your answer was correct!"));
+
+    private final Map<String, GraphSolutions> questions = Collections.singletonMap("asymptotic-curve",
+        new GraphSolutions(Collections.singletonList(
+            new GraphSolutionItem("through: topRight\r\nslope: start=down, end=flat", response)), response));
+
+    private File samples() throws Exception {
+        File samples = folder.newFolder("samples");
+        File correct = new File(samples, "asymptotic-curve/correct");
+        File incorrect = new File(samples, "asymptotic-curve/incorrect");
+        Files.createDirectories(correct.toPath());
+        Files.createDirectories(incorrect.toPath());
+        Files.copy(Paths.get("../samples/asymptotic-curve/correct/2022-09-23T14.43.59.642Z 1 0.0.0.0.0.0.0.1.json"),
+            new File(correct, "sample.json").toPath());
+        Files.write(new File(incorrect, "broken.json").toPath(), "{not json".getBytes());
+        return samples;
+    }
+
+    @Test
+    public void marksEachReadableSampleEveryRound() throws Exception {
+        Warmup warmup = new Warmup(new Marker(), questions, samples(), 3);
+        assertFalse(warmup.isReady());
+        assertEquals(false, warmup.getStatus().get("ready"));
+
+        warmup.run();
+
+        assertTrue(warmup.isReady());
+        assertFalse(warmup.isFailed());
+        assertEquals(true, warmup.getStatus().get("ready"));
+        assertEquals(3, warmup.getStatus().get("samplesMarked"));
+    }
+
+    @Test
+    public void noRoundsOnlyCompiles() throws Exception {
+        Warmup warmup = new Warmup(new Marker(), questions, samples(), 0);
+        warmup.run();
+
+        assertTrue(warmup.isReady());
+        assertEquals(0, warmup.getStatus().get("samplesMarked"));
+    }
+
+    @Test
+    public void missingSamplesAreSkipped() throws Exception {
+        Warmup warmup = new Warmup(new Marker(), questions, new File(folder.getRoot(), "nowhere"), 2);
+        warmup.run();
+
+        assertTrue(warmup.isReady());
+        assertEquals(0, warmup.getStatus().get("samplesMarked"));
+    }
+
+    @Test
+    public void invalidSpecificationsFailButOtherQuestionsWarmUp() throws Exception {
+        Map<String, GraphSolutions> withInvalid = new LinkedHashMap<>();
+        withInvalid.put("broken", new GraphSolutions(Collections.singletonList(
+            new GraphSolutionItem("through topRight", response)), response));
+        withInvalid.putAll(questions);
+
+        Warmup warmup = new Warmup(new Marker(), withInvalid, samples(), 2);
+        warmup.run();
+
+        assertTrue(warmup.isFinished());
+        assertTrue(warmup.isReady());
+        assertTrue(warmup.isFailed());
+        assertEquals(true, warmup.getStatus().get("failed"));
+        assertEquals(Collections.singletonList("broken"), warmup.getStatus().get("failedQuestions"));
+        assertEquals(2, warmup.getStatus().get("samplesMarked"));
+    }
+
+    @Test
+    public void sectorsThatCantBeBuiltAreNeverReady() throws Exception {
+        Marker marker = new Marker() {
+            @Override
+            public SettingsWrapper getSettings() {
+                throw new IllegalArgumentException("Too many sectors");
+            }
+        };
+        Warmup warmup = new Warmup(marker, questions, samples(), 2);
+        warmup.run();
+
+        assertTrue(warmup.isFinished());
+        assertFalse(warmup.isReady());
+        assertTrue(warmup.isFailed());
+        assertEquals(0, warmup.getStatus().get("samplesMarked"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeRoundsThrow() {
+        new Warmup(new Marker(), questions, new File("."), -1);
+    }
+}
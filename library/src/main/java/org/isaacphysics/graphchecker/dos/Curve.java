@@ -95,6 +95,7 @@ public class Curve {
         return minima;
     }
 
+    @JsonProperty("isClosed")
     public boolean isClosed() {
         return isClosed;
     }
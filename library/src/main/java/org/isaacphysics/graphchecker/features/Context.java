@@ -103,6 +103,13 @@ public class Context {
         return new HashSet<>(assignments);
     }
 
+    /**
+     * @return The number of possible assignments from names to lines.
+     */
+    int assignmentCount() {
+        return assignments.size();
+    }
+
     /**
      * Create a context with a new set of possible assignments.
      * @param fulfilledAssignments The new assignments.
@@ -16,6 +16,9 @@
 package org.isaacphysics.graphchecker.features;
 
 import org.isaacphysics.graphchecker.features.internals.InputFeature;
+import org.isaacphysics.graphchecker.features.internals.SpecBody;
+import org.isaacphysics.graphchecker.features.internals.SpecParser;
+import org.isaacphysics.graphchecker.features.internals.SpecToken;
 import org.isaacphysics.graphchecker.data.Input;
 import org.isaacphysics.graphchecker.settings.SettingsInterface;
 
@@ -64,6 +67,11 @@ public class CurvesCountFeature extends InputFeature<CurvesCountFeature.Instance
             this.count = 1;
         }
 
+        @Override
+        protected String canonicalData() {
+            return Integer.toString(count);
+        }
+
         @Override
         public boolean test(Input input) {
             return input.getLines().size() == count;
@@ -80,10 +88,16 @@ public class CurvesCountFeature extends InputFeature<CurvesCountFeature.Instance
 
     @Override
     protected Instance deserializeInternal(String featureData) {
+        return deserializeInternal(SpecParser.parseBody(featureData));
+    }
+
+    @Override
+    protected Instance deserializeInternal(SpecBody body) {
+        SpecToken count = body.singleWord("a number of curves");
         try {
-            return new Instance(Integer.valueOf(featureData.trim()));
+            return new Instance(Integer.parseInt(count.getText()));
         } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Not a number: " + featureData, e);
+            throw count.error("Not a number: " + count.getText());
         }
     }
 
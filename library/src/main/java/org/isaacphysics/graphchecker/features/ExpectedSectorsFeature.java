@@ -15,29 +15,30 @@
  */
 package org.isaacphysics.graphchecker.features;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Streams;
-import org.isaacphysics.graphchecker.data.Point;
 import org.isaacphysics.graphchecker.features.internals.LineFeature;
+import org.isaacphysics.graphchecker.features.internals.SpecBody;
+import org.isaacphysics.graphchecker.features.internals.SpecParser;
+import org.isaacphysics.graphchecker.features.internals.SpecToken;
+import org.isaacphysics.graphchecker.geometry.LineSummary;
 import org.isaacphysics.graphchecker.geometry.SectorBuilder;
 import org.isaacphysics.graphchecker.geometry.SectorClassifier;
-import org.isaacphysics.graphchecker.data.IntersectionParams;
 import org.isaacphysics.graphchecker.data.Line;
 import org.isaacphysics.graphchecker.geometry.Sector;
-import org.isaacphysics.graphchecker.geometry.Segment;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import jakarta.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Objects;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -48,10 +49,22 @@ import java.util.stream.Collectors;
  *
  * Crossing any axis is considered inviolate though; if you cross the axis, even a little bit, then you definitely have
  * at least touched that axis (this is what invalidSectorSets ensures.)
+ *
+ * Sets of sectors are handled as bitmasks from the SectorClassifier, with bit i for the i-th ordered sector, and all the
+ * points of a line are classified together against the packed SectorBoundaries.
  */
 public class ExpectedSectorsFeature extends LineFeature<ExpectedSectorsFeature.Instance, SectorClassifier.Settings> {
     private static final Logger log = LoggerFactory.getLogger(ExpectedSectorsFeature.class);
 
+    /**
+     * Paths built up by SectorPath for lines that are still being drawn, by the identity of each line.
+     *
+     * This is shared by every feature, not kept by the one that built the path, because the instance that matches a
+     * line may have been interned from another feature with the same settings. A path only depends on the classifier,
+     * so any feature with the same classifier can use it.
+     */
+    private static final Cache<Line, SectorPath> KNOWN_PATHS = CacheBuilder.newBuilder().weakKeys().build();
+
     /**
      * Create a expected sectors feature with specified settings.
      * @param settings The settings.
@@ -59,14 +72,22 @@ public class ExpectedSectorsFeature extends LineFeature<ExpectedSectorsFeature.I
     ExpectedSectorsFeature(SectorClassifier.Settings settings) {
         super(settings);
         SectorBuilder sectorBuilder = settings.getSectorBuilder();
-        invalidSectorSets = ImmutableList.of(
-            ImmutableSet.of(sectorBuilder.byName(SectorBuilder.TOP_RIGHT), sectorBuilder.byName(SectorBuilder.BOTTOM_RIGHT)),
-            ImmutableSet.of(sectorBuilder.byName(SectorBuilder.TOP_LEFT), sectorBuilder.byName(SectorBuilder.BOTTOM_LEFT)),
-            ImmutableSet.of(sectorBuilder.byName(SectorBuilder.TOP_RIGHT), sectorBuilder.byName(SectorBuilder.TOP_LEFT)),
-            ImmutableSet.of(sectorBuilder.byName(SectorBuilder.BOTTOM_RIGHT), sectorBuilder.byName(SectorBuilder.BOTTOM_LEFT)),
-            ImmutableSet.of(sectorBuilder.byName(SectorBuilder.POSITIVE_X_AXIS), sectorBuilder.byName(SectorBuilder.NEGATIVE_X_AXIS)),
-            ImmutableSet.of(sectorBuilder.byName(SectorBuilder.POSITIVE_Y_AXIS), sectorBuilder.byName(SectorBuilder.NEGATIVE_Y_AXIS))
+        List<List<Sector>> invalidSectorSets = ImmutableList.of(
+            ImmutableList.of(sectorBuilder.byName(SectorBuilder.TOP_RIGHT), sectorBuilder.byName(SectorBuilder.BOTTOM_RIGHT)),
+            ImmutableList.of(sectorBuilder.byName(SectorBuilder.TOP_LEFT), sectorBuilder.byName(SectorBuilder.BOTTOM_LEFT)),
+            ImmutableList.of(sectorBuilder.byName(SectorBuilder.TOP_RIGHT), sectorBuilder.byName(SectorBuilder.TOP_LEFT)),
+            ImmutableList.of(sectorBuilder.byName(SectorBuilder.BOTTOM_RIGHT), sectorBuilder.byName(SectorBuilder.BOTTOM_LEFT)),
+            ImmutableList.of(sectorBuilder.byName(SectorBuilder.POSITIVE_X_AXIS), sectorBuilder.byName(SectorBuilder.NEGATIVE_X_AXIS)),
+            ImmutableList.of(sectorBuilder.byName(SectorBuilder.POSITIVE_Y_AXIS), sectorBuilder.byName(SectorBuilder.NEGATIVE_Y_AXIS))
         );
+
+        this.classifier = settings.getSectorClassifier();
+        this.reach = classifier.getReach();
+        // A pair with a sector we don't classify against can never be seen, so it is left out.
+        this.invalidSectorMasks = invalidSectorSets.stream()
+            .filter(pair -> pair.stream().allMatch(sector -> classifier.maskOf(sector) != 0))
+            .mapToLong(pair -> pair.stream().mapToLong(classifier::maskOf).reduce(0, (a, b) -> a | b))
+            .toArray();
     }
 
     @Override
@@ -78,7 +99,9 @@ public class ExpectedSectorsFeature extends LineFeature<ExpectedSectorsFeature.I
      * An instance of the ExpectedSectors feature.
      */
     protected class Instance extends LineFeature<?, ?>.Instance {
-        private final List<Sector> expectedSectors;
+        private final long[] expectedSectors;
+        private final List<Sector> distinctExpectedSectors;
+        private final String canonicalData;
 
         /**
          * Create an instance which passes through these sectors.
@@ -87,14 +110,38 @@ public class ExpectedSectorsFeature extends LineFeature<ExpectedSectorsFeature.I
          */
         Instance(String featureData, List<Sector> expectedSectors) {
             super(featureData);
-            this.expectedSectors = expectedSectors;
+            this.expectedSectors = expectedSectors.stream().mapToLong(classifier::maskOf).toArray();
+            this.distinctExpectedSectors = expectedSectors.stream().distinct().collect(Collectors.toList());
+            this.canonicalData = Joiner.on(", ").join(expectedSectors);
+        }
+
+        @Override
+        protected String canonicalData() {
+            return canonicalData;
+        }
+
+        @Override
+        protected boolean prefilter(LineSummary summary) {
+            // Every expected sector must be visited, so the line must at least get near each of them
+            for (Sector sector : distinctExpectedSectors) {
+                if (!summary.mightEnter(sector)) {
+                    return false;
+                }
+            }
+            return true;
         }
 
         @Override
         public boolean test(Line line) {
-            List<Set<Sector>> actualSectors = convertLineToSectorSetList(line);
-            log.debug("User line passed through sectors: " + actualSectors);
-            return match(actualSectors);
+            SectorMasks actualSectors = convertLineToSectorMasks(line);
+            if (log.isDebugEnabled()) {
+                log.debug("User line passed through sectors: " + describe(actualSectors));
+            }
+            Trace trace = Trace.current();
+            if (trace != null) {
+                trace.detail("sectors", describe(actualSectors));
+            }
+            return match(actualSectors, trace);
         }
 
         /**
@@ -121,10 +168,11 @@ public class ExpectedSectorsFeature extends LineFeature<ExpectedSectorsFeature.I
          * And finally, we can make the standard dynamic programming optimisation and keep just the last row and the row
          * we're building up from the top.
          *
-         * @param actual The sectors we possibly pass through, in order.
+         * @param actual The masks of the sectors we possibly pass through, in order.
+         * @param trace The trace to record each row of the grid in, after replacement, or null if not tracing.
          * @return True if there is a match.
          */
-        private boolean match(List<Set<Sector>> actual) {
+        private boolean match(SectorMasks actual, @Nullable Trace trace) {
 
             // This has a phantom left-half column to avoid a test in the loop below
             // The phantom column will always be false except above the first row to anchor the beginning.
@@ -132,34 +180,43 @@ public class ExpectedSectorsFeature extends LineFeature<ExpectedSectorsFeature.I
 
             boolean[] matches = new boolean[matchArraySize];
             matches[0] = true; // This is the fake match to anchor things to the beginning.
+            List<boolean[]> rows = null;
+            if (trace != null) {
+                rows = new ArrayList<>();
+                trace.detail("matches", rows);
+            }
 
-            for (Sector expectedSector : expectedSectors) {
+            for (long expectedSector : expectedSectors) {
                 boolean[] nextMatches = new boolean[matchArraySize];
                 for (int j = 0; j < actual.size(); j++) {
-                    if (actual.get(j).contains(expectedSector)) {
+                    if ((actual.get(j) & expectedSector) != 0) {
                         nextMatches[j + 1] = matches[j] || matches[j + 1] || nextMatches[j];
                     }
                 }
                 matches = nextMatches;
+                if (rows != null) {
+                    rows.add(Arrays.copyOfRange(matches, 1, matchArraySize));
+                }
             }
 
             return matches[matchArraySize - 1];
         }
     }
 
-    /**
-     * Create a list of Sector objects from a list of sector names.
-     * @param sectors A comma-separated list of sector names.
-     * @return A list of Sectors.
-     */
-    private List<Sector> deserializeSectors(String sectors) {
-        return settings().getSectorBuilder().fromList(sectors, true);
+    @Override
+    public Instance deserializeInternal(String featureData) {
+        return deserializeInternal(SpecParser.parseBody(featureData));
     }
 
     @Override
-    public Instance deserializeInternal(String featureData) {
-        List<Sector> expectedSectors = deserializeSectors(featureData);
-        return new Instance(featureData, expectedSectors);
+    public Instance deserializeInternal(SpecBody body) {
+        SectorBuilder sectorBuilder = settings().getSectorBuilder();
+        List<String> sectorNames = new ArrayList<>();
+        for (List<SpecToken> item : body.items("a sector")) {
+            SpecToken name = SpecBody.singleWord(item, "a sector");
+            sectorNames.add(SpecBody.lookup(name, sectorBuilder::byName).toString());
+        }
+        return new Instance(body.getText(), sectorBuilder.fromList(sectorNames.stream(), true));
     }
 
     @Override
@@ -186,136 +243,244 @@ public class ExpectedSectorsFeature extends LineFeature<ExpectedSectorsFeature.I
      * @param line The line.
      * @return The list of sectors the line passes through.
      */
+    @SuppressWarnings("checkstyle:avoidInlineConditionals")
     List<Sector> convertLineToSectorList(Line line) {
-        List<Set<Sector>> sectors = convertLineToSectorSetList(line);
+        SectorMasks sectors = convertLineToSectorMasks(line);
 
         List<Sector> output = new ArrayList<>();
-        sectors.stream()
-            .map(set -> settings().getOrderedSectors().stream().filter(set::contains).findFirst().orElse(null))
-            .forEach(sector -> {
-                if (output.isEmpty() || !output.get(output.size() - 1).equals(sector)) {
-                    output.add(sector);
-                }
-            });
+        for (int i = 0; i < sectors.size(); i++) {
+            long mask = sectors.get(i);
+            // The lowest bit is the highest-priority sector.
+            Sector sector = mask == 0 ? null : classifier.sectorAt(Long.numberOfTrailingZeros(mask));
+            if (output.isEmpty() || !output.get(output.size() - 1).equals(sector)) {
+                output.add(sector);
+            }
+        }
 
         return output;
     }
 
     /**
-     * Convert a line into a list of sets of sectors that it passes through.
-     *
-     * For example, a line passing near an axis might return a list like: [topRight], [topRight, +Xaxis], [topRight]
-     *
-     * @param line The line.
-     * @return The list of sets of sectors that the line passes through.
+     * A growable list of sector masks.
      */
-    private List<Set<Sector>> convertLineToSectorSetList(Line line) {
-        List<Set<Sector>> output = new ArrayList<>();
+    private static final class SectorMasks {
+        private long[] masks = new long[16];
+        private int size;
 
-        Point lastPoint = null;
-        for (Point point : line) {
-            if (lastPoint != null) {
-                classifyLineSegment(output, Segment.closed(lastPoint, point));
-            }
-
-            Set<Sector> pointSector = classifyPoint(point);
+        /**
+         * @return The number of masks.
+         */
+        int size() {
+            return size;
+        }
 
-            addSector(output, pointSector);
+        /**
+         * @param index The index of a mask.
+         * @return The mask.
+         */
+        long get(int index) {
+            return masks[index];
+        }
 
-            lastPoint = point;
+        /**
+         * @return A copy of this list, which can be added to separately.
+         */
+        SectorMasks copy() {
+            SectorMasks copy = new SectorMasks();
+            copy.masks = Arrays.copyOf(masks, Math.max(size, 1));
+            copy.size = size;
+            return copy;
         }
 
-        return output;
+        /**
+         * @param mask A mask to add to the end of the list.
+         */
+        void add(long mask) {
+            if (size == masks.length) {
+                masks = Arrays.copyOf(masks, size * 2);
+            }
+            masks[size++] = mask;
+        }
     }
 
-    private final List<Set<Sector>> invalidSectorSets;
-
     /**
-     * Add a set of sectors to a list of sets of sectors, removing illegal combinations and de-duplicating.
-     * @param output The list to add this sector set to.
-     * @param sectors The set of sectors.
+     * Describe a list of sector masks by the names of the sectors, for debugging and tracing.
+     * @param sectors The masks.
+     * @return A list of sets of sector names.
      */
-    private void addSector(List<Set<Sector>> output, Set<Sector> sectors) {
-        Objects.requireNonNull(sectors);
-
-        // If you are in an area that contains both sides of an axis say, remove both sides.
-        List<Set<Sector>> sectorsToRemove = invalidSectorSets.stream()
-            .filter(sectors::containsAll)
-            .collect(Collectors.toList());
-        sectorsToRemove.forEach(sectors::removeAll);
-
-        if (output.size() == 0 || !output.get(output.size() - 1).equals(sectors) && !sectors.isEmpty()) {
-            output.add(sectors);
+    private List<List<String>> describe(SectorMasks sectors) {
+        List<List<String>> description = new ArrayList<>();
+        for (int i = 0; i < sectors.size(); i++) {
+            List<String> set = new ArrayList<>();
+            for (long mask = sectors.get(i); mask != 0; mask &= mask - 1) {
+                set.add(classifier.sectorAt(Long.numberOfTrailingZeros(mask)).toString());
+            }
+            description.add(set);
         }
+        return description;
     }
 
     /**
-     * Identify which sector this point is in.
-     * @param point The point to be classified.
-     * @return The highest-priority Sector that point is in.
+     * Convert a line into a list of masks of sets of sectors that it passes through.
+     *
+     * For example, a line passing near an axis might return a list like: [topRight], [topRight, +Xaxis], [topRight]
+     *
+     * @param line The line.
+     * @return The list of masks of sets of sectors that the line passes through.
+     */
+    /**
+     * @param line A line.
+     * @return True if a sketch has remembered the path of the line for a feature with this feature's classifier.
      */
-    private Set<Sector> classifyPoint(Point point) {
-        return settings().getSectorClassifier().classifyAll(point);
+    @VisibleForTesting
+    boolean isPathKnown(Line line) {
+        SectorPath known = KNOWN_PATHS.getIfPresent(line);
+        return known != null && known.getClassifier() == classifier;
+    }
+
+    @SuppressWarnings("checkstyle:avoidInlineConditionals")
+    private SectorMasks convertLineToSectorMasks(Line line) {
+        SectorPath known = KNOWN_PATHS.getIfPresent(line);
+        if (known != null && known.getClassifier() == classifier) {
+            return known.masks;
+        }
+
+        SectorPath path = new SectorPath();
+        LineSummary summary = LineSummary.of(line);
+        double[] xs = summary.getXs();
+        double[] ys = summary.getYs();
+        double[] clearances = summary.getAxisClearances();
+        long[] pointSectors = classifier.classifyAllMasks(line);
+        for (int i = 0; i < xs.length; i++) {
+            // The first point has no segment before it, so its clearance is never used
+            double clearance = i > 0 ? clearances[i - 1] : 0;
+            path.append(xs[i], ys[i], pointSectors[i], clearance);
+        }
+        return path.masks;
     }
 
     /**
-     * Add any sector sets this Segment passes through onto a list of sector sets.
-     * @param output The current list of sets of sectors.
-     * @param lineSegment The segment to be added.
+     * The sets of sectors a line passes through, built up a point at a time.
      */
-    private void classifyLineSegment(List<Set<Sector>> output, Segment lineSegment) {
-        // Calculate when we enter and leave the line segment
-        IntersectionParams[] intersectionParams = settings().getOrderedSectors().stream()
-            .map(sector -> sector.intersectionParams(lineSegment))
-            .toArray(IntersectionParams[]::new);
-
-        Boolean[] inside = settings().getOrderedSectors().stream()
-            .map(sector -> sector.contains(lineSegment.getStart()))
-            .toArray(Boolean[]::new);
-
-        int index = lowestIndex(intersectionParams);
-        while (index != -1) {
-            IntersectionParams.IntersectionParam intersection = intersectionParams[index].remove(0);
-            inside[index] = intersection.isInside();
-
-            index = lowestIndex(intersectionParams);
-            while (index != -1 && intersection.getT() == intersectionParams[index].get(0).getT()) {
-                intersection = intersectionParams[index].remove(0);
-                inside[index] = intersection.isInside();
-
-                index = lowestIndex(intersectionParams);
+    final class SectorPath {
+        private final SectorMasks masks;
+        private final double[] ts;
+        private final int[] crossedSectors;
+        private final boolean[] insides;
+        private int pointCount;
+        private double lastX;
+        private double lastY;
+        private long lastSectors;
+
+        /**
+         * Create the path of a line with no points.
+         */
+        SectorPath() {
+            this(new SectorMasks());
+        }
+
+        /**
+         * Create a path.
+         * @param masks The masks of the path so far.
+         */
+        private SectorPath(SectorMasks masks) {
+            this.masks = masks;
+            this.ts = new double[classifier.getBoundaries().boundaryCount()];
+            this.crossedSectors = new int[ts.length];
+            this.insides = new boolean[ts.length];
+        }
+
+        /**
+         * Add a point to the end of the line.
+         * @param x The x co-ordinate of the point.
+         * @param y The y co-ordinate of the point.
+         */
+        void append(double x, double y) {
+            append(x, y, classifier.classifyAllMask(x, y), LineSummary.axisClearance(lastX, lastY, x, y));
+        }
+
+        /**
+         * Add a point to the end of the line.
+         * @param x The x co-ordinate of the point.
+         * @param y The y co-ordinate of the point.
+         * @param pointSectors The mask of sectors the point is in.
+         * @param clearance How close the segment from the last point comes to the axes; if it stays beyond the reach
+         *                  of every boundary, it can't cross any, so the boundaries needn't be searched.
+         */
+        @SuppressWarnings("checkstyle:avoidInlineConditionals")
+        private void append(double x, double y, long pointSectors, double clearance) {
+            if (pointCount > 0 && !(clearance > reach)) {
+                // Walk along the segment from the last point, recording the sectors we are in after each crossing
+                long inside = lastSectors;
+                int count = classifier.getBoundaries().intersections(lastX, lastY, x, y, ts, crossedSectors, insides);
+                int index = 0;
+                while (index < count) {
+                    double t = ts[index];
+                    while (index < count && ts[index] == t) {
+                        long bit = 1L << crossedSectors[index];
+                        inside = insides[index] ? inside | bit : inside & ~bit;
+                        index++;
+                    }
+                    addSector(masks, inside);
+                }
             }
 
-            // Record all of the sectors we are currently in
-            @SuppressWarnings("checkstyle:avoidInlineConditionals")
-            Set<Sector> internalSectors = Streams.zip(
-                settings().getOrderedSectors().stream(),
-                Arrays.stream(inside),
-                (sector, in) -> in ? sector : null)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
+            addSector(masks, pointSectors);
+            pointCount++;
+            lastX = x;
+            lastY = y;
+            lastSectors = pointSectors;
+        }
+
+        /**
+         * Make this path, as it is now, the path of a line, so matching the line doesn't classify its points again.
+         *
+         * The path can carry on growing without changing what is remembered for the line.
+         *
+         * @param line A line of exactly the points appended so far.
+         */
+        void remember(Line line) {
+            if (line.getPoints().size() != pointCount) {
+                throw new IllegalArgumentException("The line has " + line.getPoints().size() + " points, but "
+                    + pointCount + " have been added");
+            }
+            SectorPath copy = new SectorPath(masks.copy());
+            copy.pointCount = pointCount;
+            copy.lastX = lastX;
+            copy.lastY = lastY;
+            copy.lastSectors = lastSectors;
+            KNOWN_PATHS.put(line, copy);
+        }
 
-            addSector(output, internalSectors);
+        /**
+         * @return The classifier the path was built with, which must be the one of any feature that uses it.
+         */
+        private SectorClassifier getClassifier() {
+            return classifier;
         }
     }
 
+    private final SectorClassifier classifier;
+    private final double reach;
+    private final long[] invalidSectorMasks;
+
     /**
-     * From an array of IntersectionParams, return the index of the one with the earliest T value, or -1 if empty.
-     * @param intersectionParams The array of IntersectionParams to consider.
-     * @return The index of the param with the lowest T value, or -1 if the array is empty.
+     * Add a set of sectors to a list of sets of sectors, removing illegal combinations and de-duplicating.
+     * @param output The list to add this sector set to.
+     * @param sectors The mask of the set of sectors.
      */
-    private int lowestIndex(IntersectionParams[] intersectionParams) {
-        int index = -1;
-        double minParam = Double.MAX_VALUE;
-        for (int i = 0; i < intersectionParams.length; i++) {
-            if (intersectionParams[i].size() > 0) {
-                double param = intersectionParams[i].get(0).getT();
-                if (param < minParam) {
-                    index = i;
-                    minParam = param;
-                }
+    private void addSector(SectorMasks output, long sectors) {
+        // If you are in an area that contains both sides of an axis say, remove both sides.
+        long sectorsToRemove = 0;
+        for (long invalidSectors : invalidSectorMasks) {
+            if ((sectors & invalidSectors) == invalidSectors) {
+                sectorsToRemove |= invalidSectors;
             }
         }
-        return index;
+        long remaining = sectors & ~sectorsToRemove;
+
+        if (output.size() == 0 || output.get(output.size() - 1) != remaining && remaining != 0) {
+            output.add(remaining);
+        }
     }
 }
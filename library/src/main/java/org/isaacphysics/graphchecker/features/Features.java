@@ -16,17 +16,22 @@
 package org.isaacphysics.graphchecker.features;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import org.isaacphysics.graphchecker.data.Input;
 import org.isaacphysics.graphchecker.features.internals.InputFeature;
 import org.isaacphysics.graphchecker.features.internals.LineFeature;
 import org.isaacphysics.graphchecker.features.internals.LineSelector;
+import org.isaacphysics.graphchecker.features.internals.SpecLine;
+import org.isaacphysics.graphchecker.features.internals.SpecParser;
+import org.isaacphysics.graphchecker.features.internals.SpecToken;
+import org.isaacphysics.graphchecker.metrics.MarkingMetrics;
 import org.isaacphysics.graphchecker.settings.SettingsWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.isaacphysics.graphchecker.data.Line;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -43,7 +48,12 @@ public class Features {
     private final List<LineFeature<?, ?>> lineFeatures;
     private final List<InputFeature<?, ?>> inputFeatures;
     private final List<LineSelector<?, ?>> lineSelectors;
+    private final ImmutableMap<String, LineFeature<?, ?>> lineFeaturesByTag;
+    private final ImmutableMap<String, InputFeature<?, ?>> inputFeaturesByTag;
+    private final ImmutableMap<String, LineSelector<?, ?>> lineSelectorsByTag;
+    private final ExpectedSectorsFeature expectedSectorsFeature;
     private final CurvesCountFeature curvesCountFeature;
+    private final MarkingMetrics metrics;
 
     /**
      * Create a feature object for matching or generating with the default configuration.
@@ -57,8 +67,10 @@ public class Features {
      * @param settings The settings to use.
      */
     public Features(SettingsWrapper settings) {
+        metrics = settings.getMarkingMetrics();
+        expectedSectorsFeature = new ExpectedSectorsFeature(settings);
         lineFeatures = ImmutableList.of(
-            new ExpectedSectorsFeature(settings),
+            expectedSectorsFeature,
             new SlopeFeature(settings),
             new SymmetryFeature(settings),
             new PointsFeature(settings),
@@ -73,6 +85,9 @@ public class Features {
             new NthLineSelector(settings),
             new MatchingLineSelector(settings)
         );
+        lineFeaturesByTag = Maps.uniqueIndex(lineFeatures, LineFeature::tag);
+        inputFeaturesByTag = Maps.uniqueIndex(inputFeatures, InputFeature::tag);
+        lineSelectorsByTag = Maps.uniqueIndex(lineSelectors, LineSelector::tag);
     }
 
     /**
@@ -80,11 +95,25 @@ public class Features {
      *
      * @param feature The feature specification.
      * @return A predicate on Input.
+     * @throws org.isaacphysics.graphchecker.features.internals.SpecSyntaxException If the specification is invalid.
      */
     public Matcher matcher(String feature) {
-        String[] features = feature.split("\n");
-        List<InputFeature<?, ?>.Instance> matchers = Arrays.stream(features)
-                .map(item -> itemToFeatureInstance(item.trim()))
+        return matcher(SpecParser.parse(feature));
+    }
+
+    /**
+     * Given a parsed feature specification, return a predicate which matches Input to that specification.
+     *
+     * Parsing doesn't depend on the settings, so a specification can be parsed once with SpecParser and then matched
+     * with many different settings.
+     *
+     * @param feature The feature specification, parsed by SpecParser.
+     * @return A predicate on Input.
+     * @throws org.isaacphysics.graphchecker.features.internals.SpecSyntaxException If a feature's body is invalid.
+     */
+    public Matcher matcher(List<SpecLine> feature) {
+        List<InputFeature<?, ?>.Instance> matchers = feature.stream()
+                .map(this::itemToFeatureInstance)
                 .collect(Collectors.toList());
 
         if (matchers.stream().noneMatch(InputFeature.Instance::isLineAware)) {
@@ -168,8 +197,30 @@ public class Features {
         public List<String> getFailingSpecs(Input input) {
             List<String> failedPredicates = new ArrayList<>();
             Context context = new Context(input);
+            Trace trace = Trace.current();
+            boolean measuring = metrics.isEnabled();
+            if (measuring) {
+                metrics.recordLineCount(input.getLines().size());
+            }
             for (InputFeature<?, ?>.Instance inputPredicate: matchers) {
-                Context newContext = inputPredicate.test(input, context);
+                if (trace != null) {
+                    trace.startStep(inputPredicate.getTaggedFeatureData(), inputPredicate.getTag());
+                }
+                Context newContext;
+                if (measuring) {
+                    long start = System.nanoTime();
+                    newContext = inputPredicate.test(input, context);
+                    long elapsed = System.nanoTime() - start;
+                    metrics.recordFeature(inputPredicate.getTag(), elapsed, newContext != null);
+                    if (newContext != null) {
+                        metrics.recordAssignments(inputPredicate.getTag(), newContext.assignmentCount());
+                    }
+                } else {
+                    newContext = inputPredicate.test(input, context);
+                }
+                if (trace != null) {
+                    trace.endStep(newContext);
+                }
                 if (newContext == null) {
                     failedPredicates.add(inputPredicate.getTaggedFeatureData());
                 } else {
@@ -182,47 +233,87 @@ public class Features {
         @Override
         public boolean test(Input input) {
             List<String> failingSpecs = getFailingSpecs(input);
-            if (!failingSpecs.isEmpty()) {
+            if (!failingSpecs.isEmpty() && log.isDebugEnabled()) {
                 log.debug("Failed specs: " + String.join("\r\n\t\t", failingSpecs));
             }
             return failingSpecs.isEmpty();
         }
+
+        /**
+         * Match an input, recording how each line of the specification was matched.
+         *
+         * This is slower than getFailingSpecs, as the results of line features on each line are worked out again so
+         * they can be recorded, so it is for explaining marks rather than marking.
+         *
+         * @param input The input to explain.
+         * @return The trace of matching the input.
+         */
+        public Trace explain(Input input) {
+            Trace trace = new Trace(input);
+            trace.begin();
+            try {
+                getFailingSpecs(input);
+            } finally {
+                trace.end();
+            }
+            return trace;
+        }
+
+        /**
+         * Start matching a sketch which is still being drawn, checking it as it grows without starting from scratch.
+         *
+         * @return An empty sketch.
+         */
+        public Sketch sketch() {
+            return new Sketch(this, expectedSectorsFeature);
+        }
     }
 
     /**
-     * Turn a feature specification into an input predicate and a boolean indicating whether it has a line selector.
-     * @param item The feature specification.
-     * @return A pair of an input predicate and whether the feature has a line selector.
+     * Turn a line of feature specification into an input predicate.
+     * @param item The parsed line of feature specification.
+     * @return An input predicate.
      */
-    private InputFeature<?, ?>.Instance itemToFeatureInstance(final String item) {
-        for (InputFeature<?, ?> feature : inputFeatures) {
-            if (feature.canDeserialize(item)) {
-                return feature.deserialize(item);
-            }
+    private InputFeature<?, ?>.Instance itemToFeatureInstance(SpecLine item) {
+        String tag = item.getTag().getText();
+
+        InputFeature<?, ?> feature = inputFeaturesByTag.get(tag);
+        if (feature != null) {
+            return feature.deserialize(item.getBody());
         }
 
-        for (LineSelector<?, ?> selector : lineSelectors) {
-            if (selector.canDeserialize(item)) {
-                LineSelector<?, ?>.Instance selectorInstance = selector.deserialize(item);
-                return selectorInstance.wrapToItemFeature(itemToLineFeature(selectorInstance.lineFeatureSpec()));
-            }
+        LineSelector<?, ?> selector = lineSelectorsByTag.get(tag);
+        if (selector != null) {
+            LineSelector<?, ?>.Instance selectorInstance = selector.deserialize(item.getBody());
+            // The selector has checked its argument, so the line feature after it has been parsed too
+            SpecLine selected = item.getSelectedFeature();
+            return selectorInstance.wrapToItemFeature(itemToLineFeature(selected), taggedText(selected));
         }
 
-        LineFeature<?, ?>.Instance lineFeatureInstance = itemToLineFeature(item);
-        return lineFeatureInstance.wrapToItemFeature();
+        // Line feature instances may be shared, so failures are reported with the text of this specification
+        return itemToLineFeature(item).wrapToItemFeature(taggedText(item));
+    }
+
+    /**
+     * Get the text of a line feature as it was written, with its tag.
+     * @param item The parsed line feature.
+     * @return The line feature's specification.
+     */
+    private String taggedText(SpecLine item) {
+        return lineFeaturesByTag.get(item.getTag().getText()).prefix(item.getBody().getText());
     }
 
     /**
      * Build a line feature instance from this lineFeatureSpec.
-     * @param item The lineFeatureSpec.
+     * @param item The parsed lineFeatureSpec.
      * @return The line feature instance.
      */
-    private LineFeature<?, ?>.Instance itemToLineFeature(final String item) {
-        for (LineFeature<?, ?> feature : lineFeatures) {
-            if (feature.canDeserialize(item)) {
-                return feature.deserialize(item);
-            }
+    private LineFeature<?, ?>.Instance itemToLineFeature(SpecLine item) {
+        SpecToken tag = item.getTag();
+        LineFeature<?, ?> feature = lineFeaturesByTag.get(tag.getText());
+        if (feature == null) {
+            throw tag.error("Unknown feature: " + tag.getText());
         }
-        throw new IllegalArgumentException("Unknown lineFeatureSpec: " + item);
+        return feature.deserialize(item.getBody());
     }
 }
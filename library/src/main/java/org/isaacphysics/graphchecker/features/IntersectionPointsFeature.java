@@ -18,6 +18,10 @@ package org.isaacphysics.graphchecker.features;
 import com.google.common.base.Joiner;
 import org.isaacphysics.graphchecker.data.Input;
 import org.isaacphysics.graphchecker.features.internals.InputFeature;
+import org.isaacphysics.graphchecker.features.internals.SpecBody;
+import org.isaacphysics.graphchecker.features.internals.SpecParser;
+import org.isaacphysics.graphchecker.features.internals.SpecToken;
+import org.isaacphysics.graphchecker.geometry.SectorBuilder;
 import org.isaacphysics.graphchecker.geometry.SectorClassifier;
 import org.isaacphysics.graphchecker.data.Line;
 import org.isaacphysics.graphchecker.geometry.Lines;
@@ -26,8 +30,6 @@ import org.isaacphysics.graphchecker.geometry.Sector;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -75,6 +77,11 @@ public class IntersectionPointsFeature extends InputFeature<IntersectionPointsFe
             this.sectors = sectors;
         }
 
+        @Override
+        protected String canonicalData() {
+            return serialize(lineA, lineB, sectors);
+        }
+
         @Override
         public Context test(Input input, Context context) {
             return context.makeNewContext(mapping -> {
@@ -87,9 +94,6 @@ public class IntersectionPointsFeature extends InputFeature<IntersectionPointsFe
         }
     }
 
-    private final Pattern syntaxPattern = Pattern.compile(
-        "([a-zA-Z]+)\\s+to\\s([a-zA-Z]+)\\s+((?:at|in|on)(.*)|nowhere)");
-
     /**
      * Convert a intersection points features to a string.
      * @param lineA The name of the first line.
@@ -107,20 +111,31 @@ public class IntersectionPointsFeature extends InputFeature<IntersectionPointsFe
     }
 
     @Override
-    @SuppressWarnings("magicNumber")
     protected Instance deserializeInternal(String featureData) {
-        Matcher m = syntaxPattern.matcher(featureData);
-        if (m.find()) {
-            List<Sector> sectors;
-            if (m.group(4) == null) {
-                sectors = Collections.emptyList();
-            } else {
-                sectors = settings().getSectorBuilder().fromList(m.group(4), false);
+        return deserializeInternal(SpecParser.parseBody(featureData));
+    }
+
+    @Override
+    @SuppressWarnings("magicNumber")
+    protected Instance deserializeInternal(SpecBody body) {
+        SpecToken lineA = body.letters(0, "a line name");
+        body.keyword(1, "to");
+        SpecToken lineB = body.letters(2, "a line name");
+        SpecToken where = body.word(3, "'at', 'in', 'on' or 'nowhere'");
+        List<Sector> sectors;
+        if (where.is("nowhere")) {
+            body.expectEnd(4);
+            sectors = Collections.emptyList();
+        } else if (where.is("at") || where.is("in") || where.is("on")) {
+            SectorBuilder sectorBuilder = settings().getSectorBuilder();
+            sectors = new ArrayList<>();
+            for (List<SpecToken> item : body.from(4).items("a sector")) {
+                sectors.add(SpecBody.lookup(SpecBody.singleWord(item, "a sector"), sectorBuilder::byName));
             }
-            return new Instance(m.group(1).trim(), m.group(2).trim(), sectors);
         } else {
-            throw new IllegalArgumentException("Not a intersection points feature: " + featureData);
+            throw where.error("Expected 'at', 'in', 'on' or 'nowhere' but found '" + where.getText() + "'");
         }
+        return new Instance(lineA.getText(), lineB.getText(), sectors);
     }
 
     @Override
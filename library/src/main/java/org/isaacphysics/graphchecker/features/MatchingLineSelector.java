@@ -18,6 +18,9 @@ package org.isaacphysics.graphchecker.features;
 import org.isaacphysics.graphchecker.data.Input;
 import org.isaacphysics.graphchecker.features.internals.LineFeature;
 import org.isaacphysics.graphchecker.features.internals.LineSelector;
+import org.isaacphysics.graphchecker.features.internals.SpecBody;
+import org.isaacphysics.graphchecker.features.internals.SpecParser;
+import org.isaacphysics.graphchecker.features.internals.SpecToken;
 import org.isaacphysics.graphchecker.settings.SettingsInterface;
 import org.isaacphysics.graphchecker.data.Line;
 import org.isaacphysics.graphchecker.geometry.Lines;
@@ -26,8 +29,6 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * A Selector which will match lines in a Prolog-fashion.
@@ -67,18 +68,20 @@ public class MatchingLineSelector extends LineSelector<MatchingLineSelector.Inst
 
         @Override
         protected Context test(Input input, LineFeature.Instance lineInstance, Context context) {
-            return context.makeNewContext(mapping -> lineInstance.test(mapping.get(name)), name);
+            return context.makeNewContext(mapping -> lineInstance.matches(mapping.get(name)), name);
         }
     }
 
     @Override
     public Instance deserializeInternal(String item) {
-        Pattern pattern = Pattern.compile("\\s*([a-zA-Z]+);\\s*(.*)");
-        Matcher matcher = pattern.matcher(item);
-        if (!matcher.find()) {
-            throw new IllegalArgumentException("Not a MatchingLineSelector: " + item);
-        }
-        return new Instance(matcher.group(1), matcher.group(2));
+        return deserializeInternal(SpecParser.parseBody(item));
+    }
+
+    @Override
+    public Instance deserializeInternal(SpecBody body) {
+        SpecToken name = body.letters(0, "a line name");
+        SpecToken semicolon = body.punctuation(1, SpecToken.Kind.SEMICOLON, "';' after the line name");
+        return new Instance(name.getText(), body.getTextAfter(semicolon));
     }
 
     @Override
@@ -19,6 +19,9 @@ import org.isaacphysics.graphchecker.data.Input;
 import org.isaacphysics.graphchecker.data.Line;
 import org.isaacphysics.graphchecker.features.internals.LineFeature;
 import org.isaacphysics.graphchecker.features.internals.LineSelector;
+import org.isaacphysics.graphchecker.features.internals.SpecBody;
+import org.isaacphysics.graphchecker.features.internals.SpecParser;
+import org.isaacphysics.graphchecker.features.internals.SpecToken;
 import org.isaacphysics.graphchecker.geometry.Lines;
 import org.isaacphysics.graphchecker.settings.SettingsInterface;
 
@@ -26,8 +29,6 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * A Selector which will test if a particular numbered line in the input matches.
@@ -69,18 +70,41 @@ public class NthLineSelector extends LineSelector<NthLineSelector.Instance, Sett
             if (n > lines.size()) {
                 return false; // Not enough lines
             }
-            return lineInstance.test(lines.get(n - 1));
+            return lineInstance.matches(lines.get(n - 1));
         }
     }
 
     @Override
     public Instance deserializeInternal(String item) {
-        Pattern pattern = Pattern.compile("\\s*([1-9][0-9]*);\\s*(.*)");
-        Matcher matcher = pattern.matcher(item);
-        if (!matcher.find()) {
-            throw new IllegalArgumentException("Not an NthLineSelector: " + item);
+        return deserializeInternal(SpecParser.parseBody(item));
+    }
+
+    @Override
+    public Instance deserializeInternal(SpecBody body) {
+        SpecToken number = body.word(0, "a line number");
+        SpecToken semicolon = body.punctuation(1, SpecToken.Kind.SEMICOLON, "';' after the line number");
+        return new Instance(lineNumber(number), body.getTextAfter(semicolon));
+    }
+
+    /**
+     * Read a line number, which counts from 1.
+     * @param number The word with the number.
+     * @return The line number.
+     */
+    private static int lineNumber(SpecToken number) {
+        String text = number.getText();
+        boolean valid = text.charAt(0) != '0';
+        for (int i = 0; i < text.length(); i++) {
+            valid &= text.charAt(i) >= '0' && text.charAt(i) <= '9';
+        }
+        try {
+            if (valid) {
+                return Integer.parseInt(text);
+            }
+        } catch (NumberFormatException e) {
+            // Too big to be a line number
         }
-        return new Instance(Integer.valueOf(matcher.group(1)), matcher.group(2));
+        throw number.error("Expected a line number but found '" + text + "'");
     }
 
     @Override
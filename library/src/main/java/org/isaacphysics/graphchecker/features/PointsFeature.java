@@ -15,9 +15,12 @@
  */
 package org.isaacphysics.graphchecker.features;
 
-import com.google.common.collect.Streams;
-import org.isaacphysics.graphchecker.data.PointOfInterest;
 import org.isaacphysics.graphchecker.features.internals.LineFeature;
+import org.isaacphysics.graphchecker.features.internals.SpecBody;
+import org.isaacphysics.graphchecker.features.internals.SpecParser;
+import org.isaacphysics.graphchecker.features.internals.SpecToken;
+import org.isaacphysics.graphchecker.geometry.LineSummary;
+import org.isaacphysics.graphchecker.geometry.PointOfInterestTable;
 import org.isaacphysics.graphchecker.geometry.Sector;
 import org.isaacphysics.graphchecker.geometry.SectorBuilder;
 import org.isaacphysics.graphchecker.geometry.SectorClassifier;
@@ -25,7 +28,6 @@ import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.isaacphysics.graphchecker.data.Line;
 import org.isaacphysics.graphchecker.data.PointType;
 
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -33,6 +35,9 @@ import java.util.stream.Collectors;
 /**
  * A line feature which requires the line to contain points of interest of certain types in an order, and each of those
  * points to be in a particular sector.
+ *
+ * The points of a line are classified once, into the line's PointOfInterestTable, and each expected sector is looked
+ * up once, so checking a point is an array read and a bit test.
  */
 public class PointsFeature extends LineFeature<PointsFeature.Instance, SectorClassifier.Settings> {
 
@@ -55,6 +60,17 @@ public class PointsFeature extends LineFeature<PointsFeature.Instance, SectorCla
     protected class Instance extends LineFeature<?, ?>.Instance {
 
         protected final List<ImmutablePair<PointType, Sector>> expectedPoints;
+        protected final int[] expectedCounts = new int[PointType.values().length];
+        protected final SectorClassifier classifier = settings().getSectorClassifier();
+        protected final PointType[] expectedTypes;
+        /**
+         * The mask of each expected sector, from the classifier.
+         */
+        protected final long[] expectedSectors;
+        /**
+         * Whether each expected point can be in any sector.
+         */
+        protected final boolean[] expectedAnywhere;
 
         /**
          * Create an instance which expects these points in order.
@@ -64,38 +80,84 @@ public class PointsFeature extends LineFeature<PointsFeature.Instance, SectorCla
         Instance(String featureData, List<ImmutablePair<PointType, Sector>> expectedPoints) {
             super(featureData);
             this.expectedPoints = expectedPoints;
+            this.expectedTypes = new PointType[expectedPoints.size()];
+            this.expectedSectors = new long[expectedPoints.size()];
+            this.expectedAnywhere = new boolean[expectedPoints.size()];
+            Sector any = settings().getSectorBuilder().byName(SectorBuilder.ANY);
+            for (int i = 0; i < expectedTypes.length; i++) {
+                ImmutablePair<PointType, Sector> point = expectedPoints.get(i);
+                expectedCounts[point.getLeft().ordinal()]++;
+                expectedTypes[i] = point.getLeft();
+                expectedSectors[i] = classifier.maskOf(point.getRight());
+                expectedAnywhere[i] = point.getRight() == any;
+            }
+        }
+
+        @Override
+        protected String canonicalData() {
+            return expectedPoints.stream().map(PointsFeature.this::generatePointSpec).collect(Collectors.joining(", "));
+        }
+
+        @Override
+        protected boolean prefilter(LineSummary summary) {
+            for (PointType type : PointType.values()) {
+                if (summary.countOf(type) != expectedCounts[type.ordinal()]) {
+                    return false;
+                }
+            }
+            return true;
         }
 
         @Override
         public boolean test(Line line) {
-            if (expectedPoints.size() != line.getPointsOfInterest().size()) {
+            if (expectedTypes.length != line.getPointsOfInterest().size()) {
                 return false;
             }
 
-            return Streams.zip(expectedPoints.stream(), line.getPointsOfInterest().stream(), this::pointsMatch)
-                    .allMatch(Boolean::booleanValue);
-        }
-        
-        protected boolean pointsMatch(ImmutablePair<PointType, Sector> expected, PointOfInterest actual) {
-            return expected.getLeft() == actual.getPointType()
-                    && (expected.getRight() == settings().getSectorBuilder().byName(SectorBuilder.ANY)
-                    || settings().getSectorClassifier().classifyAll(actual).contains(expected.getRight()));
+            PointOfInterestTable actual = LineSummary.of(line).getPointsOfInterest(classifier);
+            for (int i = 0; i < expectedTypes.length; i++) {
+                if (expectedTypes[i] != actual.typeOf(i)
+                    || (!expectedAnywhere[i] && !actual.isIn(i, expectedSectors[i]))) {
+                    return false;
+                }
+            }
+            return true;
         }
     }
 
     @Override
     public Instance deserializeInternal(String featureData) {
-        String[] items = featureData.split("\\s*,\\s*");
-        return new Instance(featureData, Arrays.stream(items).map(this::deserializeItem).collect(Collectors.toList()));
+        return deserializeInternal(SpecParser.parseBody(featureData));
+    }
+
+    @Override
+    public Instance deserializeInternal(SpecBody body) {
+        return new Instance(body.getText(), deserializeItems(body));
     }
 
-    protected ImmutablePair<PointType, Sector> deserializeItem(String item) {
-        String[] parts = item.split(" (in|on|at) ");
-        if (parts.length != 2) {
-            throw new IllegalArgumentException("Incorrect number of point parts in: " + item);
+    /**
+     * Parse the comma-separated points of a specification, like "maxima in topLeft, minima at origin".
+     * @param body The body of the specification.
+     * @return The expected type and sector of each point, in order.
+     */
+    protected List<ImmutablePair<PointType, Sector>> deserializeItems(SpecBody body) {
+        return body.items("a point").stream().map(this::deserializeItem).collect(Collectors.toList());
+    }
+
+    /**
+     * Parse one point of a specification, like "maxima in topLeft".
+     * @param item The tokens of the point.
+     * @return The expected type and sector of the point.
+     */
+    @SuppressWarnings("magicNumber")
+    private ImmutablePair<PointType, Sector> deserializeItem(List<SpecToken> item) {
+        if (item.size() != 3 || !(item.get(1).is("in") || item.get(1).is("on") || item.get(1).is("at"))) {
+            throw item.get(0).error("Expected a point like maxima in topLeft");
         }
-        PointType expectedType = PointType.valueOf(parts[0].trim().toUpperCase());
-        Sector expectedSector = settings().getSectorBuilder().byName(parts[1].trim());
+        PointType expectedType = SpecBody.enumValue(SpecBody.singleWord(item.subList(0, 1), "a point type"),
+            PointType.class);
+        Sector expectedSector = SpecBody.lookup(SpecBody.singleWord(item.subList(2, 3), "a sector"),
+            settings().getSectorBuilder()::byName);
         return ImmutablePair.of(expectedType, expectedSector);
     }
 
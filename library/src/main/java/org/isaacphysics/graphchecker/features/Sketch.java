@@ -0,0 +1,205 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.features;
+
+import org.isaacphysics.graphchecker.data.Input;
+import org.isaacphysics.graphchecker.data.Line;
+import org.isaacphysics.graphchecker.data.Point;
+import org.isaacphysics.graphchecker.data.PointOfInterest;
+import org.isaacphysics.graphchecker.geometry.LineIntersections;
+import org.isaacphysics.graphchecker.geometry.LineSummary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A sketch which is still being drawn, matched against a specification as it grows.
+ *
+ * Points are added to the end of each curve as they are drawn, and the sketch can be checked at any time. Each curve's
+ * summary, the sectors it passes through and its intersections with the other curves are kept up to date as points are
+ * added, so a check only looks at the points added since the last one. Curves which haven't changed keep the same
+ * Line, so line features remember their results for them.
+ *
+ * The sketch is put in order the way AnswerToInput does it, except that lines are not simplified. A curve drawn from
+ * right to left has to be reversed, so it is measured from scratch at each check. Curves with fewer than two points are
+ * left out until they have a second point.
+ *
+ * A sketch must only be used by one thread at a time.
+ */
+public class Sketch {
+
+    private final Features.Matcher matcher;
+    private final ExpectedSectorsFeature expectedSectorsFeature;
+    private final List<Curve> curves = new ArrayList<>();
+
+    /**
+     * A curve of the sketch, and what is known about it so far.
+     */
+    private final class Curve {
+        private final List<Point> points = new ArrayList<>();
+        private final List<PointOfInterest> pointsOfInterest = new ArrayList<>();
+        private final LineSummary.Builder summary = new LineSummary.Builder();
+        private final ExpectedSectorsFeature.SectorPath sectorPath = expectedSectorsFeature.new SectorPath();
+        // The intersections with each curve added before this one, by index
+        private final List<LineIntersections> intersections = new ArrayList<>();
+        private Line line;
+        private boolean changed;
+
+        /**
+         * @return True if the curve goes from right to left, so must be reversed like AnswerToInput does.
+         */
+        private boolean isBackwards() {
+            return points.size() > 2 && points.get(0).getX() > points.get(points.size() - 1).getX();
+        }
+    }
+
+    /**
+     * Create an empty sketch.
+     * @param matcher The specification to match the sketch against.
+     * @param expectedSectorsFeature The feature which works out the sectors lines pass through.
+     */
+    Sketch(Features.Matcher matcher, ExpectedSectorsFeature expectedSectorsFeature) {
+        this.matcher = matcher;
+        this.expectedSectorsFeature = expectedSectorsFeature;
+    }
+
+    /**
+     * Start a new curve.
+     * @return The index of the curve.
+     */
+    public int addCurve() {
+        Curve curve = new Curve();
+        for (Curve earlier : curves) {
+            curve.intersections.add(new LineIntersections(earlier.points, curve.points));
+        }
+        curves.add(curve);
+        return curves.size() - 1;
+    }
+
+    /**
+     * Add a point to the end of a curve.
+     * @param curveIndex The index of the curve.
+     * @param point The point.
+     */
+    public void append(int curveIndex, Point point) {
+        Curve curve = curves.get(curveIndex);
+        curve.points.add(point);
+        curve.summary.append(point);
+        curve.sectorPath.append(point.getX(), point.getY());
+        curve.line = null;
+    }
+
+    /**
+     * Add points to the end of a curve.
+     * @param curveIndex The index of the curve.
+     * @param points The points, in the order they were drawn.
+     */
+    public void append(int curveIndex, List<Point> points) {
+        for (Point point : points) {
+            append(curveIndex, point);
+        }
+    }
+
+    /**
+     * Add a point of interest, such as a maximum, to a curve.
+     * @param curveIndex The index of the curve.
+     * @param pointOfInterest The point of interest.
+     */
+    public void addPointOfInterest(int curveIndex, PointOfInterest pointOfInterest) {
+        Curve curve = curves.get(curveIndex);
+        curve.pointsOfInterest.add(pointOfInterest);
+        curve.line = null;
+    }
+
+    /**
+     * Get the sketch as it is now.
+     *
+     * Any curves which have changed since this was last called get a new Line, and everything known about them is
+     * passed on to the features that will match it.
+     *
+     * @return The sketch as Input.
+     */
+    public Input getInput() {
+        for (Curve curve : curves) {
+            curve.changed = curve.line == null && curve.points.size() >= 2;
+            if (curve.changed) {
+                curve.line = toLine(curve);
+            }
+        }
+        for (int i = 0; i < curves.size(); i++) {
+            Curve curve = curves.get(i);
+            for (int j = 0; j < i; j++) {
+                Curve earlier = curves.get(j);
+                if ((curve.changed || earlier.changed) && canRemember(curve) && canRemember(earlier)) {
+                    curve.intersections.get(j).remember(earlier.line, curve.line);
+                }
+            }
+        }
+
+        List<Line> lines = new ArrayList<>(curves.size());
+        for (Curve curve : curves) {
+            if (curve.points.size() >= 2) {
+                lines.add(curve.line);
+            }
+        }
+        lines.sort(Comparator.comparingDouble(line -> line.getPoints().get(0).getX()));
+        return new Input(lines);
+    }
+
+    /**
+     * Make a line from a curve, passing on what is known about it if it doesn't need reversing.
+     * @param curve The curve.
+     * @return The line.
+     */
+    private Line toLine(Curve curve) {
+        List<Point> points = new ArrayList<>(curve.points);
+        List<PointOfInterest> pointsOfInterest = new ArrayList<>(curve.pointsOfInterest);
+        pointsOfInterest.sort(Comparator.comparingDouble(Point::getX));
+        if (curve.isBackwards()) {
+            Collections.reverse(points);
+            return new Line(points, pointsOfInterest);
+        }
+        Line line = new Line(points, pointsOfInterest);
+        curve.summary.build(line);
+        curve.sectorPath.remember(line);
+        return line;
+    }
+
+    /**
+     * @param curve A curve.
+     * @return True if what is known about the curve applies to its line.
+     */
+    private static boolean canRemember(Curve curve) {
+        return curve.line != null && !curve.isBackwards();
+    }
+
+    /**
+     * Get a list of any specifications that the sketch as it is now fails against.
+     * @return A list of lines of specification that the sketch violates, or an empty list if it passes.
+     */
+    public List<String> getFailingSpecs() {
+        return matcher.getFailingSpecs(getInput());
+    }
+
+    /**
+     * @return True if the sketch as it is now matches the specification.
+     */
+    public boolean test() {
+        return matcher.test(getInput());
+    }
+}
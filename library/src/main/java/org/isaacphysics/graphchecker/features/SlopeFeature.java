@@ -20,11 +20,17 @@ import org.isaacphysics.graphchecker.settings.SettingsInterface;
 import org.isaacphysics.graphchecker.data.HumanNamedEnum;
 import org.isaacphysics.graphchecker.data.Line;
 import org.isaacphysics.graphchecker.features.internals.LineFeature;
+import org.isaacphysics.graphchecker.features.internals.SpecBody;
+import org.isaacphysics.graphchecker.features.internals.SpecParser;
+import org.isaacphysics.graphchecker.features.internals.SpecToken;
+import org.isaacphysics.graphchecker.geometry.LineSummary;
 import org.isaacphysics.graphchecker.geometry.Lines;
+import com.google.common.collect.ImmutableMap;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -35,6 +41,8 @@ import java.util.stream.Collectors;
  * The slope is calculated by taking a certain number of points at the start/end of the line and then computing the
  * bounding box of those lines. If the aspect ratio of the box is greater than getSlopeThreshold, the line has an
  * interesting slope.
+ *
+ * The boxes are measured once per line, in the line's LineSummary, so every slope instance reads the same sizes.
  */
 public class SlopeFeature extends LineFeature<SlopeFeature.Instance, SlopeFeature.Settings> {
 
@@ -46,6 +54,19 @@ public class SlopeFeature extends LineFeature<SlopeFeature.Instance, SlopeFeatur
         super(settings);
     }
 
+    /**
+     * Describe the slopes at the ends of a line, the way a slope specification would be written for it.
+     *
+     * Two lines with the same description match exactly the same slope specifications.
+     *
+     * @param settings The settings the line is marked with.
+     * @param line The line.
+     * @return The description, like "start=up, end=flat".
+     */
+    public static String describeSlopes(Settings settings, Line line) {
+        return new SlopeFeature(settings).generate(line).get(0);
+    }
+
     /**
      * The settings for a SlopeFeature.
      */
@@ -72,26 +93,38 @@ public class SlopeFeature extends LineFeature<SlopeFeature.Instance, SlopeFeatur
     enum Position implements HumanNamedEnum {
         START {
             @Override
-            List<Point> selectPoints(List<Point> points, int size, int desired) {
-                return points.subList(0, desired);
+            double sizeX(LineSummary.EndSizes sizes) {
+                return sizes.getStartX();
+            }
+
+            @Override
+            double sizeY(LineSummary.EndSizes sizes) {
+                return sizes.getStartY();
             }
         },
         END {
             @Override
-            List<Point> selectPoints(List<Point> points, int size, int desired) {
-                return points.subList(size - desired, size);
+            double sizeX(LineSummary.EndSizes sizes) {
+                return sizes.getEndX();
+            }
+
+            @Override
+            double sizeY(LineSummary.EndSizes sizes) {
+                return sizes.getEndY();
             }
         };
 
         /**
-         * Select the points from this line that cover this position.
-         *
-         * @param points The points from the line.
-         * @param size The length of points.
-         * @param desired The number of points to be taken.
-         * @return A subList of points.
+         * @param sizes The sizes of the ends of a line.
+         * @return The signed width of the box around the points at this position.
          */
-        abstract List<Point> selectPoints(List<Point> points, int size, int desired);
+        abstract double sizeX(LineSummary.EndSizes sizes);
+
+        /**
+         * @param sizes The sizes of the ends of a line.
+         * @return The signed height of the box around the points at this position.
+         */
+        abstract double sizeY(LineSummary.EndSizes sizes);
     }
 
     /**
@@ -128,37 +161,61 @@ public class SlopeFeature extends LineFeature<SlopeFeature.Instance, SlopeFeatur
         }
 
         @Override
-        public boolean test(Line line) {
+        protected String canonicalData() {
             return expectedSlopes.entrySet().stream()
-                .allMatch(entry -> {
-                    Position position = entry.getKey();
-                    Line lineToMeasure = lineAtPosition(line, position);
-                    Slope actualSlope = lineToSlope(lineToMeasure);
-                    return entry.getValue() == actualSlope;
-                });
+                .map(entry -> entry.getKey().humanName() + "=" + entry.getValue().humanName())
+                .collect(Collectors.joining(", "));
+        }
+
+        @Override
+        public boolean test(Line line) {
+            LineSummary.EndSizes sizes = endSizesOf(line);
+            Trace trace = Trace.current();
+            for (Map.Entry<Position, Slope> entry : expectedSlopes.entrySet()) {
+                Position position = entry.getKey();
+                Slope slope = sizeToSlope(position.sizeX(sizes), position.sizeY(sizes));
+                if (trace != null) {
+                    trace.detail(position.humanName(), ImmutableMap.of(
+                        "width", position.sizeX(sizes),
+                        "height", position.sizeY(sizes),
+                        "slope", slope.humanName()));
+                }
+                if (entry.getValue() != slope) {
+                    return false;
+                }
+            }
+            return true;
         }
     }
 
     @Override
     public Instance deserializeInternal(String featureData) {
-        String[] items = featureData.split("\\s*,\\s*");
-        return new Instance(featureData, Arrays.stream(items)
-            .map(item -> {
-                String[] parts = item.split("=");
-                if (parts.length != 2) {
-                    throw new IllegalArgumentException("Incorrect number of slope parts in: " + item);
-                }
-                return parts;
-            }).collect(Collectors.toMap(
-                parts -> Position.valueOf(parts[0].trim().toUpperCase()),
-                parts -> Slope.valueOf(parts[1].trim().toUpperCase())
-            )));
+        return deserializeInternal(SpecParser.parseBody(featureData));
+    }
+
+    @Override
+    @SuppressWarnings("magicNumber")
+    public Instance deserializeInternal(SpecBody body) {
+        Map<Position, Slope> expectedSlopes = new EnumMap<>(Position.class);
+        for (List<SpecToken> item : body.items("a slope")) {
+            SpecToken position = item.get(0);
+            if (item.size() != 3 || item.get(1).getKind() != SpecToken.Kind.EQUALS) {
+                throw position.error("Expected a slope like start=up");
+            }
+            Position key = SpecBody.enumValue(SpecBody.singleWord(item.subList(0, 1), "a position"), Position.class);
+            Slope value = SpecBody.enumValue(SpecBody.singleWord(item.subList(2, 3), "a slope"), Slope.class);
+            if (expectedSlopes.put(key, value) != null) {
+                throw position.error("Duplicate slope for " + position.getText());
+            }
+        }
+        return new Instance(body.getText(), expectedSlopes);
     }
 
     @Override
     public List<String> generate(Line expectedLine) {
+        LineSummary.EndSizes sizes = endSizesOf(expectedLine);
         return Collections.singletonList(Arrays.stream(Position.values())
-        .map(position -> ImmutablePair.of(position, lineToSlope(lineAtPosition(expectedLine, position))))
+        .map(position -> ImmutablePair.of(position, sizeToSlope(position.sizeX(sizes), position.sizeY(sizes))))
         .map(pair -> pair.getLeft().humanName() + "=" + pair.getRight().humanName())
         .collect(Collectors.joining(", ")));
     }
@@ -171,16 +228,26 @@ public class SlopeFeature extends LineFeature<SlopeFeature.Instance, SlopeFeatur
      */
     Slope lineToSlope(Line line) {
         Point size = Lines.getSize(line);
+        return sizeToSlope(size.getX(), size.getY());
+    }
 
+    /**
+     * Convert the size of a line's bounding box into a slope description.
+     *
+     * @param sizeX The signed width of the box, as from Lines.getSize.
+     * @param sizeY The signed height of the box, as from Lines.getSize.
+     * @return The slope of the line.
+     */
+    private Slope sizeToSlope(double sizeX, double sizeY) {
         // Negative X is incorrect for our purposes, so force it to be positive.
-        size = new Point(Math.abs(size.getX()), size.getY());
+        double width = Math.abs(sizeX);
 
-        double highIfFlat = size.getX() / size.getY();
+        double highIfFlat = width / sizeY;
         if (Math.abs(highIfFlat) > settings().getSlopeThreshold()) {
             return Slope.FLAT;
         }
 
-        double highIfSteep = size.getY() / size.getX();
+        double highIfSteep = sizeY / width;
         if (highIfSteep > 0) {
             if (Math.abs(highIfSteep) > settings().getSlopeThreshold()) {
                 return Slope.UP;
@@ -197,15 +264,11 @@ public class SlopeFeature extends LineFeature<SlopeFeature.Instance, SlopeFeatur
     }
 
     /**
-     * Take a section of a line at the start or end.
+     * Get the sizes of the sections of a line at the start and end.
      * @param line The line.
-     * @param position The section of the line to return.
-     * @return A new line that just covers line at position.
+     * @return The sizes of the boxes around the first and last getNumberOfPointsAtEnds points.
      */
-    private Line lineAtPosition(Line line, Position position) {
-        List<Point> points = line.getPoints();
-        int size = points.size();
-        int desired = Math.min(settings().getNumberOfPointsAtEnds(), size);
-        return new Line(position.selectPoints(points, size, desired), Collections.emptyList());
+    private LineSummary.EndSizes endSizesOf(Line line) {
+        return LineSummary.of(line).getEndSizes(settings().getNumberOfPointsAtEnds());
     }
 }
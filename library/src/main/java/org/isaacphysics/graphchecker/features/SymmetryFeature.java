@@ -15,6 +15,9 @@
  */
 package org.isaacphysics.graphchecker.features;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import org.isaacphysics.graphchecker.geometry.SectorBuilder;
 import org.isaacphysics.graphchecker.data.HumanNamedEnum;
 import org.isaacphysics.graphchecker.data.Line;
@@ -22,6 +25,8 @@ import org.isaacphysics.graphchecker.data.Point;
 import org.isaacphysics.graphchecker.data.PointOfInterest;
 import org.isaacphysics.graphchecker.data.PointType;
 import org.isaacphysics.graphchecker.features.internals.LineFeature;
+import org.isaacphysics.graphchecker.features.internals.SpecBody;
+import org.isaacphysics.graphchecker.features.internals.SpecParser;
 import org.isaacphysics.graphchecker.geometry.Lines;
 
 import java.util.ArrayList;
@@ -107,6 +112,11 @@ public class SymmetryFeature extends LineFeature<SymmetryFeature.Instance, Symme
             this.symmetryType = symmetryType;
         }
 
+        @Override
+        protected String canonicalData() {
+            return symmetryType.humanName();
+        }
+
         @Override
         public boolean test(Line line) {
             return getSymmetryOfLine(line) == symmetryType;
@@ -115,7 +125,12 @@ public class SymmetryFeature extends LineFeature<SymmetryFeature.Instance, Symme
 
     @Override
     public Instance deserializeInternal(String featureData) {
-        return new Instance(featureData, SymmetryType.valueOf(featureData.trim().toUpperCase()));
+        return deserializeInternal(SpecParser.parseBody(featureData));
+    }
+
+    @Override
+    public Instance deserializeInternal(SpecBody body) {
+        return new Instance(body.getText(), SpecBody.enumValue(body.singleWord("a symmetry"), SymmetryType.class));
     }
 
     @Override
@@ -129,6 +144,63 @@ public class SymmetryFeature extends LineFeature<SymmetryFeature.Instance, Symme
     }
 
 
+    /**
+     * The measurements of a line that symmetry is judged on, which don't depend on the settings.
+     *
+     * Working these out means splitting the line at its points of interest and finding the size of each piece, which is
+     * most of the work; the settings only decide whether the sides are similar enough. So they are worked out once for
+     * each line, however many settings it is marked with.
+     */
+    private static final class Measurement {
+        private final double[] xDifferences;
+        private final boolean[] flat;
+        private final double[] yDifferencesOdd;
+        private final double[] yDifferencesEven;
+        private final PointOfInterest centre;
+
+        /**
+         * Measure a line.
+         * @param line The line, which must have some points.
+         */
+        private Measurement(Line line) {
+            List<PointOfInterest> points = new ArrayList<>(line.getPointsOfInterest());
+            if ((points.size() % 2) == 0) {
+                Point centre;
+                if (points.size() == 0) {
+                    centre = Lines.getCentreOfPoints(line.getPoints());
+                } else {
+                    centre = Lines.getCentreOfPoints(new ArrayList<>(points));
+                }
+                PointOfInterest virtualCenter = new PointOfInterest(centre, PointType.VIRTUAL_CENTRE);
+                points.add(points.size() / 2, virtualCenter);
+            }
+
+            List<Point> sizes = Lines.getSplitSizes(line, points);
+
+            // Pairs of pieces either side of the centre, working outwards
+            int size = sizes.size() / 2;
+            xDifferences = new double[size];
+            flat = new boolean[size];
+            yDifferencesOdd = new double[size];
+            yDifferencesEven = new double[size];
+            for (int i = 0; i < size; i++) {
+                Point leftSize = sizes.get(size - i - 1);
+                Point rightSize = sizes.get(size + i);
+
+                xDifferences[i] = Math.abs((rightSize.getX() - leftSize.getX()) / rightSize.getX());
+                flat[i] = rightSize.getY() == 0 && leftSize.getY() == 0;
+                yDifferencesOdd[i] = Math.abs((rightSize.getY() - leftSize.getY()) / rightSize.getY());
+                yDifferencesEven[i] = Math.abs((rightSize.getY() + leftSize.getY()) / rightSize.getY());
+            }
+
+            centre = points.get(points.size() / 2);
+        }
+    }
+
+    private static final LoadingCache<Line, Measurement> MEASUREMENT_CACHE = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build(CacheLoader.from(Measurement::new));
+
     /**
      * Calculate the symmetry of a line.
      *
@@ -140,44 +212,22 @@ public class SymmetryFeature extends LineFeature<SymmetryFeature.Instance, Symme
             return SymmetryType.NONE;
         }
 
-        List<PointOfInterest> points = new ArrayList<>(line.getPointsOfInterest());
-        if ((points.size() % 2) == 0) {
-            Point centre;
-            if (points.size() == 0) {
-                centre = Lines.getCentreOfPoints(line.getPoints());
-            } else {
-                centre = Lines.getCentreOfPoints(new ArrayList<>(points));
-            }
-            PointOfInterest virtualCenter = new PointOfInterest(centre, PointType.VIRTUAL_CENTRE);
-            points.add(points.size() / 2, virtualCenter);
-        }
-
-        List<Line> subLines = Lines.splitOnPoints(line, points);
+        Measurement measurement = MEASUREMENT_CACHE.getUnchecked(line);
+        double similarity = settings().getSymmetrySimilarity();
 
         boolean symmetric = true;
         boolean antisymmetric = true;
 
-        int size = subLines.size() / 2;
-        for (int i = 0; i  < size; i++) {
-            Line left = subLines.get(size - i - 1);
-            Line right = subLines.get(size + i);
-
-            Point leftSize = Lines.getSize(left);
-            Point rightSize = Lines.getSize(right);
-
-            double xDifference = (rightSize.getX() - leftSize.getX()) / rightSize.getX();
-            double yDifferenceOdd = (rightSize.getY() - leftSize.getY()) / rightSize.getY();
-            double yDifferenceEven = (rightSize.getY() + leftSize.getY()) / rightSize.getY();
-
-            if (Math.abs(xDifference) < settings().getSymmetrySimilarity()) {
-                if (rightSize.getY() == 0 && leftSize.getY() == 0) {
+        for (int i = 0; i < measurement.xDifferences.length; i++) {
+            if (measurement.xDifferences[i] < similarity) {
+                if (measurement.flat[i]) {
                     continue;
                 }
-                if (Math.abs(yDifferenceOdd) < settings().getSymmetrySimilarity()) {
+                if (measurement.yDifferencesOdd[i] < similarity) {
                     symmetric = false;
                     continue;
                 }
-                if (Math.abs(yDifferenceEven) < settings().getSymmetrySimilarity()) {
+                if (measurement.yDifferencesEven[i] < similarity) {
                     antisymmetric = false;
                     continue;
                 }
@@ -187,7 +237,7 @@ public class SymmetryFeature extends LineFeature<SymmetryFeature.Instance, Symme
             break;
         }
 
-        PointOfInterest centerPoint = points.get(points.size() / 2);
+        PointOfInterest centerPoint = measurement.centre;
         if (antisymmetric && settings().getSectorBuilder().byName(SectorBuilder.RELAXED_ORIGIN).contains(centerPoint)) {
             return SymmetryType.ODD;
         } else if (symmetric && Math.abs(centerPoint.getX()) < settings().getAxisSlop()) {
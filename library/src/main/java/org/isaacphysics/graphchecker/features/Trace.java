@@ -0,0 +1,286 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.features;
+
+import com.google.common.collect.ImmutableBiMap;
+import org.isaacphysics.graphchecker.data.Input;
+import org.isaacphysics.graphchecker.data.Line;
+
+import jakarta.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * A record of how an input was matched against a specification, to explain why it passed or failed.
+ *
+ * A trace is made by Matcher.explain, and features only record into it while that is running on their thread. Features
+ * find the trace with current(), which checks a single counter of traces in progress before anything else, so marking
+ * without explaining costs one volatile read per check and allocates nothing for tracing.
+ *
+ * For each line of the specification, a trace records whether it passed, each line a line feature was checked against
+ * with whatever the feature found there (such as the sectors a line passes through, or the slopes at its ends), and
+ * the assignments of names to lines which were still possible afterwards.
+ */
+public final class Trace {
+
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+    private static final AtomicInteger ACTIVE = new AtomicInteger();
+
+    private final Input input;
+    private final List<Step> steps = new ArrayList<>();
+    private Step step;
+    private LineCheck check;
+
+    /**
+     * Create an empty trace.
+     * @param input The input being explained.
+     */
+    Trace(Input input) {
+        this.input = input;
+    }
+
+    /**
+     * Get the trace being recorded on this thread.
+     *
+     * @return The trace, or null if nothing is being explained, which is almost always.
+     */
+    @Nullable
+    public static Trace current() {
+        if (ACTIVE.get() == 0) {
+            return null;
+        }
+        return CURRENT.get();
+    }
+
+    /**
+     * Start recording into this trace on this thread.
+     */
+    void begin() {
+        if (CURRENT.get() != null) {
+            throw new IllegalStateException("An input is already being explained on this thread");
+        }
+        CURRENT.set(this);
+        ACTIVE.incrementAndGet();
+    }
+
+    /**
+     * Stop recording into this trace.
+     */
+    void end() {
+        ACTIVE.decrementAndGet();
+        CURRENT.remove();
+    }
+
+    /**
+     * Start recording a line of the specification.
+     * @param spec The line of specification.
+     * @param tag The tag of its feature.
+     */
+    void startStep(String spec, String tag) {
+        step = new Step(spec, tag);
+        steps.add(step);
+    }
+
+    /**
+     * Finish recording a line of the specification.
+     * @param context The context after matching it, or null if it didn't match.
+     */
+    void endStep(@Nullable Context context) {
+        step.passed = context != null;
+        if (context != null) {
+            for (ImmutableBiMap<String, Line> assignment : context.getAssignmentsCopy()) {
+                Map<String, Integer> indices = new TreeMap<>();
+                assignment.forEach((name, line) -> indices.put(name, indexOf(line)));
+                step.assignments.add(indices);
+            }
+            step.assignments.sort((a, b) -> a.toString().compareTo(b.toString()));
+        }
+        step = null;
+    }
+
+    /**
+     * Start recording a line feature being checked against a line.
+     * @param feature The line feature's specification.
+     * @param line The line.
+     */
+    public void startLine(String feature, Line line) {
+        check = new LineCheck(feature, indexOf(line));
+        if (step != null) {
+            step.lines.add(check);
+        }
+    }
+
+    /**
+     * Record something a line feature found while checking the current line.
+     * @param name What was found.
+     * @param value The value found, which should be plain data such as strings, numbers, lists and maps.
+     */
+    public void detail(String name, Object value) {
+        if (check != null) {
+            check.details.put(name, value);
+        }
+    }
+
+    /**
+     * Finish recording a line feature being checked against a line.
+     * @param passed True if the line matched.
+     */
+    public void endLine(boolean passed) {
+        check.passed = passed;
+        check = null;
+    }
+
+    /**
+     * @param line A line of the input.
+     * @return Its index in the input, or -1 if it isn't one of the input's lines.
+     */
+    private int indexOf(Line line) {
+        List<Line> lines = input.getLines();
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i) == line) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return What happened to each line of the specification, in order.
+     */
+    public List<Step> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    /**
+     * @return The lines of the specification the input failed, as Matcher.getFailingSpecs would return them.
+     */
+    public List<String> getFailingSpecs() {
+        return steps.stream()
+            .filter(candidate -> !candidate.passed)
+            .map(Step::getSpec)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * What happened when one line of the specification was matched.
+     */
+    public static final class Step {
+        private final String spec;
+        private final String tag;
+        private boolean passed;
+        private final List<LineCheck> lines = new ArrayList<>();
+        private final List<Map<String, Integer>> assignments = new ArrayList<>();
+
+        /**
+         * Create a step.
+         * @param spec The line of specification.
+         * @param tag The tag of its feature.
+         */
+        private Step(String spec, String tag) {
+            this.spec = spec;
+            this.tag = tag;
+        }
+
+        /**
+         * @return The line of specification.
+         */
+        public String getSpec() {
+            return spec;
+        }
+
+        /**
+         * @return The tag of its feature, e.g. "through", or "match.slope" for a feature inside a line selector.
+         */
+        public String getTag() {
+            return tag;
+        }
+
+        /**
+         * @return True if the input matched this line of specification.
+         */
+        public boolean isPassed() {
+            return passed;
+        }
+
+        /**
+         * @return Each line a line feature was checked against, in the order they were checked.
+         */
+        public List<LineCheck> getLines() {
+            return Collections.unmodifiableList(lines);
+        }
+
+        /**
+         * @return The possible assignments of names to indices of lines after this step, or empty if it failed.
+         */
+        public List<Map<String, Integer>> getAssignments() {
+            return Collections.unmodifiableList(assignments);
+        }
+    }
+
+    /**
+     * A line feature being checked against one line.
+     */
+    public static final class LineCheck {
+        private final String feature;
+        private final int line;
+        private boolean passed;
+        private final Map<String, Object> details = new LinkedHashMap<>();
+
+        /**
+         * Create a check.
+         * @param feature The line feature's specification.
+         * @param line The index of the line in the input.
+         */
+        private LineCheck(String feature, int line) {
+            this.feature = feature;
+            this.line = line;
+        }
+
+        /**
+         * @return The line feature's specification.
+         */
+        public String getFeature() {
+            return feature;
+        }
+
+        /**
+         * @return The index of the line in the input.
+         */
+        public int getLine() {
+            return line;
+        }
+
+        /**
+         * @return True if the line matched the feature.
+         */
+        public boolean isPassed() {
+            return passed;
+        }
+
+        /**
+         * @return What the feature found, by name, in the order it was found.
+         */
+        public Map<String, Object> getDetails() {
+            return Collections.unmodifiableMap(details);
+        }
+    }
+}
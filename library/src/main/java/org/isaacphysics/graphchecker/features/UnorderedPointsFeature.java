@@ -19,12 +19,16 @@ package org.isaacphysics.graphchecker.features;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.isaacphysics.graphchecker.data.Line;
 import org.isaacphysics.graphchecker.data.PointType;
+import org.isaacphysics.graphchecker.features.internals.SpecBody;
+import org.isaacphysics.graphchecker.features.internals.SpecParser;
+import org.isaacphysics.graphchecker.geometry.LineSummary;
+import org.isaacphysics.graphchecker.geometry.PointOfInterestTable;
 import org.isaacphysics.graphchecker.geometry.Sector;
 import org.isaacphysics.graphchecker.geometry.SectorClassifier;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -56,10 +60,32 @@ public class UnorderedPointsFeature extends PointsFeature{
             super(featureData, new ArrayList<>(expectedPoints));
         }
 
+        @Override
+        protected String canonicalData() {
+            return expectedPoints.stream().map(UnorderedPointsFeature.this::generatePointSpec).sorted()
+                .collect(Collectors.joining(", "));
+        }
+
+        @Override
+        protected boolean prefilter(LineSummary summary) {
+            for (PointType type : PointType.values()) {
+                if (expectedCounts[type.ordinal()] > 0 && summary.countOf(type) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         @Override
         public boolean test(Line line){
-            for (ImmutablePair<PointType, Sector> expected : expectedPoints) {
-                if (line.getPointsOfInterest().stream().noneMatch(actual -> pointsMatch(expected, actual))){
+            LineSummary summary = LineSummary.of(line);
+            PointOfInterestTable actual = summary.getPointsOfInterest(classifier);
+            for (int i = 0; i < expectedTypes.length; i++) {
+                if (expectedAnywhere[i]) {
+                    if (summary.countOf(expectedTypes[i]) == 0) {
+                        return false;
+                    }
+                } else if (!actual.anyIn(expectedTypes[i], expectedSectors[i])) {
                     return false;
                 }
             }
@@ -69,8 +95,12 @@ public class UnorderedPointsFeature extends PointsFeature{
 
     @Override
     public Instance deserializeInternal(String featureData) {
-        String[] items = featureData.split("\\s*,\\s*");
-        return new Instance(featureData, Arrays.stream(items).map(this::deserializeItem).collect(Collectors.toSet()));
+        return deserializeInternal(SpecParser.parseBody(featureData));
+    }
+
+    @Override
+    public Instance deserializeInternal(SpecBody body) {
+        return new Instance(body.getText(), new HashSet<>(deserializeItems(body)));
     }
 
     @Override
@@ -40,7 +40,7 @@ public abstract class InputFeature<FeatureInstance extends InputFeature.Instance
     /**
      * An instance of an InputFeature.
      */
-    public abstract class Instance extends AbstractInstance {
+    public abstract class Instance extends Feature<FeatureInstance, Input, List<String>, SettingsType>.AbstractInstance {
         /**
          * Create an instance of this feature; this is wrapped for type purposes.
          * @param item The feature specification.
@@ -64,6 +64,16 @@ public abstract class InputFeature<FeatureInstance extends InputFeature.Instance
         return super.deserialize(item);
     }
 
+    /**
+     * Create an instance of this feature from a parsed specification.
+     *
+     * @param body The parsed body, after the tag.
+     * @return The feature instance.
+     */
+    public final FeatureInstance deserialize(SpecBody body) {
+        return super.deserialize(body);
+    }
+
     /**
      * A type of input feature which wraps other features so doesn't have its own parsing or generation or settings.
      * @param <T> The type of instances of this feature.
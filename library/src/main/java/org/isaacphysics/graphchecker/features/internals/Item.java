@@ -15,8 +15,12 @@
  */
 package org.isaacphysics.graphchecker.features.internals;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.isaacphysics.graphchecker.settings.SettingsInterface;
 
+import java.util.Objects;
+
 /**
  * Something that can be parsed, generated, and configured in our feature handling code.
  * @param <Instance> The type of instances of this thing.
@@ -27,6 +31,13 @@ import org.isaacphysics.graphchecker.settings.SettingsInterface;
 abstract class Item<Instance extends Item.AbstractInstance, InputType, GeneratedType,
                     SettingsType extends SettingsInterface> {
 
+    /**
+     * Instances with a canonical form, shared for as long as any specification uses them.
+     */
+    private static final Cache<InternKey, Object> INTERNED = CacheBuilder.newBuilder()
+        .weakValues()
+        .build();
+
     private final SettingsType settings;
 
     /**
@@ -68,12 +79,43 @@ abstract class Item<Instance extends Item.AbstractInstance, InputType, Generated
             return prefix(featureData);
         }
 
+        /**
+         * The canonical form of this instance, which is the same for all specifications with the same meaning, however
+         * they are spaced or capitalised.
+         *
+         * Instances of the same item with the same settings and canonical form are interchangeable, so only one of
+         * them is kept. By default, instances have no canonical form and are never shared.
+         *
+         * @return The canonical specification without the tag, or null if this instance should not be shared.
+         */
+        protected String canonicalData() {
+            return null;
+        }
+
+        /**
+         * @return The canonical form of this instance with its tag, or null if it has none.
+         */
+        public String getCanonicalForm() {
+            String canonicalData = canonicalData();
+            if (canonicalData == null) {
+                return null;
+            }
+            return prefix(canonicalData);
+        }
+
         /**
          * @return True if this feature is aware of which lines it is being applied to.
          */
         public boolean isLineAware() {
             return lineAware;
         }
+
+        /**
+         * @return The tag identifying what kind of feature this is, for reporting.
+         */
+        public String getTag() {
+            return tag();
+        }
     }
 
     /**
@@ -96,7 +138,79 @@ abstract class Item<Instance extends Item.AbstractInstance, InputType, Generated
         if (!canDeserialize(item)) {
             throw new IllegalArgumentException("Feature deserialized with wrong tag");
         }
-        return deserializeInternal(item.substring(tag().length() + 1));
+        return intern(deserializeInternal(item.substring(tag().length() + 1)));
+    }
+
+    /**
+     * Create an instance of this lineFeatureSpec from a parsed specification.
+     *
+     * @param body The parsed body, after the tag.
+     * @return The feature instance.
+     */
+    Instance deserialize(SpecBody body) {
+        return intern(deserializeInternal(body));
+    }
+
+    /**
+     * Share an instance with any other instance of this item with the same settings and meaning.
+     *
+     * A shared instance keeps the specification text it was first created from, which may be spaced differently.
+     *
+     * The shared instance belongs to whichever item created it first, which may not be this one, even though it has
+     * the same settings. So instances must not keep state on their item object, such as a cache, and expect other
+     * items to see it; anything remembered between items with the same settings must be kept statically, such as by
+     * line like LineSummary, or on the settings.
+     *
+     * @param instance A newly created instance.
+     * @return The shared instance, or this instance if it is the first or has no canonical form.
+     */
+    @SuppressWarnings("unchecked")
+    private Instance intern(Instance instance) {
+        String canonicalData = instance.canonicalData();
+        if (canonicalData == null) {
+            return instance;
+        }
+        Object existing = INTERNED.asMap().putIfAbsent(new InternKey(getClass(), settings, canonicalData), instance);
+        if (existing == null) {
+            return instance;
+        }
+        return (Instance) existing;
+    }
+
+    /**
+     * The identity of a shared instance: its item's class, the settings object, and its canonical form.
+     */
+    private static final class InternKey {
+        private final Class<?> itemClass;
+        private final SettingsInterface settings;
+        private final String canonicalData;
+
+        /**
+         * Create a key.
+         * @param itemClass The class of the item.
+         * @param settings The settings of the item, compared by identity.
+         * @param canonicalData The canonical form of the instance.
+         */
+        private InternKey(Class<?> itemClass, SettingsInterface settings, String canonicalData) {
+            this.itemClass = itemClass;
+            this.settings = settings;
+            this.canonicalData = canonicalData;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof InternKey)) {
+                return false;
+            }
+            InternKey other = (InternKey) o;
+            return itemClass == other.itemClass && settings == other.settings
+                && canonicalData.equals(other.canonicalData);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(itemClass, System.identityHashCode(settings), canonicalData);
+        }
     }
 
     /**
@@ -123,6 +237,18 @@ abstract class Item<Instance extends Item.AbstractInstance, InputType, Generated
      */
     protected abstract Instance deserializeInternal(String featureData);
 
+    /**
+     * Create an instance of this lineFeatureSpec from a parsed specification.
+     *
+     * By default this parses the text again, so items which have their own grammar should override it.
+     *
+     * @param body The parsed body, after the tag.
+     * @return The lineFeatureSpec instance.
+     */
+    protected Instance deserializeInternal(SpecBody body) {
+        return deserializeInternal(body.getText());
+    }
+
     /**
      * Generate a list of specifications for this feature from some input.
      * @param expectedInput Input to be examined.
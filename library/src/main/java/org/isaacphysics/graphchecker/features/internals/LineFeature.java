@@ -17,6 +17,8 @@ package org.isaacphysics.graphchecker.features.internals;
 
 import org.isaacphysics.graphchecker.data.Input;
 import org.isaacphysics.graphchecker.features.Context;
+import org.isaacphysics.graphchecker.features.Trace;
+import org.isaacphysics.graphchecker.geometry.LineSummary;
 import org.isaacphysics.graphchecker.settings.SettingsInterface;
 import org.isaacphysics.graphchecker.data.Line;
 
@@ -42,7 +44,7 @@ public abstract class LineFeature<FeatureInstance extends LineFeature.Instance,
     /**
      * An instance of a LineFeature.
      */
-    public abstract class Instance extends AbstractInstance {
+    public abstract class Instance extends Feature<FeatureInstance, Line, List<String>, SettingsType>.AbstractInstance {
         /**
          * Create an instance of this feature; this is wrapped for type purposes.
          * @param item The feature specification.
@@ -56,7 +58,16 @@ public abstract class LineFeature<FeatureInstance extends LineFeature.Instance,
          * @return An input feature instance that recognises the line feature in any line.
          */
         public InputFeature.Instance wrapToItemFeature() {
-            return new LineFeatureWrapper(settings()).new Instance(this.getTaggedFeatureData(), this);
+            return wrapToItemFeature(this.getTaggedFeatureData());
+        }
+
+        /**
+         * Wrap this line feature into an lineFeatureSpec feature that matches if any line matches.
+         * @param taggedFeatureData The specification to report if the input does not match.
+         * @return An input feature instance that recognises the line feature in any line.
+         */
+        public InputFeature.Instance wrapToItemFeature(String taggedFeatureData) {
+            return new LineFeatureWrapper(settings()).new Instance(taggedFeatureData, this);
         }
 
         /**
@@ -65,6 +76,58 @@ public abstract class LineFeature<FeatureInstance extends LineFeature.Instance,
          * @return True if this line matches this feature.
          */
         public abstract boolean test(Line line);
+
+        /**
+         * A cheap check that a line could match this feature, using only its summary.
+         *
+         * This must be conservative: it may only return false if test would also return false. By default, everything
+         * passes.
+         *
+         * @param summary The summary of the line to test.
+         * @return False if the line definitely doesn't match this feature.
+         */
+        protected boolean prefilter(LineSummary summary) {
+            return true;
+        }
+
+        /**
+         * Test if this line feature matches this line, rejecting it from its summary first if possible.
+         *
+         * Callers should use this rather than test. Instances with a canonical form are shared between specifications,
+         * so their result on each line is remembered in the line's summary, for as long as both the line and the
+         * instance are in use, so marking the same lines with many settings doesn't keep every settings' instances
+         * alive. While an input is being explained, remembered results are not used, so the check is recorded in the
+         * trace.
+         *
+         * @param line The line to test.
+         * @return True if this line matches this feature.
+         */
+        public final boolean matches(Line line) {
+            Trace trace = Trace.current();
+            if (trace != null) {
+                trace.startLine(getTaggedFeatureData(), line);
+                boolean result;
+                if (prefilter(LineSummary.of(line))) {
+                    result = test(line);
+                } else {
+                    trace.detail("rejectedBySummary", true);
+                    result = false;
+                }
+                trace.endLine(result);
+                return result;
+            }
+            if (canonicalData() == null) {
+                return prefilter(LineSummary.of(line)) && test(line);
+            }
+            LineSummary summary = LineSummary.of(line);
+            LineSummary.Results results = summary.getResults();
+            Boolean result = results.get(this);
+            if (result == null) {
+                result = prefilter(summary) && test(line);
+                results.put(this, result);
+            }
+            return result;
+        }
     }
 
     /**
@@ -80,6 +143,16 @@ public abstract class LineFeature<FeatureInstance extends LineFeature.Instance,
         return super.deserialize(item);
     }
 
+    /**
+     * Create an instance of this feature from a parsed specification.
+     *
+     * @param body The parsed body, after the tag.
+     * @return The feature instance.
+     */
+    public final FeatureInstance deserialize(SpecBody body) {
+        return super.deserialize(body);
+    }
+
     /**
      * A wrapper that makes an input feature from a line feature. It will match if any line matches.
      */
@@ -109,9 +182,14 @@ public abstract class LineFeature<FeatureInstance extends LineFeature.Instance,
                 this.lineFeatureInstance = lineFeatureInstance;
             }
 
+            @Override
+            public String getTag() {
+                return lineFeatureInstance.getTag();
+            }
+
             @Override
             public Context test(Input input, Context context) {
-                if (input.getLines().stream().anyMatch(lineFeatureInstance)) {
+                if (input.getLines().stream().anyMatch(lineFeatureInstance::matches)) {
                     return context;
                 } else {
                     return null;
@@ -105,7 +105,18 @@ public abstract class LineSelector<SelectorInstance extends LineSelector.Instanc
          * @return An input feature instance that recognises the line feature in the selected line.
          */
         public InputFeature.Instance wrapToItemFeature(LineFeature<?, ?>.Instance instance) {
-            return new LineSelectorWrapperFeature(settings()).new Instance(this, instance);
+            return wrapToItemFeature(instance, instance.getTaggedFeatureData());
+        }
+
+        /**
+         * Wrap a line feature into an lineFeatureSpec feature that matches lines selected by this selector.
+         * @param instance The line predicate to wrap.
+         * @param taggedLineFeatureData The specification of the line feature to report if the input does not match.
+         * @return An input feature instance that recognises the line feature in the selected line.
+         */
+        public InputFeature.Instance wrapToItemFeature(LineFeature<?, ?>.Instance instance,
+                                                       String taggedLineFeatureData) {
+            return new LineSelectorWrapperFeature(settings()).new Instance(this, instance, taggedLineFeatureData);
         }
     }
 
@@ -122,6 +133,16 @@ public abstract class LineSelector<SelectorInstance extends LineSelector.Instanc
         return super.deserialize(item);
     }
 
+    /**
+     * Create an instance of this feature from a parsed specification.
+     *
+     * @param body The parsed body, after the tag.
+     * @return The feature instance.
+     */
+    public final SelectorInstance deserialize(SpecBody body) {
+        return super.deserialize(body);
+    }
+
     /**
      * A wrapper that makes an input feature from a line selector and a line feature.
      */
@@ -138,7 +159,7 @@ public abstract class LineSelector<SelectorInstance extends LineSelector.Instanc
         /**
          * An instance of this feature.
          */
-        class Instance extends InputFeature.WrapperFeature<LineSelectorWrapperFeature.Instance>.Instance {
+        class Instance extends InputFeature<LineSelectorWrapperFeature.Instance, SettingsInterface>.Instance {
 
             private final LineSelector<?, ?>.Instance selectorInstance;
             private final LineFeature<?, ?>.Instance lineFeatureInstance;
@@ -147,14 +168,20 @@ public abstract class LineSelector<SelectorInstance extends LineSelector.Instanc
              * Create an instance of this feature.
              * @param selectorInstance The line selector instance.
              * @param lineFeatureInstance The line feature instance.
+             * @param taggedLineFeatureData The specification of the line feature.
              */
             private Instance(LineSelector<?, ?>.Instance selectorInstance,
-                             LineFeature<?, ?>.Instance lineFeatureInstance) {
-                super(selectorInstance.getTaggedFeatureData() + lineFeatureInstance.getTaggedFeatureData(), true);
+                             LineFeature<?, ?>.Instance lineFeatureInstance, String taggedLineFeatureData) {
+                super(selectorInstance.getTaggedFeatureData() + taggedLineFeatureData, true);
                 this.selectorInstance = selectorInstance;
                 this.lineFeatureInstance = lineFeatureInstance;
             }
 
+            @Override
+            public String getTag() {
+                return selectorInstance.getTag() + "." + lineFeatureInstance.getTag();
+            }
+
             @Override
             public Context test(Input input, Context context) {
                 return selectorInstance.test(input, lineFeatureInstance, context);
@@ -0,0 +1,273 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.features.internals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The body of a feature specification, which is everything after the tag.
+ *
+ * This has both the text, which features keep to report failures, and its tokens, which they parse. The helpers here
+ * report errors at the position of the offending token.
+ */
+public final class SpecBody {
+    private final String lineText;
+    private final int start;
+    private final List<SpecToken> tokens;
+    private final int line;
+    private final int endColumn;
+
+    /**
+     * Create a body.
+     * @param lineText The text of the whole line.
+     * @param start Where the body starts in the line.
+     * @param tokens The tokens of the body.
+     * @param line The line of the specification, starting from 1.
+     * @param endColumn The column just after the end of the line.
+     */
+    SpecBody(String lineText, int start, List<SpecToken> tokens, int line, int endColumn) {
+        this.lineText = lineText;
+        this.start = start;
+        this.tokens = tokens;
+        this.line = line;
+        this.endColumn = endColumn;
+    }
+
+    /**
+     * @return The text of the body, exactly as it was written after the tag.
+     */
+    public String getText() {
+        return lineText.substring(start);
+    }
+
+    /**
+     * @return The tokens of the body.
+     */
+    public List<SpecToken> getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Get the text after a token, without leading whitespace.
+     * @param token A token of this body.
+     * @return The rest of the line after the token.
+     */
+    public String getTextAfter(SpecToken token) {
+        int after = token.getOffset() + token.getText().length();
+        while (after < lineText.length() && Character.isWhitespace(lineText.charAt(after))) {
+            after++;
+        }
+        return lineText.substring(after);
+    }
+
+    /**
+     * Make an error positioned at the end of the line.
+     * @param message What was wrong.
+     * @return The error, to be thrown.
+     */
+    public SpecSyntaxException errorAtEnd(String message) {
+        return new SpecSyntaxException(message, line, endColumn);
+    }
+
+    /**
+     * Get a token, or fail if there are not enough.
+     * @param index The index of the token.
+     * @param expected A description of what was expected there, for the error.
+     * @return The token.
+     */
+    public SpecToken get(int index, String expected) {
+        if (index >= tokens.size()) {
+            throw errorAtEnd("Expected " + expected);
+        }
+        return tokens.get(index);
+    }
+
+    /**
+     * Get a word, or fail if the token is not a word.
+     * @param index The index of the token.
+     * @param expected A description of what was expected there, for the error.
+     * @return The word token.
+     */
+    public SpecToken word(int index, String expected) {
+        SpecToken token = get(index, expected);
+        if (token.getKind() != SpecToken.Kind.WORD) {
+            throw token.error("Expected " + expected + " but found '" + token.getText() + "'");
+        }
+        return token;
+    }
+
+    /**
+     * Get a punctuation token, or fail if the token is anything else.
+     * @param index The index of the token.
+     * @param kind The kind of punctuation.
+     * @param expected A description of what was expected there, for the error.
+     * @return The punctuation token.
+     */
+    public SpecToken punctuation(int index, SpecToken.Kind kind, String expected) {
+        SpecToken token = get(index, expected);
+        if (token.getKind() != kind) {
+            throw token.error("Expected " + expected + " but found '" + token.getText() + "'");
+        }
+        return token;
+    }
+
+    /**
+     * Get a particular word, or fail if the token is anything else.
+     * @param index The index of the token.
+     * @param keyword The word that should be there.
+     * @return The word token.
+     */
+    public SpecToken keyword(int index, String keyword) {
+        SpecToken token = word(index, "'" + keyword + "'");
+        if (!token.is(keyword)) {
+            throw token.error("Expected '" + keyword + "' but found '" + token.getText() + "'");
+        }
+        return token;
+    }
+
+    /**
+     * Get a word made only of the letters a to z, in either case, like the names of lines.
+     * @param index The index of the token.
+     * @param expected A description of what was expected there, for the error.
+     * @return The word token.
+     */
+    public SpecToken letters(int index, String expected) {
+        SpecToken token = word(index, expected);
+        for (int i = 0; i < token.getText().length(); i++) {
+            char c = token.getText().charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z')) {
+                throw token.error("Expected " + expected + " but found '" + token.getText() + "'");
+            }
+        }
+        return token;
+    }
+
+    /**
+     * Get the rest of this body from a token onwards.
+     * @param index The index of the first token of the rest.
+     * @return The rest of the body.
+     */
+    public SpecBody from(int index) {
+        int restStart = lineText.length();
+        if (index < tokens.size()) {
+            restStart = tokens.get(index).getOffset();
+        }
+        return new SpecBody(lineText, restStart, Collections.unmodifiableList(tokens.subList(index, tokens.size())),
+            line, endColumn);
+    }
+
+    /**
+     * Fail if there are more tokens after an index.
+     * @param index The index of the first token that should not exist.
+     */
+    public void expectEnd(int index) {
+        if (index < tokens.size()) {
+            throw tokens.get(index).error("Unexpected '" + tokens.get(index).getText() + "'");
+        }
+    }
+
+    /**
+     * Get the only token of a body which should be a single word.
+     * @param expected A description of the word, for the error.
+     * @return The word token.
+     */
+    public SpecToken singleWord(String expected) {
+        SpecToken token = word(0, expected);
+        expectEnd(1);
+        return token;
+    }
+
+    /**
+     * Split the body into a list of items separated by commas.
+     *
+     * Empty items at the end of the list are ignored, as String.split ignores them, but any others are an error.
+     *
+     * @param expected A description of an item, for errors.
+     * @return The tokens of each item.
+     */
+    public List<List<SpecToken>> items(String expected) {
+        int end = tokens.size();
+        while (end > 0 && tokens.get(end - 1).getKind() == SpecToken.Kind.COMMA) {
+            end--;
+        }
+        if (end == 0) {
+            get(0, expected);
+            throw tokens.get(0).error("Expected " + expected);
+        }
+        List<List<SpecToken>> items = new ArrayList<>();
+        int itemStart = 0;
+        for (int i = 0; i <= end; i++) {
+            if (i == end || tokens.get(i).getKind() == SpecToken.Kind.COMMA) {
+                if (i == itemStart) {
+                    throw tokens.get(i).error("Expected " + expected + " before ','");
+                }
+                items.add(Collections.unmodifiableList(tokens.subList(itemStart, i)));
+                itemStart = i + 1;
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Get the only token of an item which should be a single word.
+     * @param item The tokens of the item.
+     * @param expected A description of the word, for the error.
+     * @return The word token.
+     */
+    public static SpecToken singleWord(List<SpecToken> item, String expected) {
+        SpecToken token = item.get(0);
+        if (token.getKind() != SpecToken.Kind.WORD) {
+            throw token.error("Expected " + expected + " but found '" + token.getText() + "'");
+        }
+        if (item.size() > 1) {
+            throw item.get(1).error("Unexpected '" + item.get(1).getText() + "'");
+        }
+        return token;
+    }
+
+    /**
+     * Look up something by the name in a word, reporting a failure at the word.
+     * @param token The word naming the thing.
+     * @param lookup The lookup, which throws IllegalArgumentException if there is no such thing.
+     * @param <T> The type of the thing.
+     * @return The thing.
+     */
+    public static <T> T lookup(SpecToken token, Function<String, T> lookup) {
+        try {
+            return lookup.apply(token.getText());
+        } catch (IllegalArgumentException e) {
+            throw token.error(e.getMessage());
+        }
+    }
+
+    /**
+     * Look up an enum constant by its name, ignoring case, as it is written in specifications.
+     * @param token The word naming the constant.
+     * @param type The type of the enum.
+     * @param <E> The type of the enum.
+     * @return The constant.
+     */
+    public static <E extends Enum<E>> E enumValue(SpecToken token, Class<E> type) {
+        try {
+            return Enum.valueOf(type, token.getText().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw token.error("Unknown " + type.getSimpleName() + " '" + token.getText() + "'");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.features.internals;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * One line of a feature specification: a tag and its body, like "through: topLeft, +Yaxis, topRight".
+ *
+ * A line selector's body names the lines it selects and then has a whole feature of its own, like
+ * "line: 2; through: topLeft". That feature is parsed too, and is available from getSelectedFeature.
+ */
+public final class SpecLine {
+    private final int lineNumber;
+    private final SpecToken tag;
+    private final SpecBody body;
+    private final SpecLine selectedFeature;
+
+    /**
+     * Create a line of specification.
+     * @param lineNumber The line number, starting from 1.
+     * @param tag The tag.
+     * @param body The body, after the tag.
+     * @param selectedFeature The feature after a line selector, or null if this is not a line selector.
+     */
+    SpecLine(int lineNumber, SpecToken tag, SpecBody body, @Nullable SpecLine selectedFeature) {
+        this.lineNumber = lineNumber;
+        this.tag = tag;
+        this.body = body;
+        this.selectedFeature = selectedFeature;
+    }
+
+    /**
+     * @return The line number, starting from 1.
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return The tag, which identifies the kind of feature.
+     */
+    public SpecToken getTag() {
+        return tag;
+    }
+
+    /**
+     * @return The body, after the tag.
+     */
+    public SpecBody getBody() {
+        return body;
+    }
+
+    /**
+     * @return The feature after the argument of a line selector, or null if the body does not have one.
+     */
+    @Nullable
+    public SpecLine getSelectedFeature() {
+        return selectedFeature;
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.features.internals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The tokenizer and parser for feature specifications.
+ *
+ * A specification is a list of lines, each of which is a tag, a colon, and a body:
+ * <pre>
+ * line     := WORD ':' body
+ * body     := WORD ';' line        (a line selector and the feature it applies to)
+ *           | token*               (parsed by the feature the tag names)
+ * token    := WORD | ':' | ';' | ',' | '='
+ * </pre>
+ * A WORD is a run of letters, digits, '+', '-' and '_'. Whitespace separates tokens and is otherwise ignored, and any
+ * other character is a syntax error.
+ */
+public final class SpecParser {
+
+    /**
+     * Utility class.
+     */
+    private SpecParser() {
+    }
+
+    /**
+     * Parse a whole specification.
+     * Blank lines at the end, such as those left by a final line break, are ignored, so a specification with
+     * nothing but blank lines has no features.
+     * @param spec The specification, with one feature on each line.
+     * @return The parsed lines.
+     * @throws SpecSyntaxException If any line is not a tag followed by a body, or has an unexpected character.
+     */
+    public static List<SpecLine> parse(String spec) {
+        int specEnd = spec.length();
+        while (specEnd > 0 && spec.charAt(specEnd - 1) <= ' ') {
+            specEnd--;
+        }
+        String text = spec.substring(0, specEnd);
+
+        List<SpecLine> lines = new ArrayList<>();
+        if (text.isEmpty()) {
+            return lines;
+        }
+        int lineStart = 0;
+        int lineNumber = 1;
+        while (true) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            String rawLine;
+            if (lineEnd == -1) {
+                rawLine = text.substring(lineStart);
+            } else {
+                rawLine = text.substring(lineStart, lineEnd);
+            }
+            lines.add(parseLine(rawLine, lineNumber));
+            if (lineEnd == -1) {
+                return lines;
+            }
+            lineStart = lineEnd + 1;
+            lineNumber++;
+        }
+    }
+
+    /**
+     * Parse a single line of a specification.
+     * @param rawLine The line, which may have whitespace around it.
+     * @param lineNumber The number of the line, starting from 1.
+     * @return The parsed line.
+     */
+    private static SpecLine parseLine(String rawLine, int lineNumber) {
+        int leading = 0;
+        while (leading < rawLine.length() && rawLine.charAt(leading) <= ' ') {
+            leading++;
+        }
+        String text = rawLine.trim();
+        int firstColumn = leading + 1;
+        List<SpecToken> tokens = tokenize(text, lineNumber, firstColumn);
+        return parseLine(text, tokens, 0, lineNumber, firstColumn + text.length());
+    }
+
+    /**
+     * Parse a feature from some of the tokens of a line.
+     * @param text The text of the line.
+     * @param tokens The tokens of the line.
+     * @param from The index of the token the feature starts at.
+     * @param lineNumber The number of the line.
+     * @param endColumn The column just after the end of the line.
+     * @return The parsed feature.
+     */
+    private static SpecLine parseLine(String text, List<SpecToken> tokens, int from, int lineNumber, int endColumn) {
+        SpecBody whole = new SpecBody(text, 0, tokens, lineNumber, endColumn);
+        SpecToken tag = whole.word(from, "a feature tag");
+        SpecToken colon = whole.punctuation(from + 1, SpecToken.Kind.COLON, "':' after " + tag.getText());
+        List<SpecToken> bodyTokens = Collections.unmodifiableList(tokens.subList(from + 2, tokens.size()));
+        SpecBody body = new SpecBody(text, colon.getOffset() + 1, bodyTokens, lineNumber, endColumn);
+
+        SpecLine selectedFeature = null;
+        if (bodyTokens.size() >= 2 && bodyTokens.get(0).getKind() == SpecToken.Kind.WORD
+            && bodyTokens.get(1).getKind() == SpecToken.Kind.SEMICOLON) {
+            selectedFeature = parseLine(text, tokens, from + 4, lineNumber, endColumn);
+        }
+        return new SpecLine(lineNumber, tag, body, selectedFeature);
+    }
+
+    /**
+     * Parse the body of a single feature, as it would be written after the tag.
+     * @param featureData The body.
+     * @return The parsed body.
+     */
+    public static SpecBody parseBody(String featureData) {
+        List<SpecToken> tokens = tokenize(featureData, 1, 1);
+        return new SpecBody(featureData, 0, tokens, 1, featureData.length() + 1);
+    }
+
+    /**
+     * Split a line into tokens.
+     * @param text The text of the line.
+     * @param lineNumber The number of the line.
+     * @param firstColumn The column of the first character of the text.
+     * @return The tokens.
+     * @throws SpecSyntaxException If there is a character which cannot start a token.
+     */
+    static List<SpecToken> tokenize(String text, int lineNumber, int firstColumn) {
+        List<SpecToken> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            SpecToken.Kind punctuation = punctuation(c);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (punctuation != null) {
+                tokens.add(new SpecToken(punctuation, String.valueOf(c), i, lineNumber, firstColumn + i));
+                i++;
+            } else if (isWordCharacter(c)) {
+                int start = i;
+                while (i < text.length() && isWordCharacter(text.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new SpecToken(SpecToken.Kind.WORD, text.substring(start, i), start, lineNumber,
+                    firstColumn + start));
+            } else {
+                throw new SpecSyntaxException("Unexpected character '" + c + "'", lineNumber, firstColumn + i);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * @param c A character.
+     * @return The kind of punctuation token it is, or null if it is not punctuation.
+     */
+    private static SpecToken.Kind punctuation(char c) {
+        switch (c) {
+            case ':':
+                return SpecToken.Kind.COLON;
+            case ';':
+                return SpecToken.Kind.SEMICOLON;
+            case ',':
+                return SpecToken.Kind.COMMA;
+            case '=':
+                return SpecToken.Kind.EQUALS;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @param c A character.
+     * @return True if the character can be part of a word.
+     */
+    private static boolean isWordCharacter(char c) {
+        return Character.isLetterOrDigit(c) || c == '+' || c == '-' || c == '_';
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.features.internals;
+
+/**
+ * An error in the syntax of a feature specification, with where in the specification it was found.
+ */
+public class SpecSyntaxException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final int line;
+    private final int column;
+
+    /**
+     * Create a syntax error.
+     * @param message What was wrong.
+     * @param line The line of the specification the error is on, starting from 1.
+     * @param column The column of the line the error is at, starting from 1.
+     */
+    public SpecSyntaxException(String message, int line, int column) {
+        super("Line " + line + ", column " + column + ": " + message);
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * @return The line of the specification the error is on, starting from 1.
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * @return The column of the line the error is at, starting from 1.
+     */
+    public int getColumn() {
+        return column;
+    }
+}
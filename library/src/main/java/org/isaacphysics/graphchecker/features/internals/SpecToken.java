@@ -0,0 +1,113 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.features.internals;
+
+/**
+ * A token of a feature specification.
+ */
+public final class SpecToken {
+
+    /**
+     * The kinds of token.
+     */
+    public enum Kind {
+        /**
+         * A run of letters, digits, '+', '-' and '_', such as a tag, a sector name or a number.
+         */
+        WORD,
+        /**
+         * ':', which ends a tag.
+         */
+        COLON,
+        /**
+         * ';', which ends the argument of a line selector.
+         */
+        SEMICOLON,
+        /**
+         * ',', which separates the items of a list.
+         */
+        COMMA,
+        /**
+         * '=', which separates a slope position from the slope.
+         */
+        EQUALS
+    }
+
+    private final Kind kind;
+    private final String text;
+    private final int offset;
+    private final int line;
+    private final int column;
+
+    /**
+     * Create a token.
+     * @param kind The kind of token.
+     * @param text The text of the token.
+     * @param offset Where the token starts in the text of its line.
+     * @param line The line of the specification, starting from 1.
+     * @param column The column of the line, starting from 1.
+     */
+    SpecToken(Kind kind, String text, int offset, int line, int column) {
+        this.kind = kind;
+        this.text = text;
+        this.offset = offset;
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * @return The kind of token.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return The text of the token.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return Where the token starts in the text of its line.
+     */
+    int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @param word The word.
+     * @return True if this is a word with exactly this text.
+     */
+    public boolean is(String word) {
+        return kind == Kind.WORD && text.equals(word);
+    }
+
+    /**
+     * Make an error positioned at this token.
+     * @param message What was wrong.
+     * @return The error, to be thrown.
+     */
+    public SpecSyntaxException error(String message) {
+        return new SpecSyntaxException(message, line, column);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
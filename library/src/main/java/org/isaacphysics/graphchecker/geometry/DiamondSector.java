@@ -0,0 +1,111 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.geometry;
+
+import org.isaacphysics.graphchecker.data.Intersection;
+import org.isaacphysics.graphchecker.data.Rect;
+
+import java.util.List;
+
+/**
+ * A sector which is a closed diamond centred on the origin, such as the origin sector.
+ *
+ * Points are tested by comparing the sum of the absolute values of their co-ordinates with the size of the diamond.
+ * The segments round when they project points onto themselves, so a point within a few units in the last place of the
+ * edge is tested against the segments instead, which keeps the answers identical.
+ */
+class DiamondSector extends Sector {
+
+    /**
+     * How far inside the edge, relative to the size, a point must be to be inside without testing the segments. This
+     * is far larger than the rounding error of the projections.
+     */
+    private static final double EDGE_TOLERANCE = 0x1p-40;
+
+    private final double size;
+    private final double safeSize;
+
+    /**
+     * Create a diamond sector.
+     *
+     * @param name The name of the sector.
+     * @param segments The segments defining the boundaries of this sector.
+     * @param bounds The square around the diamond.
+     * @param size The radius (half of the diagonal) of the diamond.
+     */
+    DiamondSector(String name, List<Segment> segments, Rect bounds, double size) {
+        super(name, segments, bounds);
+        this.size = size;
+        this.safeSize = size * (1 - EDGE_TOLERANCE);
+    }
+
+    @Override
+    public boolean contains(double x, double y) {
+        double distance = Math.abs(x) + Math.abs(y);
+        if (distance > size) {
+            return false;
+        }
+        if (distance < safeSize) {
+            return true;
+        }
+        return super.contains(x, y);
+    }
+
+    /**
+     * Would contains answer the same for every point of a rectangle, including its edges?
+     *
+     * @param left The low x co-ordinate of the rectangle.
+     * @param right The high x co-ordinate of the rectangle.
+     * @param bottom The low y co-ordinate of the rectangle.
+     * @param top The high y co-ordinate of the rectangle.
+     * @return INSIDE or OUTSIDE if contains is true or false for every point, or INTERSECTS if it could be either.
+     */
+    Intersection intersects(double left, double right, double bottom, double top) {
+        double nearest = nearestToZero(left, right) + nearestToZero(bottom, top);
+        if (nearest > size) {
+            return Intersection.OUTSIDE;
+        }
+        double furthest = Math.max(Math.abs(left), Math.abs(right)) + Math.max(Math.abs(bottom), Math.abs(top));
+        if (furthest < safeSize) {
+            return Intersection.INSIDE;
+        }
+        return Intersection.INTERSECTS;
+    }
+
+    /**
+     * @param low The low end of a range.
+     * @param high The high end of a range.
+     * @return The smallest absolute value in the range.
+     */
+    private static double nearestToZero(double low, double high) {
+        if (low <= 0 && high >= 0) {
+            return 0;
+        }
+        return Math.min(Math.abs(low), Math.abs(high));
+    }
+
+    /**
+     * @return The radius (half of the diagonal) of the diamond.
+     */
+    double getSize() {
+        return size;
+    }
+
+    @Override
+    boolean isDirect() {
+        return true;
+    }
+}
@@ -0,0 +1,243 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.geometry;
+
+import org.isaacphysics.graphchecker.data.IntersectionParams;
+import org.isaacphysics.graphchecker.data.Line;
+import org.isaacphysics.graphchecker.data.Point;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * The intersections between two lines which are still being drawn, kept up to date as points are added to them.
+ *
+ * Only segments added since the last update are tested, against every segment of the other line. The intersections
+ * are given in the same order as Lines.findIntersections would give them for the lines as they are now, which depends
+ * on how that method splits the lines in half, so the order is worked out afresh each time they are asked for.
+ */
+public final class LineIntersections {
+    private final List<Point> pointsA;
+    private final List<Point> pointsB;
+    private int countA;
+    private int countB;
+    private final List<Hit> hits = new ArrayList<>();
+
+    /**
+     * An intersection between a segment of each line.
+     */
+    private static final class Hit {
+        private final int segmentA;
+        private final int segmentB;
+        @Nullable
+        private final Point onB;
+        @Nullable
+        private final Point onA;
+
+        /**
+         * Create a hit.
+         * @param segmentA The index of the segment of line A.
+         * @param segmentB The index of the segment of line B.
+         * @param onB The intersection, as Lines.findIntersections(A, B) measures it, or null if it finds none.
+         * @param onA The intersection, as Lines.findIntersections(B, A) measures it, or null if it finds none.
+         */
+        private Hit(int segmentA, int segmentB, Point onB, Point onA) {
+            this.segmentA = segmentA;
+            this.segmentB = segmentB;
+            this.onB = onB;
+            this.onA = onA;
+        }
+    }
+
+    /**
+     * Track the intersections between two lines.
+     *
+     * @param pointsA The points of line A, which may only be added to.
+     * @param pointsB The points of line B, which may only be added to.
+     */
+    public LineIntersections(List<Point> pointsA, List<Point> pointsB) {
+        this.pointsA = pointsA;
+        this.pointsB = pointsB;
+    }
+
+    /**
+     * Test any segments added to either line since the last update.
+     */
+    @SuppressWarnings("checkstyle:avoidInlineConditionals")
+    public void update() {
+        int newCountA = pointsA.size();
+        int newCountB = pointsB.size();
+        for (int i = 0; i < newCountA - 1; i++) {
+            // Segments of A we have seen before need only be tested against new segments of B
+            int firstJ = i < countA - 1 ? Math.max(countB - 1, 0) : 0;
+            for (int j = firstJ; j < newCountB - 1; j++) {
+                test(i, j);
+            }
+        }
+        countA = newCountA;
+        countB = newCountB;
+    }
+
+    /**
+     * Test a segment of each line against each other, as Lines.findIntersections does once it has split both lines
+     * down to single segments.
+     *
+     * @param i The index of the segment of line A.
+     * @param j The index of the segment of line B.
+     */
+    private void test(int i, int j) {
+        Point a1 = pointsA.get(i);
+        Point a2 = pointsA.get(i + 1);
+        Point b1 = pointsB.get(j);
+        Point b2 = pointsB.get(j + 1);
+        if (Math.min(a1.getX(), a2.getX()) > Math.max(b1.getX(), b2.getX())
+            || Math.max(a1.getX(), a2.getX()) < Math.min(b1.getX(), b2.getX())
+            || Math.min(a1.getY(), a2.getY()) > Math.max(b1.getY(), b2.getY())
+            || Math.max(a1.getY(), a2.getY()) < Math.min(b1.getY(), b2.getY())) {
+            return;
+        }
+        Segment a = Segment.closed(a1, a2);
+        Segment b = Segment.closed(b1, b2);
+        Point onB = intersection(a, b);
+        Point onA = intersection(b, a);
+        if (onB != null || onA != null) {
+            hits.add(new Hit(i, j, onB, onA));
+        }
+    }
+
+    /**
+     * @param first The segment to measure against.
+     * @param second The segment to measure along.
+     * @return Where the second segment crosses the first, or null if it does not.
+     */
+    @Nullable
+    private static Point intersection(Segment first, Segment second) {
+        IntersectionParams.IntersectionParam param = first.intersectionParam(second);
+        if (param == null) {
+            return null;
+        }
+        return second.atParameter(param.getT());
+    }
+
+    /**
+     * Get the intersections between the lines as they are now, as Lines.findIntersections gives them.
+     *
+     * Lines with fewer than two points have no segments, so have no intersections.
+     *
+     * @param aFirst True for the intersections of A with B, false for B with A.
+     * @return The intersections, without duplicates.
+     */
+    @SuppressWarnings("checkstyle:avoidInlineConditionals")
+    public List<Point> get(boolean aFirst) {
+        update();
+        if (countA < 2 || countB < 2) {
+            return Collections.emptyList();
+        }
+        if (countA == 2 && countB == 2) {
+            // Lines.findIntersections doesn't check the bounding boxes of two single segments
+            Segment a = Segment.closed(pointsA.get(0), pointsA.get(1));
+            Segment b = Segment.closed(pointsB.get(0), pointsB.get(1));
+            Point point = aFirst ? intersection(a, b) : intersection(b, a);
+            return point == null ? Collections.emptyList() : Collections.singletonList(point);
+        }
+
+        List<Hit> ordered = new ArrayList<>(hits);
+        if (aFirst) {
+            ordered.sort((x, y) -> compareLeaves(x.segmentA, x.segmentB, y.segmentA, y.segmentB, countA, countB));
+        } else {
+            ordered.sort((x, y) -> compareLeaves(x.segmentB, x.segmentA, y.segmentB, y.segmentA, countB, countA));
+        }
+        Set<Point> intersections = new LinkedHashSet<>();
+        for (Hit hit : ordered) {
+            Point point = aFirst ? hit.onB : hit.onA;
+            if (point != null) {
+                intersections.add(point);
+            }
+        }
+        return new ArrayList<>(intersections);
+    }
+
+    /**
+     * Get the intersections between the lines as they are now, and make them what Lines.findIntersections gives for
+     * these lines.
+     *
+     * @param lineA A line of the points of line A so far.
+     * @param lineB A line of the points of line B so far.
+     */
+    public void remember(Line lineA, Line lineB) {
+        if (lineA.getPoints().size() != pointsA.size() || lineB.getPoints().size() != pointsB.size()) {
+            throw new IllegalArgumentException("The lines must have the points added so far");
+        }
+        Lines.rememberIntersections(lineA, lineB, Collections.unmodifiableList(get(true)));
+        Lines.rememberIntersections(lineB, lineA, Collections.unmodifiableList(get(false)));
+    }
+
+    /**
+     * Compare two pairs of segments by the order Lines.findIntersections visits them in.
+     *
+     * That method splits both lines in half, then visits each half of the first with each half of the second in turn,
+     * until it is down to single segments. So the order is given by the halves chosen at each level, first in the
+     * first line and then in the second.
+     *
+     * @param i1 The segment of the first line in the first pair.
+     * @param j1 The segment of the second line in the first pair.
+     * @param i2 The segment of the first line in the second pair.
+     * @param j2 The segment of the second line in the second pair.
+     * @param countI The number of points in the first line.
+     * @param countJ The number of points in the second line.
+     * @return A negative number if the first pair is visited first, positive if the second is, or zero if both are the
+     * same pair.
+     */
+    @SuppressWarnings("checkstyle:parameterNumber")
+    private static int compareLeaves(int i1, int j1, int i2, int j2, int countI, int countJ) {
+        while (countI > 2 || countJ > 2) {
+            if (countI > 2) {
+                int half = countI / 2;
+                boolean right1 = i1 >= half;
+                if (right1 != i2 >= half) {
+                    return Boolean.compare(right1, !right1);
+                }
+                if (right1) {
+                    i1 -= half;
+                    i2 -= half;
+                    countI -= half;
+                } else {
+                    countI = half + 1;
+                }
+            }
+            if (countJ > 2) {
+                int half = countJ / 2;
+                boolean right1 = j1 >= half;
+                if (right1 != j2 >= half) {
+                    return Boolean.compare(right1, !right1);
+                }
+                if (right1) {
+                    j1 -= half;
+                    j2 -= half;
+                    countJ -= half;
+                } else {
+                    countJ = half + 1;
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,581 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.geometry;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.isaacphysics.graphchecker.data.Line;
+import org.isaacphysics.graphchecker.data.Point;
+import org.isaacphysics.graphchecker.data.PointOfInterest;
+import org.isaacphysics.graphchecker.data.PointType;
+import org.isaacphysics.graphchecker.data.Rect;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A cheap summary of a line, used to reject features before running their full test.
+ *
+ * Summaries over-approximate where the line goes, so a feature can safely fail a line whose summary rules it out. They
+ * are computed once per line and cached for as long as the line is in use. A line which is still being drawn can have
+ * its summary built as it grows, with a Builder.
+ */
+public final class LineSummary {
+
+    /**
+     * The closed quadrant x &gt;= 0, y &gt;= 0.
+     */
+    public static final int TOP_RIGHT = 1;
+    /**
+     * The closed quadrant x &lt;= 0, y &gt;= 0.
+     */
+    public static final int TOP_LEFT = 2;
+    /**
+     * The closed quadrant x &lt;= 0, y &lt;= 0.
+     */
+    public static final int BOTTOM_LEFT = 4;
+    /**
+     * The closed quadrant x &gt;= 0, y &lt;= 0.
+     */
+    public static final int BOTTOM_RIGHT = 8;
+
+    /**
+     * Slack for rounding in the sector tests, which can put a point a few ulps outside a sector's exact bounds.
+     */
+    private static final double EPSILON = 1e-6;
+
+    private static final int[] QUADRANTS = {TOP_RIGHT, TOP_LEFT, BOTTOM_LEFT, BOTTOM_RIGHT};
+    private static final int[] QUADRANT_X_SIGNS = {1, -1, -1, 1};
+    private static final int[] QUADRANT_Y_SIGNS = {1, 1, -1, -1};
+
+    private static final LoadingCache<Line, LineSummary> SUMMARY_CACHE = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build(CacheLoader.from(LineSummary::new));
+
+    private final double[] xs;
+    private final double[] ys;
+    private final Rect bounds;
+    private final int quadrantMask;
+    private final int[] pointOfInterestCounts = new int[PointType.values().length];
+    private final List<PointOfInterest> pointsOfInterest;
+    private volatile EndSizes endSizes;
+    private volatile double[] axisClearances;
+    private volatile PointOfInterestTable pointOfInterestTable;
+    private volatile Results results;
+
+    /**
+     * Get the summary of a line.
+     *
+     * Summaries are cached by line identity.
+     *
+     * @param line The line.
+     * @return The summary.
+     */
+    public static LineSummary of(Line line) {
+        return SUMMARY_CACHE.getUnchecked(line);
+    }
+
+    /**
+     * Summarise a line.
+     * @param line The line.
+     */
+    private LineSummary(Line line) {
+        this(new Builder(line.getPoints().size()).appendAll(line), line.getPointsOfInterest());
+    }
+
+    /**
+     * Summarise the points added to a builder so far.
+     * @param builder The builder.
+     * @param pointsOfInterest The points of interest of the line.
+     */
+    private LineSummary(Builder builder, List<PointOfInterest> pointsOfInterest) {
+        // A full array is never written to again, since appending more points grows it first
+        if (builder.size == builder.xs.length) {
+            this.xs = builder.xs;
+            this.ys = builder.ys;
+        } else {
+            this.xs = Arrays.copyOf(builder.xs, builder.size);
+            this.ys = Arrays.copyOf(builder.ys, builder.size);
+        }
+        this.bounds = new Rect(builder.minX, builder.maxX, builder.maxY, builder.minY);
+        this.quadrantMask = builder.mask;
+
+        this.pointsOfInterest = pointsOfInterest;
+        for (PointOfInterest pointOfInterest : pointsOfInterest) {
+            pointOfInterestCounts[pointOfInterest.getPointType().ordinal()]++;
+        }
+    }
+
+    /**
+     * Builds the summary of a line a few points at a time, for lines which are still being drawn.
+     *
+     * Each point is only looked at once, however many summaries are built along the way.
+     */
+    public static final class Builder {
+        private double[] xs;
+        private double[] ys;
+        private int size;
+        private double minX = Double.POSITIVE_INFINITY;
+        private double maxX = Double.NEGATIVE_INFINITY;
+        private double minY = Double.POSITIVE_INFINITY;
+        private double maxY = Double.NEGATIVE_INFINITY;
+        private int mask;
+        private Point lastPoint;
+
+        /**
+         * Create a builder for an empty line.
+         */
+        public Builder() {
+            this(16);
+        }
+
+        /**
+         * Create a builder for an empty line.
+         * @param capacity The number of points to make room for.
+         */
+        private Builder(int capacity) {
+            this.xs = new double[capacity];
+            this.ys = new double[capacity];
+        }
+
+        /**
+         * Add the points of a line.
+         * @param line The line.
+         * @return This builder.
+         */
+        private Builder appendAll(Line line) {
+            for (Point point : line) {
+                append(point);
+            }
+            return this;
+        }
+
+        /**
+         * Add a point to the end of the line.
+         * @param point The point.
+         */
+        public void append(Point point) {
+            if (size == xs.length) {
+                xs = Arrays.copyOf(xs, Math.max(size * 2, 1));
+                ys = Arrays.copyOf(ys, xs.length);
+            }
+            xs[size] = point.getX();
+            ys[size] = point.getY();
+            size++;
+            minX = Math.min(minX, point.getX());
+            maxX = Math.max(maxX, point.getX());
+            minY = Math.min(minY, point.getY());
+            maxY = Math.max(maxY, point.getY());
+            if (mask != (TOP_RIGHT | TOP_LEFT | BOTTOM_LEFT | BOTTOM_RIGHT)) {
+                Point from = lastPoint == null ? point : lastPoint;
+                for (int i = 0; i < QUADRANTS.length; i++) {
+                    if ((mask & QUADRANTS[i]) == 0
+                        && segmentTouchesQuadrant(from, point, QUADRANT_X_SIGNS[i], QUADRANT_Y_SIGNS[i])) {
+                        mask |= QUADRANTS[i];
+                    }
+                }
+            }
+            lastPoint = point;
+        }
+
+        /**
+         * @return The number of points added so far.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return The x co-ordinates of the points added so far, in the first size() entries. This is shared and grows
+         * as points are added, so must not be modified or kept.
+         */
+        public double[] getXs() {
+            return xs;
+        }
+
+        /**
+         * @return The y co-ordinates of the points added so far, in the first size() entries. This is shared and grows
+         * as points are added, so must not be modified or kept.
+         */
+        public double[] getYs() {
+            return ys;
+        }
+
+        /**
+         * Summarise the points added so far, and make that the summary LineSummary.of gives for a line.
+         *
+         * @param line A line of exactly the points added so far, in order.
+         * @return The summary.
+         */
+        public LineSummary build(Line line) {
+            if (line.getPoints().size() != size) {
+                throw new IllegalArgumentException("The line has " + line.getPoints().size() + " points, but "
+                    + size + " have been added");
+            }
+            LineSummary summary = new LineSummary(this, line.getPointsOfInterest());
+            SUMMARY_CACHE.put(line, summary);
+            return summary;
+        }
+    }
+
+    /**
+     * Does the segment from a to b touch a closed quadrant (allowing for EPSILON)?
+     *
+     * @param a The start of the segment.
+     * @param b The end of the segment.
+     * @param xSign The sign of x in the quadrant.
+     * @param ySign The sign of y in the quadrant.
+     * @return True if some point on the segment might be in the quadrant.
+     */
+    private static boolean segmentTouchesQuadrant(Point a, Point b, int xSign, int ySign) {
+        double[] range = {0, 1};
+        return clipToHalfLine(xSign * a.getX(), xSign * b.getX(), range)
+            && clipToHalfLine(ySign * a.getY(), ySign * b.getY(), range);
+    }
+
+    /**
+     * Narrow a parameter range to where a linear function is at least -EPSILON.
+     *
+     * @param from The value of the function at t = 0.
+     * @param to The value of the function at t = 1.
+     * @param range The range of t, which is narrowed in place.
+     * @return False if the range is now empty.
+     */
+    private static boolean clipToHalfLine(double from, double to, double[] range) {
+        if (from < -EPSILON && to < -EPSILON) {
+            return false;
+        }
+        if (from < -EPSILON) {
+            range[0] = Math.max(range[0], (-EPSILON - from) / (to - from));
+        } else if (to < -EPSILON) {
+            range[1] = Math.min(range[1], (-EPSILON - from) / (to - from));
+        }
+        return range[0] <= range[1] + EPSILON;
+    }
+
+    /**
+     * Work out which closed quadrants a rectangle touches.
+     *
+     * @param rect The rectangle.
+     * @return A mask of TOP_RIGHT, TOP_LEFT, BOTTOM_LEFT and BOTTOM_RIGHT.
+     */
+    public static int quadrantMask(Rect rect) {
+        int mask = 0;
+        if (rect.getRight() >= 0 && rect.getTop() >= 0) {
+            mask |= TOP_RIGHT;
+        }
+        if (rect.getLeft() <= 0 && rect.getTop() >= 0) {
+            mask |= TOP_LEFT;
+        }
+        if (rect.getLeft() <= 0 && rect.getBottom() <= 0) {
+            mask |= BOTTOM_LEFT;
+        }
+        if (rect.getRight() >= 0 && rect.getBottom() <= 0) {
+            mask |= BOTTOM_RIGHT;
+        }
+        return mask;
+    }
+
+    /**
+     * @return The x co-ordinates of the line's points, in order. This is shared, so must not be modified.
+     */
+    public double[] getXs() {
+        return xs;
+    }
+
+    /**
+     * @return The y co-ordinates of the line's points, in order. This is shared, so must not be modified.
+     */
+    public double[] getYs() {
+        return ys;
+    }
+
+    /**
+     * Get how close each segment of the line comes to the axes.
+     *
+     * This doesn't depend on the settings, so it is worked out once for each line however many settings it is marked
+     * with; settings only decide how close is too close.
+     *
+     * @return For each segment between consecutive points, the closest it comes to either axis, as axisClearance gives
+     *         it. This is shared, so must not be modified.
+     */
+    public double[] getAxisClearances() {
+        double[] clearances = axisClearances;
+        if (clearances == null) {
+            clearances = new double[Math.max(0, xs.length - 1)];
+            for (int i = 0; i < clearances.length; i++) {
+                clearances[i] = axisClearance(xs[i], ys[i], xs[i + 1], ys[i + 1]);
+            }
+            axisClearances = clearances;
+        }
+        return clearances;
+    }
+
+    /**
+     * Find how close a segment comes to the axes.
+     *
+     * @param x0 The x co-ordinate of the start of the segment.
+     * @param y0 The y co-ordinate of the start of the segment.
+     * @param x1 The x co-ordinate of the end of the segment.
+     * @param y1 The y co-ordinate of the end of the segment.
+     * @return The smallest value of min(|x|, |y|) over the segment, which is 0 if it touches an axis, or NaN if a
+     *         co-ordinate is NaN.
+     */
+    public static double axisClearance(double x0, double y0, double x1, double y1) {
+        return Math.min(closestToZero(x0, x1), closestToZero(y0, y1));
+    }
+
+    /**
+     * @param from The value of a linear function at the start of a segment.
+     * @param to The value of the function at the end of the segment.
+     * @return The smallest absolute value of the function over the segment.
+     */
+    private static double closestToZero(double from, double to) {
+        if (from <= 0 && to >= 0 || from >= 0 && to <= 0) {
+            return 0;
+        }
+        return Math.min(Math.abs(from), Math.abs(to));
+    }
+
+    /**
+     * The signed sizes of the bounding boxes of the first and last few points of a line, as Lines.getSize gives them.
+     */
+    public static final class EndSizes {
+        private final int pointsAtEnds;
+        private final double startX;
+        private final double startY;
+        private final double endX;
+        private final double endY;
+
+        /**
+         * Measure the ends of a line.
+         * @param xs The x co-ordinates of the line.
+         * @param ys The y co-ordinates of the line.
+         * @param pointsAtEnds The number of points to take from each end.
+         */
+        private EndSizes(double[] xs, double[] ys, int pointsAtEnds) {
+            this.pointsAtEnds = pointsAtEnds;
+            int desired = Math.min(pointsAtEnds, xs.length);
+            this.startX = sizeOf(xs, 0, desired);
+            this.startY = sizeOf(ys, 0, desired);
+            this.endX = sizeOf(xs, xs.length - desired, xs.length);
+            this.endY = sizeOf(ys, xs.length - desired, xs.length);
+        }
+
+        /**
+         * Get the signed extent of part of one co-ordinate, as Lines.getSize does.
+         * @param values The co-ordinates.
+         * @param from The first index, inclusive.
+         * @param to The last index, exclusive.
+         * @return The extent, negative if the first value is not below the middle of the range.
+         */
+        @SuppressWarnings({"checkstyle:avoidInlineConditionals"})
+        private static double sizeOf(double[] values, int from, int to) {
+            if (from >= to) {
+                return 0;
+            }
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (int i = from; i < to; i++) {
+                min = Math.min(min, values[i]);
+                max = Math.max(max, values[i]);
+            }
+            double diff = max - min;
+            return values[from] < (max + min) / 2 ? diff : -diff;
+        }
+
+        /**
+         * @return The signed width of the box around the first points.
+         */
+        public double getStartX() {
+            return startX;
+        }
+
+        /**
+         * @return The signed height of the box around the first points.
+         */
+        public double getStartY() {
+            return startY;
+        }
+
+        /**
+         * @return The signed width of the box around the last points.
+         */
+        public double getEndX() {
+            return endX;
+        }
+
+        /**
+         * @return The signed height of the box around the last points.
+         */
+        public double getEndY() {
+            return endY;
+        }
+    }
+
+    /**
+     * Get the sizes of the ends of the line.
+     *
+     * The most recent sizes are kept, so repeated calls with the same number of points are free.
+     *
+     * @param pointsAtEnds The number of points to take from each end.
+     * @return The sizes.
+     */
+    public EndSizes getEndSizes(int pointsAtEnds) {
+        EndSizes sizes = endSizes;
+        if (sizes == null || sizes.pointsAtEnds != pointsAtEnds) {
+            sizes = new EndSizes(xs, ys, pointsAtEnds);
+            endSizes = sizes;
+        }
+        return sizes;
+    }
+
+    /**
+     * Get the points of interest of the line, classified into sectors.
+     *
+     * The most recent table is kept, so repeated calls with the same classifier are free.
+     *
+     * @param classifier The classifier to classify the points with.
+     * @return The table of points of interest.
+     */
+    public PointOfInterestTable getPointsOfInterest(SectorClassifier classifier) {
+        PointOfInterestTable table = pointOfInterestTable;
+        if (table == null || table.getClassifier() != classifier) {
+            table = new PointOfInterestTable(pointsOfInterest, classifier);
+            pointOfInterestTable = table;
+        }
+        return table;
+    }
+
+    /**
+     * @return The remembered results of tests on the line, which are kept for as long as the line is.
+     */
+    public Results getResults() {
+        Results known = results;
+        if (known == null) {
+            synchronized (this) {
+                known = results;
+                if (known == null) {
+                    known = new Results();
+                    results = known;
+                }
+            }
+        }
+        return known;
+    }
+
+    /**
+     * The results of tests on a line, by the identity of each test, forgotten once the test is no longer in use.
+     *
+     * A line is only tested by the few feature instances of the specifications it is marked against, so the results
+     * are kept in small arrays and searched in order rather than in a map.
+     */
+    public static final class Results {
+        private static final int INITIAL_CAPACITY = 4;
+
+        private WeakReference<?>[] tests;
+        private boolean[] values;
+        private int size;
+
+        /**
+         * Create an empty set of results; the arrays are made when the first result is added.
+         */
+        private Results() {
+        }
+
+        /**
+         * @param test A test.
+         * @return The result of the test, or null if it isn't known.
+         */
+        public synchronized Boolean get(Object test) {
+            for (int i = 0; i < size; i++) {
+                if (tests[i].get() == test) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Remember the result of a test, reusing the slot of a test which is no longer in use if there is one.
+         * @param test The test.
+         * @param value Its result.
+         */
+        public synchronized void put(Object test, boolean value) {
+            int slot = size;
+            for (int i = 0; i < size; i++) {
+                if (tests[i].get() == null) {
+                    slot = i;
+                    break;
+                }
+            }
+            if (slot == size) {
+                if (tests == null) {
+                    tests = new WeakReference<?>[INITIAL_CAPACITY];
+                    values = new boolean[INITIAL_CAPACITY];
+                } else if (size == tests.length) {
+                    tests = Arrays.copyOf(tests, size * 2);
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                size++;
+            }
+            tests[slot] = new WeakReference<>(test);
+            values[slot] = value;
+        }
+    }
+
+    /**
+     * @return The bounding rectangle of the line's points.
+     */
+    public Rect getBounds() {
+        return bounds;
+    }
+
+    /**
+     * @return A mask of the closed quadrants the line might pass through.
+     */
+    public int getQuadrantMask() {
+        return quadrantMask;
+    }
+
+    /**
+     * @param type A type of point of interest.
+     * @return How many points of interest of this type the line has.
+     */
+    public int countOf(PointType type) {
+        return pointOfInterestCounts[type.ordinal()];
+    }
+
+    /**
+     * Could this line have any point inside the sector?
+     *
+     * This is conservative: if it returns false then no point of the line is in the sector, but if it returns true the
+     * line might still miss the sector.
+     *
+     * @param sector The sector.
+     * @return False if the line definitely doesn't enter the sector.
+     */
+    public boolean mightEnter(Sector sector) {
+        Rect sectorBounds = sector.getBounds();
+        return bounds.getLeft() <= sectorBounds.getRight() + EPSILON
+            && bounds.getRight() >= sectorBounds.getLeft() - EPSILON
+            && bounds.getBottom() <= sectorBounds.getTop() + EPSILON
+            && bounds.getTop() >= sectorBounds.getBottom() - EPSILON
+            && (quadrantMask & quadrantMask(sectorBounds)) != 0;
+    }
+}
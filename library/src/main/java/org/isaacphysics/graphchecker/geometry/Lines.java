@@ -15,6 +15,10 @@
  */
 package org.isaacphysics.graphchecker.geometry;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import org.apache.commons.lang3.tuple.Pair;
 import org.isaacphysics.graphchecker.data.IntersectionParams;
@@ -95,6 +99,211 @@ public class Lines {
         return new Point(x, y);
     }
 
+    /**
+     * Get the "size" of each of the lines that splitOnPoints would split a line into, in a single pass over the line.
+     *
+     * This gives the same result as calling getSize on each line from splitOnPoints, but without clipping: each line
+     * from splitOnPoints covers a vertical slab of the plane, so each point of the line, and each point where the line
+     * crosses the edge of a slab, is added straight to the bounding box of the slabs it is in.
+     *
+     * @param line The line to be split.
+     * @param splitPoints The points to split on.
+     * @return The size of each part of the line, in order.
+     */
+    @SuppressWarnings({"checkstyle:avoidInlineConditionals"})
+    public static List<Point> getSplitSizes(Line line, List<PointOfInterest> splitPoints) {
+        int parts = splitPoints.size() + 1;
+
+        // Part i is the slab from the furthest right of the earlier split points to split point i. If split points go
+        // backwards that slab is empty, so only the non-empty slabs are kept, as (left, right) pairs in x order.
+        double[] edges = new double[2 * parts];
+        int[] partOfSlab = new int[parts];
+        int slabs = 0;
+        double left = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < parts; i++) {
+            double right = i < splitPoints.size() ? splitPoints.get(i).getX() : Double.POSITIVE_INFINITY;
+            if (left <= right) {
+                edges[2 * slabs] = left;
+                edges[2 * slabs + 1] = right;
+                partOfSlab[slabs] = i;
+                slabs++;
+            }
+            left = Math.max(left, right);
+        }
+
+        SlabBounds slabBounds = new SlabBounds(slabs);
+        LineSummary summary = LineSummary.of(line);
+        double[] xs = summary.getXs();
+        double[] ys = summary.getYs();
+        int edgeCount = 2 * slabs;
+
+        // Clipping works on segments, so a line of one point has nothing in any part.
+        if (xs.length >= 2) {
+            for (int i = 0; i < xs.length; i++) {
+                double ax = xs[i];
+                double ay = ys[i];
+                for (int slab = firstAtLeast(edges, edgeCount, ax) / 2;
+                     slab < slabs && edges[2 * slab] <= ax; slab++) {
+                    if (ax <= edges[2 * slab + 1]) {
+                        slabBounds.add(slab, ax, ay);
+                    }
+                }
+                if (i + 1 == xs.length) {
+                    break;
+                }
+
+                // Add the points where this segment crosses slab edges, in order along the segment.
+                double bx = xs[i + 1];
+                double by = ys[i + 1];
+                if (ax < bx) {
+                    for (int edge = firstAbove(edges, edgeCount, ax); edge < edgeCount && edges[edge] < bx; edge++) {
+                        addCrossing(slabBounds, edge / 2, edges[edge], ax, ay, bx, by);
+                    }
+                } else if (ax > bx) {
+                    for (int edge = firstAtLeast(edges, edgeCount, ax) - 1; edge >= 0 && edges[edge] > bx; edge--) {
+                        addCrossing(slabBounds, edge / 2, edges[edge], ax, ay, bx, by);
+                    }
+                }
+            }
+        }
+
+        List<Point> sizes = new ArrayList<>(Collections.nCopies(parts, new Point(0, 0)));
+        for (int slab = 0; slab < slabs; slab++) {
+            if (slabBounds.hasPoints[slab]) {
+                sizes.set(partOfSlab[slab], slabBounds.getSize(slab));
+            }
+        }
+        return sizes;
+    }
+
+    /**
+     * The signed bounding boxes of the parts of a line in each slab, built up one point at a time.
+     */
+    private static final class SlabBounds {
+        private final double[] minX;
+        private final double[] maxX;
+        private final double[] minY;
+        private final double[] maxY;
+        private final double[] startX;
+        private final double[] startY;
+        private final boolean[] hasPoints;
+
+        /**
+         * Create empty bounds for a number of slabs.
+         * @param slabs The number of slabs.
+         */
+        SlabBounds(int slabs) {
+            minX = new double[slabs];
+            maxX = new double[slabs];
+            minY = new double[slabs];
+            maxY = new double[slabs];
+            startX = new double[slabs];
+            startY = new double[slabs];
+            hasPoints = new boolean[slabs];
+        }
+
+        /**
+         * Add the next point along the line to a slab.
+         * @param slab The slab.
+         * @param x The x co-ordinate of the point.
+         * @param y The y co-ordinate of the point.
+         */
+        void add(int slab, double x, double y) {
+            if (!hasPoints[slab]) {
+                hasPoints[slab] = true;
+                startX[slab] = x;
+                startY[slab] = y;
+                minX[slab] = x;
+                maxX[slab] = x;
+                minY[slab] = y;
+                maxY[slab] = y;
+                return;
+            }
+            minX[slab] = Math.min(minX[slab], x);
+            maxX[slab] = Math.max(maxX[slab], x);
+            minY[slab] = Math.min(minY[slab], y);
+            maxY[slab] = Math.max(maxY[slab], y);
+        }
+
+        /**
+         * Get the size of a slab's part of the line, exactly as getSize would calculate it.
+         * @param slab The slab, which must have at least one point.
+         * @return The width and height of the bounding box.
+         */
+        @SuppressWarnings({"checkstyle:avoidInlineConditionals"})
+        Point getSize(int slab) {
+            double centreX = (maxX[slab] + minX[slab]) / 2;
+            double centreY = (maxY[slab] + minY[slab]) / 2;
+
+            double diffX = maxX[slab] - minX[slab];
+            double diffY = maxY[slab] - minY[slab];
+
+            double x = startX[slab] < centreX ? diffX : -diffX;
+            double y = startY[slab] < centreY ? diffY : -diffY;
+
+            return new Point(x, y);
+        }
+    }
+
+    /**
+     * Add the point where a segment crosses a vertical line to a slab.
+     *
+     * This interpolates the same way Segment.clip does, so the point is the one splitOnPoints would have made.
+     *
+     * @param slabBounds The bounds being built.
+     * @param slab The slab with an edge on the vertical line.
+     * @param x The x co-ordinate of the vertical line.
+     * @param ax The x co-ordinate of the start of the segment.
+     * @param ay The y co-ordinate of the start of the segment.
+     * @param bx The x co-ordinate of the end of the segment.
+     * @param by The y co-ordinate of the end of the segment.
+     */
+    private static void addCrossing(SlabBounds slabBounds, int slab, double x,
+                                    double ax, double ay, double bx, double by) {
+        double t = (x - ax) / (bx - ax);
+        slabBounds.add(slab, ax * (1 - t) + bx * t, ay * (1 - t) + by * t);
+    }
+
+    /**
+     * @param sorted An array sorted in ascending order.
+     * @param length The number of elements of the array in use.
+     * @param value The value to look for.
+     * @return The index of the first element at least value, or length if there isn't one.
+     */
+    private static int firstAtLeast(double[] sorted, int length, double value) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param sorted An array sorted in ascending order.
+     * @param length The number of elements of the array in use.
+     * @param value The value to look for.
+     * @return The index of the first element greater than value, or length if there isn't one.
+     */
+    private static int firstAbove(double[] sorted, int length, double value) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
     /**
      * Check if there is no horizontal overlap between a collection of lines.
      *
@@ -123,6 +332,13 @@ public class Lines {
 
     private static final Point UP = new Point(0, 1);
 
+    /**
+     * Intersections found by LineIntersections for lines that are still being drawn, by the identity of each line.
+     */
+    private static final LoadingCache<Line, Cache<Line, List<Point>>> KNOWN_INTERSECTIONS = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build(CacheLoader.from(() -> CacheBuilder.newBuilder().weakKeys().build()));
+
     /**
      * Helper to generate a sector of the half-plane with x co-ordinate less than or equal to X.
      * @param x The x co-ordinate to split the plane.
@@ -163,6 +379,36 @@ public class Lines {
      * @return The list of intersections between the lines.
      */
     public static List<Point> findIntersections(Line lineA, Line lineB) {
+        Cache<Line, List<Point>> known = KNOWN_INTERSECTIONS.getIfPresent(lineA);
+        if (known != null) {
+            List<Point> intersections = known.getIfPresent(lineB);
+            if (intersections != null) {
+                return intersections;
+            }
+        }
+        return findAllIntersections(lineA, lineB);
+    }
+
+    /**
+     * Record the intersections between two lines, found some other way, so findIntersections can return them.
+     *
+     * This is kept for as long as both lines are in use.
+     *
+     * @param lineA The first line.
+     * @param lineB The second line.
+     * @param intersections The intersections, exactly as findIntersections would find them.
+     */
+    static void rememberIntersections(Line lineA, Line lineB, List<Point> intersections) {
+        KNOWN_INTERSECTIONS.getUnchecked(lineA).put(lineB, intersections);
+    }
+
+    /**
+     * Find all the intersecting points between two lines, by splitting them in half until they are single segments.
+     * @param lineA The first line.
+     * @param lineB The second line.
+     * @return The list of intersections between the lines.
+     */
+    private static List<Point> findAllIntersections(Line lineA, Line lineB) {
         if (lineA.getPoints().size() == 2 && lineB.getPoints().size() == 2) {
             Segment a = lineToSegment(lineA);
             Segment b = lineToSegment(lineB);
@@ -182,7 +428,7 @@ public class Lines {
                         .flatMap(
                             subB -> {
                                 if (boundingIntersects(subA, subB)) {
-                                    return findIntersections(subA, subB).stream();
+                                    return findAllIntersections(subA, subB).stream();
                                 } else {
                                     return Stream.empty();
                                 }
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.geometry;
+
+import org.isaacphysics.graphchecker.data.PointOfInterest;
+import org.isaacphysics.graphchecker.data.PointType;
+
+import java.util.List;
+
+/**
+ * The points of interest of a line, each classified once into the sectors of a SectorClassifier.
+ *
+ * Each point is stored as its type and a bitmask of the sectors it is in, so checking a point against an expected type
+ * and sector is an array read and a bit test. The masks of all points of each type are also combined, to answer
+ * "is there a point of this type in this sector?" with a single bit test.
+ */
+public final class PointOfInterestTable {
+
+    private final SectorClassifier classifier;
+    private final PointType[] types;
+    private final long[] masks;
+    private final long[] masksByType = new long[PointType.values().length];
+
+    /**
+     * Classify the points of interest of a line.
+     * @param points The points of interest.
+     * @param classifier The classifier to use.
+     */
+    PointOfInterestTable(List<PointOfInterest> points, SectorClassifier classifier) {
+        this.classifier = classifier;
+        this.types = new PointType[points.size()];
+        this.masks = new long[points.size()];
+        for (int i = 0; i < types.length; i++) {
+            PointOfInterest point = points.get(i);
+            types[i] = point.getPointType();
+            masks[i] = classifier.classifyAllMask(point);
+            masksByType[types[i].ordinal()] |= masks[i];
+        }
+    }
+
+    /**
+     * @return The classifier these points were classified with.
+     */
+    SectorClassifier getClassifier() {
+        return classifier;
+    }
+
+    /**
+     * @return The number of points of interest.
+     */
+    public int size() {
+        return types.length;
+    }
+
+    /**
+     * @param index The index of a point of interest.
+     * @return The type of that point.
+     */
+    public PointType typeOf(int index) {
+        return types[index];
+    }
+
+    /**
+     * Is a point of interest in a sector?
+     *
+     * @param index The index of a point of interest.
+     * @param sectorMask The mask of the sector, from SectorClassifier.maskOf.
+     * @return True if the point is in the sector.
+     */
+    public boolean isIn(int index, long sectorMask) {
+        return (masks[index] & sectorMask) != 0;
+    }
+
+    /**
+     * Is any point of interest of a type in a sector?
+     *
+     * @param type The type of point.
+     * @param sectorMask The mask of the sector, from SectorClassifier.maskOf.
+     * @return True if there is a point of this type in the sector.
+     */
+    public boolean anyIn(PointType type, long sectorMask) {
+        return (masksByType[type.ordinal()] & sectorMask) != 0;
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.geometry;
+
+import java.math.BigDecimal;
+
+/**
+ * Robust geometric predicates.
+ *
+ * The sign of a cross product decides which side of a boundary a point is on, and whether two segments are parallel.
+ * Computed naively in floating point the sign can be wrong when the answer is close to zero, so these predicates use
+ * the filter from Shewchuk's "Adaptive Precision Floating-Point Arithmetic and Fast Robust Geometric Predicates": the
+ * floating point result is used whenever its error bound shows the sign is right, which is almost always. Otherwise,
+ * if the differences were exact (as they are for nearby points), the products are made exact with fused multiply-adds
+ * and summed exactly as a floating point expansion; only if that fails is BigDecimal used.
+ *
+ * Whenever the filter passes, the result is exactly the naive floating point value, so fast paths which compute the
+ * same expression agree with these predicates.
+ */
+public final class Predicates {
+
+    /**
+     * Half an ulp of 1, the relative error of a single rounding.
+     */
+    private static final double EPSILON = Math.ulp(1.0) / 2;
+
+    /**
+     * The relative error bound on the cross product of two rounded differences (Shewchuk's ccwerrboundA).
+     */
+    @SuppressWarnings("magicNumber")
+    private static final double CROSS_ERROR_BOUND = (3 + 16 * EPSILON) * EPSILON;
+
+    /**
+     * This is just a utility class.
+     */
+    private Predicates() {
+    }
+
+    /**
+     * Calculate the cross product (b - a) x (d - c) with the correct sign.
+     *
+     * @param ax The x co-ordinate of a.
+     * @param ay The y co-ordinate of a.
+     * @param bx The x co-ordinate of b.
+     * @param by The y co-ordinate of b.
+     * @param cx The x co-ordinate of c.
+     * @param cy The y co-ordinate of c.
+     * @param dx The x co-ordinate of d.
+     * @param dy The y co-ordinate of d.
+     * @return An approximation to (bx - ax) * (dy - cy) - (by - ay) * (dx - cx), which is zero exactly when the exact
+     *         value is zero and otherwise has the same sign as it.
+     */
+    @SuppressWarnings("checkstyle:parameterNumber")
+    public static double cross(double ax, double ay, double bx, double by,
+                               double cx, double cy, double dx, double dy) {
+        double left = (bx - ax) * (dy - cy);
+        double right = (by - ay) * (dx - cx);
+        double det = left - right;
+
+        // If the two products have opposite signs (or one is zero) the subtraction can't change the sign.
+        double sum;
+        if (left > 0) {
+            if (right <= 0) {
+                return det;
+            }
+            sum = left + right;
+        } else if (left < 0) {
+            if (right >= 0) {
+                return det;
+            }
+            sum = -left - right;
+        } else {
+            return det;
+        }
+
+        double bound = CROSS_ERROR_BOUND * sum;
+        if (det >= bound || -det >= bound) {
+            return det;
+        }
+        return adaptiveCross(ax, ay, bx, by, cx, cy, dx, dy);
+    }
+
+    /**
+     * Calculate the cross product (b - a) x (d - c) exactly, using floating point expansions where possible.
+     *
+     * @param ax The x co-ordinate of a.
+     * @param ay The y co-ordinate of a.
+     * @param bx The x co-ordinate of b.
+     * @param by The y co-ordinate of b.
+     * @param cx The x co-ordinate of c.
+     * @param cy The y co-ordinate of c.
+     * @param dx The x co-ordinate of d.
+     * @param dy The y co-ordinate of d.
+     * @return A double close to the exact cross product, but never zero unless it is exactly zero.
+     */
+    @SuppressWarnings("checkstyle:parameterNumber")
+    private static double adaptiveCross(double ax, double ay, double bx, double by,
+                                        double cx, double cy, double dx, double dy) {
+        double bax = bx - ax;
+        double bay = by - ay;
+        double dcx = dx - cx;
+        double dcy = dy - cy;
+        if (differenceError(bx, ax, bax) != 0 || differenceError(by, ay, bay) != 0
+            || differenceError(dx, cx, dcx) != 0 || differenceError(dy, cy, dcy) != 0) {
+            return exactCross(ax, ay, bx, by, cx, cy, dx, dy);
+        }
+
+        double left = bax * dcy;
+        double right = bay * dcx;
+        return exactSum(left, -right, Math.fma(bax, dcy, -left), -Math.fma(bay, dcx, -right));
+    }
+
+    /**
+     * Find the rounding error in a floating point subtraction (Shewchuk's Two-Diff).
+     *
+     * @param a The value subtracted from.
+     * @param b The value subtracted.
+     * @param difference The rounded value of a - b.
+     * @return The error, so that a - b is exactly difference + error.
+     */
+    private static double differenceError(double a, double b, double difference) {
+        double bVirtual = a - difference;
+        double aVirtual = difference + bVirtual;
+        return (a - aVirtual) + (bVirtual - b);
+    }
+
+    /**
+     * Sum four doubles exactly, by growing a floating point expansion (Shewchuk's Grow-Expansion).
+     *
+     * @param terms The terms to sum.
+     * @return A double close to the exact sum, but never zero unless it is exactly zero.
+     */
+    private static double exactSum(double... terms) {
+        // The components don't overlap and are in increasing order of magnitude, so the sign of the sum is the sign of
+        // the largest non-zero component.
+        double[] expansion = new double[terms.length];
+        int length = 0;
+        for (double term : terms) {
+            double q = term;
+            for (int i = 0; i < length; i++) {
+                double sum = q + expansion[i];
+                double bVirtual = sum - q;
+                double aVirtual = sum - bVirtual;
+                expansion[i] = (q - aVirtual) + (expansion[i] - bVirtual);
+                q = sum;
+            }
+            expansion[length++] = q;
+        }
+
+        double value = 0;
+        double largest = 0;
+        for (int i = 0; i < length; i++) {
+            value += expansion[i];
+            if (expansion[i] != 0) {
+                largest = expansion[i];
+            }
+        }
+        if (Math.signum(value) != Math.signum(largest)) {
+            return Math.signum(largest) * Double.MIN_VALUE;
+        }
+        return value;
+    }
+
+    /**
+     * Calculate the side of the line from a to b that c is on.
+     *
+     * @param ax The x co-ordinate of a.
+     * @param ay The y co-ordinate of a.
+     * @param bx The x co-ordinate of b.
+     * @param by The y co-ordinate of b.
+     * @param cx The x co-ordinate of c.
+     * @param cy The y co-ordinate of c.
+     * @return Positive if c is to the left (anti-clockwise) of a to b, negative if it is to the right, and zero if the
+     *         three points are exactly collinear.
+     */
+    public static double orientation(double ax, double ay, double bx, double by, double cx, double cy) {
+        return cross(ax, ay, bx, by, ax, ay, cx, cy);
+    }
+
+    /**
+     * Calculate the cross product (b - a) x (d - c) exactly.
+     *
+     * @param ax The x co-ordinate of a.
+     * @param ay The y co-ordinate of a.
+     * @param bx The x co-ordinate of b.
+     * @param by The y co-ordinate of b.
+     * @param cx The x co-ordinate of c.
+     * @param cy The y co-ordinate of c.
+     * @param dx The x co-ordinate of d.
+     * @param dy The y co-ordinate of d.
+     * @return The nearest double to the exact cross product, but never zero unless it is exactly zero.
+     */
+    @SuppressWarnings("checkstyle:parameterNumber")
+    private static double exactCross(double ax, double ay, double bx, double by,
+                             double cx, double cy, double dx, double dy) {
+        BigDecimal left = new BigDecimal(bx).subtract(new BigDecimal(ax))
+            .multiply(new BigDecimal(dy).subtract(new BigDecimal(cy)));
+        BigDecimal right = new BigDecimal(by).subtract(new BigDecimal(ay))
+            .multiply(new BigDecimal(dx).subtract(new BigDecimal(cx)));
+        BigDecimal det = left.subtract(right);
+        double value = det.doubleValue();
+        if (value == 0 && det.signum() != 0) {
+            return det.signum() * Double.MIN_VALUE;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.geometry;
+
+import org.isaacphysics.graphchecker.data.Rect;
+
+import java.util.List;
+
+/**
+ * A sector which is a closed rectangle, possibly extending to infinity, such as an axis, a quadrant or a half.
+ *
+ * Points are tested by comparing their co-ordinates with the bounds, which gives the same answer as testing them
+ * against the segments; the segments are kept for finding intersections and clipping.
+ */
+class RectangularSector extends Sector {
+    private final double left;
+    private final double right;
+    private final double top;
+    private final double bottom;
+
+    /**
+     * Create a rectangular sector.
+     *
+     * @param name The name of the sector.
+     * @param segments The segments defining the boundaries of this sector.
+     * @param bounds The rectangle these segments enclose, including its edges.
+     */
+    RectangularSector(String name, List<Segment> segments, Rect bounds) {
+        super(name, segments, bounds);
+        this.left = bounds.getLeft();
+        this.right = bounds.getRight();
+        this.top = bounds.getTop();
+        this.bottom = bounds.getBottom();
+    }
+
+    @Override
+    public boolean contains(double x, double y) {
+        return x >= left && x <= right && y >= bottom && y <= top;
+    }
+
+    @Override
+    boolean isDirect() {
+        return true;
+    }
+}
@@ -19,6 +19,7 @@ import org.isaacphysics.graphchecker.data.Intersection;
 import org.isaacphysics.graphchecker.data.IntersectionParams;
 import org.isaacphysics.graphchecker.data.Point;
 import org.isaacphysics.graphchecker.data.Line;
+import org.isaacphysics.graphchecker.data.Rect;
 
 import java.util.List;
 import java.util.Objects;
@@ -29,8 +30,15 @@ import java.util.stream.Collectors;
  */
 public class Sector {
 
+    /**
+     * Bounds that contain everywhere.
+     */
+    static final Rect UNBOUNDED = new Rect(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+        Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
+
     private final String name;
     private final List<Segment> segments;
+    private final Rect bounds;
 
     /**
      * Create a sector.
@@ -42,8 +50,20 @@ public class Sector {
      * @param segments The segments defining the boundaries of this sector.
      */
     Sector(String name, List<Segment> segments) {
+        this(name, segments, UNBOUNDED);
+    }
+
+    /**
+     * Create a sector with known bounds.
+     *
+     * @param name The name of the sector.
+     * @param segments The segments defining the boundaries of this sector.
+     * @param bounds A rectangle, possibly infinite, containing every point inside this sector.
+     */
+    Sector(String name, List<Segment> segments, Rect bounds) {
         this.name = name;
         this.segments = segments;
+        this.bounds = bounds;
     }
 
     @Override
@@ -51,13 +71,54 @@ public class Sector {
         return name;
     }
 
+    /**
+     * @return A rectangle, possibly infinite, containing every point inside this sector.
+     */
+    public Rect getBounds() {
+        return bounds;
+    }
+
+    /**
+     * @return The segments defining the boundaries of this sector.
+     */
+    List<Segment> getSegments() {
+        return segments;
+    }
+
     /**
      * Does this sector contain the point?
      * @param p The point to test.
      * @return True if the point is inside this sector.
      */
     public boolean contains(Point p) {
-        return this.segments.stream().allMatch(segment -> segment.inside(p));
+        return contains(p.getX(), p.getY());
+    }
+
+    /**
+     * Does this sector contain the point with these co-ordinates?
+     * @param x The x co-ordinate of the point.
+     * @param y The y co-ordinate of the point.
+     * @return True if the point is inside this sector.
+     */
+    public boolean contains(double x, double y) {
+        for (Segment segment : this.segments) {
+            if (!segment.inside(x, y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Does this sector test points directly, rather than against its segments?
+     *
+     * Such a sector gives exactly the same answers as its segments would, but bulk tests should call contains rather
+     * than testing its segments.
+     *
+     * @return True if contains does not use the segments.
+     */
+    boolean isDirect() {
+        return false;
     }
 
     /**
@@ -0,0 +1,270 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.geometry;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The boundary segments of a list of sectors, packed into flat arrays so they can be tested in bulk.
+ *
+ * Each test does exactly the arithmetic of Segment.inside and Segment.intersectionParam, including using Predicates for
+ * the signs of cross products, so the results are identical, but runs over primitive arrays for every boundary (or
+ * every point) in one loop instead of one object at a time.
+ * Sectors are identified by their index in the list, and sets of sectors are bitmasks, so there can be at most
+ * Long.SIZE sectors.
+ *
+ * Sectors which test points directly, such as the axis-aligned ones SectorBuilder makes, are asked whether they contain
+ * each point, and only the boundaries of the others are tested; all boundaries are used for intersections.
+ */
+public final class SectorBoundaries {
+
+    private final int sectorCount;
+    private final int[] sectorOf;
+    private final double[] startX;
+    private final double[] startY;
+    private final double[] endX;
+    private final double[] endY;
+    private final double[] directionX;
+    private final double[] directionY;
+    private final double[] lengthSquared;
+    private final boolean[] openBothEnds;
+    private final boolean[] hasSide;
+    private final boolean[] leftIsInside;
+    private final boolean[] ofDirectSector;
+    private final Sector[] directSectors;
+    private final int[] directSectorIndices;
+
+    /**
+     * Pack the boundaries of a list of sectors.
+     * @param sectors The sectors, at most Long.SIZE of them.
+     */
+    SectorBoundaries(List<Sector> sectors) {
+        if (sectors.size() > Long.SIZE) {
+            throw new IllegalArgumentException("At most " + Long.SIZE + " sectors can be classified against, not "
+                + sectors.size());
+        }
+        this.sectorCount = sectors.size();
+        int count = sectors.stream().mapToInt(sector -> sector.getSegments().size()).sum();
+        sectorOf = new int[count];
+        startX = new double[count];
+        startY = new double[count];
+        endX = new double[count];
+        endY = new double[count];
+        directionX = new double[count];
+        directionY = new double[count];
+        lengthSquared = new double[count];
+        openBothEnds = new boolean[count];
+        hasSide = new boolean[count];
+        leftIsInside = new boolean[count];
+        ofDirectSector = new boolean[count];
+
+        int directCount = (int) sectors.stream().filter(Sector::isDirect).count();
+        directSectors = new Sector[directCount];
+        directSectorIndices = new int[directCount];
+
+        int j = 0;
+        int direct = 0;
+        for (int sector = 0; sector < sectors.size(); sector++) {
+            boolean isDirect = sectors.get(sector).isDirect();
+            if (isDirect) {
+                directSectors[direct] = sectors.get(sector);
+                directSectorIndices[direct] = sector;
+                direct++;
+            }
+            for (Segment segment : sectors.get(sector).getSegments()) {
+                sectorOf[j] = sector;
+                ofDirectSector[j] = isDirect;
+                startX[j] = segment.getStart().getX();
+                startY[j] = segment.getStart().getY();
+                endX[j] = segment.getEnd().getX();
+                endY[j] = segment.getEnd().getY();
+                directionX[j] = endX[j] - startX[j];
+                directionY[j] = endY[j] - startY[j];
+                lengthSquared[j] = directionX[j] * directionX[j] + directionY[j] * directionY[j];
+                openBothEnds[j] = segment.isOpenBothEnds();
+                hasSide[j] = segment.getSide() != null;
+                leftIsInside[j] = segment.getSide() != Side.RIGHT;
+                j++;
+            }
+        }
+    }
+
+    /**
+     * @return The number of sectors.
+     */
+    public int sectorCount() {
+        return sectorCount;
+    }
+
+    /**
+     * @return The number of boundary segments, which is the most intersections a segment can have with them.
+     */
+    public int boundaryCount() {
+        return sectorOf.length;
+    }
+
+    /**
+     * @return A mask with a bit set for every sector.
+     */
+    @SuppressWarnings("checkstyle:avoidInlineConditionals")
+    private long allSectors() {
+        return sectorCount == Long.SIZE ? -1L : (1L << sectorCount) - 1;
+    }
+
+    /**
+     * Is a point on the inside of a boundary segment? This is Segment.inside.
+     *
+     * @param j The index of the boundary segment.
+     * @param x The x co-ordinate of the point.
+     * @param y The y co-ordinate of the point.
+     * @return True if the point is on the inside.
+     */
+    @SuppressWarnings("checkstyle:avoidInlineConditionals")
+    private boolean inside(int j, double x, double y) {
+        double crossProduct = Predicates.orientation(startX[j], startY[j], endX[j], endY[j], x, y);
+        boolean onInside = leftIsInside[j] ? crossProduct >= 0 : crossProduct <= 0;
+        if (!onInside) {
+            return false;
+        }
+        if (openBothEnds[j] && hasSide[j]) {
+            return true;
+        }
+        double relativeX = x - startX[j];
+        double relativeY = y - startY[j];
+        double coefficientOfSegment = (relativeX * directionX[j] + relativeY * directionY[j]) / lengthSquared[j];
+        return (openBothEnds[j] || coefficientOfSegment >= 0) && (hasSide[j] || coefficientOfSegment <= 1);
+    }
+
+    /**
+     * Find which sectors a point is in.
+     *
+     * @param x The x co-ordinate of the point.
+     * @param y The y co-ordinate of the point.
+     * @return A mask with bit i set if the point is in sector i.
+     */
+    public long contains(double x, double y) {
+        long mask = allSectors();
+        for (int k = 0; k < directSectors.length; k++) {
+            if (!directSectors[k].contains(x, y)) {
+                mask &= ~(1L << directSectorIndices[k]);
+            }
+        }
+        for (int j = 0; j < sectorOf.length; j++) {
+            if (!ofDirectSector[j] && !inside(j, x, y)) {
+                mask &= ~(1L << sectorOf[j]);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Find which sectors each of a block of points is in.
+     *
+     * This runs each boundary over every point, so the boundary's coefficients stay in registers.
+     *
+     * @param xs The x co-ordinates of the points.
+     * @param ys The y co-ordinates of the points.
+     * @return For each point, a mask with bit i set if the point is in sector i.
+     */
+    public long[] contains(double[] xs, double[] ys) {
+        long[] masks = new long[xs.length];
+        Arrays.fill(masks, allSectors());
+        for (int k = 0; k < directSectors.length; k++) {
+            Sector sector = directSectors[k];
+            long outside = ~(1L << directSectorIndices[k]);
+            for (int i = 0; i < xs.length; i++) {
+                if (!sector.contains(xs[i], ys[i])) {
+                    masks[i] &= outside;
+                }
+            }
+        }
+        for (int j = 0; j < sectorOf.length; j++) {
+            if (ofDirectSector[j]) {
+                continue;
+            }
+            long outside = ~(1L << sectorOf[j]);
+            for (int i = 0; i < xs.length; i++) {
+                if (!inside(j, xs[i], ys[i])) {
+                    masks[i] &= outside;
+                }
+            }
+        }
+        return masks;
+    }
+
+    /**
+     * Find where a closed segment crosses the sector boundaries. This is Segment.intersectionParam for every boundary.
+     *
+     * The intersections are returned in order of their parameter along the segment; intersections with the same
+     * parameter are in sector order, then in the order Sector.intersectionParams gives them.
+     *
+     * @param ax The x co-ordinate of the start of the segment.
+     * @param ay The y co-ordinate of the start of the segment.
+     * @param bx The x co-ordinate of the end of the segment.
+     * @param by The y co-ordinate of the end of the segment.
+     * @param ts Filled with the parameter of each intersection along the segment; at least boundaryCount long.
+     * @param sectors Filled with the sector of each intersection; at least boundaryCount long.
+     * @param insides Filled with whether the end of the segment is inside each boundary; at least boundaryCount long.
+     * @return The number of intersections.
+     */
+    @SuppressWarnings({"checkstyle:parameterNumber", "checkstyle:avoidInlineConditionals"})
+    public int intersections(double ax, double ay, double bx, double by,
+                             double[] ts, int[] sectors, boolean[] insides) {
+        int count = 0;
+        for (int j = 0; j < sectorOf.length; j++) {
+            double x1 = startX[j];
+            double y1 = startY[j];
+            double x2 = endX[j];
+            double y2 = endY[j];
+
+            double det = Predicates.cross(ax, ay, bx, by, x2, y2, x1, y1);
+            if (det == 0) {
+                continue;
+            }
+
+            double t = ((ay - by) * (x1 - ax) + (bx - ax) * (y1 - ay)) / det;
+            if ((!openBothEnds[j] && t < 0) || (!hasSide[j] && t > 1)) {
+                continue;
+            }
+
+            double u = ((y1 - y2) * (x1 - ax) + (x2 - x1) * (y1 - ay)) / det;
+            if (u < 0 || u > 1) {
+                continue;
+            }
+
+            double crossProduct = Predicates.orientation(x1, y1, x2, y2, bx, by);
+            boolean inside = leftIsInside[j] ? crossProduct >= 0 : crossProduct <= 0;
+
+            // Insertion sort, keeping earlier sectors first among equal parameters. Within a sector the parameters are
+            // ordered as Sector.intersectionParams sorts them, which puts -0.0 before 0.0.
+            int position = count;
+            while (position > 0 && (sectors[position - 1] == sectorOf[j]
+                ? Double.compare(ts[position - 1], u) > 0
+                : ts[position - 1] > u)) {
+                ts[position] = ts[position - 1];
+                sectors[position] = sectors[position - 1];
+                insides[position] = insides[position - 1];
+                position--;
+            }
+            ts[position] = u;
+            sectors[position] = sectorOf[j];
+            insides[position] = inside;
+            count++;
+        }
+        return count;
+    }
+}
@@ -15,19 +15,23 @@
  */
 package org.isaacphysics.graphchecker.geometry;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Streams;
 import org.isaacphysics.graphchecker.data.Point;
+import org.isaacphysics.graphchecker.data.Rect;
 import org.isaacphysics.graphchecker.settings.SettingsInterface;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -36,17 +40,30 @@ import java.util.stream.Stream;
  * Generates and manages settings for Sector, which is more focused just on the geometry.
  */
 public class SectorBuilder {
-    private final Settings settings;
+    private final double axisSlop;
+    private final double originSlop;
+    private final double relaxedOriginSlop;
 
     /**
-     * Constructor which stores settings.
+     * Constructor which reads the sizes of the sectors from the settings.
+     *
+     * The settings themselves are not kept, so a builder doesn't keep its settings in the cache alive.
+     *
      * @param settings The settings for this builder.
      */
     public SectorBuilder(Settings settings) {
-        this.settings = settings;
+        this.axisSlop = settings.getAxisSlop();
+        this.originSlop = settings.getOriginSlop();
+        this.relaxedOriginSlop = settings.getRelaxedOriginSlop();
     }
 
-    private static final Map<Settings, SectorBuilder> SECTOR_BUILDER_CACHE = new HashMap<>();
+    /**
+     * Builders for each settings object, kept for as long as the settings are in use. Settings are compared by
+     * identity, so a sweep over many settings doesn't keep a builder for each of them.
+     */
+    private static final LoadingCache<Settings, SectorBuilder> SECTOR_BUILDER_CACHE = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build(CacheLoader.from(SectorBuilder::new));
 
     /**
      * The type of settings for SectorBuilder.
@@ -85,7 +102,7 @@ public class SectorBuilder {
          * @return A SectorBuilder with these settings.
          */
         default SectorBuilder getSectorBuilder() {
-            return SECTOR_BUILDER_CACHE.computeIfAbsent(this, SectorBuilder::new);
+            return SECTOR_BUILDER_CACHE.getUnchecked(this);
         }
     }
 
@@ -202,11 +219,86 @@ public class SectorBuilder {
      */
     public Sector byName(String s) {
         if (SECTOR_SHAPES.containsKey(s)) {
-            return sectorCache.computeIfAbsent(s, name -> new Sector(name, SECTOR_SHAPES.get(name).apply(this)));
+            Sector sector = sectorCache.get(s);
+            if (sector == null) {
+                // Sectors are compared by identity, so only the first one created is kept
+                Sector created = createSector(s);
+                sector = sectorCache.putIfAbsent(s, created);
+                if (sector == null) {
+                    sector = created;
+                }
+            }
+            return sector;
         }
         throw new IllegalArgumentException(s + " is not a valid sector");
     }
 
+    /**
+     * Create a sector, using a direct test of the co-ordinates where the shape allows it.
+     *
+     * The direct tests give the same answers as the segments only when the slop is a sensibly scaled positive number;
+     * otherwise, such as with a slop of zero, the sector tests its segments.
+     *
+     * @param name The name of the sector.
+     * @return The sector.
+     */
+    private Sector createSector(String name) {
+        List<Segment> segments = SECTOR_SHAPES.get(name).apply(this);
+        Rect bounds = SECTOR_BOUNDS.get(name).apply(this);
+        switch (name) {
+            case ORIGIN:
+                return diamondSector(name, segments, bounds, originSlop);
+            case RELAXED_ORIGIN:
+                return diamondSector(name, segments, bounds, relaxedOriginSlop);
+            case ANY:
+                return new Sector(name, segments, bounds);
+            case TOP_LEFT_SLOP:
+            case TOP_RIGHT_SLOP:
+            case BOTTOM_LEFT_SLOP:
+            case BOTTOM_RIGHT_SLOP:
+            case LEFT_HALF:
+            case RIGHT_HALF:
+            case TOP_HALF:
+            case BOTTOM_HALF:
+                return new RectangularSector(name, segments, bounds);
+            default:
+                // The axes and the quadrants are offset by the axis slop
+                if (isWellScaled(axisSlop)) {
+                    return new RectangularSector(name, segments, bounds);
+                }
+                return new Sector(name, segments, bounds);
+        }
+    }
+
+    /**
+     * Helper to create a diamond sector.
+     *
+     * @param name The name of the sector.
+     * @param segments The segments of the diamond.
+     * @param bounds The square around the diamond.
+     * @param size The radius of the diamond.
+     * @return The sector.
+     */
+    private static Sector diamondSector(String name, List<Segment> segments, Rect bounds, double size) {
+        if (isWellScaled(size)) {
+            return new DiamondSector(name, segments, bounds, size);
+        }
+        return new Sector(name, segments, bounds);
+    }
+
+    private static final double SMALLEST_DIRECT_SLOP = 1e-100;
+    private static final double LARGEST_DIRECT_SLOP = 1e100;
+
+    /**
+     * Is a slop far enough from zero, and from overflow, that the segments' arithmetic cannot underflow or overflow?
+     *
+     * @param slop The slop.
+     * @return True if sectors built with this slop can be tested directly.
+     */
+    private static boolean isWellScaled(double slop) {
+        return slop >= SMALLEST_DIRECT_SLOP && slop <= LARGEST_DIRECT_SLOP;
+    }
+
     /**
      * Create a list of sectors from a stream of sector name strings.
      * @param sectors The stream of sector names.
@@ -227,7 +319,7 @@ public class SectorBuilder {
         return fromList(Arrays.stream(sectorNames).map(String::trim), withSlop);
     }
 
-    private final Map<String, Sector> sectorCache = new HashMap<>();
+    private final Map<String, Sector> sectorCache = new ConcurrentHashMap<>();
 
     /**
      * Helper method to create a quadrant sector.
@@ -265,8 +357,8 @@ public class SectorBuilder {
      * @return The segments of the quadrant
      */
     private List<Segment> sloppyQuadrant(Point axis1, Point axis2) {
-        final Point axis1Scaled = axis1.times(settings.getAxisSlop());
-        final Point axis2Scaled = axis2.times(settings.getAxisSlop());
+        final Point axis1Scaled = axis1.times(axisSlop);
+        final Point axis2Scaled = axis2.times(axisSlop);
         final Point shiftedOrigin = axis1Scaled.add(axis2Scaled);
         return quadrant(shiftedOrigin, axis1Scaled, axis2Scaled);
     }
@@ -283,8 +375,8 @@ public class SectorBuilder {
      * @return The sloppy axis sector.
      */
     private List<Segment> sloppyAxis(Point left, Point right, Point axis) {
-        final Point leftScaled = left.times(settings.getAxisSlop());
-        final Point rightScaled = right.times(settings.getAxisSlop());
+        final Point leftScaled = left.times(axisSlop);
+        final Point rightScaled = right.times(axisSlop);
         return Arrays.asList(
             Segment.closed(leftScaled, rightScaled),
             Segment.openOneEnd(leftScaled, axis, Side.RIGHT),
@@ -339,8 +431,8 @@ public class SectorBuilder {
 
     private static final ImmutableMap<String, Function<SectorBuilder, List<Segment>>> SECTOR_SHAPES =
         ImmutableMap.<String, Function<SectorBuilder, List<Segment>>>builder()
-            .put(ORIGIN, builder -> builder.diamond(builder.settings.getOriginSlop()))
-            .put(RELAXED_ORIGIN, builder -> builder.diamond(builder.settings.getRelaxedOriginSlop()))
+            .put(ORIGIN, builder -> builder.diamond(builder.originSlop))
+            .put(RELAXED_ORIGIN, builder -> builder.diamond(builder.relaxedOriginSlop))
 
             .put(POSITIVE_X_AXIS, builder -> builder.sloppyAxis(UP, DOWN, RIGHT))
             .put(NEGATIVE_X_AXIS, builder -> builder.sloppyAxis(DOWN, UP, LEFT))
@@ -367,4 +459,55 @@ public class SectorBuilder {
 
             .build();
 
+    private static final double INF = Double.POSITIVE_INFINITY;
+
+    /**
+     * The bounding rectangles of each of the shapes above, used to rule sectors out cheaply.
+     */
+    private static final ImmutableMap<String, Function<SectorBuilder, Rect>> SECTOR_BOUNDS =
+        ImmutableMap.<String, Function<SectorBuilder, Rect>>builder()
+            .put(ORIGIN, builder -> builder.square(builder.originSlop))
+            .put(RELAXED_ORIGIN, builder -> builder.square(builder.relaxedOriginSlop))
+
+            .put(POSITIVE_X_AXIS, builder -> new Rect(0, INF, builder.axisSlop,
+                -builder.axisSlop))
+            .put(NEGATIVE_X_AXIS, builder -> new Rect(-INF, 0, builder.axisSlop,
+                -builder.axisSlop))
+            .put(POSITIVE_Y_AXIS, builder -> new Rect(-builder.axisSlop, builder.axisSlop,
+                INF, 0))
+            .put(NEGATIVE_Y_AXIS, builder -> new Rect(-builder.axisSlop, builder.axisSlop,
+                0, -INF))
+
+            .put(TOP_LEFT, builder -> new Rect(-INF, -builder.axisSlop, INF,
+                builder.axisSlop))
+            .put(TOP_RIGHT, builder -> new Rect(builder.axisSlop, INF, INF,
+                builder.axisSlop))
+            .put(BOTTOM_LEFT, builder -> new Rect(-INF, -builder.axisSlop,
+                -builder.axisSlop, -INF))
+            .put(BOTTOM_RIGHT, builder -> new Rect(builder.axisSlop, INF,
+                -builder.axisSlop, -INF))
+
+            .put(TOP_LEFT_SLOP, builder -> new Rect(-INF, 0, INF, 0))
+            .put(TOP_RIGHT_SLOP, builder -> new Rect(0, INF, INF, 0))
+            .put(BOTTOM_LEFT_SLOP, builder -> new Rect(-INF, 0, 0, -INF))
+            .put(BOTTOM_RIGHT_SLOP, builder -> new Rect(0, INF, 0, -INF))
+
+            .put(LEFT_HALF, builder -> new Rect(-INF, 0, INF, -INF))
+            .put(RIGHT_HALF, builder -> new Rect(0, INF, INF, -INF))
+            .put(TOP_HALF, builder -> new Rect(-INF, INF, INF, 0))
+            .put(BOTTOM_HALF, builder -> new Rect(-INF, INF, 0, -INF))
+
+            .put(ANY, builder -> Sector.UNBOUNDED)
+
+            .build();
+
+    /**
+     * Helper to create the bounds of a diamond.
+     * @param size The radius of the diamond.
+     * @return The square around the diamond.
+     */
+    private Rect square(double size) {
+        return new Rect(-size, size, size, -size);
+    }
+
 }
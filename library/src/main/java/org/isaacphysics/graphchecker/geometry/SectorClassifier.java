@@ -15,12 +15,16 @@
  */
 package org.isaacphysics.graphchecker.geometry;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.isaacphysics.graphchecker.data.Line;
 import org.isaacphysics.graphchecker.data.Point;
 import org.isaacphysics.graphchecker.settings.SettingsInterface;
 
-import java.util.HashMap;
+import jakarta.annotation.Nullable;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -30,17 +34,33 @@ import java.util.stream.Collectors;
  * By default, uses a default ordered sector list that makes sense for our problems.
  */
 public class SectorClassifier {
-    private final Settings settings;
+    private final List<Sector> orderedSectorList;
+    private final List<Sector> orderedSectorsNoSlop;
+    private final Sector[] orderedSectors;
+    private volatile SectorBoundaries boundaries;
+    private volatile boolean gridBuilt;
+    private volatile SectorGrid grid;
 
     /**
-     * Constructor which stores settings.
+     * Constructor which fetches the sectors from the settings once.
+     *
+     * The settings themselves are not kept, so a classifier doesn't keep its settings in the cache alive.
+     *
      * @param settings The settings for this builder.
      */
     SectorClassifier(Settings settings) {
-        this.settings = settings;
+        this.orderedSectorList = settings.getOrderedSectors();
+        this.orderedSectorsNoSlop = settings.getOrderedSectorsNoSlop();
+        this.orderedSectors = orderedSectorList.toArray(new Sector[0]);
     }
 
-    private static final Map<Settings, SectorClassifier> SECTOR_CLASSIFIER_CACHE = new HashMap<>();
+    /**
+     * Classifiers for each settings object, kept for as long as the settings are in use. Settings are compared by
+     * identity, so a sweep over many settings doesn't keep a classifier for each of them.
+     */
+    private static final LoadingCache<Settings, SectorClassifier> SECTOR_CLASSIFIER_CACHE = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build(CacheLoader.from(SectorClassifier::new));
 
     /**
      * The type of settings for SectorClassifier.
@@ -69,7 +89,7 @@ public class SectorClassifier {
          * @return A SectorClassifier with these settings.
          */
         default SectorClassifier getSectorClassifier() {
-            return SECTOR_CLASSIFIER_CACHE.computeIfAbsent(this, SectorClassifier::new);
+            return SECTOR_CLASSIFIER_CACHE.getUnchecked(this);
         }
     }
 
@@ -81,7 +101,7 @@ public class SectorClassifier {
     public Sector classify(Point point) {
         Set<Sector> possibleSectors = classifyAll(point);
         // When classifying individual points there are no transition zones (so no slop)
-        return settings.getOrderedSectorsNoSlop().stream()
+        return orderedSectorsNoSlop.stream()
             .filter(possibleSectors::contains)
             .findFirst()
             .get();
@@ -93,8 +113,127 @@ public class SectorClassifier {
      * @return The set of sectors this point could be in.
      */
     public Set<Sector> classifyAll(Point point) {
-        return settings.getOrderedSectors().stream()
+        return orderedSectorList.stream()
             .filter(sector -> sector.contains(point))
             .collect(Collectors.toSet());
     }
+
+    /**
+     * @return The sectors we classify against, in order of priority, fetched from the settings once.
+     */
+    private Sector[] orderedSectors() {
+        return orderedSectors;
+    }
+
+    /**
+     * @param index The index of a sector, which is the index of its bit in a mask.
+     * @return The sector at that index in the ordered list of sectors we classify against.
+     */
+    public Sector sectorAt(int index) {
+        return orderedSectors()[index];
+    }
+
+    /**
+     * Get a mask of a sector, for testing against the masks from classifyAllMask.
+     * @param sector The sector.
+     * @return A mask with the bit for each index of the sector set, or 0 if it is not one we classify against.
+     */
+    public long maskOf(Sector sector) {
+        Sector[] sectors = orderedSectors();
+        long mask = 0;
+        for (int i = 0; i < sectors.length; i++) {
+            if (sectors[i] == sector) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @return The boundaries of the sectors we classify against, packed for bulk tests.
+     */
+    public SectorBoundaries getBoundaries() {
+        SectorBoundaries packed = boundaries;
+        if (packed == null) {
+            packed = new SectorBoundaries(Arrays.asList(orderedSectors()));
+            boundaries = packed;
+        }
+        return packed;
+    }
+
+    /**
+     * Get the lookup table of the sectors we classify against, if there is one.
+     *
+     * There is a table when every sector tests points directly, which is true of the sectors SectorBuilder makes with
+     * sensible settings.
+     *
+     * @return The lookup table, or null if points must be tested against the boundaries.
+     */
+    @Nullable
+    public SectorGrid getGrid() {
+        if (!gridBuilt) {
+            grid = SectorGrid.of(Arrays.asList(orderedSectors()));
+            gridBuilt = true;
+        }
+        return grid;
+    }
+
+    /**
+     * Get how far from the axes the boundaries of the sectors we classify against reach.
+     *
+     * A segment which stays further than this from both axes crosses no boundaries, so the sectors it passes through
+     * are just those of its ends.
+     *
+     * @return The reach from the lookup table, or infinity if there is no table.
+     */
+    public double getReach() {
+        SectorGrid lookup = getGrid();
+        if (lookup != null) {
+            return lookup.getReach();
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Identify which sectors this point could be in, as a bitmask.
+     *
+     * Bit i is set if the point is in the sector with index i. This uses the lookup table if there is one, and the
+     * boundaries otherwise; the answers are the same.
+     *
+     * @param point The point to be classified.
+     * @return The mask of sectors this point could be in.
+     */
+    public long classifyAllMask(Point point) {
+        return classifyAllMask(point.getX(), point.getY());
+    }
+
+    /**
+     * Identify which sectors a point could be in, as a bitmask.
+     *
+     * @param x The x co-ordinate of the point.
+     * @param y The y co-ordinate of the point.
+     * @return The mask of sectors this point could be in.
+     */
+    public long classifyAllMask(double x, double y) {
+        SectorGrid lookup = getGrid();
+        if (lookup != null) {
+            return lookup.contains(x, y);
+        }
+        return getBoundaries().contains(x, y);
+    }
+
+    /**
+     * Identify which sectors each point of a line could be in, as bitmasks.
+     *
+     * @param line The line to be classified.
+     * @return For each point of the line, the mask of sectors it could be in.
+     */
+    public long[] classifyAllMasks(Line line) {
+        LineSummary summary = LineSummary.of(line);
+        SectorGrid lookup = getGrid();
+        if (lookup != null) {
+            return lookup.contains(summary.getXs(), summary.getYs());
+        }
+        return getBoundaries().contains(summary.getXs(), summary.getYs());
+    }
 }
@@ -0,0 +1,288 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.geometry;
+
+import org.isaacphysics.graphchecker.data.Intersection;
+import org.isaacphysics.graphchecker.data.Rect;
+
+import jakarta.annotation.Nullable;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * A lookup table of which sectors contain each cell of a grid over the plane, for classifying points with a few
+ * comparisons.
+ *
+ * The grid lines are the edges of the rectangular sectors and the corners of the diamonds. Each grid line is a cell of
+ * its own, as are the open intervals between them, so every rectangular sector either contains a cell or misses it
+ * entirely. Most cells are wholly inside or outside each diamond too; the few that are not record the diamond as
+ * uncertain, and points in them are tested against it directly.
+ *
+ * A grid can only be made for sectors which all test points directly, or have no boundaries at all; other sectors
+ * need SectorBoundaries.
+ */
+public final class SectorGrid {
+
+    /**
+     * Slack added to the reach, so rounding where a segment meets a boundary can't find a crossing beyond it.
+     */
+    private static final double REACH_SLACK = 1e-9;
+
+    private final Sector[] sectors;
+    private final double[] xLines;
+    private final double[] yLines;
+    private final int yCells;
+    private final long[] certain;
+    private final long[] uncertain;
+    private final double reach;
+
+    /**
+     * Build a grid over some sectors.
+     * @param sectors The sectors, at most Long.SIZE of them.
+     */
+    private SectorGrid(List<Sector> sectors) {
+        if (sectors.size() > Long.SIZE) {
+            throw new IllegalArgumentException("At most " + Long.SIZE + " sectors can be classified against, not "
+                + sectors.size());
+        }
+        this.sectors = sectors.toArray(new Sector[0]);
+
+        TreeSet<Double> xs = new TreeSet<>();
+        TreeSet<Double> ys = new TreeSet<>();
+        for (Sector sector : this.sectors) {
+            if (sector instanceof RectangularSector) {
+                Rect bounds = sector.getBounds();
+                addLine(xs, bounds.getLeft());
+                addLine(xs, bounds.getRight());
+                addLine(ys, bounds.getBottom());
+                addLine(ys, bounds.getTop());
+            } else if (sector instanceof DiamondSector) {
+                double size = ((DiamondSector) sector).getSize();
+                addLine(xs, -size);
+                addLine(xs, size);
+                addLine(ys, -size);
+                addLine(ys, size);
+            }
+        }
+        xLines = xs.stream().mapToDouble(Double::doubleValue).toArray();
+        yLines = ys.stream().mapToDouble(Double::doubleValue).toArray();
+        double furthest = 0;
+        for (double line : xs) {
+            furthest = Math.max(furthest, Math.abs(line));
+        }
+        for (double line : ys) {
+            furthest = Math.max(furthest, Math.abs(line));
+        }
+        reach = furthest + REACH_SLACK;
+
+        int xCells = 2 * xLines.length + 1;
+        yCells = 2 * yLines.length + 1;
+        certain = new long[xCells * yCells];
+        uncertain = new long[xCells * yCells];
+        for (int i = 0; i < xCells; i++) {
+            for (int j = 0; j < yCells; j++) {
+                fillCell(i, j);
+            }
+        }
+    }
+
+    /**
+     * Build a grid over some sectors, if they can all be tested against a grid.
+     *
+     * @param sectors The sectors, at most Long.SIZE of them.
+     * @return The grid, or null if any sector tests points against its segments.
+     */
+    @Nullable
+    static SectorGrid of(List<Sector> sectors) {
+        for (Sector sector : sectors) {
+            boolean gridded = sector instanceof RectangularSector || sector instanceof DiamondSector;
+            if (!gridded && !sector.getSegments().isEmpty()) {
+                return null;
+            }
+        }
+        return new SectorGrid(sectors);
+    }
+
+    /**
+     * Add a grid line, ignoring the infinite edges of sectors and normalising -0.0, which compares equal to 0.
+     *
+     * @param lines The grid lines so far.
+     * @param value The position of the line.
+     */
+    private static void addLine(TreeSet<Double> lines, double value) {
+        if (Double.isFinite(value)) {
+            lines.add(value + 0.0);
+        }
+    }
+
+    /**
+     * Work out which sectors contain a cell.
+     *
+     * @param i The index of the cell in x.
+     * @param j The index of the cell in y.
+     */
+    private void fillCell(int i, int j) {
+        int cell = i * yCells + j;
+        for (int k = 0; k < sectors.length; k++) {
+            long bit = 1L << k;
+            Sector sector = sectors[k];
+            if (sector instanceof RectangularSector) {
+                // Grid lines include every edge of the rectangle, so any point of the cell will do
+                if (sector.contains(representative(xLines, i), representative(yLines, j))) {
+                    certain[cell] |= bit;
+                }
+            } else if (sector instanceof DiamondSector) {
+                Intersection intersection = ((DiamondSector) sector).intersects(low(xLines, i), high(xLines, i),
+                    low(yLines, j), high(yLines, j));
+                if (intersection == Intersection.INSIDE) {
+                    certain[cell] |= bit;
+                } else if (intersection == Intersection.INTERSECTS) {
+                    uncertain[cell] |= bit;
+                }
+            } else {
+                // A sector without boundaries is everywhere
+                certain[cell] |= bit;
+            }
+        }
+    }
+
+    /**
+     * @param lines The grid lines.
+     * @param cell The index of a cell.
+     * @return The lowest co-ordinate of the cell, including its edge.
+     */
+    @SuppressWarnings("checkstyle:avoidInlineConditionals")
+    private static double low(double[] lines, int cell) {
+        return cell == 0 ? Double.NEGATIVE_INFINITY : lines[(cell - 1) / 2];
+    }
+
+    /**
+     * @param lines The grid lines.
+     * @param cell The index of a cell.
+     * @return The highest co-ordinate of the cell, including its edge.
+     */
+    @SuppressWarnings("checkstyle:avoidInlineConditionals")
+    private static double high(double[] lines, int cell) {
+        return cell == 2 * lines.length ? Double.POSITIVE_INFINITY : lines[cell / 2];
+    }
+
+    /**
+     * @param lines The grid lines.
+     * @param cell The index of a cell.
+     * @return A co-ordinate inside the cell.
+     */
+    private static double representative(double[] lines, int cell) {
+        if (cell % 2 == 1) {
+            return lines[cell / 2];
+        }
+        double low = low(lines, cell);
+        double high = high(lines, cell);
+        if (low == Double.NEGATIVE_INFINITY && high == Double.POSITIVE_INFINITY) {
+            return 0;
+        } else if (low == Double.NEGATIVE_INFINITY) {
+            return high - Math.max(1, Math.abs(high));
+        } else if (high == Double.POSITIVE_INFINITY) {
+            return low + Math.max(1, Math.abs(low));
+        }
+        return low / 2 + high / 2;
+    }
+
+    /**
+     * Find the cell a co-ordinate is in.
+     *
+     * Cell 2k is the open interval below line k, and cell 2k + 1 is line k itself.
+     *
+     * @param lines The grid lines.
+     * @param value The co-ordinate.
+     * @return The index of the cell.
+     */
+    @SuppressWarnings("checkstyle:avoidInlineConditionals")
+    private static int cellOf(double[] lines, double value) {
+        int cell = 0;
+        for (double line : lines) {
+            cell += (value > line ? 1 : 0) + (value >= line ? 1 : 0);
+        }
+        return cell;
+    }
+
+    /**
+     * Find which sectors a point is in.
+     *
+     * @param x The x co-ordinate of the point.
+     * @param y The y co-ordinate of the point.
+     * @return A mask with bit i set if the point is in sector i.
+     */
+    public long contains(double x, double y) {
+        if (Double.isNaN(x) || Double.isNaN(y)) {
+            return containsDirectly(x, y, -1L);
+        }
+        int cell = cellOf(xLines, x) * yCells + cellOf(yLines, y);
+        long mask = certain[cell];
+        long toTest = uncertain[cell];
+        if (toTest != 0) {
+            mask |= containsDirectly(x, y, toTest);
+        }
+        return mask;
+    }
+
+    /**
+     * Get how far from the axes the boundaries of the sectors reach.
+     *
+     * Every point on a boundary of a rectangle is on a grid line, and every point of a diamond is between the grid
+     * lines at its corners, so each point on a boundary has |x| or |y| no more than the furthest grid line from the
+     * origin. A segment that stays further than this from both axes, as LineSummary.axisClearance measures it, crosses
+     * no boundaries, so every point on it is in the same sectors.
+     *
+     * @return The distance from the axes within which every boundary lies, with a little slack for rounding.
+     */
+    public double getReach() {
+        return reach;
+    }
+
+    /**
+     * Find which sectors each of a block of points is in.
+     *
+     * @param xs The x co-ordinates of the points.
+     * @param ys The y co-ordinates of the points.
+     * @return For each point, a mask with bit i set if the point is in sector i.
+     */
+    public long[] contains(double[] xs, double[] ys) {
+        long[] masks = new long[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            masks[i] = contains(xs[i], ys[i]);
+        }
+        return masks;
+    }
+
+    /**
+     * Test a point against some of the sectors.
+     *
+     * @param x The x co-ordinate of the point.
+     * @param y The y co-ordinate of the point.
+     * @param toTest A mask of the sectors to test.
+     * @return A mask of the tested sectors which contain the point.
+     */
+    private long containsDirectly(double x, double y, long toTest) {
+        long mask = 0;
+        for (int k = 0; k < sectors.length; k++) {
+            long bit = 1L << k;
+            if ((toTest & bit) != 0 && sectors[k].contains(x, y)) {
+                mask |= bit;
+            }
+        }
+        return mask;
+    }
+}
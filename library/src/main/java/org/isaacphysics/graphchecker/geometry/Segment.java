@@ -114,6 +114,20 @@ public class Segment {
         return end;
     }
 
+    /**
+     * @return Which side of this segment is the inside, or null if this is a closed segment.
+     */
+    Side getSide() {
+        return side;
+    }
+
+    /**
+     * @return True if this is a line, open at both ends.
+     */
+    boolean isOpenBothEnds() {
+        return openBothEnds;
+    }
+
     /**
      * Is this point on the inside of this line segment?
      *
@@ -124,17 +138,32 @@ public class Segment {
      * @return True if this point is on the inside of this line segment.
      */
     boolean inside(Point p) {
-        Point endPrime = end.minus(start);
-        Point pPrime = p.minus(start);
-        if (!isOnInside(endPrime, pPrime)) {
+        return inside(p.getX(), p.getY());
+    }
+
+    /**
+     * Is the point with these co-ordinates on the inside of this line segment?
+     *
+     * @param x The x co-ordinate of the point.
+     * @param y The y co-ordinate of the point.
+     * @return True if this point is on the inside of this line segment.
+     */
+    boolean inside(double x, double y) {
+        double crossProduct = Predicates.orientation(start.getX(), start.getY(), end.getX(), end.getY(), x, y);
+        if (!isOnInside(crossProduct)) {
             return false;
         }
 
+        double endPrimeX = end.getX() - start.getX();
+        double endPrimeY = end.getY() - start.getY();
+        double pPrimeX = x - start.getX();
+        double pPrimeY = y - start.getY();
+
         // Project originPoints onto line and check inside this segment
         // equivalent to |b| x |b| x cos(0) = |b|^2
-        double dotEndPrime = endPrime.getX() * endPrime.getX() + endPrime.getY() * endPrime.getY();
+        double dotEndPrime = endPrimeX * endPrimeX + endPrimeY * endPrimeY;
         // equivalent to |a| x |b| x cos(theta)
-        double pDotEndPrime = pPrime.getX() * endPrime.getX() + pPrime.getY() * endPrime.getY();
+        double pDotEndPrime = pPrimeX * endPrimeX + pPrimeY * endPrimeY;
         // equivalent to (|a| x cos(theta)) / |b| (that is a normalised sign of a)
         double coefficientOfSegment = pDotEndPrime / dotEndPrime;
         // If openBothEnds then don't worry about it being "behind"
@@ -147,14 +176,11 @@ public class Segment {
     /**
      * Helper to check if a point is on the correct side of the line.
      *
-     * prime suffix means the original point has had this.start subtracted from it.
-     *
-     * @param endPrime The end point minus this.start.
-     * @param pPrime The point to be tested minus this.start.
+     * @param crossProduct The cross product of the direction of this segment and the point relative to this.start,
+     *                     with the correct sign, from Predicates.orientation.
      * @return True if the point is on the inside.
      */
-    private boolean isOnInside(Point endPrime, Point pPrime) {
-        double crossProduct = endPrime.getX() * pPrime.getY() - endPrime.getY() * pPrime.getX();
+    private boolean isOnInside(double crossProduct) {
         if (this.side == null || this.side == Side.LEFT) {
             return crossProduct >= 0;
         } else {
@@ -190,7 +216,8 @@ public class Segment {
         double y3 = s.start.getY();
         double y4 = s.end.getY();
 
-        double det = (x4 - x3) * (y1 - y2) - (x1 - x2) * (y4 - y3);
+        // (x4 - x3) * (y1 - y2) - (x1 - x2) * (y4 - y3), which must be exactly zero only if the lines are parallel
+        double det = Predicates.cross(x3, y3, x4, y4, x2, y2, x1, y1);
 
         if (det == 0) {
             // Lines are parallel, so don't intersect
@@ -209,9 +236,7 @@ public class Segment {
             return null;
         }
 
-        Point endPrime = end.minus(start);
-        Point pPrime = s.end.minus(start);
-        boolean inside = isOnInside(endPrime, pPrime);
+        boolean inside = isOnInside(Predicates.orientation(x1, y1, x2, y2, x4, y4));
 
         return new IntersectionParams.IntersectionParam(u, inside);
     }
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.metrics;
+
+import org.isaacphysics.graphchecker.settings.SettingsInterface;
+
+/**
+ * A sink for measurements taken while marking, so slow or frequently failing features can be found in production.
+ *
+ * Implementations must be thread-safe. The default, NONE, is disabled and marking skips all measurement when a sink is
+ * disabled, so leaving metrics off costs one boolean check per marked input.
+ */
+public interface MarkingMetrics {
+
+    /**
+     * A sink that records nothing.
+     */
+    MarkingMetrics NONE = new MarkingMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void recordFeature(String tag, long nanos, boolean passed) {
+        }
+
+        @Override
+        public void recordLineCount(int lines) {
+        }
+
+        @Override
+        public void recordAssignments(String tag, int assignments) {
+        }
+    };
+
+    /**
+     * The settings for metrics.
+     */
+    interface Settings extends SettingsInterface {
+        /**
+         * @return The sink to record marking measurements in.
+         */
+        default MarkingMetrics getMarkingMetrics() {
+            return NONE;
+        }
+    }
+
+    /**
+     * @return False if nothing should be measured, so callers can skip taking timings.
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Record one evaluation of a feature against an input.
+     *
+     * @param tag The tag of the feature, e.g. "through", or "match.slope" for a feature inside a line selector.
+     * @param nanos How long the evaluation took in nanoseconds.
+     * @param passed True if the input matched the feature.
+     */
+    void recordFeature(String tag, long nanos, boolean passed);
+
+    /**
+     * Record the number of lines in an input being marked.
+     *
+     * @param lines The number of lines.
+     */
+    void recordLineCount(int lines);
+
+    /**
+     * Record how many possible assignments of names to lines remain in the context after a feature matched.
+     *
+     * @param tag The tag of the feature that matched.
+     * @param assignments The number of assignments in the new context.
+     */
+    void recordAssignments(String tag, int assignments);
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An in-memory metrics sink, in the style of a Micrometer registry: a latency timer and pass/fail counters per feature
+ * tag, and distribution summaries of line counts and context assignment counts.
+ *
+ * Histograms use power-of-two buckets, so percentiles are upper bounds accurate to within a factor of two. Exporting
+ * to a monitoring system is left to the host application, which can poll the meters from here.
+ */
+public class RecordingMarkingMetrics implements MarkingMetrics {
+
+    private final ConcurrentMap<String, FeatureMeter> features = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Histogram> assignments = new ConcurrentHashMap<>();
+    private final Histogram lineCounts = new Histogram();
+
+    /**
+     * A lock-free histogram of non-negative values with power-of-two buckets.
+     */
+    public static class Histogram {
+        private static final int BUCKETS = Long.SIZE;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        /**
+         * Record a value; negative values are recorded as zero.
+         * @param value The value.
+         */
+        void record(long value) {
+            long clamped = Math.max(value, 0);
+            // Bucket i holds values in [2^(i-1), 2^i - 1], and bucket 0 holds zero.
+            buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(clamped));
+            count.increment();
+            total.add(clamped);
+            max.accumulate(clamped);
+        }
+
+        /**
+         * @return The number of values recorded.
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * @return The sum of the values recorded.
+         */
+        public long getTotal() {
+            return total.sum();
+        }
+
+        /**
+         * @return The largest value recorded, or 0 if none have been.
+         */
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * @return The mean of the values recorded, or 0 if none have been.
+         */
+        public double getMean() {
+            long n = getCount();
+            return n == 0 ? 0 : (double) getTotal() / n;
+        }
+
+        /**
+         * Estimate a percentile of the values recorded.
+         *
+         * @param quantile The quantile, between 0 and 1.
+         * @return An upper bound on the value at that quantile, or 0 if nothing has been recorded.
+         */
+        public long getPercentile(double quantile) {
+            long n = getCount();
+            if (n == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * n);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank && seen > 0) {
+                    long upperBound = i == 0 ? 0 : (1L << i) - 1;
+                    return Math.min(upperBound, getMax());
+                }
+            }
+            return getMax();
+        }
+    }
+
+    /**
+     * The meters for a single feature tag.
+     */
+    public static class FeatureMeter {
+        private final Histogram latency = new Histogram();
+        private final LongAdder passes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        /**
+         * @return The histogram of evaluation times in nanoseconds.
+         */
+        public Histogram getLatency() {
+            return latency;
+        }
+
+        /**
+         * @return How many inputs matched this feature.
+         */
+        public long getPasses() {
+            return passes.sum();
+        }
+
+        /**
+         * @return How many inputs did not match this feature.
+         */
+        public long getFailures() {
+            return failures.sum();
+        }
+    }
+
+    @Override
+    public void recordFeature(String tag, long nanos, boolean passed) {
+        FeatureMeter meter = features.computeIfAbsent(tag, t -> new FeatureMeter());
+        meter.latency.record(nanos);
+        if (passed) {
+            meter.passes.increment();
+        } else {
+            meter.failures.increment();
+        }
+    }
+
+    @Override
+    public void recordLineCount(int lines) {
+        lineCounts.record(lines);
+    }
+
+    @Override
+    public void recordAssignments(String tag, int assignmentCount) {
+        assignments.computeIfAbsent(tag, t -> new Histogram()).record(assignmentCount);
+    }
+
+    /**
+     * @return The meters for each feature tag seen so far.
+     */
+    public Map<String, FeatureMeter> getFeatures() {
+        return Collections.unmodifiableMap(features);
+    }
+
+    /**
+     * @return The distribution of the number of lines in marked inputs.
+     */
+    public Histogram getLineCounts() {
+        return lineCounts;
+    }
+
+    /**
+     * @return The distribution of context assignment counts after each feature tag matched.
+     */
+    public Map<String, Histogram> getAssignments() {
+        return Collections.unmodifiableMap(assignments);
+    }
+}
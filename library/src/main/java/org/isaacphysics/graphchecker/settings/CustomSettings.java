@@ -13,10 +13,11 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package org.isaacphysics.graphchecker.bluefin;
+package org.isaacphysics.graphchecker.settings;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -27,21 +28,39 @@ import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import org.isaacphysics.graphchecker.geometry.Sector;
 import org.isaacphysics.graphchecker.geometry.SectorBuilder;
 import org.isaacphysics.graphchecker.geometry.SectorClassifier;
-import org.isaacphysics.graphchecker.settings.SettingsWrapper;
+import org.isaacphysics.graphchecker.metrics.MarkingMetrics;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * Settings read from JSON, so they can be tuned without rebuilding.
+ *
+ * Only the thresholds and the ordered sectors are read and written; everything else comes from the defaults. Bluefin
+ * writes settings in this format, and the regrader reads them. The sectors without slop are written for reference, but
+ * ignored when settings are read back in.
+ */
+@JsonIgnoreProperties(value = "orderedSectorsNoSlop", allowGetters = true)
 public class CustomSettings implements SettingsWrapper {
 
+    /**
+     * Writes sectors by name.
+     */
     private static class SectorSerializer extends StdSerializer<Sector> {
 
-        public SectorSerializer() {
+        /**
+         * Create a sector serializer.
+         */
+        SectorSerializer() {
             this(null);
         }
 
-        public SectorSerializer(Class<Sector> t) {
+        /**
+         * Create a sector serializer.
+         * @param t The class of sectors.
+         */
+        SectorSerializer(Class<Sector> t) {
             super(t);
         }
 
@@ -52,6 +71,9 @@ public class CustomSettings implements SettingsWrapper {
         }
     }
 
+    /**
+     * An object mapper which reads and writes settings, with sectors by name.
+     */
     public static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     static {
         SimpleModule simpleModule = new SimpleModule();
@@ -68,6 +90,9 @@ public class CustomSettings implements SettingsWrapper {
     private final double originSlop;
     private final double relaxedOriginSlop;
 
+    /**
+     * Create settings with the default values, for changing in JSON.
+     */
     public CustomSettings() {
         this(
             DEFAULT.getSlopeThreshold(),
@@ -80,7 +105,18 @@ public class CustomSettings implements SettingsWrapper {
         );
     }
 
+    /**
+     * Create settings from JSON.
+     * @param slopeThreshold The slope threshold.
+     * @param numberOfPointsAtEnds The number of points at each end of a line used to measure slope.
+     * @param symmetrySimilarity How similar the two sides of a symmetric line must be.
+     * @param orderedSectors The names of the sectors to classify against, in order of priority.
+     * @param axisSlop The width either side of an axis that counts as on the axis.
+     * @param originSlop The size of the origin sector.
+     * @param relaxedOriginSlop The size of the relaxed origin sector.
+     */
     @JsonCreator
+    @SuppressWarnings("checkstyle:parameterNumber")
     public CustomSettings(@JsonProperty("slopeThreshold") double slopeThreshold,
                           @JsonProperty("numberOfPointsAtEnds") int numberOfPointsAtEnds,
                           @JsonProperty("symmetrySimilarity") double symmetrySimilarity,
@@ -144,4 +180,28 @@ public class CustomSettings implements SettingsWrapper {
     public SectorBuilder getSectorBuilder() {
         return SettingsWrapper.super.getSectorBuilder();
     }
+
+    @JsonIgnore
+    @Override
+    public MarkingMetrics getMarkingMetrics() {
+        return SettingsWrapper.super.getMarkingMetrics();
+    }
+
+    @JsonIgnore
+    @Override
+    public boolean isLineSimplificationEnabled() {
+        return SettingsWrapper.super.isLineSimplificationEnabled();
+    }
+
+    @JsonIgnore
+    @Override
+    public double getLineSimplificationTolerance() {
+        return SettingsWrapper.super.getLineSimplificationTolerance();
+    }
+
+    @JsonIgnore
+    @Override
+    public double getQuantisationStep() {
+        return SettingsWrapper.super.getQuantisationStep();
+    }
 }
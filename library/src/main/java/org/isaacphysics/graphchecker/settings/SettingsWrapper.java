@@ -19,6 +19,9 @@ import org.isaacphysics.graphchecker.geometry.SectorBuilder;
 import org.isaacphysics.graphchecker.geometry.SectorClassifier;
 import org.isaacphysics.graphchecker.features.SlopeFeature;
 import org.isaacphysics.graphchecker.features.SymmetryFeature;
+import org.isaacphysics.graphchecker.metrics.MarkingMetrics;
+import org.isaacphysics.graphchecker.translation.InputQuantiser;
+import org.isaacphysics.graphchecker.translation.LineSimplifier;
 
 /**
  * Any customised settings must inherit from this wrapper in order to have all the required settings.
@@ -31,7 +34,10 @@ public interface SettingsWrapper extends SettingsInterface.None,
     SlopeFeature.Settings,
     SymmetryFeature.Settings,
     SectorBuilder.Settings,
-    SectorClassifier.Settings {
+    SectorClassifier.Settings,
+    MarkingMetrics.Settings,
+    LineSimplifier.Settings,
+    InputQuantiser.Settings {
 
     /**
      * The default set of settings for everything.
@@ -0,0 +1,251 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.synthetic;
+
+import org.isaacphysics.graphchecker.data.HumanNamedEnum;
+import org.isaacphysics.graphchecker.data.Input;
+import org.isaacphysics.graphchecker.dos.Curve;
+import org.isaacphysics.graphchecker.dos.GraphAnswer;
+import org.isaacphysics.graphchecker.dos.Point;
+import org.isaacphysics.graphchecker.translation.AnswerToInput;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Generates synthetic answers from parametric families of functions, for use as test, benchmark and load fixtures.
+ *
+ * Answers are drawn in the same normalised co-ordinates the sketcher uses (roughly -1 to 1 on each axis), with a
+ * configurable number of points per curve, Gaussian noise on each point and number of curves. Maxima and minima are
+ * found on the noiseless function, like a student's sketch where the client picks the turning points they meant.
+ *
+ * Generation is deterministic: two generators created with the same seed produce the same sequence of answers.
+ */
+public class SyntheticAnswerGenerator {
+
+    private static final int CANVAS_WIDTH = 1440;
+    private static final int CANVAS_HEIGHT = 720;
+
+    /**
+     * The largest absolute y value a generated curve will reach before noise.
+     */
+    private static final double Y_EXTENT = 0.9;
+
+    /**
+     * How far an asymptotic curve starts from its asymptote.
+     */
+    private static final double ASYMPTOTE_GAP = 0.05;
+
+    private final Random random;
+    private final AnswerToInput answerToInput = new AnswerToInput();
+
+    /**
+     * A family of functions to draw curves from.
+     */
+    public enum Family implements HumanNamedEnum {
+        /**
+         * Quadratics and cubics with real roots inside the canvas.
+         */
+        POLYNOMIAL,
+        /**
+         * One branch of a shifted reciprocal, which is steep at one end and flat at the other.
+         */
+        ASYMPTOTIC,
+        /**
+         * Shifted and scaled sine waves with several turning points.
+         */
+        TRIGONOMETRIC,
+        /**
+         * A mixture of the other families, one family chosen per curve.
+         */
+        MULTIPLE
+    }
+
+    /**
+     * Create a generator with a fixed seed.
+     * @param seed The seed for the pseudo-random number generator.
+     */
+    public SyntheticAnswerGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Generate a synthetic answer.
+     *
+     * @param family The family of functions to draw the curves from.
+     * @param pointsPerCurve The number of points in each curve; must be at least 2.
+     * @param noise The standard deviation of Gaussian noise added to each co-ordinate.
+     * @param curveCount The number of curves in the answer; must be at least 1.
+     * @return The answer, in the JSON object format the sketcher submits.
+     */
+    public GraphAnswer generate(Family family, int pointsPerCurve, double noise, int curveCount) {
+        if (pointsPerCurve < 2) {
+            throw new IllegalArgumentException("A curve needs at least two points, not " + pointsPerCurve);
+        }
+        if (curveCount < 1) {
+            throw new IllegalArgumentException("An answer needs at least one curve, not " + curveCount);
+        }
+        if (noise < 0) {
+            throw new IllegalArgumentException("Noise must not be negative: " + noise);
+        }
+
+        List<Curve> curves = new ArrayList<>(curveCount);
+        for (int i = 0; i < curveCount; i++) {
+            Family curveFamily = family;
+            if (curveFamily == Family.MULTIPLE) {
+                curveFamily = Family.values()[random.nextInt(Family.MULTIPLE.ordinal())];
+            }
+            curves.add(generateCurve(curveFamily, pointsPerCurve, noise, i));
+        }
+        return new GraphAnswer(CANVAS_WIDTH, CANVAS_HEIGHT, curves, Collections.emptyList());
+    }
+
+    /**
+     * Generate a synthetic answer and convert it to Input, ready for marking.
+     *
+     * @param family The family of functions to draw the curves from.
+     * @param pointsPerCurve The number of points in each curve; must be at least 2.
+     * @param noise The standard deviation of Gaussian noise added to each co-ordinate.
+     * @param curveCount The number of curves in the answer; must be at least 1.
+     * @return The answer as Input.
+     */
+    public Input generateInput(Family family, int pointsPerCurve, double noise, int curveCount) {
+        return answerToInput.apply(generate(family, pointsPerCurve, noise, curveCount));
+    }
+
+    /**
+     * Generate a single curve from a family.
+     *
+     * @param family The family, which must not be MULTIPLE.
+     * @param pointsPerCurve The number of points in the curve.
+     * @param noise The standard deviation of the noise on each co-ordinate.
+     * @param colorIdx The colour index of this curve.
+     * @return The curve.
+     */
+    @SuppressWarnings("magicNumber")
+    private Curve generateCurve(Family family, int pointsPerCurve, double noise, int colorIdx) {
+        double minX = -1;
+        double maxX = 1;
+        DoubleUnaryOperator f;
+        switch (family) {
+            case POLYNOMIAL: {
+                int degree = 2 + random.nextInt(2);
+                double[] roots = new double[degree];
+                for (int i = 0; i < degree; i++) {
+                    roots[i] = uniform(-0.8, 0.8);
+                }
+                double sign = random.nextBoolean() ? 1 : -1;
+                f = x -> {
+                    double y = sign;
+                    for (double root : roots) {
+                        y *= x - root;
+                    }
+                    return y;
+                };
+                break;
+            }
+            case ASYMPTOTIC: {
+                double asymptote = uniform(-0.5, 0.5);
+                double offset = uniform(-0.3, 0.3);
+                double scale = uniform(0.01, 0.05) * (random.nextBoolean() ? 1 : -1);
+                if (random.nextBoolean()) {
+                    minX = asymptote + ASYMPTOTE_GAP;
+                } else {
+                    maxX = asymptote - ASYMPTOTE_GAP;
+                }
+                f = x -> scale / (x - asymptote) + offset;
+                break;
+            }
+            case TRIGONOMETRIC: {
+                double frequency = uniform(2, 4) * Math.PI;
+                double phase = uniform(0, 2 * Math.PI);
+                double offset = uniform(-0.2, 0.2);
+                f = x -> Math.sin(frequency * x + phase) + offset;
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Cannot generate a single curve of family " + family);
+        }
+
+        double[] xs = new double[pointsPerCurve];
+        double[] ys = new double[pointsPerCurve];
+        double step = (maxX - minX) / (pointsPerCurve - 1);
+        for (int i = 0; i < pointsPerCurve; i++) {
+            xs[i] = minX + step * i;
+            ys[i] = f.applyAsDouble(xs[i]);
+        }
+        normalise(ys);
+
+        List<Point> maxima = new ArrayList<>();
+        List<Point> minima = new ArrayList<>();
+        List<Point> pts = new ArrayList<>(pointsPerCurve);
+        double[] noisyYs = new double[pointsPerCurve];
+        for (int i = 0; i < pointsPerCurve; i++) {
+            double x = xs[i] + random.nextGaussian() * noise;
+            noisyYs[i] = ys[i] + random.nextGaussian() * noise;
+            pts.add(new Point(x, noisyYs[i]));
+        }
+        for (int i = 1; i < pointsPerCurve - 1; i++) {
+            if (ys[i] > ys[i - 1] && ys[i] >= ys[i + 1]) {
+                maxima.add(pts.get(i));
+            } else if (ys[i] < ys[i - 1] && ys[i] <= ys[i + 1]) {
+                minima.add(pts.get(i));
+            }
+        }
+
+        return new Curve(pts,
+            pts.stream().mapToDouble(Point::getX).min().getAsDouble(),
+            pts.stream().mapToDouble(Point::getX).max().getAsDouble(),
+            pts.stream().mapToDouble(Point::getY).min().getAsDouble(),
+            pts.stream().mapToDouble(Point::getY).max().getAsDouble(),
+            Collections.emptyList(),
+            Collections.emptyList(),
+            maxima,
+            minima,
+            false,
+            colorIdx);
+    }
+
+    /**
+     * Scale a curve's y values so the largest magnitude is Y_EXTENT, keeping it on the canvas.
+     * @param ys The y values, scaled in place.
+     */
+    private static void normalise(double[] ys) {
+        double largest = 0;
+        for (double y : ys) {
+            largest = Math.max(largest, Math.abs(y));
+        }
+        if (largest == 0) {
+            return;
+        }
+        double scale = Y_EXTENT / largest;
+        for (int i = 0; i < ys.length; i++) {
+            ys[i] *= scale;
+        }
+    }
+
+    /**
+     * @param min The lowest value.
+     * @param max The highest value.
+     * @return A uniformly distributed value between min and max.
+     */
+    private double uniform(double min, double max) {
+        return min + random.nextDouble() * (max - min);
+    }
+}
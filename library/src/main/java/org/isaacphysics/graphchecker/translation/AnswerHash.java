@@ -0,0 +1,106 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.translation;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.isaacphysics.graphchecker.dos.Curve;
+import org.isaacphysics.graphchecker.dos.GraphAnswer;
+import org.isaacphysics.graphchecker.dos.Point;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A canonical hash of the parts of an answer that marking reads, so identical submissions can share a result.
+ *
+ * Only the points, maxima and minima of each curve are hashed, with each curve's points in the direction AnswerToInput
+ * reads them. The canvas size, colours, bounds, symbols and the other fields the sketcher sends don't affect marking,
+ * so answers that differ only in those have the same hash.
+ *
+ * The hash is SHA-256, so two different answers sharing a hash, and so a mark, is not a practical concern.
+ */
+public final class AnswerHash {
+
+    /**
+     * Utility class.
+     */
+    private AnswerHash() {
+    }
+
+    /**
+     * Hash an answer.
+     * @param graphAnswer The answer.
+     * @return The canonical hash of the answer.
+     */
+    public static HashCode of(GraphAnswer graphAnswer) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        List<Curve> curves = orEmpty(graphAnswer.getCurves());
+        hasher.putInt(curves.size());
+        for (Curve curve : curves) {
+            List<Point> points = orEmpty(curve.getPts());
+            // AnswerToInput reverses curves drawn right to left
+            boolean reversed = points.size() > 2 && points.get(0).getX() > points.get(points.size() - 1).getX();
+            hasher.putInt(points.size());
+            for (int i = 0; i < points.size(); i++) {
+                if (reversed) {
+                    putPoint(hasher, points.get(points.size() - 1 - i));
+                } else {
+                    putPoint(hasher, points.get(i));
+                }
+            }
+            putPoints(hasher, curve.getMaxima());
+            putPoints(hasher, curve.getMinima());
+        }
+        return hasher.hash();
+    }
+
+    /**
+     * Add a list of points to a hash, with its length so that adjacent lists can't run together.
+     * @param hasher The hash being built.
+     * @param points The points, or null for none.
+     */
+    private static void putPoints(Hasher hasher, List<Point> points) {
+        List<Point> list = orEmpty(points);
+        hasher.putInt(list.size());
+        for (Point point : list) {
+            putPoint(hasher, point);
+        }
+    }
+
+    /**
+     * Add a point to a hash.
+     * @param hasher The hash being built.
+     * @param point The point.
+     */
+    private static void putPoint(Hasher hasher, Point point) {
+        hasher.putDouble(point.getX());
+        hasher.putDouble(point.getY());
+    }
+
+    /**
+     * @param list A list from an answer, which may be missing.
+     * @param <T> The type of the list.
+     * @return The list, or an empty list if it is missing.
+     */
+    private static <T> List<T> orEmpty(List<T> list) {
+        if (list == null) {
+            return Collections.emptyList();
+        }
+        return list;
+    }
+}
@@ -22,6 +22,7 @@ import org.isaacphysics.graphchecker.data.PointOfInterest;
 import org.isaacphysics.graphchecker.data.PointType;
 import org.isaacphysics.graphchecker.dos.Curve;
 import org.isaacphysics.graphchecker.dos.GraphAnswer;
+import org.isaacphysics.graphchecker.settings.SettingsWrapper;
 
 import java.util.Collections;
 import java.util.Comparator;
@@ -38,10 +39,28 @@ import java.util.stream.Stream;
  */
 public class AnswerToInput implements Function<GraphAnswer, Input> {
 
+    private final LineSimplifier lineSimplifier;
+
+    /**
+     * Create a converter which doesn't simplify lines.
+     */
+    public AnswerToInput() {
+        this(SettingsWrapper.DEFAULT);
+    }
+
+    /**
+     * Create a converter which simplifies lines if the settings ask for it.
+     * @param settings The settings, which must be the ones used for marking.
+     */
+    public AnswerToInput(LineSimplifier.Settings settings) {
+        this.lineSimplifier = new LineSimplifier(settings);
+    }
+
     @Override
     public Input apply(final GraphAnswer graphAnswer) {
         return new Input(graphAnswer.getCurves().stream()
             .map(this::curveToLine)
+            .map(lineSimplifier::simplify)
             .sorted(Comparator.comparingDouble(a -> a.getPoints().stream().findFirst().map(Point::getX).orElse(0.0)))
             .collect(Collectors.toList()));
     }
@@ -0,0 +1,276 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.translation;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.isaacphysics.graphchecker.data.Input;
+import org.isaacphysics.graphchecker.data.Line;
+import org.isaacphysics.graphchecker.data.Point;
+import org.isaacphysics.graphchecker.data.PointOfInterest;
+import org.isaacphysics.graphchecker.features.SlopeFeature;
+import org.isaacphysics.graphchecker.geometry.Lines;
+import org.isaacphysics.graphchecker.geometry.SectorBoundaries;
+import org.isaacphysics.graphchecker.geometry.SectorClassifier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * Snaps the points of an input to a fine grid, so that sketches which differ only by sub-pixel jitter become identical
+ * and can share a cached mark.
+ *
+ * The grid is much finer than the axis and origin slop. Quantising is only accepted if it cannot change which sectors
+ * the input is in: every point and point of interest must be in exactly the same sectors afterwards, every segment
+ * must cross the same sector boundaries in the same order, grouped the way marking groups them, and every pair of
+ * lines must cross each other the same number of times, in the same sectors and order. The slopes at the ends of each
+ * line must also be classified the same, since snapping a dense curve can move the box around its end points across
+ * the slope threshold. Otherwise the input should be marked as it is.
+ *
+ * Like line simplification, features that measure shape without a check here, such as symmetry, see an input within
+ * half a grid step of the original, so an input right on the edge of one of their thresholds can come out differently.
+ */
+public class InputQuantiser {
+
+    private final Settings settings;
+
+    /**
+     * The settings for quantising inputs.
+     */
+    @SuppressWarnings("magicNumber")
+    public interface Settings extends SectorClassifier.Settings, SlopeFeature.Settings {
+        /**
+         * @return The size of the grid inputs are snapped to; by default a sixteenth of the smaller of the axis and
+         * origin slop.
+         */
+        default double getQuantisationStep() {
+            return Math.min(getAxisSlop(), getOriginSlop()) / 16;
+        }
+    }
+
+    /**
+     * An input snapped to the grid, with a hash that is the same for every input that snaps to the same points.
+     */
+    public static final class Quantised {
+        private final Input input;
+        private final HashCode hash;
+
+        /**
+         * Create a quantised input.
+         * @param input The quantised input.
+         * @param hash The hash of the quantised input.
+         */
+        private Quantised(Input input, HashCode hash) {
+            this.input = input;
+            this.hash = hash;
+        }
+
+        /**
+         * @return The quantised input, which should be marked instead of the original.
+         */
+        public Input getInput() {
+            return input;
+        }
+
+        /**
+         * @return The hash of the quantised input.
+         */
+        public HashCode getHash() {
+            return hash;
+        }
+    }
+
+    /**
+     * Create an input quantiser.
+     * @param settings The settings, which must be the ones used for marking.
+     */
+    public InputQuantiser(Settings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Snap an input to the grid.
+     *
+     * @param input The input.
+     * @return The quantised input, or null if quantising might change which sectors the input is in, or the settings
+     * don't give a usable grid.
+     */
+    @Nullable
+    public Quantised quantise(Input input) {
+        double step = settings.getQuantisationStep();
+        if (!(step > 0) || Double.isInfinite(step)) {
+            return null;
+        }
+        SectorClassifier classifier = settings.getSectorClassifier();
+        SegmentCrossings original = new SegmentCrossings(classifier.getBoundaries());
+        SegmentCrossings quantisedCrossings = new SegmentCrossings(classifier.getBoundaries());
+
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putInt(input.getLines().size());
+        List<Line> lines = new ArrayList<>(input.getLines().size());
+        for (Line line : input.getLines()) {
+            List<Point> points = new ArrayList<>(line.getPoints().size());
+            hasher.putInt(line.getPoints().size());
+            Point last = null;
+            Point lastQuantised = null;
+            for (Point point : line.getPoints()) {
+                Point quantised = new Point(snap(point.getX(), step), snap(point.getY(), step));
+                if (classifier.classifyAllMask(point) != classifier.classifyAllMask(quantised)) {
+                    return null;
+                }
+                if (last != null && !original.of(last, point).equals(quantisedCrossings.of(lastQuantised, quantised))) {
+                    return null;
+                }
+                putPoint(hasher, quantised);
+                points.add(quantised);
+                last = point;
+                lastQuantised = quantised;
+            }
+
+            List<PointOfInterest> pointsOfInterest = new ArrayList<>(line.getPointsOfInterest().size());
+            hasher.putInt(line.getPointsOfInterest().size());
+            for (PointOfInterest point : line.getPointsOfInterest()) {
+                PointOfInterest quantised = new PointOfInterest(snap(point.getX(), step), snap(point.getY(), step),
+                    point.getPointType());
+                if (classifier.classifyAllMask(point) != classifier.classifyAllMask(quantised)) {
+                    return null;
+                }
+                hasher.putInt(point.getPointType().ordinal());
+                putPoint(hasher, quantised);
+                pointsOfInterest.add(quantised);
+            }
+            Line quantisedLine = new Line(points, pointsOfInterest);
+            String slopes = SlopeFeature.describeSlopes(settings, line);
+            if (!slopes.equals(SlopeFeature.describeSlopes(settings, quantisedLine))) {
+                return null;
+            }
+            lines.add(quantisedLine);
+        }
+        if (!sameIntersections(input.getLines(), lines, classifier)) {
+            return null;
+        }
+        return new Quantised(new Input(lines), hasher.hash());
+    }
+
+    /**
+     * Check that snapping hasn't changed where lines cross each other. Curves that nearly touch can start or stop
+     * crossing, and a crossing can move over a sector boundary, even when each line is in the same sectors.
+     *
+     * @param original The lines before snapping.
+     * @param quantised The same lines after snapping.
+     * @param classifier The sector classifier.
+     * @return True if each pair of lines crosses the same number of times, in the same sectors, in the same order.
+     */
+    private static boolean sameIntersections(List<Line> original, List<Line> quantised, SectorClassifier classifier) {
+        for (int i = 0; i < original.size(); i++) {
+            for (int j = 0; j < original.size(); j++) {
+                if (i == j) {
+                    continue;
+                }
+                List<Point> before = Lines.findIntersections(original.get(i), original.get(j));
+                List<Point> after = Lines.findIntersections(quantised.get(i), quantised.get(j));
+                if (before.size() != after.size()) {
+                    return false;
+                }
+                for (int k = 0; k < before.size(); k++) {
+                    if (classifier.classifyAllMask(before.get(k)) != classifier.classifyAllMask(after.get(k))) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param value A co-ordinate.
+     * @param step The grid step.
+     * @return The nearest grid line to the co-ordinate.
+     */
+    private static double snap(double value, double step) {
+        // Adding zero makes -0.0 into 0.0, so both hash the same
+        return Math.rint(value / step) * step + 0.0;
+    }
+
+    /**
+     * Add a point to a hash.
+     * @param hasher The hash being built.
+     * @param point The point.
+     */
+    private static void putPoint(Hasher hasher, Point point) {
+        hasher.putDouble(point.getX());
+        hasher.putDouble(point.getY());
+    }
+
+    /**
+     * The sector boundaries a segment crosses, in order, which is what matching the sectors of a line depends on.
+     */
+    private static final class SegmentCrossings {
+        private final SectorBoundaries boundaries;
+        private final double[] ts;
+        private final int[] sectors;
+        private final boolean[] insides;
+
+        private final List<Integer> crossings = new ArrayList<>();
+
+        /**
+         * Create a reusable buffer for the crossings of segments.
+         * @param boundaries The sector boundaries.
+         */
+        private SegmentCrossings(SectorBoundaries boundaries) {
+            this.boundaries = boundaries;
+            this.ts = new double[boundaries.boundaryCount()];
+            this.sectors = new int[ts.length];
+            this.insides = new boolean[ts.length];
+        }
+
+        /**
+         * Find the crossings of a segment.
+         *
+         * Each crossing is encoded as its sector, whether it goes inside, and whether it starts a new group. Crossings
+         * with exactly the same parameter, such as leaving one sector into the next, form a group, which is how the
+         * sector matching applies them, so the order within a group doesn't matter and it is sorted. If snapping moves
+         * the parameters of a group apart by rounding error, the crossings differ and the input isn't quantised.
+         *
+         * @param a The start of the segment.
+         * @param b The end of the segment.
+         * @return The crossings, valid until this is next called.
+         */
+        private List<Integer> of(Point a, Point b) {
+            int count = boundaries.intersections(a.getX(), a.getY(), b.getX(), b.getY(), ts, sectors, insides);
+            crossings.clear();
+            int groupStart = 0;
+            for (int i = 0; i < count; i++) {
+                int crossing = sectors[i] * 4;
+                if (insides[i]) {
+                    crossing += 1;
+                }
+                if (i == 0 || ts[i] != ts[groupStart]) {
+                    Collections.sort(crossings.subList(groupStart, i));
+                    groupStart = i;
+                    crossing += 2;
+                }
+                crossings.add(crossing);
+            }
+            Collections.sort(crossings.subList(groupStart, count));
+            return crossings;
+        }
+    }
+}
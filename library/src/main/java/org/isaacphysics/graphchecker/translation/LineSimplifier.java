@@ -0,0 +1,282 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.translation;
+
+import org.isaacphysics.graphchecker.data.Line;
+import org.isaacphysics.graphchecker.data.Point;
+import org.isaacphysics.graphchecker.features.SlopeFeature;
+import org.isaacphysics.graphchecker.geometry.LineSummary;
+import org.isaacphysics.graphchecker.geometry.SectorBoundaries;
+import org.isaacphysics.graphchecker.geometry.SectorClassifier;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Simplifies lines with Ramer-Douglas-Peucker, so marking cost doesn't grow with how many points the client sends.
+ *
+ * Simplification is restricted so that the sectors a line passes through are exactly the same afterwards: points are
+ * only removed from runs where every original segment stays inside one set of sectors without crossing any sector
+ * boundary, and where the straight chord that replaces them does too. The points used for slope at each end of the line
+ * are kept, as are the points with the highest and lowest x and y, so the bounds of the line don't change. Points of
+ * interest are stored separately from the points of a line, so they are untouched.
+ *
+ * Each line is simplified on its own, so where two lines cross each other can move by up to the tolerance, which can
+ * carry a crossing into a different sector, or make lines that nearly touch start or stop crossing.
+ *
+ * Features that measure shape, such as symmetry, see a line that is within the tolerance of the original, so a line
+ * right on the edge of one of their thresholds can come out differently.
+ */
+public class LineSimplifier {
+
+    private final Settings settings;
+
+    /**
+     * The settings for line simplification.
+     */
+    @SuppressWarnings("magicNumber")
+    public interface Settings extends SectorClassifier.Settings, SlopeFeature.Settings {
+        /**
+         * @return True if lines should be simplified before marking.
+         */
+        default boolean isLineSimplificationEnabled() {
+            return false;
+        }
+
+        /**
+         * @return How far a removed point may be from the simplified line; by default a quarter of the axis slop.
+         */
+        default double getLineSimplificationTolerance() {
+            return getAxisSlop() / 4;
+        }
+    }
+
+    /**
+     * Create a line simplifier.
+     * @param settings The settings, which must be the ones used for marking.
+     */
+    public LineSimplifier(Settings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Simplify a line.
+     *
+     * @param line The line to simplify.
+     * @return A line with the same points of interest and possibly fewer points, or the same line if simplification
+     * is disabled or would not remove anything.
+     */
+    public Line simplify(Line line) {
+        List<Point> points = line.getPoints();
+        int size = points.size();
+        int protectedAtEnds = settings.getNumberOfPointsAtEnds();
+        if (!settings.isLineSimplificationEnabled() || size <= 2 * protectedAtEnds + 2) {
+            return line;
+        }
+
+        boolean[] keep = new boolean[size];
+        for (int i = 0; i < protectedAtEnds; i++) {
+            keep[i] = true;
+            keep[size - 1 - i] = true;
+        }
+        keepExtrema(points, keep);
+
+        SectorClassifier classifier = settings.getSectorClassifier();
+        LineSummary summary = LineSummary.of(line);
+        double[] xs = summary.getXs();
+        double[] ys = summary.getYs();
+        double[] clearances = summary.getAxisClearances();
+        long[] sectors = classifier.classifyAllMasks(line);
+        BoundaryCrossings crossings = new BoundaryCrossings(classifier);
+
+        // Split the line into runs of segments which don't cross any sector boundaries
+        int runStart = 0;
+        for (int i = 0; i < size - 1; i++) {
+            boolean clean = sectors[i] == sectors[i + 1]
+                && !crossings.any(xs[i], ys[i], xs[i + 1], ys[i + 1], clearances[i]);
+            if (!clean) {
+                keep[i] = true;
+                keep[i + 1] = true;
+                simplifyRun(points, keep, runStart, i, crossings);
+                runStart = i + 1;
+            }
+        }
+        simplifyRun(points, keep, runStart, size - 1, crossings);
+
+        List<Point> simplified = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (keep[i]) {
+                simplified.add(points.get(i));
+            }
+        }
+        if (simplified.size() == size) {
+            return line;
+        }
+        return new Line(simplified, line.getPointsOfInterest());
+    }
+
+    /**
+     * Mark the first points with the lowest and highest x and y to be kept.
+     *
+     * @param points The points.
+     * @param keep Which points to keep, updated in place.
+     */
+    private static void keepExtrema(List<Point> points, boolean[] keep) {
+        int minX = 0;
+        int maxX = 0;
+        int minY = 0;
+        int maxY = 0;
+        for (int i = 1; i < points.size(); i++) {
+            Point p = points.get(i);
+            minX = p.getX() < points.get(minX).getX() ? i : minX;
+            maxX = p.getX() > points.get(maxX).getX() ? i : maxX;
+            minY = p.getY() < points.get(minY).getY() ? i : minY;
+            maxY = p.getY() > points.get(maxY).getY() ? i : maxY;
+        }
+        keep[minX] = true;
+        keep[maxX] = true;
+        keep[minY] = true;
+        keep[maxY] = true;
+    }
+
+    /**
+     * Simplify a run of points whose segments cross no sector boundaries, keeping its ends and any points already kept.
+     *
+     * @param points The points of the whole line.
+     * @param keep Which points to keep, updated in place.
+     * @param from The index of the first point in the run.
+     * @param to The index of the last point in the run.
+     * @param crossings The test for whether a chord crosses a sector boundary.
+     */
+    private void simplifyRun(List<Point> points, boolean[] keep, int from, int to, BoundaryCrossings crossings) {
+        keep[from] = true;
+        keep[to] = true;
+        int anchor = from;
+        for (int i = from + 1; i <= to; i++) {
+            if (keep[i]) {
+                douglasPeucker(points, keep, anchor, i, crossings);
+                anchor = i;
+            }
+        }
+    }
+
+    /**
+     * Ramer-Douglas-Peucker between two kept points, also splitting wherever the chord would cross a sector boundary.
+     *
+     * @param points The points of the whole line.
+     * @param keep Which points to keep, updated in place.
+     * @param from The index of the first point, which is kept.
+     * @param to The index of the last point, which is kept.
+     * @param crossings The test for whether a chord crosses a sector boundary.
+     */
+    private void douglasPeucker(List<Point> points, boolean[] keep, int from, int to, BoundaryCrossings crossings) {
+        double tolerance = settings.getLineSimplificationTolerance();
+        Deque<int[]> pending = new ArrayDeque<>();
+        pending.push(new int[] {from, to});
+        while (!pending.isEmpty()) {
+            int[] span = pending.pop();
+            int start = span[0];
+            int end = span[1];
+            if (end - start < 2) {
+                continue;
+            }
+            Point a = points.get(start);
+            Point b = points.get(end);
+            int farthest = start + 1;
+            double farthestDistance = -1;
+            for (int i = start + 1; i < end; i++) {
+                double distance = distanceToSegment(points.get(i), a, b);
+                if (distance > farthestDistance) {
+                    farthest = i;
+                    farthestDistance = distance;
+                }
+            }
+            if (farthestDistance > tolerance || crossings.any(a, b)) {
+                keep[farthest] = true;
+                pending.push(new int[] {start, farthest});
+                pending.push(new int[] {farthest, end});
+            }
+        }
+    }
+
+    /**
+     * Tests whether segments cross the boundary of any sector, with buffers reused for every segment of a line.
+     *
+     * This uses the packed boundaries that the sector matching uses to find where a line enters and leaves sectors, and
+     * like it, skips segments that stay beyond the reach of the boundaries.
+     */
+    private static final class BoundaryCrossings {
+        private final SectorBoundaries boundaries;
+        private final double reach;
+        private final double[] ts;
+        private final int[] sectors;
+        private final boolean[] insides;
+
+        /**
+         * Create a test for the boundaries of a classifier's sectors.
+         * @param classifier The sector classifier.
+         */
+        private BoundaryCrossings(SectorClassifier classifier) {
+            this.boundaries = classifier.getBoundaries();
+            this.reach = classifier.getReach();
+            this.ts = new double[boundaries.boundaryCount()];
+            this.sectors = new int[ts.length];
+            this.insides = new boolean[ts.length];
+        }
+
+        /**
+         * @param a The start of a segment.
+         * @param b The end of the segment.
+         * @return True if it crosses any boundary.
+         */
+        private boolean any(Point a, Point b) {
+            return any(a.getX(), a.getY(), b.getX(), b.getY(),
+                LineSummary.axisClearance(a.getX(), a.getY(), b.getX(), b.getY()));
+        }
+
+        /**
+         * @param ax The x co-ordinate of the start of a segment.
+         * @param ay The y co-ordinate of the start of the segment.
+         * @param bx The x co-ordinate of the end of the segment.
+         * @param by The y co-ordinate of the end of the segment.
+         * @param clearance How close the segment comes to either axis.
+         * @return True if it crosses any boundary.
+         */
+        private boolean any(double ax, double ay, double bx, double by, double clearance) {
+            return clearance <= reach && boundaries.intersections(ax, ay, bx, by, ts, sectors, insides) > 0;
+        }
+    }
+
+    /**
+     * @param p A point.
+     * @param a The start of a segment.
+     * @param b The end of a segment.
+     * @return The distance from p to the closest point on the segment.
+     */
+    private static double distanceToSegment(Point p, Point a, Point b) {
+        double dx = b.getX() - a.getX();
+        double dy = b.getY() - a.getY();
+        double lengthSquared = dx * dx + dy * dy;
+        double t = 0;
+        if (lengthSquared > 0) {
+            t = ((p.getX() - a.getX()) * dx + (p.getY() - a.getY()) * dy) / lengthSquared;
+            t = Math.max(0, Math.min(1, t));
+        }
+        return Math.hypot(p.getX() - (a.getX() + t * dx), p.getY() - (a.getY() + t * dy));
+    }
+}
@@ -19,6 +19,7 @@ import org.isaacphysics.graphchecker.data.Input;
 import org.isaacphysics.graphchecker.settings.SettingsWrapper;
 import org.junit.Test;
 
+import java.util.List;
 import java.util.function.Predicate;
 
 import static org.junit.Assert.*;
@@ -186,4 +187,35 @@ public class FeaturesTest {
             lineOf(x -> 0.0, -10, 10)
         )));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void equivalentSpecificationsShareAnInstance() {
+        ExpectedSectorsFeature other = new ExpectedSectorsFeature(SettingsWrapper.DEFAULT);
+
+        assertSame(expectedSectorsFeature.deserialize("through:  topLeft,+Yaxis , topRight"),
+            other.deserialize("through: topLeft, +Yaxis, topRight"));
+        assertNotSame(expectedSectorsFeature.deserialize("through: topLeft, +Yaxis, topRight"),
+            expectedSectorsFeature.deserialize("through: topRight, +Yaxis, topLeft"));
+    }
+
+    @Test
+    public void canonicalFormsIgnoreSpacingCaseAndOrderWhereItDoesNotMatter() {
+        SlopeFeature slopeFeature = new SlopeFeature(SettingsWrapper.DEFAULT);
+        assertEquals("slope: start=up, end=flat", slopeFeature.deserialize("slope: END = Flat,start=UP").getCanonicalForm());
+
+        UnorderedPointsFeature pointsFeature = new UnorderedPointsFeature(SettingsWrapper.DEFAULT);
+        assertSame(pointsFeature.deserialize("has-points: maxima in topLeft, minima at origin"),
+            pointsFeature.deserialize("has-points: minima in origin,maxima in topLeft"));
+    }
+
+    @Test
+    public void failuresReportEachSpecificationsOwnText() {
+        Features features = new Features();
+        Input input = inputOf(x -> x, -1, 1);
+
+        features.matcher("symmetry: even").getFailingSpecs(input);
+        assertEquals(List.of("line: 1; symmetry:   EVEN"),
+            features.matcher("curves: 1\nline: 1; symmetry:  EVEN").getFailingSpecs(input));
+        assertEquals(List.of("symmetry: EVEN"), features.matcher("symmetry:EVEN ").getFailingSpecs(input));
+    }
+}
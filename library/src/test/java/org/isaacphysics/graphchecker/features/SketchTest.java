@@ -0,0 +1,154 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.features;
+
+import org.isaacphysics.graphchecker.data.Input;
+import org.isaacphysics.graphchecker.data.Line;
+import org.isaacphysics.graphchecker.data.Point;
+import org.isaacphysics.graphchecker.data.PointOfInterest;
+import org.isaacphysics.graphchecker.settings.SettingsWrapper;
+import org.isaacphysics.graphchecker.synthetic.SyntheticAnswerGenerator;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SketchTest {
+
+    private final Features features = new Features();
+
+    /**
+     * Build an input from scratch, the way AnswerToInput orders it.
+     */
+    private Input fromScratch(List<List<Point>> drawn) {
+        List<Line> lines = new ArrayList<>();
+        for (List<Point> points : drawn) {
+            if (points.size() < 2) {
+                continue;
+            }
+            List<Point> copy = new ArrayList<>(points);
+            if (copy.size() > 2 && copy.get(0).getX() > copy.get(copy.size() - 1).getX()) {
+                Collections.reverse(copy);
+            }
+            lines.add(new Line(copy, Collections.emptyList()));
+        }
+        lines.sort(Comparator.comparingDouble(line -> line.getPoints().get(0).getX()));
+        return new Input(lines);
+    }
+
+    private void drawAndCompare(Input answer, String specification, boolean backwards) {
+        Features.Matcher matcher = features.matcher(specification);
+        Sketch sketch = matcher.sketch();
+        List<List<Point>> drawn = new ArrayList<>();
+
+        for (Line line : answer.getLines()) {
+            List<Point> points = new ArrayList<>(line.getPoints());
+            if (backwards) {
+                Collections.reverse(points);
+            }
+            int curve = sketch.addCurve();
+            List<Point> soFar = new ArrayList<>();
+            drawn.add(soFar);
+            for (int i = 0; i < points.size(); i += 7) {
+                List<Point> stroke = points.subList(i, Math.min(i + 7, points.size()));
+                sketch.append(curve, stroke);
+                soFar.addAll(stroke);
+
+                assertEquals(fromScratch(drawn), sketch.getInput());
+                assertEquals(matcher.getFailingSpecs(fromScratch(drawn)), sketch.getFailingSpecs());
+            }
+        }
+        assertTrue(sketch.test());
+    }
+
+    @Test
+    public void sketchAgreesWithMarkingFromScratchAsItIsDrawn() {
+        SyntheticAnswerGenerator generator = new SyntheticAnswerGenerator(21);
+        for (SyntheticAnswerGenerator.Family family : SyntheticAnswerGenerator.Family.values()) {
+            Input answer = generator.generateInput(family, 60, 0.002, 2);
+            Input withoutTurningPoints = fromScratch(List.of(answer.getLines().get(0).getPoints(),
+                answer.getLines().get(1).getPoints()));
+            drawAndCompare(answer, features.generate(withoutTurningPoints), false);
+        }
+    }
+
+    @Test
+    public void pathsAreSharedWithMatchersCompiledByOtherFeatures() {
+        Input answer = new SyntheticAnswerGenerator(23)
+            .generateInput(SyntheticAnswerGenerator.Family.POLYNOMIAL, 60, 0, 1);
+        String specification = features.generate(fromScratch(List.of(answer.getLines().get(0).getPoints())));
+
+        // The matcher's instances are interned by whichever Features compiled the specification first
+        Features.Matcher compiledElsewhere = new Features(SettingsWrapper.DEFAULT).matcher(specification);
+        Sketch sketch = new Features(SettingsWrapper.DEFAULT).matcher(specification).sketch();
+        sketch.append(sketch.addCurve(), answer.getLines().get(0).getPoints());
+        Input drawn = sketch.getInput();
+
+        ExpectedSectorsFeature unrelated = new ExpectedSectorsFeature(SettingsWrapper.DEFAULT);
+        assertTrue(unrelated.isPathKnown(drawn.getLines().get(0)));
+        assertTrue(compiledElsewhere.test(drawn));
+        assertTrue(sketch.test());
+    }
+
+    @Test
+    public void curvesDrawnRightToLeftAreReversed() {
+        Input answer = new SyntheticAnswerGenerator(22)
+            .generateInput(SyntheticAnswerGenerator.Family.MULTIPLE, 60, 0.002, 2);
+        Input withoutTurningPoints = fromScratch(List.of(answer.getLines().get(0).getPoints(),
+            answer.getLines().get(1).getPoints()));
+        drawAndCompare(answer, features.generate(withoutTurningPoints), true);
+    }
+
+    @Test
+    public void pointsOfInterestAreMatched() {
+        Input answer = new SyntheticAnswerGenerator(23)
+            .generateInput(SyntheticAnswerGenerator.Family.TRIGONOMETRIC, 200, 0, 1);
+        Line line = answer.getLines().get(0);
+        Sketch sketch = features.matcher(features.generate(answer)).sketch();
+        int curve = sketch.addCurve();
+        sketch.append(curve, line.getPoints());
+
+        assertFalse(sketch.test());
+
+        for (PointOfInterest pointOfInterest : line.getPointsOfInterest()) {
+            sketch.addPointOfInterest(curve, pointOfInterest);
+        }
+
+        assertTrue(sketch.test());
+    }
+
+    @Test
+    public void curvesWithOnePointAreLeftOut() {
+        Sketch sketch = features.matcher("curves: 1").sketch();
+        int first = sketch.addCurve();
+        sketch.append(first, List.of(new Point(-1, -1), new Point(1, 1)));
+        int second = sketch.addCurve();
+        sketch.append(second, new Point(0, 1));
+
+        assertEquals(1, sketch.getInput().getLines().size());
+        assertTrue(sketch.test());
+
+        sketch.append(second, new Point(1, 0));
+
+        assertFalse(sketch.test());
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.features;
+
+import org.isaacphysics.graphchecker.data.Input;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.isaacphysics.graphchecker.TestHelpers.inputOf;
+import static org.isaacphysics.graphchecker.TestHelpers.lineOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TraceTest {
+
+    private final Features features = new Features();
+
+    @Test
+    public void explainRecordsTheSectorPathAndMatchGrid() {
+        Features.Matcher matcher = features.matcher("through: topLeft, +Yaxis, topRight");
+        Input input = inputOf(x -> x * x + 3, -10, 10);
+
+        Trace trace = matcher.explain(input);
+
+        assertTrue(trace.getFailingSpecs().isEmpty());
+        Trace.Step step = trace.getSteps().get(0);
+        assertTrue(step.isPassed());
+        assertEquals("through", step.getTag());
+
+        Trace.LineCheck check = step.getLines().get(0);
+        assertEquals(0, check.getLine());
+        assertTrue(check.isPassed());
+        @SuppressWarnings("unchecked")
+        List<List<String>> sectors = (List<List<String>>) check.getDetails().get("sectors");
+        assertEquals(Arrays.asList("topLeft", "+Yaxis", "topRight"),
+            distinct(sectors, "topLeft", "+Yaxis", "topRight"));
+
+        @SuppressWarnings("unchecked")
+        List<boolean[]> rows = (List<boolean[]>) check.getDetails().get("matches");
+        // A row for each expected sector, and a column for each set of sectors on the path
+        assertFalse(rows.isEmpty());
+        for (boolean[] row : rows) {
+            assertEquals(sectors.size(), row.length);
+        }
+        boolean[] last = rows.get(rows.size() - 1);
+        assertTrue(last[last.length - 1]);
+    }
+
+    @Test
+    public void explainAgreesWithMarking() {
+        Features.Matcher matcher = features.matcher("through: topLeft, +Yaxis, topRight\r\nslope: start=flat");
+        Input input = inputOf(x -> x * x + 3, -10, 10);
+
+        // Marking first remembers the line features' results, which explaining must not skip
+        List<String> failing = matcher.getFailingSpecs(input);
+        Trace trace = matcher.explain(input);
+
+        assertEquals(failing, trace.getFailingSpecs());
+        assertEquals(1, failing.size());
+        assertFalse(trace.getSteps().get(1).isPassed());
+        Trace.LineCheck slope = trace.getSteps().get(1).getLines().get(0);
+        assertFalse(slope.isPassed());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> start = (Map<String, Object>) slope.getDetails().get("start");
+        assertEquals("down", start.get("slope"));
+    }
+
+    @Test
+    public void explainRecordsAssignmentsOfNamesToLines() {
+        Features.Matcher matcher = features.matcher("match: a; through: topRight\r\nmatch: b; through: bottomLeft");
+        Input input = inputOf(lineOf(-1, -1, -2, -2), lineOf(1, 1, 2, 2));
+
+        Trace trace = matcher.explain(input);
+
+        assertTrue(trace.getFailingSpecs().isEmpty());
+        assertEquals(Arrays.asList(Map.of("a", 1)), trace.getSteps().get(0).getAssignments());
+        assertEquals(Arrays.asList(Map.of("a", 1, "b", 0)), trace.getSteps().get(1).getAssignments());
+    }
+
+    @Test
+    public void nothingIsTracedOutsideExplain() {
+        Features.Matcher matcher = features.matcher("through: topRight");
+        Input input = inputOf(lineOf(-1, -1, -2, -2));
+
+        assertNull(Trace.current());
+        Trace trace = matcher.explain(input);
+        assertNull(Trace.current());
+
+        assertEquals(matcher.getFailingSpecs(input), trace.getFailingSpecs());
+        assertTrue((Boolean) trace.getSteps().get(0).getLines().get(0).getDetails().get("rejectedBySummary"));
+    }
+
+    /**
+     * The order some sectors are visited in along a sector path, ignoring any others that overlap them.
+     */
+    private static List<String> distinct(List<List<String>> path, String... sectors) {
+        List<String> wanted = Arrays.asList(sectors);
+        return path.stream()
+            .flatMap(set -> set.stream().filter(wanted::contains))
+            .distinct()
+            .collect(Collectors.toList());
+    }
+}
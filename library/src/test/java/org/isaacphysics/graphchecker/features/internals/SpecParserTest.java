@@ -0,0 +1,127 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.features.internals;
+
+import org.isaacphysics.graphchecker.features.Features;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class SpecParserTest {
+
+    private List<String> texts(List<SpecToken> tokens) {
+        return tokens.stream().map(SpecToken::getText).collect(Collectors.toList());
+    }
+
+    private SpecSyntaxException syntaxError(Runnable parse) {
+        try {
+            parse.run();
+        } catch (SpecSyntaxException e) {
+            return e;
+        }
+        fail("Expected a syntax error");
+        return null;
+    }
+
+    @Test
+    public void linesAreSplitIntoTagsAndTokens() {
+        List<SpecLine> lines = SpecParser.parse("through:  topLeft, +Yaxis\r\n  slope: start=up");
+
+        assertEquals(2, lines.size());
+        assertEquals("through", lines.get(0).getTag().getText());
+        assertEquals(List.of("topLeft", ",", "+Yaxis"), texts(lines.get(0).getBody().getTokens()));
+        assertEquals("  topLeft, +Yaxis", lines.get(0).getBody().getText());
+        assertNull(lines.get(0).getSelectedFeature());
+
+        assertEquals(2, lines.get(1).getLineNumber());
+        assertEquals(List.of("start", "=", "up"), texts(lines.get(1).getBody().getTokens()));
+        assertEquals(SpecToken.Kind.EQUALS, lines.get(1).getBody().getTokens().get(1).getKind());
+    }
+
+    @Test
+    public void trailingLineBreaksAreIgnored() {
+        assertEquals(1, SpecParser.parse("through: topRight\r\n").size());
+
+        List<SpecLine> lines = SpecParser.parse("through: topRight\r\nslope: start=down, end=flat\r\n\r\n");
+        assertEquals(2, lines.size());
+        assertEquals("slope", lines.get(1).getTag().getText());
+        assertEquals(List.of("start", "=", "down", ",", "end", "=", "flat"),
+            texts(lines.get(1).getBody().getTokens()));
+    }
+
+    @Test
+    public void blankSpecificationsHaveNoFeatures() {
+        assertEquals(0, SpecParser.parse("\n").size());
+        assertEquals(0, SpecParser.parse(" \r\n\t\n").size());
+        assertEquals(0, SpecParser.parse("").size());
+    }
+
+    @Test
+    public void selectorsHaveTheirFeatureParsed() {
+        SpecLine line = SpecParser.parse("match: A; through: topLeft").get(0);
+
+        assertEquals("match", line.getTag().getText());
+        assertEquals("through", line.getSelectedFeature().getTag().getText());
+        assertEquals(List.of("topLeft"), texts(line.getSelectedFeature().getBody().getTokens()));
+        assertEquals("through: topLeft", line.getBody().getTextAfter(line.getBody().getTokens().get(1)));
+    }
+
+    @Test
+    public void unexpectedCharactersArePositioned() {
+        SpecSyntaxException e = syntaxError(() -> SpecParser.parse("curves: 2\n  foo#: bar"));
+
+        assertEquals(2, e.getLine());
+        assertEquals(6, e.getColumn());
+    }
+
+    @Test
+    public void missingColonIsPositioned() {
+        SpecSyntaxException e = syntaxError(() -> SpecParser.parse("through topLeft"));
+
+        assertEquals(1, e.getLine());
+        assertEquals(9, e.getColumn());
+    }
+
+    @Test
+    public void featureErrorsArePositionedAtTheBadToken() {
+        Features features = new Features();
+
+        SpecSyntaxException sector = syntaxError(() -> features.matcher("curves: 2\nthrough: topLeft, topMiddle"));
+        assertEquals(2, sector.getLine());
+        assertEquals(19, sector.getColumn());
+
+        SpecSyntaxException slope = syntaxError(() -> features.matcher("slope: start=up, start=down"));
+        assertEquals(18, slope.getColumn());
+
+        SpecSyntaxException tag = syntaxError(() -> features.matcher("line: 1; wibble: 3"));
+        assertEquals(10, tag.getColumn());
+
+        SpecSyntaxException end = syntaxError(() -> features.matcher("intersects: A to B at"));
+        assertEquals(22, end.getColumn());
+    }
+
+    @Test
+    public void trailingCommasAreIgnored() {
+        SpecBody body = SpecParser.parseBody("topLeft, topRight,");
+
+        assertEquals(2, body.items("a sector").size());
+    }
+}
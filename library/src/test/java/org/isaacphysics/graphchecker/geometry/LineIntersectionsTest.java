@@ -0,0 +1,96 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.geometry;
+
+import org.isaacphysics.graphchecker.data.Line;
+import org.isaacphysics.graphchecker.data.Point;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class LineIntersectionsTest {
+
+    private List<Point> wiggle(Random random, int size) {
+        List<Point> points = new ArrayList<>();
+        double y = random.nextGaussian() * 0.2;
+        for (int i = 0; i < size; i++) {
+            y += random.nextGaussian() * 0.1;
+            points.add(new Point(-1 + 2.0 * i / size, y));
+        }
+        return points;
+    }
+
+    private Line lineOf(List<Point> points) {
+        return new Line(new ArrayList<>(points), Collections.emptyList());
+    }
+
+    @Test
+    public void intersectionsAgreeWithFindIntersectionsAsLinesGrow() {
+        Random random = new Random(8);
+        for (int attempt = 0; attempt < 20; attempt++) {
+            List<Point> a = wiggle(random, 80);
+            List<Point> b = wiggle(random, 60);
+            List<Point> growingA = new ArrayList<>();
+            List<Point> growingB = new ArrayList<>();
+            LineIntersections intersections = new LineIntersections(growingA, growingB);
+
+            int i = 0;
+            int j = 0;
+            while (i < a.size() || j < b.size()) {
+                // Grow the lines unevenly, sometimes just one of them
+                for (int step = random.nextInt(4); step > 0 && i < a.size(); step--) {
+                    growingA.add(a.get(i++));
+                }
+                for (int step = random.nextInt(4); step > 0 && j < b.size(); step--) {
+                    growingB.add(b.get(j++));
+                }
+                if (growingA.size() < 2 || growingB.size() < 2) {
+                    continue;
+                }
+
+                assertEquals(Lines.findIntersections(lineOf(growingA), lineOf(growingB)), intersections.get(true));
+                assertEquals(Lines.findIntersections(lineOf(growingB), lineOf(growingA)), intersections.get(false));
+            }
+        }
+    }
+
+    @Test
+    public void rememberedIntersectionsAreFound() {
+        List<Point> a = List.of(new Point(-1, -1), new Point(0, 0), new Point(1, 1));
+        List<Point> b = List.of(new Point(-1, 1), new Point(0, 0.5), new Point(1, -1));
+        Line lineA = lineOf(a);
+        Line lineB = lineOf(b);
+        LineIntersections intersections = new LineIntersections(a, b);
+
+        intersections.remember(lineA, lineB);
+
+        List<Point> found = Lines.findIntersections(lineA, lineB);
+        assertEquals(Lines.findIntersections(lineOf(a), lineOf(b)), found);
+        assertSame(found, Lines.findIntersections(lineA, lineB));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rememberingOtherLinesThrows() {
+        List<Point> a = List.of(new Point(-1, -1), new Point(1, 1));
+        new LineIntersections(a, a).remember(lineOf(a.subList(0, 1)), lineOf(a));
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.geometry;
+
+import org.isaacphysics.graphchecker.data.Line;
+import org.isaacphysics.graphchecker.data.Point;
+import org.isaacphysics.graphchecker.data.PointOfInterest;
+import org.isaacphysics.graphchecker.data.PointType;
+import org.isaacphysics.graphchecker.data.Rect;
+import org.isaacphysics.graphchecker.settings.SettingsWrapper;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.isaacphysics.graphchecker.TestHelpers.lineOf;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LineSummaryTest {
+
+    private final SectorBuilder sectorBuilder = new SectorBuilder(SettingsWrapper.DEFAULT);
+
+    private static final String[] SECTOR_NAMES = {
+        SectorBuilder.ORIGIN, SectorBuilder.RELAXED_ORIGIN,
+        SectorBuilder.POSITIVE_X_AXIS, SectorBuilder.NEGATIVE_X_AXIS,
+        SectorBuilder.POSITIVE_Y_AXIS, SectorBuilder.NEGATIVE_Y_AXIS,
+        SectorBuilder.TOP_LEFT, SectorBuilder.TOP_RIGHT, SectorBuilder.BOTTOM_LEFT, SectorBuilder.BOTTOM_RIGHT,
+        SectorBuilder.TOP_LEFT_SLOP, SectorBuilder.TOP_RIGHT_SLOP,
+        SectorBuilder.BOTTOM_LEFT_SLOP, SectorBuilder.BOTTOM_RIGHT_SLOP,
+        SectorBuilder.LEFT_HALF, SectorBuilder.RIGHT_HALF, SectorBuilder.TOP_HALF, SectorBuilder.BOTTOM_HALF,
+        SectorBuilder.ANY
+    };
+
+    @Test
+    public void sectorBoundsContainEveryPointInTheSector() {
+        // A grid fine enough to land exactly on the slop boundaries
+        for (String name : SECTOR_NAMES) {
+            Sector sector = sectorBuilder.byName(name);
+            Rect bounds = sector.getBounds();
+            for (int i = -100; i <= 100; i++) {
+                for (int j = -100; j <= 100; j++) {
+                    Point p = new Point(i * 0.01, j * 0.01);
+                    if (sector.contains(p)) {
+                        assertTrue(name + " contains " + p, p.getX() >= bounds.getLeft() - 1e-12
+                            && p.getX() <= bounds.getRight() + 1e-12
+                            && p.getY() >= bounds.getBottom() - 1e-12
+                            && p.getY() <= bounds.getTop() + 1e-12);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void diagonalLineMissesOppositeQuadrants() {
+        LineSummary summary = LineSummary.of(lineOf(-1, 1, 1, -1));
+
+        assertEquals(LineSummary.TOP_LEFT | LineSummary.BOTTOM_RIGHT | LineSummary.TOP_RIGHT
+            | LineSummary.BOTTOM_LEFT, summary.getQuadrantMask());
+
+        LineSummary offset = LineSummary.of(lineOf(-1, 2, 2, -1));
+        assertTrue(offset.mightEnter(sectorBuilder.byName(SectorBuilder.TOP_RIGHT)));
+        assertFalse(offset.mightEnter(sectorBuilder.byName(SectorBuilder.BOTTOM_LEFT)));
+        assertTrue(offset.mightEnter(sectorBuilder.byName(SectorBuilder.POSITIVE_X_AXIS)));
+    }
+
+    @Test
+    public void segmentsCrossingAQuadrantWithoutAVertexInItAreCounted() {
+        LineSummary summary = LineSummary.of(lineOf(-1, 0.5, 0.5, -1));
+
+        assertTrue((summary.getQuadrantMask() & LineSummary.BOTTOM_LEFT) != 0);
+        assertTrue(summary.mightEnter(sectorBuilder.byName(SectorBuilder.BOTTOM_LEFT)));
+    }
+
+    @Test
+    public void boundsRuleOutFarSectors() {
+        LineSummary summary = LineSummary.of(lineOf(0.5, 0.5, 0.9, 0.8));
+
+        assertEquals(LineSummary.TOP_RIGHT, summary.getQuadrantMask());
+        assertFalse(summary.mightEnter(sectorBuilder.byName(SectorBuilder.ORIGIN)));
+        assertFalse(summary.mightEnter(sectorBuilder.byName(SectorBuilder.POSITIVE_Y_AXIS)));
+        assertTrue(summary.mightEnter(sectorBuilder.byName(SectorBuilder.ANY)));
+    }
+
+    @Test
+    public void pointsOfInterestAreCountedByType() {
+        Line line = new Line(Arrays.asList(new Point(0, 0), new Point(1, 1)), Arrays.asList(
+            new PointOfInterest(0, 0, PointType.MAXIMA),
+            new PointOfInterest(1, 1, PointType.MAXIMA),
+            new PointOfInterest(0.5, 0.5, PointType.MINIMA)));
+        LineSummary summary = LineSummary.of(line);
+
+        assertEquals(2, summary.countOf(PointType.MAXIMA));
+        assertEquals(1, summary.countOf(PointType.MINIMA));
+        assertEquals(0, summary.countOf(PointType.VIRTUAL_CENTRE));
+    }
+
+    @Test
+    public void axisClearancesAreTheClosestEachSegmentComesToAnAxis() {
+        LineSummary summary = LineSummary.of(lineOf(0.5,0.5, 0.9,0.8, -0.2,0.3, -0.4,0.6));
+
+        assertArrayEquals(new double[] {0.5, 0, 0.2}, summary.getAxisClearances(), 1e-12);
+        assertEquals(0, LineSummary.axisClearance(0, 1, 1, 1), 0);
+        assertEquals(0.3, LineSummary.axisClearance(-0.5, -0.3, -0.4, -0.9), 0);
+    }
+
+    @Test
+    public void summariesAreCachedPerLine() {
+        Line line = new Line(Collections.singletonList(new Point(0, 0)), Collections.emptyList());
+        assertSame(LineSummary.of(line), LineSummary.of(line));
+    }
+
+    @Test
+    public void resultsAreRememberedByTheIdentityOfEachTest() {
+        Line line = new Line(Collections.singletonList(new Point(0, 0)), Collections.emptyList());
+        LineSummary.Results results = LineSummary.of(line).getResults();
+        assertSame(results, LineSummary.of(line).getResults());
+
+        List<Object> tests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tests.add(new Object());
+            results.put(tests.get(i), i % 3 == 0);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i % 3 == 0, results.get(tests.get(i)));
+        }
+        assertNull(results.get(new Object()));
+    }
+
+    @Test
+    public void endSizesMatchTheSizesOfTheEndsOfTheLine() {
+        Line line = lineOf(-3,2, -2,0, -1,1, 0,-1, 1,4, 2,3, 3,-2);
+
+        for (int pointsAtEnds = 1; pointsAtEnds <= 8; pointsAtEnds++) {
+            LineSummary.EndSizes sizes = LineSummary.of(line).getEndSizes(pointsAtEnds);
+            int desired = Math.min(pointsAtEnds, line.getPoints().size());
+            int size = line.getPoints().size();
+            Point start = Lines.getSize(new Line(line.getPoints().subList(0, desired), Collections.emptyList()));
+            Point end = Lines.getSize(new Line(line.getPoints().subList(size - desired, size), Collections.emptyList()));
+
+            assertEquals(start, new Point(sizes.getStartX(), sizes.getStartY()));
+            assertEquals(end, new Point(sizes.getEndX(), sizes.getEndY()));
+        }
+    }
+
+    @Test
+    public void pointOfInterestTableAgreesWithClassifyAll() {
+        SectorClassifier classifier = SettingsWrapper.DEFAULT.getSectorClassifier();
+        List<Sector> sectors = SettingsWrapper.DEFAULT.getOrderedSectors();
+        Random random = new Random(3);
+        List<PointOfInterest> points = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            PointType type = random.nextBoolean() ? PointType.MAXIMA : PointType.MINIMA;
+            points.add(new PointOfInterest(random.nextGaussian() * 0.1, random.nextGaussian() * 0.1, type));
+        }
+        Line line = new Line(Collections.singletonList(new Point(0, 0)), points);
+
+        PointOfInterestTable table = LineSummary.of(line).getPointsOfInterest(classifier);
+
+        assertEquals(points.size(), table.size());
+        for (Sector sector : sectors) {
+            long sectorMask = classifier.maskOf(sector);
+            for (PointType type : Arrays.asList(PointType.MAXIMA, PointType.MINIMA)) {
+                boolean anyIn = false;
+                for (int i = 0; i < points.size(); i++) {
+                    boolean expected = classifier.classifyAll(points.get(i)).contains(sector);
+                    assertEquals(expected, table.isIn(i, sectorMask));
+                    anyIn |= expected && points.get(i).getPointType() == type;
+                }
+                assertEquals(anyIn, table.anyIn(type, sectorMask));
+            }
+        }
+        assertFalse(table.isIn(0, classifier.maskOf(sectorBuilder.byName(SectorBuilder.ANY))));
+    }
+}
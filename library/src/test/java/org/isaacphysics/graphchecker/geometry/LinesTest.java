@@ -17,11 +17,16 @@ package org.isaacphysics.graphchecker.geometry;
 
 import org.isaacphysics.graphchecker.TestHelpers;
 import org.isaacphysics.graphchecker.data.Point;
+import org.isaacphysics.graphchecker.data.PointOfInterest;
+import org.isaacphysics.graphchecker.data.PointType;
 import org.junit.Test;
 import org.isaacphysics.graphchecker.data.Line;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
@@ -105,4 +110,57 @@ public class LinesTest {
 
         assertEquals(6, intersections.size());
     }
-}
\ No newline at end of file
+
+    private void assertSplitSizesMatchClipping(Line line, List<PointOfInterest> splitPoints) {
+        List<Point> expected = Lines.splitOnPoints(line, splitPoints).stream()
+            .map(Lines::getSize)
+            .collect(Collectors.toList());
+
+        List<Point> actual = Lines.getSplitSizes(line, splitPoints);
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getX(), actual.get(i).getX(), 1e-9);
+            assertEquals(expected.get(i).getY(), actual.get(i).getY(), 1e-9);
+        }
+    }
+
+    @Test
+    public void splitSizesOnPointsOfInterest() {
+        Line line = TestHelpers.lineOf(-10,0, -5,5, 0,0, 5,-5, 10,0);
+
+        assertEquals(List.of(new Point(5, 5), new Point(10, -10), new Point(5, 5)),
+            Lines.getSplitSizes(line, line.getPointsOfInterest()));
+    }
+
+    @Test
+    public void splitSizesOfOnePointLineAreEmpty() {
+        Line line = TestHelpers.lineOf(1, 1);
+        List<PointOfInterest> splitPoints = List.of(new PointOfInterest(0, 0, PointType.VIRTUAL_CENTRE));
+
+        assertEquals(List.of(new Point(0, 0), new Point(0, 0)), Lines.getSplitSizes(line, splitPoints));
+    }
+
+    @Test
+    public void splitSizesMatchClippingOnRandomLines() {
+        Random random = new Random(1);
+        for (int attempt = 0; attempt < 500; attempt++) {
+            List<Point> points = new ArrayList<>();
+            int pointCount = 2 + random.nextInt(20);
+            for (int i = 0; i < pointCount; i++) {
+                points.add(new Point(random.nextGaussian() * 2, random.nextGaussian()));
+            }
+            List<PointOfInterest> splitPoints = new ArrayList<>();
+            int splitCount = random.nextInt(5);
+            for (int i = 0; i < splitCount; i++) {
+                splitPoints.add(new PointOfInterest(random.nextGaussian() * 2, 0, PointType.VIRTUAL_CENTRE));
+            }
+            // Split points are usually in order, but need not be.
+            if (random.nextBoolean()) {
+                splitPoints.sort((a, b) -> Double.compare(a.getX(), b.getX()));
+            }
+
+            assertSplitSizesMatchClipping(TestHelpers.lineOf(points), splitPoints);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.geometry;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class PredicatesTest {
+
+    private static int exactSign(double ax, double ay, double bx, double by, double cx, double cy) {
+        BigDecimal left = new BigDecimal(bx).subtract(new BigDecimal(ax))
+            .multiply(new BigDecimal(cy).subtract(new BigDecimal(ay)));
+        BigDecimal right = new BigDecimal(by).subtract(new BigDecimal(ay))
+            .multiply(new BigDecimal(cx).subtract(new BigDecimal(ax)));
+        return left.subtract(right).signum();
+    }
+
+    @Test
+    public void orientationOfNearlyCollinearPointsIsExact() {
+        Random random = new Random(8);
+        for (int i = 0; i < 100000; i++) {
+            // Points on (or within a few ulps of) a line through a and b, as sketches along a diagonal give
+            double ax = random.nextInt(1000) / 1000.0;
+            double ay = random.nextInt(1000) / 1000.0;
+            double step = random.nextInt(20) / 1000.0;
+            double bx = ax + step;
+            double by = ay + step;
+            double cx = ax + 2 * step;
+            double cy = ay + 2 * step;
+            if (random.nextBoolean()) {
+                cy = Math.nextAfter(cy, random.nextBoolean() ? 1 : -1);
+            }
+
+            double orientation = Predicates.orientation(ax, ay, bx, by, cx, cy);
+
+            assertEquals(exactSign(ax, ay, bx, by, cx, cy), (int) Math.signum(orientation));
+        }
+    }
+
+    @Test
+    public void orientationOfFarFromCollinearPointsIsTheNaiveValue() {
+        Random random = new Random(9);
+        for (int i = 0; i < 10000; i++) {
+            double ax = random.nextGaussian();
+            double ay = random.nextGaussian();
+            double bx = random.nextGaussian();
+            double by = random.nextGaussian();
+            double cx = random.nextGaussian();
+            double cy = random.nextGaussian();
+
+            double naive = (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+            double orientation = Predicates.orientation(ax, ay, bx, by, cx, cy);
+
+            assertEquals(exactSign(ax, ay, bx, by, cx, cy), (int) Math.signum(orientation));
+            if (Math.abs(naive) > 1e-10) {
+                assertEquals(naive, orientation, 0);
+            }
+        }
+    }
+
+    @Test
+    public void crossOfParallelSegmentsIsZero() {
+        assertEquals(0, Predicates.cross(0.25, 0.5, 0.75, 1.0, 1, 1, 2, 2), 0);
+        assertEquals(0, Predicates.cross(0, 0, 1, 1, 0.5, 0.5, 0.75, 0.75), 0);
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.geometry;
+
+import org.isaacphysics.graphchecker.data.IntersectionParams;
+import org.isaacphysics.graphchecker.data.Point;
+import org.isaacphysics.graphchecker.settings.SettingsWrapper;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class SectorBoundariesTest {
+
+    private final List<Sector> sectors = SettingsWrapper.DEFAULT.getOrderedSectors();
+    private final SectorBoundaries boundaries = new SectorBoundaries(sectors);
+
+    private double coordinate(Random random) {
+        // Some points exactly on the axes and at the edges of the slop, as well as points near them
+        switch (random.nextInt(4)) {
+            case 0:
+                return 0;
+            case 1:
+                return (random.nextInt(5) - 2) * SettingsWrapper.DEFAULT.getAxisSlop();
+            default:
+                return random.nextGaussian() * 0.1;
+        }
+    }
+
+    @Test
+    public void containsAgreesWithSectors() {
+        Random random = new Random(5);
+        double[] xs = new double[1000];
+        double[] ys = new double[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = coordinate(random);
+            ys[i] = coordinate(random);
+        }
+
+        long[] masks = boundaries.contains(xs, ys);
+
+        for (int i = 0; i < xs.length; i++) {
+            long expected = 0;
+            for (int sector = 0; sector < sectors.size(); sector++) {
+                if (sectors.get(sector).contains(new Point(xs[i], ys[i]))) {
+                    expected |= 1L << sector;
+                }
+            }
+            assertEquals(expected, masks[i]);
+            assertEquals(expected, boundaries.contains(xs[i], ys[i]));
+        }
+    }
+
+    @Test
+    public void intersectionsAgreeWithSectors() {
+        Random random = new Random(6);
+        double[] ts = new double[boundaries.boundaryCount()];
+        int[] crossed = new int[ts.length];
+        boolean[] insides = new boolean[ts.length];
+
+        for (int attempt = 0; attempt < 1000; attempt++) {
+            Point a = new Point(coordinate(random), coordinate(random));
+            Point b = new Point(coordinate(random), coordinate(random));
+            Segment segment = Segment.closed(a, b);
+
+            // Merge each sector's intersections, taking the earliest sector on ties
+            List<IntersectionParams> params = new ArrayList<>();
+            for (Sector sector : sectors) {
+                params.add(sector.intersectionParams(segment));
+            }
+            List<Double> expectedTs = new ArrayList<>();
+            List<Integer> expectedSectors = new ArrayList<>();
+            List<Boolean> expectedInsides = new ArrayList<>();
+            while (true) {
+                int lowest = -1;
+                for (int sector = 0; sector < params.size(); sector++) {
+                    if (!params.get(sector).isEmpty()
+                        && (lowest == -1 || params.get(sector).get(0).getT() < params.get(lowest).get(0).getT())) {
+                        lowest = sector;
+                    }
+                }
+                if (lowest == -1) {
+                    break;
+                }
+                IntersectionParams.IntersectionParam param = params.get(lowest).remove(0);
+                expectedTs.add(param.getT());
+                expectedSectors.add(lowest);
+                expectedInsides.add(param.isInside());
+            }
+
+            int count = boundaries.intersections(a.getX(), a.getY(), b.getX(), b.getY(), ts, crossed, insides);
+
+            assertEquals(expectedTs.size(), count);
+            for (int i = 0; i < count; i++) {
+                assertEquals(expectedTs.get(i), ts[i], 0);
+                assertEquals((int) expectedSectors.get(i), crossed[i]);
+                assertEquals(expectedInsides.get(i), insides[i]);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooManySectorsThrows() {
+        List<Sector> many = new ArrayList<>();
+        for (int i = 0; i <= Long.SIZE; i++) {
+            many.add(sectors.get(0));
+        }
+        new SectorBoundaries(many);
+    }
+}
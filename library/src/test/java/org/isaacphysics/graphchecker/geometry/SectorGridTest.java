@@ -0,0 +1,187 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.geometry;
+
+import org.isaacphysics.graphchecker.data.Point;
+import org.isaacphysics.graphchecker.settings.SettingsWrapper;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SectorGridTest {
+
+    private static final String[] ALL_SECTORS = {
+        SectorBuilder.ORIGIN, SectorBuilder.RELAXED_ORIGIN,
+        SectorBuilder.POSITIVE_X_AXIS, SectorBuilder.NEGATIVE_X_AXIS,
+        SectorBuilder.POSITIVE_Y_AXIS, SectorBuilder.NEGATIVE_Y_AXIS,
+        SectorBuilder.TOP_LEFT, SectorBuilder.TOP_RIGHT, SectorBuilder.BOTTOM_LEFT, SectorBuilder.BOTTOM_RIGHT,
+        SectorBuilder.TOP_LEFT_SLOP, SectorBuilder.TOP_RIGHT_SLOP,
+        SectorBuilder.BOTTOM_LEFT_SLOP, SectorBuilder.BOTTOM_RIGHT_SLOP,
+        SectorBuilder.LEFT_HALF, SectorBuilder.RIGHT_HALF, SectorBuilder.TOP_HALF, SectorBuilder.BOTTOM_HALF,
+        SectorBuilder.ANY
+    };
+
+    private static final SectorBuilder.Settings OTHER_SLOPS = new SectorBuilder.Settings() {
+        @Override
+        public double getAxisSlop() {
+            return 0.1;
+        }
+
+        @Override
+        public double getOriginSlop() {
+            return 0.3;
+        }
+
+        @Override
+        public double getRelaxedOriginSlop() {
+            return 0.07;
+        }
+    };
+
+    /**
+     * Every grid line, the ulps either side of it, and points between them.
+     */
+    private static double[] coordinates(SectorBuilder.Settings settings) {
+        List<Double> values = new ArrayList<>(Arrays.asList(0.0, -0.0, 1.0, -1.0, 1e300, -1e300));
+        for (double slop : new double[] {settings.getAxisSlop(), settings.getOriginSlop(),
+            settings.getRelaxedOriginSlop()}) {
+            for (double value : new double[] {slop, 2 * slop, slop / 2, slop / 3, 2 * slop / 3, slop * 0.9999}) {
+                for (double signed : new double[] {value, -value}) {
+                    values.add(signed);
+                    values.add(Math.nextUp(signed));
+                    values.add(Math.nextDown(signed));
+                }
+            }
+        }
+        return values.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    /**
+     * The mask of sectors containing a point, testing only the segments of each sector.
+     */
+    private static long expectedMask(List<Sector> sectors, double x, double y) {
+        long mask = 0;
+        for (int i = 0; i < sectors.size(); i++) {
+            if (new Sector(sectors.get(i).toString(), sectors.get(i).getSegments()).contains(x, y)) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    private static void assertGridMatchesSegments(SectorBuilder.Settings settings, List<Sector> sectors) {
+        SectorGrid grid = SectorGrid.of(sectors);
+        assertNotNull(grid);
+
+        double[] coordinates = coordinates(settings);
+        List<double[]> points = new ArrayList<>();
+        for (double x : coordinates) {
+            for (double y : coordinates) {
+                points.add(new double[] {x, y});
+            }
+            // Points on and next to the diagonal edges of the diamonds
+            for (double size : new double[] {settings.getOriginSlop(), settings.getRelaxedOriginSlop()}) {
+                double y = size - Math.abs(x);
+                for (double nearY : new double[] {y, Math.nextUp(y), Math.nextDown(y), -y}) {
+                    points.add(new double[] {x, nearY});
+                }
+            }
+        }
+        Random random = new Random(37);
+        for (int i = 0; i < 10000; i++) {
+            points.add(new double[] {random.nextGaussian() * 0.1, random.nextGaussian() * 0.1});
+        }
+
+        double[] xs = points.stream().mapToDouble(p -> p[0]).toArray();
+        double[] ys = points.stream().mapToDouble(p -> p[1]).toArray();
+        long[] masks = grid.contains(xs, ys);
+        for (int i = 0; i < xs.length; i++) {
+            long expected = expectedMask(sectors, xs[i], ys[i]);
+            assertEquals(xs[i] + ", " + ys[i], expected, grid.contains(xs[i], ys[i]));
+            assertEquals(xs[i] + ", " + ys[i], expected, masks[i]);
+        }
+    }
+
+    @Test
+    public void defaultSectorsMatchSegmentsEverywhere() {
+        assertGridMatchesSegments(SettingsWrapper.DEFAULT, SettingsWrapper.DEFAULT.getOrderedSectors());
+    }
+
+    @Test
+    public void allSectorsMatchSegmentsEverywhere() {
+        for (SectorBuilder.Settings settings : new SectorBuilder.Settings[] {SettingsWrapper.DEFAULT, OTHER_SLOPS}) {
+            SectorBuilder builder = new SectorBuilder(settings);
+            assertGridMatchesSegments(settings,
+                Arrays.stream(ALL_SECTORS).map(builder::byName).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void segmentsBeyondTheReachCrossNoBoundaries() {
+        Random random = new Random(41);
+        for (SectorBuilder.Settings settings : new SectorBuilder.Settings[] {SettingsWrapper.DEFAULT, OTHER_SLOPS}) {
+            SectorBuilder builder = new SectorBuilder(settings);
+            List<Sector> sectors = Arrays.stream(ALL_SECTORS).map(builder::byName).collect(Collectors.toList());
+            double reach = SectorGrid.of(sectors).getReach();
+            SectorBoundaries boundaries = new SectorBoundaries(sectors);
+            double[] ts = new double[boundaries.boundaryCount()];
+            int[] crossed = new int[ts.length];
+            boolean[] insides = new boolean[ts.length];
+
+            for (int i = 0; i < 10000; i++) {
+                // Both ends in the same quadrant, from just beyond the reach outwards
+                double xSign = random.nextBoolean() ? 1 : -1;
+                double ySign = random.nextBoolean() ? 1 : -1;
+                double[] ends = new double[4];
+                for (int j = 0; j < ends.length; j++) {
+                    double beyond = random.nextBoolean() ? 0 : Math.abs(random.nextGaussian() * 0.1);
+                    ends[j] = (j % 2 == 0 ? xSign : ySign) * Math.nextUp(reach + beyond);
+                }
+
+                assertTrue(LineSummary.axisClearance(ends[0], ends[1], ends[2], ends[3]) > reach);
+                assertEquals(0, boundaries.intersections(ends[0], ends[1], ends[2], ends[3], ts, crossed, insides));
+                assertEquals(boundaries.contains(ends[0], ends[1]), boundaries.contains(ends[2], ends[3]));
+            }
+        }
+    }
+
+    @Test
+    public void classifierUsesGridForDefaultSectors() {
+        SectorClassifier classifier = SettingsWrapper.DEFAULT.getSectorClassifier();
+        assertNotNull(classifier.getGrid());
+
+        Point point = new Point(0.01, 0.3);
+        assertEquals(classifier.getBoundaries().contains(point.getX(), point.getY()),
+            classifier.classifyAllMask(point));
+    }
+
+    @Test
+    public void noGridForSectorsTestedBySegments() {
+        Sector custom = new Sector("custom", Collections.singletonList(Segment.closed(new Point(0, 0),
+            new Point(1, 1))));
+        assertNull(SectorGrid.of(Arrays.asList(SettingsWrapper.DEFAULT.getOrderedSectors().get(0), custom)));
+    }
+}
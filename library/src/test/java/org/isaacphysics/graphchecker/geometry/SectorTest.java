@@ -21,7 +21,10 @@ import org.isaacphysics.graphchecker.data.Point;
 import org.isaacphysics.graphchecker.settings.SettingsWrapper;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -266,6 +269,109 @@ public class SectorTest {
         assertTrue(any.contains(x0y0));
     }
 
+    private static final String[] ALL_SECTORS = {
+        SectorBuilder.ORIGIN, SectorBuilder.RELAXED_ORIGIN,
+        SectorBuilder.POSITIVE_X_AXIS, SectorBuilder.NEGATIVE_X_AXIS,
+        SectorBuilder.POSITIVE_Y_AXIS, SectorBuilder.NEGATIVE_Y_AXIS,
+        SectorBuilder.TOP_LEFT, SectorBuilder.TOP_RIGHT, SectorBuilder.BOTTOM_LEFT, SectorBuilder.BOTTOM_RIGHT,
+        SectorBuilder.TOP_LEFT_SLOP, SectorBuilder.TOP_RIGHT_SLOP,
+        SectorBuilder.BOTTOM_LEFT_SLOP, SectorBuilder.BOTTOM_RIGHT_SLOP,
+        SectorBuilder.LEFT_HALF, SectorBuilder.RIGHT_HALF, SectorBuilder.TOP_HALF, SectorBuilder.BOTTOM_HALF,
+        SectorBuilder.ANY
+    };
+
+    private static SectorBuilder.Settings slops(double axisSlop, double originSlop, double relaxedOriginSlop) {
+        return new SectorBuilder.Settings() {
+            @Override
+            public double getAxisSlop() {
+                return axisSlop;
+            }
+
+            @Override
+            public double getOriginSlop() {
+                return originSlop;
+            }
+
+            @Override
+            public double getRelaxedOriginSlop() {
+                return relaxedOriginSlop;
+            }
+        };
+    }
+
+    /**
+     * Co-ordinates on and either side of every edge of the sectors, and the diagonal edges of the diamonds.
+     */
+    private static double[] edgeCoordinates(SectorBuilder.Settings settings) {
+        List<Double> values = new ArrayList<>(Arrays.asList(0.0, -0.0, 1.0, -1.0, 1e-300, -1e-300, 1e300, -1e300));
+        for (double slop : new double[] {settings.getAxisSlop(), settings.getOriginSlop(),
+            settings.getRelaxedOriginSlop()}) {
+            for (double value : new double[] {slop, 2 * slop, slop / 2, slop / 3, 2 * slop / 3}) {
+                for (double signed : new double[] {value, -value}) {
+                    values.add(signed);
+                    values.add(Math.nextUp(signed));
+                    values.add(Math.nextDown(signed));
+                    values.add(Math.nextUp(Math.nextUp(signed)));
+                    values.add(Math.nextDown(Math.nextDown(signed)));
+                }
+            }
+        }
+        return values.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    private static void assertSameAsSegments(SectorBuilder sectorBuilder, double x, double y) {
+        for (String name : ALL_SECTORS) {
+            Sector sector = sectorBuilder.byName(name);
+            Sector generic = new Sector(name, sector.getSegments());
+            assertEquals(name + " at " + x + ", " + y, generic.contains(x, y), sector.contains(x, y));
+        }
+    }
+
+    @Test
+    public void directTestsMatchSegmentsOnAndNearEdges() {
+        SectorBuilder.Settings[] allSettings = {SettingsWrapper.DEFAULT, slops(0.1, 0.3, 0.7), slops(1e-3, 1e-7, 1e5),
+            slops(0, 0, 0)};
+        for (SectorBuilder.Settings settings : allSettings) {
+            SectorBuilder builder = new SectorBuilder(settings);
+            double[] coordinates = edgeCoordinates(settings);
+            for (double x : coordinates) {
+                for (double y : coordinates) {
+                    assertSameAsSegments(builder, x, y);
+                }
+            }
+            // Points on and next to the diagonal edges of the diamonds
+            for (double size : new double[] {settings.getOriginSlop(), settings.getRelaxedOriginSlop()}) {
+                for (double x : coordinates) {
+                    double y = size - Math.abs(x);
+                    for (double nearY : new double[] {y, Math.nextUp(y), Math.nextDown(y), -y, Math.nextUp(-y),
+                        Math.nextDown(-y)}) {
+                        assertSameAsSegments(builder, x, nearY);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void directTestsMatchSegmentsOnRandomPoints() {
+        Random random = new Random(36);
+        for (int i = 0; i < 100000; i++) {
+            double scale = Math.pow(10, random.nextInt(6) - 4);
+            assertSameAsSegments(sectorBuilder, random.nextGaussian() * scale, random.nextGaussian() * scale);
+        }
+    }
+
+    @Test
+    public void builtInSectorsAreTestedDirectly() {
+        for (String name : ALL_SECTORS) {
+            assertEquals(name, !SectorBuilder.ANY.equals(name), sectorBuilder.byName(name).isDirect());
+        }
+        SectorBuilder noSlop = new SectorBuilder(slops(0, 0, 0));
+        assertFalse(noSlop.byName(SectorBuilder.ORIGIN).isDirect());
+        assertFalse(noSlop.byName(SectorBuilder.TOP_RIGHT).isDirect());
+        assertTrue(noSlop.byName(SectorBuilder.TOP_RIGHT_SLOP).isDirect());
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void unknownSectorNameThrowsAnError() {
         sectorBuilder.byName("foo!+~~");
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.metrics;
+
+import org.isaacphysics.graphchecker.data.Input;
+import org.isaacphysics.graphchecker.features.Features;
+import org.isaacphysics.graphchecker.settings.SettingsWrapper;
+import org.isaacphysics.graphchecker.synthetic.SyntheticAnswerGenerator;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RecordingMarkingMetricsTest {
+
+    @Test
+    public void histogramPercentilesAreUpperBounds() {
+        RecordingMarkingMetrics.Histogram histogram = new RecordingMarkingMetrics.Histogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050, histogram.getTotal());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean(), 1e-9);
+        long median = histogram.getPercentile(0.5);
+        assertTrue(median >= 50 && median < 100);
+        assertEquals(100, histogram.getPercentile(1));
+    }
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        RecordingMarkingMetrics.Histogram histogram = new RecordingMarkingMetrics.Histogram();
+        assertEquals(0, histogram.getPercentile(0.99));
+        assertEquals(0, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void markingRecordsEachFeature() {
+        RecordingMarkingMetrics metrics = new RecordingMarkingMetrics();
+        Features features = new Features(new SettingsWrapper() {
+            @Override
+            public MarkingMetrics getMarkingMetrics() {
+                return metrics;
+            }
+        });
+
+        Input input = new SyntheticAnswerGenerator(5)
+            .generateInput(SyntheticAnswerGenerator.Family.POLYNOMIAL, 100, 0, 1);
+
+        features.matcher("through: bottomLeft, topRight\nslope: start=flat").test(input);
+        features.matcher("match: a; slope: start=flat").test(input);
+
+        assertEquals(2, metrics.getLineCounts().getCount());
+        assertTrue(metrics.getFeatures().containsKey("through"));
+        assertTrue(metrics.getFeatures().containsKey("slope"));
+        assertTrue(metrics.getFeatures().containsKey("curves"));
+        assertTrue(metrics.getFeatures().containsKey("match.slope"));
+        RecordingMarkingMetrics.FeatureMeter through = metrics.getFeatures().get("through");
+        assertEquals(1, through.getPasses() + through.getFailures());
+    }
+
+    @Test
+    public void defaultSettingsDoNotMeasure() {
+        assertFalse(SettingsWrapper.DEFAULT.getMarkingMetrics().isEnabled());
+    }
+}
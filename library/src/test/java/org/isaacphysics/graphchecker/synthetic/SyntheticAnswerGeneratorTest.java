@@ -0,0 +1,99 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.synthetic;
+
+import org.isaacphysics.graphchecker.data.Input;
+import org.isaacphysics.graphchecker.data.Line;
+import org.isaacphysics.graphchecker.dos.Curve;
+import org.isaacphysics.graphchecker.dos.GraphAnswer;
+import org.isaacphysics.graphchecker.dos.Point;
+import org.isaacphysics.graphchecker.features.Features;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SyntheticAnswerGeneratorTest {
+
+    private List<List<Double>> coordinates(GraphAnswer answer) {
+        return answer.getCurves().stream()
+            .flatMap(curve -> curve.getPts().stream())
+            .map(p -> List.of(p.getX(), p.getY()))
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    public void sameSeedGivesSameAnswers() {
+        SyntheticAnswerGenerator a = new SyntheticAnswerGenerator(42);
+        SyntheticAnswerGenerator b = new SyntheticAnswerGenerator(42);
+
+        for (SyntheticAnswerGenerator.Family family : SyntheticAnswerGenerator.Family.values()) {
+            assertEquals(coordinates(a.generate(family, 50, 0.01, 2)), coordinates(b.generate(family, 50, 0.01, 2)));
+        }
+    }
+
+    @Test
+    public void differentSeedsGiveDifferentAnswers() {
+        GraphAnswer a = new SyntheticAnswerGenerator(1).generate(SyntheticAnswerGenerator.Family.POLYNOMIAL, 50, 0, 1);
+        GraphAnswer b = new SyntheticAnswerGenerator(2).generate(SyntheticAnswerGenerator.Family.POLYNOMIAL, 50, 0, 1);
+
+        assertFalse(coordinates(a).equals(coordinates(b)));
+    }
+
+    @Test
+    public void densityAndCurveCountAreRespected() {
+        GraphAnswer answer = new SyntheticAnswerGenerator(7)
+            .generate(SyntheticAnswerGenerator.Family.MULTIPLE, 10000, 0.001, 3);
+
+        assertEquals(3, answer.getCurves().size());
+        for (Curve curve : answer.getCurves()) {
+            assertEquals(10000, curve.getPts().size());
+            for (Point p : curve.getPts()) {
+                assertTrue(Math.abs(p.getY()) < 1);
+            }
+        }
+    }
+
+    @Test
+    public void trigonometricCurvesHaveTurningPoints() {
+        Input input = new SyntheticAnswerGenerator(3)
+            .generateInput(SyntheticAnswerGenerator.Family.TRIGONOMETRIC, 500, 0, 1);
+
+        Line line = input.getLines().get(0);
+        assertTrue(line.getPointsOfInterest().size() >= 2);
+    }
+
+    @Test
+    public void noiselessAnswersMatchTheirGeneratedSpecification() {
+        Features features = new Features();
+        SyntheticAnswerGenerator generator = new SyntheticAnswerGenerator(11);
+
+        for (SyntheticAnswerGenerator.Family family : SyntheticAnswerGenerator.Family.values()) {
+            Input input = generator.generateInput(family, 200, 0, 1);
+            String specification = features.generate(input);
+            assertTrue(family + " should match " + specification, features.matcher(specification).test(input));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooFewPointsThrows() {
+        new SyntheticAnswerGenerator(0).generate(SyntheticAnswerGenerator.Family.POLYNOMIAL, 1, 0, 1);
+    }
+}
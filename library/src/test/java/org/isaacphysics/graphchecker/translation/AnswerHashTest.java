@@ -0,0 +1,65 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.translation;
+
+import org.isaacphysics.graphchecker.dos.Curve;
+import org.isaacphysics.graphchecker.dos.GraphAnswer;
+import org.isaacphysics.graphchecker.dos.Point;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class AnswerHashTest {
+
+    private final List<Point> points = List.of(new Point(-1, -1), new Point(0, 0.5), new Point(1, 2));
+    private final List<Point> maxima = List.of(new Point(0, 0.5));
+
+    private GraphAnswer answer(int canvasWidth, List<Point> pts, List<Point> maxima, List<Point> minima, int colour) {
+        Curve curve = new Curve(pts, -1, 1, -1, 2, null, null, maxima, minima, false, colour);
+        return new GraphAnswer(canvasWidth, 600, Collections.singletonList(curve), Collections.emptyList());
+    }
+
+    @Test
+    public void fieldsMarkingIgnoresDoNotChangeTheHash() {
+        assertEquals(AnswerHash.of(answer(800, points, maxima, List.of(), 0)),
+            AnswerHash.of(answer(1000, points, maxima, List.of(), 3)));
+    }
+
+    @Test
+    public void curvesDrawnBackwardsHashTheSame() {
+        List<Point> reversed = new ArrayList<>(points);
+        Collections.reverse(reversed);
+
+        assertEquals(AnswerHash.of(answer(800, points, maxima, List.of(), 0)),
+            AnswerHash.of(answer(800, reversed, maxima, List.of(), 0)));
+    }
+
+    @Test
+    public void pointsAndTurningPointsChangeTheHash() {
+        GraphAnswer original = answer(800, points, maxima, List.of(), 0);
+
+        assertNotEquals(AnswerHash.of(original), AnswerHash.of(answer(800, points, List.of(), maxima, 0)));
+        assertNotEquals(AnswerHash.of(original), AnswerHash.of(answer(800, points.subList(0, 2), maxima, List.of(), 0)));
+        assertNotEquals(AnswerHash.of(original),
+            AnswerHash.of(answer(800, List.of(new Point(-1, -1), new Point(0, 0.5), new Point(1, 2.001)), maxima,
+                List.of(), 0)));
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.translation;
+
+import org.isaacphysics.graphchecker.data.Input;
+import org.isaacphysics.graphchecker.data.Line;
+import org.isaacphysics.graphchecker.data.Point;
+import org.isaacphysics.graphchecker.geometry.Lines;
+import org.isaacphysics.graphchecker.settings.SettingsWrapper;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class InputQuantiserTest {
+
+    private final InputQuantiser quantiser = new InputQuantiser(SettingsWrapper.DEFAULT);
+    private final double step = SettingsWrapper.DEFAULT.getQuantisationStep();
+
+    private Input input(double jitter, double... coordinates) {
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < coordinates.length; i += 2) {
+            points.add(new Point(coordinates[i] + jitter, coordinates[i + 1] - jitter));
+        }
+        return new Input(Collections.singletonList(new Line(points, Collections.emptyList())));
+    }
+
+    @Test
+    public void jitteredInputsShareAHash() {
+        // Inside one sector, so no boundary crossings can be split apart by rounding
+        InputQuantiser.Quantised a = quantiser.quantise(input(0, 0.2, 0.3, 0.5, 0.6, 0.7, 0.4));
+        InputQuantiser.Quantised b = quantiser.quantise(input(step / 8, 0.2, 0.3, 0.5, 0.6, 0.7, 0.4));
+
+        assertNotNull(a);
+        assertNotNull(b);
+        assertEquals(a.getHash(), b.getHash());
+    }
+
+    @Test
+    public void differentInputsHaveDifferentHashes() {
+        InputQuantiser.Quantised a = quantiser.quantise(input(0, -0.5, -0.4, 0.3, 0.45, 0.7, -0.2));
+        InputQuantiser.Quantised b = quantiser.quantise(input(0, -0.5, -0.4, 0.3, 0.55, 0.7, -0.2));
+
+        assertNotNull(a);
+        assertNotNull(b);
+        assertNotEquals(a.getHash(), b.getHash());
+    }
+
+    @Test
+    public void pointsSnappedAcrossASectorBoundaryAreNotQuantised() {
+        // Just inside the axis slop, so snapping to the grid moves the point out onto the boundary
+        double nearBoundary = SettingsWrapper.DEFAULT.getAxisSlop() - step / 4;
+
+        assertNull(quantiser.quantise(input(0, 0.5, nearBoundary, 0.7, 0.3)));
+    }
+
+    private Line line(double... coordinates) {
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < coordinates.length; i += 2) {
+            points.add(new Point(coordinates[i], coordinates[i + 1]));
+        }
+        return new Line(points, Collections.emptyList());
+    }
+
+    @Test
+    public void curvesSnappedIntoEachOtherAreNotQuantised() {
+        // The second curve stops just short of the first, and snapping moves its end onto it
+        double y = 40 * step;
+        Line across = line(0.2, y, 0.6, y);
+        Line nearlyTouching = line(0.4, 0.8, 0.4, y + step / 4);
+        Input input = new Input(List.of(across, nearlyTouching));
+
+        assertEquals(0, Lines.findIntersections(across, nearlyTouching).size());
+        assertNull(quantiser.quantise(input));
+    }
+
+    @Test
+    public void curvesCrossingWellInsideASectorAreQuantised() {
+        Input input = new Input(List.of(line(0.2, 0.3, 0.6, 0.31), line(0.4, 0.8, 0.41, 0.1)));
+
+        InputQuantiser.Quantised quantised = quantiser.quantise(input);
+        assertNotNull(quantised);
+        assertEquals(1, Lines.findIntersections(quantised.getInput().getLines().get(0),
+            quantised.getInput().getLines().get(1)).size());
+    }
+
+    @Test
+    public void slopesSnappedAcrossTheThresholdAreNotQuantised() {
+        // The box around the first five points is exactly four times as high as it is wide, at the slope threshold, but
+        // once snapped it is five times as high, so the start would become steep
+        List<Double> coordinates = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            coordinates.add((1000 + i * 0.3) * step);
+            coordinates.add((1000 + i * 1.2) * step);
+        }
+        for (int i = 0; i < 6; i++) {
+            coordinates.add(0.7 + i * 0.04);
+            coordinates.add(0.7);
+        }
+        Line line = line(coordinates.stream().mapToDouble(Double::doubleValue).toArray());
+
+        assertNull(quantiser.quantise(new Input(List.of(line))));
+    }
+
+    @Test
+    public void crossingsSplitApartByRoundingAreNotQuantised() {
+        // The jitter leaves the crossings of the axes' shared boundaries a rounding error apart, which marking would
+        // apply one at a time, but once snapped they are at exactly the same place
+        assertNull(quantiser.quantise(input(step / 8, -0.5, -0.4, 0.3, 0.45, 0.7, -0.2)));
+    }
+
+    @Test
+    public void aZeroStepDisablesQuantisation() {
+        InputQuantiser disabled = new InputQuantiser(new InputQuantiser.Settings() {
+            @Override
+            public double getQuantisationStep() {
+                return 0;
+            }
+        });
+
+        assertNull(disabled.quantise(input(0, -0.5, -0.4, 0.3, 0.45)));
+    }
+}
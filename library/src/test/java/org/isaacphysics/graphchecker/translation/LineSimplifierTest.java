@@ -0,0 +1,85 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.translation;
+
+import org.isaacphysics.graphchecker.data.Input;
+import org.isaacphysics.graphchecker.data.Line;
+import org.isaacphysics.graphchecker.dos.GraphAnswer;
+import org.isaacphysics.graphchecker.features.Features;
+import org.isaacphysics.graphchecker.geometry.LineSummary;
+import org.isaacphysics.graphchecker.settings.SettingsWrapper;
+import org.isaacphysics.graphchecker.synthetic.SyntheticAnswerGenerator;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LineSimplifierTest {
+
+    private static final SettingsWrapper SIMPLIFYING = new SettingsWrapper() {
+        @Override
+        public boolean isLineSimplificationEnabled() {
+            return true;
+        }
+    };
+
+    private List<String> throughSpecs(Input input) {
+        return Arrays.stream(new Features().generate(input).split("\r\n"))
+            .filter(spec -> spec.contains("through:"))
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    public void disabledByDefault() {
+        Line line = new SyntheticAnswerGenerator(1)
+            .generateInput(SyntheticAnswerGenerator.Family.POLYNOMIAL, 1000, 0, 1).getLines().get(0);
+
+        assertSame(line, new LineSimplifier(SettingsWrapper.DEFAULT).simplify(line));
+    }
+
+    @Test
+    public void denseLinesAreSimplifiedWithoutChangingSectors() {
+        SyntheticAnswerGenerator generator = new SyntheticAnswerGenerator(2);
+        AnswerToInput simplifying = new AnswerToInput(SIMPLIFYING);
+        AnswerToInput plain = new AnswerToInput();
+
+        for (SyntheticAnswerGenerator.Family family : SyntheticAnswerGenerator.Family.values()) {
+            GraphAnswer answer = generator.generate(family, 5000, 0.0005, 2);
+            Input original = plain.apply(answer);
+            Input simplified = simplifying.apply(answer);
+
+            assertEquals(throughSpecs(original), throughSpecs(simplified));
+
+            for (int i = 0; i < original.getLines().size(); i++) {
+                Line before = original.getLines().get(i);
+                Line after = simplified.getLines().get(i);
+                assertTrue(family + " kept " + after.getPoints().size(),
+                    after.getPoints().size() < before.getPoints().size() / 4);
+                assertEquals(before.getPointsOfInterest(), after.getPointsOfInterest());
+                assertEquals(before.getPoints().subList(0, 5), after.getPoints().subList(0, 5));
+                assertEquals(LineSummary.of(before).getBounds().getLeft(),
+                    LineSummary.of(after).getBounds().getLeft(), 0);
+                assertEquals(LineSummary.of(before).getBounds().getTop(),
+                    LineSummary.of(after).getBounds().getTop(), 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays recordings against one target at a fixed rate with bounded concurrency.
+ *
+ * When a rate is set, requests are scheduled open-loop and latency is measured from when a request should have been
+ * sent, so a server that falls behind is charged for the queueing it causes rather than hiding it by slowing the
+ * client down.
+ */
+class LoadRunner {
+
+    private static final String ANSWER_PATH = "/isaac-api/api/questions/graph_sketcher_test%%7C%s/answer";
+
+    private final HttpClient client;
+    private final List<Recording> recordings;
+    private final LoadTest.Options options;
+
+    /**
+     * Create a runner.
+     *
+     * @param client The HTTP client to send requests with.
+     * @param recordings The recordings to replay, cycling through them in order.
+     * @param options The rate, concurrency and length of the run.
+     */
+    LoadRunner(HttpClient client, List<Recording> recordings, LoadTest.Options options) {
+        this.client = client;
+        this.recordings = recordings;
+        this.options = options;
+    }
+
+    /**
+     * Run the load test against a target.
+     *
+     * @param target The base URL of the server, e.g. http://localhost:8080.
+     * @return The measurements from the run, excluding warm-up requests.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    RunResult run(String target) throws InterruptedException {
+        int total = options.getWarmupRequests() + options.getRequests();
+        long[] latencies = new long[options.getRequests()];
+        AtomicInteger errors = new AtomicInteger();
+        Map<String, Integer> outcomes = new ConcurrentHashMap<>();
+        Semaphore inFlight = new Semaphore(options.getConcurrency());
+        long interval = options.getRate() > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / options.getRate()) : 0;
+
+        long start = System.nanoTime();
+        long measuredStart = start;
+        for (int i = 0; i < total; i++) {
+            long intended = start + i * interval;
+            if (interval > 0) {
+                waitUntil(intended);
+            }
+            inFlight.acquire();
+            if (i == options.getWarmupRequests()) {
+                measuredStart = interval > 0 ? intended : System.nanoTime();
+            }
+
+            long sent = System.nanoTime();
+            long measureFrom = interval > 0 ? intended : sent;
+            int index = i - options.getWarmupRequests();
+            Recording recording = recordings.get(i % recordings.size());
+
+            send(target, recording).whenComplete((status, failure) -> {
+                long latency = System.nanoTime() - measureFrom;
+                String outcome = failure != null ? failure.getClass().getSimpleName() : String.valueOf(status);
+                boolean failed = failure != null || status / 100 != 2;
+                if (index >= 0) {
+                    latencies[index] = latency;
+                    outcomes.merge(outcome, 1, Integer::sum);
+                    if (failed) {
+                        errors.incrementAndGet();
+                    }
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(options.getConcurrency());
+        long elapsed = System.nanoTime() - measuredStart;
+        inFlight.release(options.getConcurrency());
+
+        return new RunResult(target, latencies, errors.get(), elapsed, outcomes);
+    }
+
+    /**
+     * Send a recording to a target.
+     *
+     * @param target The base URL of the server.
+     * @param recording The recording to send.
+     * @return A future of the response status.
+     */
+    private CompletableFuture<Integer> send(String target, Recording recording) {
+        HttpRequest request = answerRequest(target, recording, options.getTimeoutMillis());
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(HttpResponse::statusCode);
+    }
+
+    /**
+     * Build the request that submits a recording to a target's answer endpoint.
+     *
+     * @param target The base URL of the server.
+     * @param recording The recording to send.
+     * @param timeoutMillis How long to wait for the response in milliseconds.
+     * @return The request.
+     */
+    static HttpRequest answerRequest(String target, Recording recording, int timeoutMillis) {
+        String questionId = URLEncoder.encode(recording.getQuestionId(), StandardCharsets.UTF_8).replace("+", "%20");
+        return HttpRequest.newBuilder(URI.create(target + String.format(ANSWER_PATH, questionId)))
+            .timeout(Duration.ofMillis(timeoutMillis))
+            .header("Content-Type", "application/json")
+            .header("Accept", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(recording.getBody()))
+            .build();
+    }
+
+    /**
+     * Park until a point in time.
+     * @param deadline The System.nanoTime() to wait for.
+     */
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Replays recorded submissions against one or more running marking servers and reports throughput, latency
+ * percentiles and error rates.
+ *
+ * Give several targets to compare builds: each target is sent the same recordings in the same order, and the results
+ * are printed side by side with the change relative to the first target.
+ */
+public final class LoadTest {
+
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99, 1};
+
+    /**
+     * Utility class.
+     */
+    private LoadTest() {
+    }
+
+    /**
+     * The command line options for a load test.
+     */
+    static class Options {
+        private final List<String> targets = new ArrayList<>();
+        private final Set<String> questions = new HashSet<>();
+        private File samples = new File("samples");
+        private double rate;
+        private int concurrency = 8;
+        private int requests = 1000;
+        private int warmupRequests = 100;
+        private int timeoutMillis = 10000;
+
+        /**
+         * Parse command line arguments.
+         *
+         * @param args The arguments.
+         * @return The options.
+         * @throws IllegalArgumentException If the arguments are not understood.
+         */
+        static Options parse(String... args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "--target":
+                        options.targets.add(value.replaceAll("/+$", ""));
+                        break;
+                    case "--samples":
+                        options.samples = new File(value);
+                        break;
+                    case "--questions":
+                        options.questions.addAll(Arrays.asList(value.split(",")));
+                        break;
+                    case "--rate":
+                        options.rate = Double.parseDouble(value);
+                        break;
+                    case "--concurrency":
+                        options.concurrency = Integer.parseInt(value);
+                        break;
+                    case "--requests":
+                        options.requests = Integer.parseInt(value);
+                        break;
+                    case "--warmup":
+                        options.warmupRequests = Integer.parseInt(value);
+                        break;
+                    case "--timeout":
+                        options.timeoutMillis = Integer.parseInt(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+            if (options.targets.isEmpty()) {
+                options.targets.add("http://localhost:8080");
+            }
+            if (options.rate < 0 || options.concurrency < 1 || options.requests < 1 || options.warmupRequests < 0
+                || options.timeoutMillis < 1) {
+                throw new IllegalArgumentException("Rate, concurrency, requests, warm-up and timeout must be positive");
+            }
+            return options;
+        }
+
+        /**
+         * @return The base URLs of the servers to test.
+         */
+        List<String> getTargets() {
+            return targets;
+        }
+
+        /**
+         * @return The questions to replay, or empty for all of them.
+         */
+        Set<String> getQuestions() {
+            return questions;
+        }
+
+        /**
+         * @return The samples directory.
+         */
+        File getSamples() {
+            return samples;
+        }
+
+        /**
+         * @return The request rate per second, or 0 to send as fast as the concurrency allows.
+         */
+        double getRate() {
+            return rate;
+        }
+
+        /**
+         * @return The largest number of requests in flight at once.
+         */
+        int getConcurrency() {
+            return concurrency;
+        }
+
+        /**
+         * @return The number of requests to measure.
+         */
+        int getRequests() {
+            return requests;
+        }
+
+        /**
+         * @return The number of requests to send before measuring, to warm up the server.
+         */
+        int getWarmupRequests() {
+            return warmupRequests;
+        }
+
+        /**
+         * @return How long to wait for each response in milliseconds.
+         */
+        int getTimeoutMillis() {
+            return timeoutMillis;
+        }
+    }
+
+    /**
+     * Run a load test.
+     *
+     * @param args Command line arguments; see the README.
+     * @throws IOException If the recordings can't be loaded.
+     * @throws InterruptedException If interrupted while running.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Options options = Options.parse(args);
+
+        List<Recording> recordings = new Recordings().load(options.getSamples(), options.getQuestions());
+        if (recordings.isEmpty()) {
+            throw new IllegalArgumentException("No recordings found in " + options.getSamples().getAbsolutePath());
+        }
+        System.out.printf("Replaying %d recordings from %s%n", recordings.size(), options.getSamples());
+
+        ExecutorService executor = Executors.newFixedThreadPool(options.getConcurrency());
+        try {
+            // The servers under test speak HTTP/1.1, and an h2c upgrade attempt on a POST is rejected by Jetty
+            HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(executor)
+                .connectTimeout(Duration.ofMillis(options.getTimeoutMillis()))
+                .build();
+            LoadRunner runner = new LoadRunner(client, recordings, options);
+
+            List<RunResult> results = new ArrayList<>();
+            for (String target : options.getTargets()) {
+                System.out.printf("Running against %s%n", target);
+                results.add(runner.run(target));
+            }
+            report(results, System.out);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Print results side by side, with the change from the first result where there is more than one.
+     *
+     * @param results The results, one per target.
+     * @param out Where to print them.
+     */
+    static void report(List<RunResult> results, PrintStream out) {
+        List<String> header = new ArrayList<>();
+        header.add("");
+        results.forEach(result -> header.add(result.getTarget()));
+        for (int i = 1; i < results.size(); i++) {
+            header.add("change " + (i + 1) + " vs 1");
+        }
+        List<List<String>> rows = new ArrayList<>();
+        rows.add(header);
+
+        rows.add(row("requests", results, r -> (double) r.getRequests(), "%.0f", false));
+        rows.add(row("throughput (req/s)", results, RunResult::getThroughput, "%.1f", true));
+        for (double percentile : PERCENTILES) {
+            String name = percentile == 1 ? "max (ms)" : String.format("p%.0f (ms)", percentile * 100);
+            rows.add(row(name, results, r -> r.getLatencyMillis(percentile), "%.2f", true));
+        }
+        rows.add(row("error rate (%)", results, r -> r.getErrorRate() * 100, "%.2f", true));
+
+        Set<String> outcomes = new TreeSet<>();
+        results.forEach(result -> outcomes.addAll(result.getOutcomes().keySet()));
+        for (String outcome : outcomes) {
+            rows.add(row("  " + outcome, results, r -> (double) r.getOutcomes().getOrDefault(outcome, 0), "%.0f",
+                false));
+        }
+
+        int[] widths = new int[header.size()];
+        for (List<String> row : rows) {
+            for (int i = 0; i < row.size(); i++) {
+                widths[i] = Math.max(widths[i], row.get(i).length());
+            }
+        }
+        for (List<String> row : rows) {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < row.size(); i++) {
+                String format = i == 0 ? "%-" + widths[i] + "s" : "  %" + widths[i] + "s";
+                line.append(String.format(format, row.get(i)));
+            }
+            out.println(line.toString().replaceAll("\\s+$", ""));
+        }
+    }
+
+    /**
+     * A function from a result to a number to report.
+     */
+    private interface Measure {
+        /**
+         * @param result The result.
+         * @return The measurement.
+         */
+        double of(RunResult result);
+    }
+
+    /**
+     * Format one row of the report.
+     *
+     * @param name The name of the row.
+     * @param results The results to report.
+     * @param measure What to report from each result.
+     * @param format The format for each value.
+     * @param showChange Whether to add the percentage change from the first result.
+     * @return The cells of the row.
+     */
+    private static List<String> row(String name, List<RunResult> results, Measure measure, String format,
+                                    boolean showChange) {
+        List<String> row = new ArrayList<>();
+        row.add(name);
+        for (RunResult result : results) {
+            row.add(String.format(Locale.ROOT, format, measure.of(result)));
+        }
+        if (results.size() > 1) {
+            double baseline = measure.of(results.get(0));
+            for (RunResult result : results.subList(1, results.size())) {
+                double value = measure.of(result);
+                if (showChange && baseline != 0) {
+                    row.add(String.format(Locale.ROOT, "%+.1f%%", (value - baseline) / baseline * 100));
+                } else {
+                    row.add("");
+                }
+            }
+        }
+        return row;
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.loadtest;
+
+/**
+ * A recorded submission to replay: the question it was submitted to and the request body to send.
+ */
+class Recording {
+    private final String questionId;
+    private final String body;
+
+    /**
+     * Create a recording.
+     * @param questionId The question the answer was submitted to.
+     * @param body The JSON request body, as the sketcher sends it.
+     */
+    Recording(String questionId, String body) {
+        this.questionId = questionId;
+        this.body = body;
+    }
+
+    /**
+     * @return The question the answer was submitted to.
+     */
+    String getQuestionId() {
+        return questionId;
+    }
+
+    /**
+     * @return The JSON request body.
+     */
+    String getBody() {
+        return body;
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.loadtest;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.isaacphysics.graphchecker.dos.GraphAnswer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Loads the submissions the demo server records in the samples directory.
+ *
+ * The layout is samples/question/{correct,incorrect,unknown}/*.json, where each file is a GraphAnswer. Each answer is
+ * re-serialised so fields added by older sketcher versions don't make the server reject it.
+ */
+class Recordings {
+
+    private static final List<String> CLASSES = Arrays.asList("correct", "incorrect", "unknown");
+
+    private final ObjectMapper om = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * Load all of the recordings for some questions, in a stable order.
+     *
+     * @param samples The samples directory.
+     * @param questions The questions to load, or empty to load every question in the directory.
+     * @return The recordings.
+     * @throws IOException If a recording can't be read.
+     */
+    List<Recording> load(File samples, Collection<String> questions) throws IOException {
+        File[] questionDirs = samples.listFiles(File::isDirectory);
+        if (questionDirs == null) {
+            throw new IOException("No samples directory at " + samples.getAbsolutePath());
+        }
+        Arrays.sort(questionDirs, Comparator.comparing(File::getName));
+
+        List<Recording> recordings = new ArrayList<>();
+        for (File questionDir : questionDirs) {
+            if (!questions.isEmpty() && !questions.contains(questionDir.getName())) {
+                continue;
+            }
+            for (String answerClass : CLASSES) {
+                File[] files = new File(questionDir, answerClass).listFiles((dir, name) -> name.endsWith(".json"));
+                if (files == null) {
+                    continue;
+                }
+                Arrays.sort(files, Comparator.comparing(File::getName));
+                for (File file : files) {
+                    recordings.add(new Recording(questionDir.getName(), toRequestBody(file)));
+                }
+            }
+        }
+        return recordings;
+    }
+
+    /**
+     * Wrap a recorded answer up as the body the sketcher would POST.
+     *
+     * @param file The recorded answer.
+     * @return The request body.
+     * @throws IOException If the answer can't be read.
+     */
+    private String toRequestBody(File file) throws IOException {
+        GraphAnswer answer = om.readValue(file, GraphAnswer.class);
+        ObjectNode body = om.createObjectNode();
+        body.put("type", "graphChoice");
+        body.put("value", om.writeValueAsString(answer));
+        return om.writeValueAsString(body);
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.loadtest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The measurements from one load test run against one target.
+ */
+class RunResult {
+    private final String target;
+    private final long[] sortedLatencies;
+    private final int errors;
+    private final long elapsedNanos;
+    private final Map<String, Integer> outcomes;
+
+    /**
+     * Create a run result.
+     *
+     * @param target The target that was tested.
+     * @param latencies The latency of each measured request in nanoseconds.
+     * @param errors How many measured requests failed.
+     * @param elapsedNanos How long the measured part of the run took in nanoseconds.
+     * @param outcomes A count of each response status, or exception type for requests that got no response.
+     */
+    RunResult(String target, long[] latencies, int errors, long elapsedNanos, Map<String, Integer> outcomes) {
+        this.target = target;
+        this.sortedLatencies = latencies.clone();
+        Arrays.sort(this.sortedLatencies);
+        this.errors = errors;
+        this.elapsedNanos = elapsedNanos;
+        this.outcomes = Collections.unmodifiableMap(new TreeMap<>(outcomes));
+    }
+
+    /**
+     * @return The target that was tested.
+     */
+    String getTarget() {
+        return target;
+    }
+
+    /**
+     * @return The number of measured requests.
+     */
+    int getRequests() {
+        return sortedLatencies.length;
+    }
+
+    /**
+     * @return The number of measured requests that failed.
+     */
+    int getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return The fraction of measured requests that failed.
+     */
+    double getErrorRate() {
+        return sortedLatencies.length == 0 ? 0 : (double) errors / sortedLatencies.length;
+    }
+
+    /**
+     * @return Completed requests per second.
+     */
+    double getThroughput() {
+        return elapsedNanos == 0 ? 0 : sortedLatencies.length / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Get a latency percentile by the nearest-rank method.
+     *
+     * @param quantile The quantile, between 0 and 1.
+     * @return The latency in milliseconds, or 0 if no requests were measured.
+     */
+    double getLatencyMillis(double quantile) {
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sortedLatencies.length);
+        int index = Math.min(Math.max(rank - 1, 0), sortedLatencies.length - 1);
+        return sortedLatencies[index] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @return A count of each response status or exception type.
+     */
+    Map<String, Integer> getOutcomes() {
+        return outcomes;
+    }
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long a marking server takes from being started to marking its first answer.
+ *
+ * Each command is run several times through the shell. After each start, one recorded answer is submitted to the
+ * target over and over until it is marked, and the time from starting the command to that mark is recorded; then the
+ * command and anything it started are stopped. Give several commands to compare ways of starting the server, such as
+ * with and without a class data sharing archive.
+ */
+public final class StartupBenchmark {
+
+    private static final long POLL_MILLIS = 50;
+    private static final long STOP_SECONDS = 30;
+
+    /**
+     * Utility class.
+     */
+    private StartupBenchmark() {
+    }
+
+    /**
+     * The command line options for a startup benchmark.
+     */
+    static class Options {
+        private final List<String> commands = new ArrayList<>();
+        private String target = "http://localhost:8080";
+        private File samples = new File("samples");
+        private String question;
+        private int runs = 5;
+        private int timeoutMillis = 300000;
+
+        /**
+         * Parse command line arguments.
+         *
+         * @param args The arguments.
+         * @return The options.
+         * @throws IllegalArgumentException If the arguments are not understood.
+         */
+        static Options parse(String... args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "--command":
+                        options.commands.add(value);
+                        break;
+                    case "--target":
+                        options.target = value.replaceAll("/+$", "");
+                        break;
+                    case "--samples":
+                        options.samples = new File(value);
+                        break;
+                    case "--question":
+                        options.question = value;
+                        break;
+                    case "--runs":
+                        options.runs = Integer.parseInt(value);
+                        break;
+                    case "--timeout":
+                        options.timeoutMillis = Integer.parseInt(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+            if (options.commands.isEmpty()) {
+                throw new IllegalArgumentException("Give at least one --command to start the server with");
+            }
+            if (options.runs < 1 || options.timeoutMillis < 1) {
+                throw new IllegalArgumentException("Runs and timeout must be positive");
+            }
+            return options;
+        }
+
+        /**
+         * @return The shell commands that start the server, one per way of starting it.
+         */
+        List<String> getCommands() {
+            return commands;
+        }
+
+        /**
+         * @return The base URL the server answers on once started.
+         */
+        String getTarget() {
+            return target;
+        }
+
+        /**
+         * @return The samples directory.
+         */
+        File getSamples() {
+            return samples;
+        }
+
+        /**
+         * @return The question to submit an answer to, or null for the first question with a recorded answer.
+         */
+        String getQuestion() {
+            return question;
+        }
+
+        /**
+         * @return How many times to start the server with each command.
+         */
+        int getRuns() {
+            return runs;
+        }
+
+        /**
+         * @return How long to wait for each first mark in milliseconds.
+         */
+        int getTimeoutMillis() {
+            return timeoutMillis;
+        }
+    }
+
+    /**
+     * Run a startup benchmark.
+     *
+     * @param args Command line arguments; see the README.
+     * @throws IOException If the recordings can't be loaded or a command can't be started.
+     * @throws InterruptedException If interrupted while running.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Options options = Options.parse(args);
+
+        List<String> questions = options.getQuestion() == null
+            ? Collections.emptyList() : Collections.singletonList(options.getQuestion());
+        List<Recording> recordings = new Recordings().load(options.getSamples(), questions);
+        if (recordings.isEmpty()) {
+            throw new IllegalArgumentException("No recordings found in " + options.getSamples().getAbsolutePath());
+        }
+        Recording recording = recordings.get(0);
+
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(POLL_MILLIS * 10))
+            .build();
+
+        List<long[]> results = new ArrayList<>();
+        for (String command : options.getCommands()) {
+            long[] nanos = new long[options.getRuns()];
+            for (int run = 0; run < nanos.length; run++) {
+                nanos[run] = timeToFirstMark(client, command, options.getTarget(), recording,
+                    options.getTimeoutMillis());
+                System.out.printf(Locale.ROOT, "%s: run %d marked after %.0fms%n", command, run + 1, nanos[run] / 1e6);
+            }
+            results.add(nanos);
+        }
+        report(options.getCommands(), results, System.out);
+    }
+
+    /**
+     * Start a server and time how long it takes to mark an answer.
+     *
+     * @param client The HTTP client to submit the answer with.
+     * @param command The shell command that starts the server.
+     * @param target The base URL the server answers on.
+     * @param recording The answer to submit.
+     * @param timeoutMillis How long to wait for the mark.
+     * @return The time from starting the command to receiving the mark, in nanoseconds.
+     * @throws IOException If the command can't be started, a server is already answering, or no mark came in time.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    static long timeToFirstMark(HttpClient client, String command, String target, Recording recording,
+                                int timeoutMillis) throws IOException, InterruptedException {
+        if (isMarked(client, target, recording)) {
+            throw new IOException("A server is already answering at " + target + "; stop it before benchmarking");
+        }
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder("sh", "-c", command)
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        try {
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (System.nanoTime() < deadline) {
+                if (isMarked(client, target, recording)) {
+                    return System.nanoTime() - start;
+                }
+                if (!process.isAlive()) {
+                    throw new IOException("'" + command + "' exited with " + process.exitValue()
+                        + " before marking an answer");
+                }
+                Thread.sleep(POLL_MILLIS);
+            }
+            throw new IOException("'" + command + "' didn't mark an answer within " + timeoutMillis + "ms");
+        } finally {
+            stop(process);
+        }
+    }
+
+    /**
+     * Submit an answer once.
+     *
+     * @param client The HTTP client.
+     * @param target The base URL of the server.
+     * @param recording The answer.
+     * @return True if the server marked it.
+     * @throws InterruptedException If interrupted while waiting for the response.
+     */
+    private static boolean isMarked(HttpClient client, String target, Recording recording)
+        throws InterruptedException {
+        try {
+            HttpResponse<Void> response = client.send(
+                LoadRunner.answerRequest(target, recording, (int) (POLL_MILLIS * 100)),
+                HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() == 200;
+        } catch (IOException e) {
+            // Not listening yet
+            return false;
+        }
+    }
+
+    /**
+     * Stop a command and everything it started, such as a JVM forked by Maven, and wait for them to exit.
+     *
+     * @param process The command.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private static void stop(Process process) throws InterruptedException {
+        List<ProcessHandle> handles = new ArrayList<>();
+        process.descendants().forEach(handles::add);
+        handles.add(process.toHandle());
+        handles.forEach(ProcessHandle::destroy);
+        for (ProcessHandle handle : handles) {
+            try {
+                handle.onExit().get(STOP_SECONDS, TimeUnit.SECONDS);
+            } catch (java.util.concurrent.ExecutionException | java.util.concurrent.TimeoutException e) {
+                handle.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * Print the median, fastest and slowest time to first mark of each command, with the change from the first.
+     *
+     * @param commands The commands.
+     * @param results The times to first mark of each command's runs, in nanoseconds.
+     * @param out Where to print them.
+     */
+    static void report(List<String> commands, List<long[]> results, PrintStream out) {
+        double baseline = 0;
+        for (int i = 0; i < commands.size(); i++) {
+            long[] sorted = results.get(i).clone();
+            Arrays.sort(sorted);
+            double median = sorted[(sorted.length - 1) / 2] / 1e6;
+            String change = "";
+            if (i == 0) {
+                baseline = median;
+            } else if (baseline != 0) {
+                change = String.format(Locale.ROOT, "  (%+.1f%%)", (median - baseline) / baseline * 100);
+            }
+            out.printf(Locale.ROOT, "%s%n  first mark: median %.0fms, fastest %.0fms, slowest %.0fms%s%n",
+                commands.get(i), median, sorted[0] / 1e6, sorted[sorted.length - 1] / 1e6, change);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.loadtest;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LoadTestTest {
+
+    @Test
+    public void optionsAreParsed() {
+        LoadTest.Options options = LoadTest.Options.parse("--target", "http://a:8080/", "--target", "http://b:8081",
+            "--rate", "50", "--concurrency", "4", "--questions", "x,y");
+
+        assertEquals(Arrays.asList("http://a:8080", "http://b:8081"), options.getTargets());
+        assertEquals(50, options.getRate(), 0);
+        assertEquals(4, options.getConcurrency());
+        assertTrue(options.getQuestions().contains("y"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownOptionsAreRejected() {
+        LoadTest.Options.parse("--turbo", "yes");
+    }
+
+    @Test
+    public void percentilesUseNearestRank() {
+        long[] latencies = new long[100];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[latencies.length - 1 - i] = (i + 1) * 1000000L;
+        }
+        RunResult result = new RunResult("t", latencies, 5, 2000000000L, Collections.singletonMap("200", 95));
+
+        assertEquals(50, result.getLatencyMillis(0.5), 1e-9);
+        assertEquals(99, result.getLatencyMillis(0.99), 1e-9);
+        assertEquals(100, result.getLatencyMillis(1), 1e-9);
+        assertEquals(50, result.getThroughput(), 1e-9);
+        assertEquals(0.05, result.getErrorRate(), 1e-9);
+    }
+
+    @Test
+    public void reportComparesTargets() {
+        RunResult first = new RunResult("old", new long[] {2000000L}, 0, 1000000000L, Collections.emptyMap());
+        RunResult second = new RunResult("new", new long[] {1000000L}, 0, 1000000000L, Collections.emptyMap());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        LoadTest.report(Arrays.asList(first, second), new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        String report = bytes.toString(StandardCharsets.UTF_8);
+
+        assertTrue(report, report.contains("-50.0%"));
+    }
+
+    @Test
+    public void startupBenchmarkOptionsAreParsed() {
+        StartupBenchmark.Options options = StartupBenchmark.Options.parse("--command", "a", "--command", "b",
+            "--target", "http://localhost:9090/", "--runs", "3");
+
+        assertEquals(Arrays.asList("a", "b"), options.getCommands());
+        assertEquals("http://localhost:9090", options.getTarget());
+        assertEquals(3, options.getRuns());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void startupBenchmarkNeedsACommand() {
+        StartupBenchmark.Options.parse("--runs", "3");
+    }
+
+    @Test
+    public void startupReportComparesMedians() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        StartupBenchmark.report(Arrays.asList("plain", "archived"),
+            Arrays.asList(new long[] {9000000000L, 2000000000L, 3000000000L}, new long[] {1500000000L}),
+            new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        String report = bytes.toString(StandardCharsets.UTF_8);
+
+        assertTrue(report, report.contains("median 3000ms, fastest 2000ms, slowest 9000ms"));
+        assertTrue(report, report.contains("-50.0%"));
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.regrade;
+
+import org.isaacphysics.graphchecker.data.Input;
+import org.isaacphysics.graphchecker.features.internals.SpecLine;
+import org.isaacphysics.graphchecker.features.internals.SpecParser;
+import org.isaacphysics.graphchecker.translation.AnswerToInput;
+import org.isaacphysics.graphchecker.translation.LineSimplifier;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The labelled answers to some questions, with the work that doesn't depend on the settings being swept already done:
+ * each specification is parsed and each answer is converted to Input once.
+ *
+ * The inputs' lines are shared by every settings point, so what is remembered about each line, such as its summary and
+ * where it crosses other lines, is only worked out once too. Only answers filed as correct or incorrect are kept.
+ */
+class Corpus {
+
+    /**
+     * A question's parsed specification and its labelled answers.
+     */
+    static final class Entry {
+        private final String id;
+        private final List<SpecLine> specification;
+        private final List<Input> correct = new ArrayList<>();
+        private final List<Input> incorrect = new ArrayList<>();
+
+        /**
+         * Create an entry with no answers yet.
+         * @param id The question.
+         * @param specification The parsed specification.
+         */
+        private Entry(String id, List<SpecLine> specification) {
+            this.id = id;
+            this.specification = specification;
+        }
+
+        /**
+         * @return The question.
+         */
+        String getId() {
+            return id;
+        }
+
+        /**
+         * @return The parsed specification.
+         */
+        List<SpecLine> getSpecification() {
+            return specification;
+        }
+
+        /**
+         * @return The answers filed as correct.
+         */
+        List<Input> getCorrect() {
+            return correct;
+        }
+
+        /**
+         * @return The answers filed as incorrect.
+         */
+        List<Input> getIncorrect() {
+            return incorrect;
+        }
+    }
+
+    private final List<Entry> entries;
+
+    /**
+     * Create a corpus.
+     * @param entries The questions and their answers.
+     */
+    private Corpus(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Parse the specifications and convert the answers of some questions.
+     *
+     * Converting answers only depends on the line simplification settings, which aren't swept, so the base settings are
+     * used for every point.
+     *
+     * @param questions The questions.
+     * @param settings The settings to convert answers with.
+     * @param warnings Where to report questions that are skipped because their specification is invalid.
+     * @return The corpus.
+     */
+    static Corpus prepare(List<Question> questions, LineSimplifier.Settings settings, PrintStream warnings) {
+        AnswerToInput answerToInput = new AnswerToInput(settings);
+        List<Entry> entries = new ArrayList<>();
+        for (Question question : questions) {
+            Entry entry;
+            try {
+                entry = new Entry(question.getId(), SpecParser.parse(question.getSpecification()));
+            } catch (RuntimeException e) {
+                warnings.printf("Skipping %s, whose specification is invalid: %s%n", question.getId(), e.getMessage());
+                continue;
+            }
+            for (Sample sample : question.getSamples()) {
+                if ("correct".equals(sample.getLabel())) {
+                    entry.correct.add(answerToInput.apply(sample.getAnswer()));
+                } else if ("incorrect".equals(sample.getLabel())) {
+                    entry.incorrect.add(answerToInput.apply(sample.getAnswer()));
+                }
+            }
+            entries.add(entry);
+        }
+        return new Corpus(Collections.unmodifiableList(entries));
+    }
+
+    /**
+     * @return The questions and their answers.
+     */
+    List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return The number of answers filed as correct.
+     */
+    int correctCount() {
+        return entries.stream().mapToInt(entry -> entry.correct.size()).sum();
+    }
+
+    /**
+     * @return The number of answers filed as incorrect.
+     */
+    int incorrectCount() {
+        return entries.stream().mapToInt(entry -> entry.incorrect.size()).sum();
+    }
+}
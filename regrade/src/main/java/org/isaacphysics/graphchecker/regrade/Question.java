@@ -0,0 +1,60 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.regrade;
+
+import java.util.List;
+
+/**
+ * A question in the samples directory: its specification and the answers recorded against it.
+ */
+class Question {
+    private final String id;
+    private final String specification;
+    private final List<Sample> samples;
+
+    /**
+     * Create a question.
+     * @param id The name of the question's directory.
+     * @param specification The feature specification answers are marked against.
+     * @param samples The recorded answers, in a stable order.
+     */
+    Question(String id, String specification, List<Sample> samples) {
+        this.id = id;
+        this.specification = specification;
+        this.samples = samples;
+    }
+
+    /**
+     * @return The name of the question's directory.
+     */
+    String getId() {
+        return id;
+    }
+
+    /**
+     * @return The feature specification answers are marked against.
+     */
+    String getSpecification() {
+        return specification;
+    }
+
+    /**
+     * @return The recorded answers.
+     */
+    List<Sample> getSamples() {
+        return samples;
+    }
+}
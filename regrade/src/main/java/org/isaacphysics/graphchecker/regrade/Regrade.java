@@ -0,0 +1,243 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.regrade;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.isaacphysics.graphchecker.settings.CustomSettings;
+import org.isaacphysics.graphchecker.settings.SettingsWrapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Regrades the recorded answers in a samples directory against their questions' specifications, without a server, and
+ * reports a confusion matrix and per-feature failure counts as JSON.
+ *
+ * The exit code is for gating builds: 0 if the marks agree with how the answers were filed, 1 if there are more
+ * mismatches than allowed or any answer couldn't be marked, and 2 if the options or samples can't be read.
+ */
+public final class Regrade {
+
+    /**
+     * The exit code when every answer is marked as it was filed.
+     */
+    static final int EXIT_OK = 0;
+
+    /**
+     * The exit code when there are more mismatches than allowed, or some answers couldn't be marked.
+     */
+    static final int EXIT_MISMATCHES = 1;
+
+    /**
+     * The exit code when the options, settings or samples can't be read, or there are no questions to regrade.
+     */
+    static final int EXIT_USAGE = 2;
+
+    /**
+     * The usage message printed for --help.
+     */
+    private static final String USAGE = String.join(System.lineSeparator(),
+        "Usage: Regrade [--samples DIR] [--settings FILE] [--questions ID,...] [--threads N] [--output FILE]",
+        "               [--allowed-mismatches N]",
+        "Regrades the samples and writes a JSON report; see the README for the options and exit codes.");
+
+    /**
+     * Utility class.
+     */
+    private Regrade() {
+    }
+
+    /**
+     * The command line options for regrading.
+     */
+    static class Options {
+        private final Set<String> questions = new HashSet<>();
+        private File samples = new File("samples");
+        private File settings;
+        private File output;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int allowedMismatches;
+
+        /**
+         * Parse command line arguments.
+         *
+         * @param args The arguments.
+         * @return The options.
+         * @throws IllegalArgumentException If the arguments are not understood.
+         */
+        static Options parse(String... args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "--samples":
+                        options.samples = new File(value);
+                        break;
+                    case "--settings":
+                        options.settings = new File(value);
+                        break;
+                    case "--questions":
+                        options.questions.addAll(Arrays.asList(value.split(",")));
+                        break;
+                    case "--threads":
+                        options.threads = Integer.parseInt(value);
+                        break;
+                    case "--output":
+                        options.output = new File(value);
+                        break;
+                    case "--allowed-mismatches":
+                        options.allowedMismatches = Integer.parseInt(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+            if (options.threads < 1 || options.allowedMismatches < 0) {
+                throw new IllegalArgumentException("Threads must be positive and allowed mismatches not negative");
+            }
+            return options;
+        }
+
+        /**
+         * @return The questions to regrade, or empty for all of them.
+         */
+        Set<String> getQuestions() {
+            return questions;
+        }
+
+        /**
+         * @return The samples directory.
+         */
+        File getSamples() {
+            return samples;
+        }
+
+        /**
+         * @return The settings JSON file, in the format Bluefin writes, or null to use the default settings.
+         */
+        File getSettings() {
+            return settings;
+        }
+
+        /**
+         * @return The file to write the JSON report to, or null to write it to standard output.
+         */
+        File getOutput() {
+            return output;
+        }
+
+        /**
+         * @return The number of threads to mark on.
+         */
+        int getThreads() {
+            return threads;
+        }
+
+        /**
+         * @return The number of mismatches to allow before failing.
+         */
+        int getAllowedMismatches() {
+            return allowedMismatches;
+        }
+    }
+
+    /**
+     * Whether the command line asks for help, which is checked before any option values are read.
+     *
+     * @param args Command line arguments.
+     * @return True if any argument is --help or -h.
+     */
+    static boolean wantsHelp(String... args) {
+        return Arrays.stream(args).anyMatch(arg -> "--help".equals(arg) || "-h".equals(arg));
+    }
+
+    /**
+     * Regrade a samples directory and exit with a code saying whether the marks agree with the samples.
+     *
+     * @param args Command line arguments; see the README.
+     * @throws InterruptedException If interrupted while marking.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        System.exit(run(System.out, System.err, args));
+    }
+
+    /**
+     * Regrade a samples directory.
+     *
+     * @param out Where to write the JSON report, unless the options name a file.
+     * @param err Where to write the summary and any problems.
+     * @param args Command line arguments.
+     * @return The exit code.
+     * @throws InterruptedException If interrupted while marking.
+     */
+    static int run(PrintStream out, PrintStream err, String... args) throws InterruptedException {
+        if (wantsHelp(args)) {
+            out.println(USAGE);
+            return EXIT_OK;
+        }
+        Options options;
+        SettingsWrapper settings = SettingsWrapper.DEFAULT;
+        List<Question> questions;
+        try {
+            options = Options.parse(args);
+            if (options.getSettings() != null) {
+                settings = CustomSettings.OBJECT_MAPPER.readValue(options.getSettings(), CustomSettings.class);
+            }
+            questions = new Samples().load(options.getSamples(), options.getQuestions(), err);
+        } catch (IllegalArgumentException | IOException e) {
+            err.println(e.getMessage());
+            return EXIT_USAGE;
+        }
+
+        Report report;
+        ExecutorService executor = Executors.newFixedThreadPool(options.getThreads());
+        try {
+            report = new Regrader(settings, executor).regrade(questions);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ObjectMapper om = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        try {
+            if (options.getOutput() != null) {
+                om.writeValue(options.getOutput(), report.toJson(om));
+            } else {
+                out.println(om.writeValueAsString(report.toJson(om)));
+            }
+        } catch (IOException e) {
+            err.println(e.getMessage());
+            return EXIT_USAGE;
+        }
+        report.summarise(err);
+
+        if (report.getErrors() > 0 || report.getMismatches() > options.getAllowedMismatches()) {
+            return EXIT_MISMATCHES;
+        }
+        return EXIT_OK;
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.regrade;
+
+import org.isaacphysics.graphchecker.features.Features;
+import org.isaacphysics.graphchecker.settings.SettingsWrapper;
+import org.isaacphysics.graphchecker.translation.AnswerToInput;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Marks every recorded answer to some questions in parallel, and collects the results into a report.
+ *
+ * Each question's specification is parsed once, and its matcher is shared by the threads marking its answers. Results
+ * are collected in the order the answers were loaded, so the report is the same however many threads there are.
+ */
+class Regrader {
+
+    private final Features features;
+    private final AnswerToInput answerToInput;
+    private final ExecutorService executor;
+
+    /**
+     * Create a regrader.
+     * @param settings The settings to mark with.
+     * @param executor The threads to mark on.
+     */
+    Regrader(SettingsWrapper settings, ExecutorService executor) {
+        this.features = new Features(settings);
+        this.answerToInput = new AnswerToInput(settings);
+        this.executor = executor;
+    }
+
+    /**
+     * Mark every answer to some questions.
+     *
+     * @param questions The questions.
+     * @return The report.
+     * @throws InterruptedException If interrupted while waiting for marks.
+     */
+    Report regrade(List<Question> questions) throws InterruptedException {
+        List<List<Future<List<String>>>> marks = new ArrayList<>();
+        List<String> questionErrors = new ArrayList<>();
+        for (Question question : questions) {
+            List<Future<List<String>>> questionMarks = new ArrayList<>();
+            Features.Matcher matcher;
+            try {
+                matcher = features.matcher(question.getSpecification());
+                questionErrors.add(null);
+            } catch (RuntimeException e) {
+                questionErrors.add(String.valueOf(e.getMessage()));
+                marks.add(questionMarks);
+                continue;
+            }
+            for (Sample sample : question.getSamples()) {
+                questionMarks.add(executor.submit(
+                    () -> matcher.getFailingSpecs(answerToInput.apply(sample.getAnswer()))));
+            }
+            marks.add(questionMarks);
+        }
+
+        Report report = new Report();
+        for (int i = 0; i < questions.size(); i++) {
+            Question question = questions.get(i);
+            report.addQuestion(question);
+            if (questionErrors.get(i) != null) {
+                report.addQuestionError(question, questionErrors.get(i));
+                continue;
+            }
+            List<Future<List<String>>> questionMarks = marks.get(i);
+            for (int j = 0; j < questionMarks.size(); j++) {
+                Sample sample = question.getSamples().get(j);
+                try {
+                    report.addResult(question, sample, questionMarks.get(j).get());
+                } catch (ExecutionException e) {
+                    report.addError(question, sample, String.valueOf(e.getCause()));
+                }
+            }
+        }
+        return report;
+    }
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.regrade;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The results of regrading: a confusion matrix of the class each answer was filed under against whether it passed, and
+ * counts of the features that answers failed, for each question and in total.
+ *
+ * A mismatch is an answer filed as correct which fails, or one filed as incorrect which passes. Answers filed as
+ * unknown are counted, but never mismatch.
+ */
+class Report {
+
+    private static final String PASSED = "passed";
+    private static final String FAILED = "failed";
+    private static final String ERRORS = "errors";
+
+    /**
+     * The counts for one question, or for every question.
+     */
+    private static final class Counts {
+        private final Map<String, Map<String, Integer>> confusion = new LinkedHashMap<>();
+        private final Map<String, Map<String, Integer>> failures = new TreeMap<>();
+
+        /**
+         * Create empty counts, with a row of the confusion matrix for each label.
+         */
+        Counts() {
+            for (String label : Samples.LABELS) {
+                Map<String, Integer> row = new LinkedHashMap<>();
+                row.put(PASSED, 0);
+                row.put(FAILED, 0);
+                row.put(ERRORS, 0);
+                confusion.put(label, row);
+            }
+        }
+
+        /**
+         * Count an answer.
+         * @param label The class the answer was filed under.
+         * @param outcome Whether it passed, failed or could not be marked.
+         */
+        void count(String label, String outcome) {
+            confusion.get(label).merge(outcome, 1, Integer::sum);
+        }
+
+        /**
+         * Count a failure of a feature.
+         * @param label The class of the answer that failed it.
+         * @param feature The feature.
+         */
+        void countFailure(String label, String feature) {
+            failures.computeIfAbsent(feature, key -> new LinkedHashMap<>()).merge(label, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * The results for one question.
+     */
+    private static final class QuestionReport {
+        private final String specification;
+        private final Counts counts = new Counts();
+        private final List<String> mismatches = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+
+        /**
+         * Create an empty report for a question.
+         * @param specification The question's specification.
+         */
+        QuestionReport(String specification) {
+            this.specification = specification;
+        }
+    }
+
+    private final Counts total = new Counts();
+    private final Map<String, QuestionReport> questions = new LinkedHashMap<>();
+    private int answers;
+    private int mismatches;
+    private int errors;
+
+    /**
+     * Get the feature a line of specification tests, which is the tag of its last item, without any line selector.
+     *
+     * @param spec A line of specification, such as "line: 1; through: topRight".
+     * @return The feature, such as "through".
+     */
+    static String featureOf(String spec) {
+        String item = spec.substring(spec.lastIndexOf(';') + 1);
+        int colon = item.indexOf(':');
+        if (colon >= 0) {
+            item = item.substring(0, colon);
+        }
+        return item.trim();
+    }
+
+    /**
+     * Start reporting on a question.
+     * @param question The question.
+     */
+    void addQuestion(Question question) {
+        questions.put(question.getId(), new QuestionReport(question.getSpecification()));
+    }
+
+    /**
+     * Record that a question couldn't be marked at all, for example because its specification is invalid.
+     * @param question The question.
+     * @param error Why it couldn't be marked.
+     */
+    void addQuestionError(Question question, String error) {
+        questions.get(question.getId()).errors.add(error);
+        errors++;
+    }
+
+    /**
+     * Record the mark of an answer.
+     * @param question The question the answer was recorded against.
+     * @param sample The answer.
+     * @param failingSpecs The lines of specification the answer fails, which is empty if it passes.
+     */
+    void addResult(Question question, Sample sample, List<String> failingSpecs) {
+        QuestionReport report = questions.get(question.getId());
+        String label = sample.getLabel();
+        boolean passed = failingSpecs.isEmpty();
+        String outcome = passed ? PASSED : FAILED;
+        report.counts.count(label, outcome);
+        total.count(label, outcome);
+        for (String spec : failingSpecs) {
+            report.counts.countFailure(label, spec);
+            total.countFailure(label, featureOf(spec));
+        }
+        if (passed && "incorrect".equals(label) || !passed && "correct".equals(label)) {
+            report.mismatches.add(sample.getName());
+            mismatches++;
+        }
+        answers++;
+    }
+
+    /**
+     * Record that an answer couldn't be marked.
+     * @param question The question the answer was recorded against.
+     * @param sample The answer.
+     * @param error Why it couldn't be marked.
+     */
+    void addError(Question question, Sample sample, String error) {
+        QuestionReport report = questions.get(question.getId());
+        report.counts.count(sample.getLabel(), ERRORS);
+        total.count(sample.getLabel(), ERRORS);
+        report.errors.add(sample.getName() + ": " + error);
+        answers++;
+        errors++;
+    }
+
+    /**
+     * @return The number of answers filed as correct which failed, or filed as incorrect which passed.
+     */
+    int getMismatches() {
+        return mismatches;
+    }
+
+    /**
+     * @return The number of answers and questions which couldn't be marked.
+     */
+    int getErrors() {
+        return errors;
+    }
+
+    /**
+     * Write the report as JSON.
+     *
+     * @param om The object mapper to create the JSON with.
+     * @return The report.
+     */
+    ObjectNode toJson(ObjectMapper om) {
+        ObjectNode json = om.createObjectNode();
+        ObjectNode summary = json.putObject("summary");
+        summary.put("questions", questions.size());
+        summary.put("answers", answers);
+        summary.put("mismatches", mismatches);
+        summary.put(ERRORS, errors);
+        json.set("confusion", om.valueToTree(total.confusion));
+        json.set("featureFailures", om.valueToTree(total.failures));
+
+        ObjectNode questionsJson = json.putObject("questions");
+        questions.forEach((id, report) -> {
+            ObjectNode questionJson = questionsJson.putObject(id);
+            questionJson.put("specification", report.specification);
+            questionJson.set("confusion", om.valueToTree(report.counts.confusion));
+            questionJson.set("failingSpecs", om.valueToTree(report.counts.failures));
+            ArrayNode mismatchesJson = questionJson.putArray("mismatches");
+            report.mismatches.forEach(mismatchesJson::add);
+            ArrayNode errorsJson = questionJson.putArray(ERRORS);
+            report.errors.forEach(errorsJson::add);
+        });
+        return json;
+    }
+
+    /**
+     * Print a short summary for people, listing the mismatched answers and errors.
+     * @param out Where to print it.
+     */
+    void summarise(PrintStream out) {
+        questions.forEach((id, report) -> {
+            report.mismatches.forEach(name -> out.printf("MISMATCH %s/%s%n", id, name));
+            report.errors.forEach(error -> out.printf("ERROR %s: %s%n", id, error));
+        });
+        total.confusion.forEach((label, row) -> out.printf("%-9s passed %d, failed %d, errors %d%n", label,
+            row.get(PASSED), row.get(FAILED), row.get(ERRORS)));
+        out.printf("%d answers to %d questions: %d mismatches, %d errors%n", answers, questions.size(), mismatches,
+            errors);
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.regrade;
+
+import org.isaacphysics.graphchecker.dos.GraphAnswer;
+
+/**
+ * A recorded answer to regrade: the class it was filed under and the answer itself.
+ */
+class Sample {
+    private final String label;
+    private final String name;
+    private final GraphAnswer answer;
+
+    /**
+     * Create a sample.
+     * @param label The class the answer was filed under: correct, incorrect or unknown.
+     * @param name The file the answer was read from.
+     * @param answer The answer.
+     */
+    Sample(String label, String name, GraphAnswer answer) {
+        this.label = label;
+        this.name = name;
+        this.answer = answer;
+    }
+
+    /**
+     * @return The class the answer was filed under: correct, incorrect or unknown.
+     */
+    String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return The file the answer was read from, relative to its question.
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return The answer.
+     */
+    GraphAnswer getAnswer() {
+        return answer;
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.regrade;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.isaacphysics.graphchecker.dos.GraphAnswer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Loads the questions and answers the demo server records in the samples directory.
+ *
+ * The layout is samples/question/{correct,incorrect,unknown}/*.json, where each file is a GraphAnswer, alongside
+ * samples/question/specification.json, which holds the specification in its "specification" field. Questions without
+ * a specification can't be marked, so they are skipped with a warning.
+ */
+class Samples {
+
+    /**
+     * The classes answers are filed under, in the order they are reported.
+     */
+    static final List<String> LABELS = Arrays.asList("correct", "incorrect", "unknown");
+
+    private final ObjectMapper om = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * Load the questions in a samples directory, in a stable order.
+     *
+     * @param samples The samples directory.
+     * @param questions The questions to load, or empty to load every question in the directory.
+     * @param warnings Where to report questions that are skipped.
+     * @return The questions, of which there is at least one.
+     * @throws IOException If a specification or an answer can't be read, or there are no questions to load.
+     * @throws IllegalArgumentException If a question asked for isn't in the directory or has no specification.
+     */
+    List<Question> load(File samples, Collection<String> questions, PrintStream warnings) throws IOException {
+        File[] questionDirs = samples.listFiles(File::isDirectory);
+        if (questionDirs == null) {
+            throw new IOException("No samples directory at " + samples.getAbsolutePath());
+        }
+        Arrays.sort(questionDirs, Comparator.comparing(File::getName));
+
+        List<Question> loaded = new ArrayList<>();
+        for (File questionDir : questionDirs) {
+            if (!questions.isEmpty() && !questions.contains(questionDir.getName())) {
+                continue;
+            }
+            File specificationFile = new File(questionDir, "specification.json");
+            if (!specificationFile.isFile()) {
+                warnings.printf("Skipping %s, which has no specification.json%n", questionDir.getName());
+                continue;
+            }
+            JsonNode specification = om.readTree(specificationFile).get("specification");
+            if (specification == null || !specification.isTextual()) {
+                throw new IOException("No specification in " + specificationFile.getAbsolutePath());
+            }
+
+            List<Sample> answers = new ArrayList<>();
+            for (String label : LABELS) {
+                File[] files = new File(questionDir, label).listFiles((dir, name) -> name.endsWith(".json"));
+                if (files == null) {
+                    continue;
+                }
+                Arrays.sort(files, Comparator.comparing(File::getName));
+                for (File file : files) {
+                    answers.add(new Sample(label, label + "/" + file.getName(), om.readValue(file, GraphAnswer.class)));
+                }
+            }
+            loaded.add(new Question(questionDir.getName(), specification.asText(), answers));
+        }
+
+        // A mistyped question would otherwise regrade nothing and pass
+        List<String> missing = new ArrayList<>(questions);
+        loaded.forEach(question -> missing.remove(question.getId()));
+        missing.sort(null);
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("No question with a specification.json for " + missing + " in "
+                + samples.getAbsolutePath());
+        }
+        if (loaded.isEmpty()) {
+            throw new IOException("No questions with a specification.json in " + samples.getAbsolutePath());
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,428 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.regrade;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.isaacphysics.graphchecker.data.Input;
+import org.isaacphysics.graphchecker.features.Features;
+import org.isaacphysics.graphchecker.settings.CustomSettings;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Sweeps the marking settings over a grid or a random sample of values, marking every labelled answer in a samples
+ * directory at each point, and reports the points that make the best trade-off between correct answers failing and
+ * incorrect answers passing.
+ *
+ * The work that doesn't depend on the settings is done once for the whole sweep: answers are read and converted to
+ * Input, specifications are parsed, and what is worked out about each line is remembered between points. Each point
+ * only builds its sectors, its feature instances and marks the lines against them.
+ */
+public final class Sweep {
+
+    private static final int FALSE_NEGATIVES = 0;
+    private static final int FALSE_POSITIVES = 1;
+    private static final int ERRORS = 2;
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * The usage message printed for --help.
+     */
+    private static final String USAGE = String.join(System.lineSeparator(),
+        "Usage: Sweep --vary SETTING=VALUES [--vary ...] [--random N] [--seed N] [--settings FILE]",
+        "             [--samples DIR] [--questions ID,...] [--threads N] [--output FILE]",
+        "Marks the samples at each point and writes a JSON report of the frontier; see the README for the options.");
+
+    /**
+     * Utility class.
+     */
+    private Sweep() {
+    }
+
+    /**
+     * The command line options for a sweep.
+     */
+    static class Options {
+        private final Set<String> questions = new HashSet<>();
+        private final List<SweepSpace.Parameter> parameters = new ArrayList<>();
+        private File samples = new File("samples");
+        private File settings;
+        private File output;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int random;
+        private long seed;
+
+        /**
+         * Parse command line arguments.
+         *
+         * @param args The arguments.
+         * @return The options.
+         * @throws IllegalArgumentException If the arguments are not understood.
+         */
+        static Options parse(String... args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "--samples":
+                        options.samples = new File(value);
+                        break;
+                    case "--settings":
+                        options.settings = new File(value);
+                        break;
+                    case "--questions":
+                        options.questions.addAll(Arrays.asList(value.split(",")));
+                        break;
+                    case "--vary":
+                        options.parameters.add(SweepSpace.Parameter.parse(value));
+                        break;
+                    case "--random":
+                        options.random = Integer.parseInt(value);
+                        break;
+                    case "--seed":
+                        options.seed = Long.parseLong(value);
+                        break;
+                    case "--threads":
+                        options.threads = Integer.parseInt(value);
+                        break;
+                    case "--output":
+                        options.output = new File(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+            if (options.parameters.isEmpty()) {
+                throw new IllegalArgumentException("Give at least one setting to --vary");
+            }
+            if (options.threads < 1 || options.random < 0) {
+                throw new IllegalArgumentException("Threads must be positive and random points not negative");
+            }
+            return options;
+        }
+
+        /**
+         * @return The questions to mark, or empty for all of them.
+         */
+        Set<String> getQuestions() {
+            return questions;
+        }
+
+        /**
+         * @return The settings to vary.
+         */
+        List<SweepSpace.Parameter> getParameters() {
+            return parameters;
+        }
+
+        /**
+         * @return The samples directory.
+         */
+        File getSamples() {
+            return samples;
+        }
+
+        /**
+         * @return The settings JSON file the varied settings are applied to, or null to start from the defaults.
+         */
+        File getSettings() {
+            return settings;
+        }
+
+        /**
+         * @return The file to write the JSON report to, or null to write it to standard output.
+         */
+        File getOutput() {
+            return output;
+        }
+
+        /**
+         * @return The number of threads to mark on.
+         */
+        int getThreads() {
+            return threads;
+        }
+
+        /**
+         * @return The number of points to draw at random, or 0 to sweep the whole grid.
+         */
+        int getRandom() {
+            return random;
+        }
+
+        /**
+         * @return The seed for drawing random points.
+         */
+        long getSeed() {
+            return seed;
+        }
+    }
+
+    /**
+     * Run a sweep and exit.
+     *
+     * @param args Command line arguments; see the README.
+     * @throws InterruptedException If interrupted while marking.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        System.exit(run(System.out, System.err, args));
+    }
+
+    /**
+     * Run a sweep.
+     *
+     * @param out Where to write the JSON report, unless the options name a file.
+     * @param err Where to write the frontier and any problems.
+     * @param args Command line arguments.
+     * @return The exit code, which is Regrade.EXIT_USAGE if the options, settings or samples can't be read.
+     * @throws InterruptedException If interrupted while marking.
+     */
+    static int run(PrintStream out, PrintStream err, String... args) throws InterruptedException {
+        if (Regrade.wantsHelp(args)) {
+            out.println(USAGE);
+            return Regrade.EXIT_OK;
+        }
+        Options options;
+        CustomSettings base;
+        Corpus corpus;
+        List<Map<String, Double>> values;
+        List<CustomSettings> settings = new ArrayList<>();
+        try {
+            options = Options.parse(args);
+            base = new CustomSettings();
+            if (options.getSettings() != null) {
+                base = CustomSettings.OBJECT_MAPPER.readValue(options.getSettings(), CustomSettings.class);
+            }
+            SweepSpace space = new SweepSpace(options.getParameters());
+            if (options.getRandom() > 0) {
+                values = space.random(options.getRandom(), options.getSeed());
+            } else {
+                values = space.grid();
+            }
+            for (Map<String, Double> point : values) {
+                settings.add(withValues(base, point));
+            }
+            List<Question> questions = new Samples().load(options.getSamples(), options.getQuestions(), err);
+            corpus = Corpus.prepare(questions, base, err);
+        } catch (IllegalArgumentException | IOException e) {
+            err.println(e.getMessage());
+            return Regrade.EXIT_USAGE;
+        }
+
+        List<SweepPoint> points;
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(options.getThreads());
+        try {
+            points = sweep(corpus, values, settings, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+        double millis = (System.nanoTime() - start) / NANOS_PER_MILLI;
+        List<SweepPoint> frontier = SweepPoint.frontier(points);
+
+        ObjectMapper om = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        try {
+            ObjectNode report = toJson(om, base, corpus, points, frontier);
+            if (options.getOutput() != null) {
+                om.writeValue(options.getOutput(), report);
+            } else {
+                out.println(om.writeValueAsString(report));
+            }
+        } catch (IOException e) {
+            err.println(e.getMessage());
+            return Regrade.EXIT_USAGE;
+        }
+
+        err.printf("Swept %d points over %d answers in %.0f ms (%.1f ms a point)%n", points.size(),
+            corpus.correctCount() + corpus.incorrectCount(), millis, millis / Math.max(1, points.size()));
+        err.println("Frontier (false negatives, false positives, settings):");
+        for (SweepPoint point : frontier) {
+            err.printf("  %4d %4d  %s%n", point.getFalseNegatives(), point.getFalsePositives(), point.getValues());
+        }
+        return Regrade.EXIT_OK;
+    }
+
+    /**
+     * Apply varied values to some settings.
+     *
+     * Settings which are whole numbers are rounded, and the rounded value is put back into the values.
+     *
+     * @param base The settings to start from.
+     * @param values The values of the settings to vary, by their names in settings JSON.
+     * @return The new settings.
+     * @throws IllegalArgumentException If a setting doesn't exist or isn't a number.
+     * @throws IOException If the new settings can't be created.
+     */
+    static CustomSettings withValues(CustomSettings base, Map<String, Double> values) throws IOException {
+        ObjectNode node = CustomSettings.OBJECT_MAPPER.valueToTree(base);
+        for (Map.Entry<String, Double> value : values.entrySet()) {
+            JsonNode current = node.get(value.getKey());
+            if (current == null || !current.isNumber()) {
+                throw new IllegalArgumentException("There is no numeric setting called " + value.getKey());
+            }
+            if (current.isIntegralNumber()) {
+                value.setValue((double) Math.round(value.getValue()));
+                node.put(value.getKey(), Math.round(value.getValue()));
+            } else {
+                node.put(value.getKey(), value.getValue());
+            }
+        }
+        return CustomSettings.OBJECT_MAPPER.treeToValue(node, CustomSettings.class);
+    }
+
+    /**
+     * Mark the corpus with each point's settings, in parallel.
+     *
+     * @param corpus The labelled answers.
+     * @param values The values of the varied settings at each point.
+     * @param settings The settings at each point.
+     * @param executor The threads to mark on.
+     * @return The result of each point, in order.
+     * @throws InterruptedException If interrupted while waiting for marks.
+     */
+    static List<SweepPoint> sweep(Corpus corpus, List<Map<String, Double>> values, List<CustomSettings> settings,
+                                  ExecutorService executor) throws InterruptedException {
+        // Each question at each point is a separate task, so a small sweep still uses every thread
+        List<List<Future<int[]>>> marks = new ArrayList<>();
+        for (CustomSettings pointSettings : settings) {
+            Features features = new Features(pointSettings);
+            List<Future<int[]>> pointMarks = new ArrayList<>();
+            for (Corpus.Entry entry : corpus.getEntries()) {
+                pointMarks.add(executor.submit(() -> mark(features, entry)));
+            }
+            marks.add(pointMarks);
+        }
+
+        List<SweepPoint> points = new ArrayList<>();
+        for (int i = 0; i < marks.size(); i++) {
+            int[] counts = new int[ERRORS + 1];
+            for (Future<int[]> questionMarks : marks.get(i)) {
+                int[] questionCounts;
+                try {
+                    questionCounts = questionMarks.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Marking failed unexpectedly", e.getCause());
+                }
+                for (int j = 0; j < counts.length; j++) {
+                    counts[j] += questionCounts[j];
+                }
+            }
+            points.add(new SweepPoint(values.get(i), corpus.correctCount(), corpus.incorrectCount(),
+                counts[FALSE_NEGATIVES], counts[FALSE_POSITIVES], counts[ERRORS]));
+        }
+        return points;
+    }
+
+    /**
+     * Mark a question's answers with some settings.
+     *
+     * @param features The features, with the settings to mark with.
+     * @param entry The question and its answers.
+     * @return The number of false negatives, false positives and errors. An answer filed as correct which can't be
+     *         marked is a false negative as well as an error.
+     */
+    private static int[] mark(Features features, Corpus.Entry entry) {
+        int[] counts = new int[ERRORS + 1];
+        Features.Matcher matcher;
+        try {
+            matcher = features.matcher(entry.getSpecification());
+        } catch (RuntimeException e) {
+            counts[FALSE_NEGATIVES] = entry.getCorrect().size();
+            counts[ERRORS] = entry.getCorrect().size() + entry.getIncorrect().size();
+            return counts;
+        }
+        for (Input input : entry.getCorrect()) {
+            try {
+                if (!matcher.getFailingSpecs(input).isEmpty()) {
+                    counts[FALSE_NEGATIVES]++;
+                }
+            } catch (RuntimeException e) {
+                counts[FALSE_NEGATIVES]++;
+                counts[ERRORS]++;
+            }
+        }
+        for (Input input : entry.getIncorrect()) {
+            try {
+                if (matcher.getFailingSpecs(input).isEmpty()) {
+                    counts[FALSE_POSITIVES]++;
+                }
+            } catch (RuntimeException e) {
+                counts[ERRORS]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Write the results of a sweep as JSON.
+     *
+     * @param om The object mapper to create the JSON with.
+     * @param base The settings the varied settings were applied to.
+     * @param corpus The labelled answers.
+     * @param points The result of each point.
+     * @param frontier The points on the frontier.
+     * @return The report.
+     */
+    private static ObjectNode toJson(ObjectMapper om, CustomSettings base, Corpus corpus, List<SweepPoint> points,
+                                     List<SweepPoint> frontier) {
+        ObjectNode json = om.createObjectNode();
+        json.set("base", CustomSettings.OBJECT_MAPPER.valueToTree(base));
+        json.put("correct", corpus.correctCount());
+        json.put("incorrect", corpus.incorrectCount());
+        json.set("points", pointsToJson(om, points));
+        json.set("frontier", pointsToJson(om, frontier));
+        return json;
+    }
+
+    /**
+     * Write the results of some points as JSON.
+     * @param om The object mapper to create the JSON with.
+     * @param points The points.
+     * @return An array with an object for each point.
+     */
+    private static ArrayNode pointsToJson(ObjectMapper om, List<SweepPoint> points) {
+        ArrayNode json = om.createArrayNode();
+        for (SweepPoint point : points) {
+            ObjectNode pointJson = json.addObject();
+            pointJson.set("settings", om.valueToTree(point.getValues()));
+            pointJson.put("falseNegatives", point.getFalseNegatives());
+            pointJson.put("falsePositives", point.getFalsePositives());
+            pointJson.put("errors", point.getErrors());
+            pointJson.put("accuracy", point.getAccuracy());
+        }
+        return json;
+    }
+}
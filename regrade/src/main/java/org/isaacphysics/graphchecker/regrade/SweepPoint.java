@@ -0,0 +1,130 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.regrade;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The marks of the labelled answers with one point's settings: how many correct answers failed and how many incorrect
+ * answers passed.
+ */
+class SweepPoint {
+    private final Map<String, Double> values;
+    private final int correct;
+    private final int incorrect;
+    private final int falseNegatives;
+    private final int falsePositives;
+    private final int errors;
+
+    /**
+     * Create the result of a point.
+     * @param values The values of the settings that were varied.
+     * @param correct The number of answers filed as correct.
+     * @param incorrect The number of answers filed as incorrect.
+     * @param falseNegatives The number of answers filed as correct which failed or couldn't be marked.
+     * @param falsePositives The number of answers filed as incorrect which passed.
+     * @param errors The number of answers which couldn't be marked.
+     */
+    SweepPoint(Map<String, Double> values, int correct, int incorrect, int falseNegatives, int falsePositives,
+               int errors) {
+        this.values = values;
+        this.correct = correct;
+        this.incorrect = incorrect;
+        this.falseNegatives = falseNegatives;
+        this.falsePositives = falsePositives;
+        this.errors = errors;
+    }
+
+    /**
+     * @return The values of the settings that were varied.
+     */
+    Map<String, Double> getValues() {
+        return values;
+    }
+
+    /**
+     * @return The number of answers filed as correct which failed or couldn't be marked.
+     */
+    int getFalseNegatives() {
+        return falseNegatives;
+    }
+
+    /**
+     * @return The number of answers filed as incorrect which passed.
+     */
+    int getFalsePositives() {
+        return falsePositives;
+    }
+
+    /**
+     * @return The number of answers which couldn't be marked.
+     */
+    int getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return The fraction of labelled answers marked as they were filed.
+     */
+    double getAccuracy() {
+        int total = correct + incorrect;
+        if (total == 0) {
+            return 1;
+        }
+        return (double) (total - falseNegatives - falsePositives) / total;
+    }
+
+    /**
+     * @param other Another point.
+     * @return True if this point is at least as good as the other on both kinds of mistake, and better on one.
+     */
+    boolean dominates(SweepPoint other) {
+        return falseNegatives <= other.falseNegatives && falsePositives <= other.falsePositives
+            && (falseNegatives < other.falseNegatives || falsePositives < other.falsePositives);
+    }
+
+    /**
+     * Find the points which no other point beats on both false negatives and false positives.
+     *
+     * @param points The points.
+     * @return The points on the frontier, with the fewest false negatives first. Points with the same marks are all
+     *         kept, in the order they were given.
+     */
+    static List<SweepPoint> frontier(List<SweepPoint> points) {
+        List<SweepPoint> sorted = new ArrayList<>(points);
+        sorted.sort(Comparator.comparingInt(SweepPoint::getFalseNegatives)
+            .thenComparingInt(SweepPoint::getFalsePositives));
+
+        // Going through in order of false negatives, a point is on the frontier if it has fewer false positives than
+        // every point before it, or the same marks as the last point on the frontier
+        List<SweepPoint> frontier = new ArrayList<>();
+        for (SweepPoint point : sorted) {
+            if (frontier.isEmpty()) {
+                frontier.add(point);
+                continue;
+            }
+            SweepPoint last = frontier.get(frontier.size() - 1);
+            if (point.falsePositives < last.falsePositives
+                || point.falsePositives == last.falsePositives && point.falseNegatives == last.falseNegatives) {
+                frontier.add(point);
+            }
+        }
+        return frontier;
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.regrade;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * The settings to try in a sweep: a set of values or a range for each setting that is varied.
+ *
+ * A parameter is written name=value,value,... for a list of values, or name=min:max:steps for a range, which a grid
+ * divides into evenly spaced values (five unless steps is given) and a random search draws uniformly from.
+ */
+class SweepSpace {
+
+    private static final int DEFAULT_STEPS = 5;
+
+    /**
+     * A setting to vary and the values to try.
+     */
+    static final class Parameter {
+        private final String name;
+        private final List<Double> values;
+        private final double min;
+        private final double max;
+        private final boolean range;
+
+        /**
+         * Create a parameter.
+         * @param name The name of the setting, as it appears in settings JSON.
+         * @param values The values for a grid.
+         * @param min The lowest value for a random search.
+         * @param max The highest value for a random search.
+         * @param range True to draw random values from min to max, or false to draw them from the values.
+         */
+        private Parameter(String name, List<Double> values, double min, double max, boolean range) {
+            this.name = name;
+            this.values = values;
+            this.min = min;
+            this.max = max;
+            this.range = range;
+        }
+
+        /**
+         * Parse a parameter.
+         *
+         * @param text The parameter, as name=value,value,... or name=min:max or name=min:max:steps.
+         * @return The parameter.
+         * @throws IllegalArgumentException If the parameter can't be parsed.
+         */
+        static Parameter parse(String text) {
+            int equals = text.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Expected name=values, not " + text);
+            }
+            String name = text.substring(0, equals).trim();
+            String values = text.substring(equals + 1);
+            try {
+                if (values.contains(":")) {
+                    String[] parts = values.split(":");
+                    if (parts.length < 2 || parts.length > 3) {
+                        throw new IllegalArgumentException("Expected min:max or min:max:steps for " + name);
+                    }
+                    double min = Double.parseDouble(parts[0]);
+                    double max = Double.parseDouble(parts[1]);
+                    int steps = DEFAULT_STEPS;
+                    if (parts.length == 3) {
+                        steps = Integer.parseInt(parts[2]);
+                    }
+                    if (max < min || steps < 2) {
+                        throw new IllegalArgumentException(
+                            "A range for " + name + " needs min <= max and 2 or more steps");
+                    }
+                    // Step in decimal, so the values are the ones a person would have written
+                    BigDecimal low = new BigDecimal(parts[0].trim());
+                    BigDecimal width = new BigDecimal(parts[1].trim()).subtract(low);
+                    List<Double> grid = new ArrayList<>(steps);
+                    for (int i = 0; i < steps; i++) {
+                        grid.add(low.add(width.multiply(BigDecimal.valueOf(i))
+                            .divide(BigDecimal.valueOf(steps - 1), MathContext.DECIMAL64)).doubleValue());
+                    }
+                    return new Parameter(name, grid, min, max, true);
+                }
+                List<Double> list = Arrays.stream(values.split(","))
+                    .map(String::trim)
+                    .map(Double::valueOf)
+                    .collect(Collectors.toList());
+                return new Parameter(name, list, 0, 0, false);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Expected numbers for " + name + ", not " + values);
+            }
+        }
+
+        /**
+         * @return The name of the setting.
+         */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * @return The values a grid tries.
+         */
+        List<Double> getValues() {
+            return values;
+        }
+
+        /**
+         * Draw a value for a random search.
+         * @param random The source of randomness.
+         * @return The value.
+         */
+        double draw(Random random) {
+            if (range) {
+                return min + random.nextDouble() * (max - min);
+            }
+            return values.get(random.nextInt(values.size()));
+        }
+    }
+
+    private final List<Parameter> parameters;
+
+    /**
+     * Create a sweep space.
+     * @param parameters The settings to vary.
+     */
+    SweepSpace(List<Parameter> parameters) {
+        this.parameters = parameters;
+    }
+
+    /**
+     * @return The settings that are varied.
+     */
+    List<Parameter> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * @return Every combination of the parameters' values, varying the last parameter fastest.
+     */
+    List<Map<String, Double>> grid() {
+        List<Map<String, Double>> points = new ArrayList<>();
+        points.add(new LinkedHashMap<>());
+        for (Parameter parameter : parameters) {
+            List<Map<String, Double>> extended = new ArrayList<>(points.size() * parameter.values.size());
+            for (Map<String, Double> point : points) {
+                for (double value : parameter.values) {
+                    Map<String, Double> next = new LinkedHashMap<>(point);
+                    next.put(parameter.name, value);
+                    extended.add(next);
+                }
+            }
+            points = extended;
+        }
+        return points;
+    }
+
+    /**
+     * Draw points at random from the parameters' ranges.
+     *
+     * @param count The number of points.
+     * @param seed The seed, so the same points can be drawn again.
+     * @return The points.
+     */
+    List<Map<String, Double>> random(int count, long seed) {
+        Random random = new Random(seed);
+        List<Map<String, Double>> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Double> point = new LinkedHashMap<>();
+            for (Parameter parameter : parameters) {
+                point.put(parameter.name, parameter.draw(random));
+            }
+            points.add(point);
+        }
+        return points;
+    }
+}
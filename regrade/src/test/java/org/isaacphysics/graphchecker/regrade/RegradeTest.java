@@ -0,0 +1,139 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.regrade;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RegradeTest {
+
+    private static final Path ANSWER = Paths.get("../samples/asymptotic-curve/correct")
+        .resolve("2022-09-23T14.43.59.642Z 1 0.0.0.0.0.0.0.1.json");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private int run(String... args) throws InterruptedException {
+        return Regrade.run(new PrintStream(out, true, StandardCharsets.UTF_8),
+            new PrintStream(err, true, StandardCharsets.UTF_8), args);
+    }
+
+    /**
+     * Make a question with the same answer filed as both correct and incorrect, so exactly one of them mismatches.
+     */
+    private File samplesWithOneMismatch(String specification) throws IOException {
+        File samples = folder.newFolder("samples");
+        Path question = samples.toPath().resolve("question");
+        Files.createDirectories(question.resolve("correct"));
+        Files.createDirectories(question.resolve("incorrect"));
+        Files.writeString(question.resolve("specification.json"),
+            new ObjectMapper().createObjectNode().put("specification", specification).toString());
+        Files.copy(ANSWER, question.resolve("correct/a.json"));
+        Files.copy(ANSWER, question.resolve("incorrect/a.json"));
+        return samples;
+    }
+
+    @Test
+    public void optionsAreParsed() {
+        Regrade.Options options = Regrade.Options.parse("--samples", "elsewhere", "--threads", "3",
+            "--questions", "x,y", "--allowed-mismatches", "2");
+
+        assertEquals(new File("elsewhere"), options.getSamples());
+        assertEquals(3, options.getThreads());
+        assertEquals(2, options.getAllowedMismatches());
+        assertTrue(options.getQuestions().contains("y"));
+    }
+
+    @Test
+    public void unknownOptionsExitWithUsageError() throws Exception {
+        assertEquals(Regrade.EXIT_USAGE, run("--turbo", "yes"));
+    }
+
+    @Test
+    public void helpPrintsUsageAndExitsCleanly() throws Exception {
+        assertEquals(Regrade.EXIT_OK, run("--help"));
+        assertTrue(out.toString(StandardCharsets.UTF_8).startsWith("Usage: Regrade"));
+
+        assertEquals(Regrade.EXIT_OK, run("--samples", "elsewhere", "-h"));
+    }
+
+    @Test
+    public void unknownQuestionsExitWithUsageError() throws Exception {
+        File samples = samplesWithOneMismatch("through: topRight");
+
+        assertEquals(Regrade.EXIT_USAGE, run("--samples", samples.getPath(), "--questions", "nope"));
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("[nope]"));
+    }
+
+    @Test
+    public void emptySamplesExitWithUsageError() throws Exception {
+        assertEquals(Regrade.EXIT_USAGE, run("--samples", folder.newFolder("empty").getPath()));
+    }
+
+    @Test
+    public void featuresAreTakenFromFailingSpecs() {
+        assertEquals("through", Report.featureOf("through: topRight"));
+        assertEquals("slope", Report.featureOf("line: 1; slope: start=flat"));
+    }
+
+    @Test
+    public void mismatchesAreReportedAndGateTheExitCode() throws Exception {
+        File samples = samplesWithOneMismatch("through: topRight\r\nslope: start=down, end=flat");
+
+        assertEquals(Regrade.EXIT_MISMATCHES, run("--samples", samples.getPath(), "--threads", "2"));
+
+        JsonNode report = new ObjectMapper().readTree(out.toString(StandardCharsets.UTF_8));
+        assertEquals(2, report.get("summary").get("answers").asInt());
+        assertEquals(1, report.get("summary").get("mismatches").asInt());
+        assertEquals(1, report.get("questions").get("question").get("mismatches").size());
+        JsonNode correct = report.get("confusion").get("correct");
+        JsonNode incorrect = report.get("confusion").get("incorrect");
+        assertEquals(correct.get("passed"), incorrect.get("passed"));
+
+        assertEquals(Regrade.EXIT_OK, run("--samples", samples.getPath(), "--allowed-mismatches", "1"));
+    }
+
+    @Test
+    public void failingFeaturesAreCounted() throws Exception {
+        File samples = samplesWithOneMismatch("through:bottomLeft");
+
+        run("--samples", samples.getPath());
+
+        JsonNode report = new ObjectMapper().readTree(out.toString(StandardCharsets.UTF_8));
+        assertEquals(1, report.get("featureFailures").get("through").get("correct").asInt());
+        assertEquals(1, report.get("featureFailures").get("through").get("incorrect").asInt());
+        assertEquals(1, report.get("questions").get("question").get("failingSpecs")
+            .get("through: bottomLeft").get("correct").asInt());
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2019 University of Cambridge
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.isaacphysics.graphchecker.regrade;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.isaacphysics.graphchecker.settings.CustomSettings;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class SweepTest {
+
+    private static final Path ANSWER = Paths.get("../samples/asymptotic-curve/correct")
+        .resolve("2022-09-23T14.43.59.642Z 1 0.0.0.0.0.0.0.1.json");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SweepPoint point(int falseNegatives, int falsePositives) {
+        return new SweepPoint(Collections.emptyMap(), 10, 10, falseNegatives, falsePositives, 0);
+    }
+
+    @Test
+    public void rangesAreDividedIntoSteps() {
+        SweepSpace.Parameter parameter = SweepSpace.Parameter.parse("axisSlop=0.01:0.03:3");
+
+        assertEquals("axisSlop", parameter.getName());
+        assertEquals(Arrays.asList(0.01, 0.02, 0.03), parameter.getValues());
+        assertEquals(Arrays.asList(1.0, 2.5), SweepSpace.Parameter.parse("x=1, 2.5").getValues());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void backwardsRangesAreRejected() {
+        SweepSpace.Parameter.parse("axisSlop=0.05:0.01");
+    }
+
+    @Test
+    public void gridVariesTheLastParameterFastest() {
+        SweepSpace space = new SweepSpace(Arrays.asList(
+            SweepSpace.Parameter.parse("a=1,2"),
+            SweepSpace.Parameter.parse("b=3,4,5")));
+
+        List<Map<String, Double>> grid = space.grid();
+
+        assertEquals(6, grid.size());
+        assertEquals(Arrays.asList(3.0, 4.0, 5.0, 3.0, 4.0, 5.0),
+            grid.stream().map(point -> point.get("b")).collect(Collectors.toList()));
+        assertEquals(space.random(4, 7), space.random(4, 7));
+    }
+
+    @Test
+    public void frontierKeepsPointsNoOtherPointBeats() {
+        SweepPoint a = point(0, 5);
+        SweepPoint b = point(1, 1);
+        SweepPoint c = point(2, 0);
+        SweepPoint d = point(1, 3);
+        SweepPoint e = point(1, 1);
+        SweepPoint f = point(3, 0);
+
+        assertEquals(Arrays.asList(a, b, e, c), SweepPoint.frontier(Arrays.asList(a, b, c, d, e, f)));
+    }
+
+    @Test
+    public void wholeNumberSettingsAreRounded() throws Exception {
+        Map<String, Double> values = new LinkedHashMap<>();
+        values.put("numberOfPointsAtEnds", 3.6);
+        values.put("axisSlop", 0.03);
+
+        CustomSettings settings = Sweep.withValues(new CustomSettings(), values);
+
+        assertEquals(4, settings.getNumberOfPointsAtEnds());
+        assertEquals(0.03, settings.getAxisSlop(), 0);
+        assertEquals(4.0, values.get("numberOfPointsAtEnds"), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownSettingsAreRejected() throws Exception {
+        Sweep.withValues(new CustomSettings(), Collections.singletonMap("warpFactor", 9.0));
+    }
+
+    @Test
+    public void everyPointIsMarked() throws Exception {
+        // The same answer filed as both correct and incorrect is a mistake whatever the settings
+        File samples = folder.newFolder("samples");
+        Path question = samples.toPath().resolve("question");
+        Files.createDirectories(question.resolve("correct"));
+        Files.createDirectories(question.resolve("incorrect"));
+        Files.writeString(question.resolve("specification.json"),
+            "{\"specification\": \"through: topRight\\r\\nslope: start=down, end=flat\"}");
+        Files.copy(ANSWER, question.resolve("correct/a.json"));
+        Files.copy(ANSWER, question.resolve("incorrect/a.json"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int exitCode = Sweep.run(new PrintStream(out, true, StandardCharsets.UTF_8),
+            new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8),
+            "--samples", samples.getPath(), "--vary", "axisSlop=0.01,0.02,0.03", "--threads", "2");
+
+        assertEquals(Regrade.EXIT_OK, exitCode);
+        JsonNode report = new ObjectMapper().readTree(out.toString(StandardCharsets.UTF_8));
+        assertEquals(3, report.get("points").size());
+        for (JsonNode point : report.get("points")) {
+            assertEquals(1, point.get("falseNegatives").asInt() + point.get("falsePositives").asInt());
+        }
+    }
+}